@@ -1,20 +1,61 @@
 package com.arthsethu.config;
 
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
 import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Configuration for caching government data
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
-    
+
     @Bean
     public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("locationData");
+        return new ConcurrentMapCacheManager("locationData") {
+            @Override
+            protected Cache createConcurrentMapCache(String name) {
+                return new CountingCache(name, isAllowNullValues());
+            }
+        };
+    }
+
+    /**
+     * Concurrent map cache that counts lookups so the metrics recorder can chart hit rates
+     */
+    public static class CountingCache extends ConcurrentMapCache {
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        public CountingCache(String name, boolean allowNullValues) {
+            super(name, allowNullValues);
+        }
+
+        @Override
+        protected Object lookup(Object key) {
+            Object value = super.lookup(key);
+            if (value != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+            }
+            return value;
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
     }
-}
\ No newline at end of file
+}
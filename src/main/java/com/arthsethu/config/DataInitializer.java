@@ -10,7 +10,9 @@ import org.springframework.stereotype.Component;
 import com.arthsethu.model.Role;
 import com.arthsethu.model.SubscriptionTier;
 import com.arthsethu.model.User;
+import com.arthsethu.repository.DailyMetricsBulkRepository;
 import com.arthsethu.repository.UserRepository;
+import com.arthsethu.service.MetricsRollupService;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
@@ -23,8 +25,16 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private DailyMetricsBulkRepository dailyMetricsBulkRepository;
+
+    @Autowired
+    private MetricsRollupService metricsRollupService;
+
     @Override
     public void run(String... args) throws Exception {
+        dailyMetricsBulkRepository.alignIdSequence();
+        metricsRollupService.prepareStorage();
         initializeAdminUser();
     }
 
@@ -0,0 +1,41 @@
+package com.arthsethu.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+/**
+ * Enables scheduled background jobs and runs them on a pool of their own.
+ *
+ * Long runs (subscription lifecycle, rollup maintenance, health score recompute) hold a
+ * thread for as long as they take, so the short periodic jobs (expiry wheel tick, outbox
+ * poll, payment sweep) keep to their schedule on the other threads. The pool is not a
+ * TaskScheduler bean, so it does not displace the WebSocket broker's scheduler.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig implements SchedulingConfigurer, DisposableBean {
+
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+    public SchedulingConfig(@Value("${arthsethu.scheduling.pool-size:6}") int poolSize) {
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduled-");
+        scheduler.initialize();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        // Scheduled jobs declare their own cron/fixed-rate settings via @Scheduled
+        registrar.setTaskScheduler(scheduler);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdown();
+    }
+}
@@ -1,16 +1,21 @@
 package com.arthsethu.config;
 
+import java.util.Map;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.ExceptionMappingAuthenticationFailureHandler;
 
+import com.arthsethu.security.BoundedPasswordEncoder;
+import com.arthsethu.security.LoginBusyException;
 import com.arthsethu.service.UserDetailsServiceImpl;
 
 @Configuration
@@ -22,9 +27,22 @@ public class SecurityConfig {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    /**
+     * BCrypt with verification on a bounded pool; see {@link BoundedPasswordEncoder}
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${arthsethu.security.password.bcrypt-strength:10}") int strength,
+                                           @Value("${arthsethu.security.password.verify-threads:0}") int threads,
+                                           @Value("${arthsethu.security.password.queue-capacity:32}") int queueCapacity,
+                                           @Value("${arthsethu.security.password.max-queue-ms:2000}") long maxQueueMs) {
+        return new BoundedPasswordEncoder(strength, threads, queueCapacity, maxQueueMs);
+    }
+    
+    private ExceptionMappingAuthenticationFailureHandler loginFailureHandler() {
+        ExceptionMappingAuthenticationFailureHandler handler = new ExceptionMappingAuthenticationFailureHandler();
+        handler.setDefaultFailureUrl("/login?error");
+        handler.setExceptionMappings(Map.of(LoginBusyException.class.getName(), "/login?busy"));
+        return handler;
     }
 
     @Bean
@@ -32,6 +50,7 @@ public class SecurityConfig {
         http
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/", "/register", "/login", "/css/**", "/js/**", "/images/**").permitAll()
+                .requestMatchers("/payments/webhook").permitAll() // Authenticated by its HMAC signature
                 .requestMatchers("/onboarding/start", "/onboarding/next-question", "/onboarding/validate", "/onboarding/progress").permitAll()
                 .requestMatchers("/onboarding/complete").authenticated() // Require authentication for completion
                 .requestMatchers("/admin/**").hasRole("ADMIN")
@@ -43,6 +62,7 @@ public class SecurityConfig {
             .formLogin(form -> form
                 .loginPage("/login")
                 .defaultSuccessUrl("/dashboard", true)
+                .failureHandler(loginFailureHandler())
                 .permitAll()
             )
             .logout(logout -> logout
@@ -0,0 +1,34 @@
+package com.arthsethu.config;
+
+import com.arthsethu.service.LatencyModellingChatModel;
+import com.arthsethu.service.MockChatModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Replaces the Ollama ChatModel with {@link LatencyModellingChatModel} for load testing.
+ * Only active when arthsethu.ai.stub.enabled=true; never enable in production.
+ */
+@Configuration
+@ConditionalOnProperty(name = "arthsethu.ai.stub.enabled", havingValue = "true")
+public class StubChatModelConfig {
+    
+    @Bean
+    @Primary
+    public LatencyModellingChatModel latencyModellingChatModel(
+            MockChatModel mockChatModel,
+            @Value("${arthsethu.ai.stub.distribution:LOGNORMAL}") LatencyModellingChatModel.Distribution distribution,
+            @Value("${arthsethu.ai.stub.first-token-median-ms:800}") long medianFirstTokenMs,
+            @Value("${arthsethu.ai.stub.first-token-p99-ms:4000}") long p99FirstTokenMs,
+            @Value("${arthsethu.ai.stub.tokens-per-second:25}") double tokensPerSecond,
+            @Value("${arthsethu.ai.stub.failure-rate:0.0}") double failureRate,
+            @Value("${arthsethu.ai.stub.hang-rate:0.0}") double hangRate,
+            @Value("${arthsethu.ai.stub.hang-ms:60000}") long hangMs,
+            @Value("${arthsethu.ai.stub.parallel-slots:2}") int parallelSlots) {
+        return new LatencyModellingChatModel(mockChatModel, distribution, medianFirstTokenMs, p99FirstTokenMs,
+                                             tokensPerSecond, failureRate, hangRate, hangMs, parallelSlots);
+    }
+}
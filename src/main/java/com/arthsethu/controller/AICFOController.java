@@ -3,13 +3,21 @@ package com.arthsethu.controller;
 import com.arthsethu.dto.AICFORequest;
 import com.arthsethu.dto.WhatIfAnalysis;
 import com.arthsethu.model.BusinessProfile;
+import com.arthsethu.model.ChatMessage;
 import com.arthsethu.model.DailyMetrics;
 import com.arthsethu.model.SubscriptionTier;
 import com.arthsethu.model.User;
 import com.arthsethu.repository.BusinessProfileRepository;
 import com.arthsethu.repository.DailyMetricsRepository;
-import com.arthsethu.repository.UserRepository;
+import com.arthsethu.security.CurrentUserService;
+import com.arthsethu.security.EntitlementCache;
+import com.arthsethu.security.RateLimitClass;
+import com.arthsethu.security.RateLimited;
+import com.arthsethu.security.RateLimiter;
 import com.arthsethu.service.AICFOService;
+import com.arthsethu.service.AICircuitBreaker;
+import com.arthsethu.service.AIDigestService;
+import com.arthsethu.service.ChatHistoryService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -28,18 +36,32 @@ import java.util.Optional;
 @RequestMapping("/ai-cfo")
 public class AICFOController {
     
+    private static final int MAX_BATCH_SCENARIOS = 10;
+    
     private final AICFOService aicfoService;
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
     private final BusinessProfileRepository businessProfileRepository;
     private final DailyMetricsRepository dailyMetricsRepository;
     
+    @Autowired
+    private AIDigestService aiDigestService;
+    
+    @Autowired
+    private ChatHistoryService chatHistoryService;
+    
+    @Autowired
+    private RateLimiter rateLimiter;
+    
+    @Autowired
+    private EntitlementCache entitlementCache;
+    
     @Autowired
     public AICFOController(AICFOService aicfoService, 
-                          UserRepository userRepository,
+                          CurrentUserService currentUserService,
                           BusinessProfileRepository businessProfileRepository,
                           DailyMetricsRepository dailyMetricsRepository) {
         this.aicfoService = aicfoService;
-        this.userRepository = userRepository;
+        this.currentUserService = currentUserService;
         this.businessProfileRepository = businessProfileRepository;
         this.dailyMetricsRepository = dailyMetricsRepository;
     }
@@ -53,7 +75,7 @@ public class AICFOController {
             return "redirect:/login";
         }
         
-        Optional<User> userOpt = userRepository.findByEmail(authentication.getName());
+        Optional<User> userOpt = currentUserService.getCurrentUser(authentication);
         if (userOpt.isEmpty()) {
             return "redirect:/login";
         }
@@ -61,9 +83,10 @@ public class AICFOController {
         User user = userOpt.get();
         
         // Check if user has Shikhar tier access
-        if (user.getTier() != SubscriptionTier.SHIKHAR) {
+        SubscriptionTier tier = tierOf(user);
+        if (tier != SubscriptionTier.SHIKHAR) {
             model.addAttribute("requiresUpgrade", true);
-            model.addAttribute("currentTier", user.getTier());
+            model.addAttribute("currentTier", tier);
             return "ai-cfo/upgrade-required";
         }
         
@@ -84,6 +107,7 @@ public class AICFOController {
         model.addAttribute("user", user);
         model.addAttribute("profile", profile);
         model.addAttribute("recentMetrics", recentMetrics);
+        model.addAttribute("digest", aiDigestService.getLatestDigest(user).orElse(null));
         
         return "ai-cfo/chat";
     }
@@ -93,6 +117,7 @@ public class AICFOController {
      */
     @PostMapping("/query")
     @ResponseBody
+    @RateLimited(RateLimitClass.AI)
     public ResponseEntity<Map<String, Object>> processQuery(@Valid @RequestBody AICFORequest request,
                                                            Authentication authentication) {
         Map<String, Object> response = new HashMap<>();
@@ -102,7 +127,7 @@ public class AICFOController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
         }
         
-        Optional<User> userOpt = userRepository.findByEmail(authentication.getName());
+        Optional<User> userOpt = currentUserService.getCurrentUser(authentication);
         if (userOpt.isEmpty()) {
             response.put("error", "User not found");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
@@ -111,7 +136,7 @@ public class AICFOController {
         User user = userOpt.get();
         
         // Check tier access
-        if (user.getTier() != SubscriptionTier.SHIKHAR) {
+        if (tierOf(user) != SubscriptionTier.SHIKHAR) {
             response.put("error", "Shikhar tier required for AI CFO access");
             response.put("requiresUpgrade", true);
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
@@ -129,8 +154,13 @@ public class AICFOController {
             .findLast30DaysMetrics(user, java.time.LocalDate.now().minusDays(30));
         
         try {
-            String aiResponse = aicfoService.processQuery(request.getQuery(), profile, history);
-            response.put("response", aiResponse);
+            String conversation = chatHistoryService.buildConversationContext(user);
+            AICircuitBreaker.Answer aiResponse = aicfoService.answerQuery(request.getQuery(), profile, history, conversation);
+            // Fallback and error text would otherwise feed later prompts and summaries
+            if (!aiResponse.fallback()) {
+                chatHistoryService.recordExchange(user, request.getQuery(), aiResponse.content());
+            }
+            response.put("response", aiResponse.content());
             response.put("success", true);
             
             return ResponseEntity.ok(response);
@@ -147,6 +177,7 @@ public class AICFOController {
      */
     @PostMapping("/simulate")
     @ResponseBody
+    @RateLimited(RateLimitClass.AI)
     public ResponseEntity<Map<String, Object>> performSimulation(@RequestBody Map<String, String> request,
                                                                Authentication authentication) {
         Map<String, Object> response = new HashMap<>();
@@ -156,7 +187,7 @@ public class AICFOController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
         }
         
-        Optional<User> userOpt = userRepository.findByEmail(authentication.getName());
+        Optional<User> userOpt = currentUserService.getCurrentUser(authentication);
         if (userOpt.isEmpty()) {
             response.put("error", "User not found");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
@@ -165,7 +196,7 @@ public class AICFOController {
         User user = userOpt.get();
         
         // Check tier access
-        if (user.getTier() != SubscriptionTier.SHIKHAR) {
+        if (tierOf(user) != SubscriptionTier.SHIKHAR) {
             response.put("error", "Shikhar tier required for what-if simulations");
             response.put("requiresUpgrade", true);
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
@@ -199,17 +230,112 @@ public class AICFOController {
     }
     
     /**
-     * Get chat history (placeholder for future implementation)
+     * Run a sweep of what-if scenarios in one request; scenarios are micro-batched to the model.
+     * Rate limited here rather than by annotation, at one AI request per scenario.
+     */
+    @PostMapping("/simulate/batch")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> performSimulations(@RequestBody Map<String, List<String>> request,
+                                                                 Authentication authentication) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (authentication == null) {
+            response.put("error", "Authentication required");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        
+        Optional<User> userOpt = currentUserService.getCurrentUser(authentication);
+        if (userOpt.isEmpty()) {
+            response.put("error", "User not found");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        
+        User user = userOpt.get();
+        
+        // Check tier access
+        if (tierOf(user) != SubscriptionTier.SHIKHAR) {
+            response.put("error", "Shikhar tier required for what-if simulations");
+            response.put("requiresUpgrade", true);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        }
+        
+        // Get business profile
+        Optional<BusinessProfile> profileOpt = businessProfileRepository.findByUser(user);
+        if (profileOpt.isEmpty()) {
+            response.put("error", "Business profile required");
+            return ResponseEntity.badRequest().body(response);
+        }
+        
+        List<String> scenarios = request.getOrDefault("scenarios", List.of()).stream()
+            .filter(scenario -> scenario != null && !scenario.trim().isEmpty())
+            .map(String::trim)
+            .toList();
+        if (scenarios.isEmpty() || scenarios.size() > MAX_BATCH_SCENARIOS) {
+            response.put("error", "Between 1 and " + MAX_BATCH_SCENARIOS + " scenarios required");
+            return ResponseEntity.badRequest().body(response);
+        }
+        rateLimiter.acquireForCurrentUser(RateLimitClass.AI, scenarios.size());
+        
+        try {
+            List<WhatIfAnalysis> analyses = aicfoService.performSimulations(scenarios, profileOpt.get());
+            response.put("analyses", analyses);
+            response.put("success", true);
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            response.put("error", "Unable to perform simulations at this time");
+            response.put("success", false);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    /**
+     * Get chat history, newest page first; pass the returned nextBefore to load older messages
      */
     @GetMapping("/history")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> getChatHistory(Authentication authentication) {
+    public ResponseEntity<Map<String, Object>> getChatHistory(@RequestParam(required = false) Long before,
+                                                              @RequestParam(defaultValue = "20") int limit,
+                                                              Authentication authentication) {
         Map<String, Object> response = new HashMap<>();
         
-        // For now, return empty history - this could be expanded to store chat history
-        response.put("history", List.of());
+        if (authentication == null) {
+            response.put("error", "Authentication required");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        
+        Optional<User> userOpt = currentUserService.getCurrentUser(authentication);
+        if (userOpt.isEmpty()) {
+            response.put("error", "User not found");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        
+        List<ChatMessage> messages = chatHistoryService.getHistory(userOpt.get(), before, limit);
+        List<Map<String, Object>> history = messages.stream()
+            .map(message -> {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("id", message.getId());
+                entry.put("sender", message.getSender().name());
+                entry.put("content", message.getContent());
+                entry.put("createdAt", message.getCreatedAt().toString());
+                return entry;
+            })
+            .toList();
+        
+        boolean hasMore = !messages.isEmpty() && messages.size() >= Math.min(Math.max(limit, 1), 100);
+        response.put("history", history);
+        response.put("hasMore", hasMore);
+        response.put("nextBefore", hasMore ? messages.get(0).getId() : null);
         response.put("success", true);
         
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+    
+    /**
+     * Effective tier from the entitlement cache, the same source the rate limiter uses
+     */
+    private SubscriptionTier tierOf(User user) {
+        return entitlementCache.get(user.getId()).getTier();
+    }
+}
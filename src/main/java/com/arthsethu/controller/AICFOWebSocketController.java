@@ -7,12 +7,19 @@ import com.arthsethu.model.SubscriptionTier;
 import com.arthsethu.model.User;
 import com.arthsethu.repository.BusinessProfileRepository;
 import com.arthsethu.repository.DailyMetricsRepository;
-import com.arthsethu.repository.UserRepository;
+import com.arthsethu.security.CurrentUserService;
+import com.arthsethu.security.EntitlementCache;
+import com.arthsethu.security.RateLimitClass;
+import com.arthsethu.security.RateLimiter;
 import com.arthsethu.service.AICFOService;
+import com.arthsethu.service.AICircuitBreaker;
+import com.arthsethu.service.ChatHistoryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
@@ -26,19 +33,28 @@ import java.util.Optional;
 public class AICFOWebSocketController {
     
     private final AICFOService aicfoService;
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
     private final BusinessProfileRepository businessProfileRepository;
     private final DailyMetricsRepository dailyMetricsRepository;
     private final SimpMessagingTemplate messagingTemplate;
     
+    @Autowired
+    private ChatHistoryService chatHistoryService;
+    
+    @Autowired
+    private RateLimiter rateLimiter;
+    
+    @Autowired
+    private EntitlementCache entitlementCache;
+    
     @Autowired
     public AICFOWebSocketController(AICFOService aicfoService,
-                                   UserRepository userRepository,
+                                   CurrentUserService currentUserService,
                                    BusinessProfileRepository businessProfileRepository,
                                    DailyMetricsRepository dailyMetricsRepository,
                                    SimpMessagingTemplate messagingTemplate) {
         this.aicfoService = aicfoService;
-        this.userRepository = userRepository;
+        this.currentUserService = currentUserService;
         this.businessProfileRepository = businessProfileRepository;
         this.dailyMetricsRepository = dailyMetricsRepository;
         this.messagingTemplate = messagingTemplate;
@@ -52,20 +68,30 @@ public class AICFOWebSocketController {
             return;
         }
         
-        Optional<User> userOpt = userRepository.findByEmail(user.getName());
+        Optional<User> userOpt = currentUserService.getCurrentUser(user);
         if (userOpt.isEmpty()) {
             sendErrorToUser(headerAccessor.getSessionId(), "User not found");
             return;
         }
         
         User currentUser = userOpt.get();
+        // Tier from the entitlement cache, as in AICFOController and the rate limiter
+        SubscriptionTier tier = entitlementCache.get(currentUser.getId()).getTier();
         
         // Check tier access
-        if (currentUser.getTier() != SubscriptionTier.SHIKHAR) {
+        if (tier != SubscriptionTier.SHIKHAR) {
             sendErrorToUser(headerAccessor.getSessionId(), "Shikhar tier required for AI CFO access");
             return;
         }
         
+        // Same AI budget as the HTTP endpoints, so the socket is no way around it
+        long waitNanos = rateLimiter.tryAcquire(currentUser.getId(), tier, RateLimitClass.AI);
+        if (waitNanos > 0) {
+            sendErrorToUser(headerAccessor.getSessionId(),
+                "Too many requests, please retry in " + RateLimiter.retryAfterSeconds(waitNanos) + " seconds");
+            return;
+        }
+        
         // Get business profile
         Optional<BusinessProfile> profileOpt = businessProfileRepository.findByUser(currentUser);
         if (profileOpt.isEmpty()) {
@@ -78,21 +104,26 @@ public class AICFOWebSocketController {
             .findLast30DaysMetrics(currentUser, java.time.LocalDate.now().minusDays(30));
         
         // Process the query asynchronously
-        processQueryAsync(request.getQuery(), profile, history, headerAccessor.getSessionId());
+        processQueryAsync(request.getQuery(), currentUser, profile, history, headerAccessor.getSessionId());
     }
     
-    private void processQueryAsync(String query, BusinessProfile profile, List<DailyMetrics> history, String sessionId) {
+    private void processQueryAsync(String query, User user, BusinessProfile profile, List<DailyMetrics> history, String sessionId) {
         // Run AI processing in a separate thread to avoid blocking WebSocket
         new Thread(() -> {
             try {
-                String response = aicfoService.processQuery(query, profile, history);
+                String conversation = chatHistoryService.buildConversationContext(user);
+                AICircuitBreaker.Answer response = aicfoService.answerQuery(query, profile, history, conversation);
+                // Fallback and error text would otherwise feed later prompts and summaries
+                if (!response.fallback()) {
+                    chatHistoryService.recordExchange(user, query, response.content());
+                }
                 
                 Map<String, Object> result = new HashMap<>();
                 result.put("type", "response");
-                result.put("content", response);
+                result.put("content", response.content());
                 result.put("success", true);
                 
-                messagingTemplate.convertAndSendToUser(sessionId, "/topic/ai-cfo", result);
+                messagingTemplate.convertAndSendToUser(sessionId, "/topic/ai-cfo", result, sessionHeaders(sessionId));
                 
             } catch (Exception e) {
                 Map<String, Object> error = new HashMap<>();
@@ -100,7 +131,7 @@ public class AICFOWebSocketController {
                 error.put("content", "Unable to process your query at this time");
                 error.put("success", false);
                 
-                messagingTemplate.convertAndSendToUser(sessionId, "/topic/ai-cfo", error);
+                messagingTemplate.convertAndSendToUser(sessionId, "/topic/ai-cfo", error, sessionHeaders(sessionId));
             }
         }).start();
     }
@@ -111,6 +142,16 @@ public class AICFOWebSocketController {
         error.put("content", errorMessage);
         error.put("success", false);
         
-        messagingTemplate.convertAndSendToUser(sessionId, "/topic/ai-cfo", error);
+        messagingTemplate.convertAndSendToUser(sessionId, "/topic/ai-cfo", error, sessionHeaders(sessionId));
+    }
+    
+    /**
+     * Headers that let the user destination resolver route a reply to a single session ID
+     */
+    private MessageHeaders sessionHeaders(String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
     }
-}
\ No newline at end of file
+}
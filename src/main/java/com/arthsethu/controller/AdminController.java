@@ -1,9 +1,15 @@
 package com.arthsethu.controller;
 
 import com.arthsethu.dto.AdminDashboardDTO;
-import com.arthsethu.dto.UserManagementDTO;
+import com.arthsethu.dto.AdminStatsSnapshot;
+import com.arthsethu.dto.MetricSeriesDTO;
+import com.arthsethu.dto.SignupTrendDTO;
+import com.arthsethu.dto.UserPageDTO;
 import com.arthsethu.model.SubscriptionTier;
 import com.arthsethu.service.AdminService;
+import com.arthsethu.service.AdminStatsSnapshotService;
+import com.arthsethu.service.MetricsRecorder;
+import com.arthsethu.service.RevenueCubeService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,9 +19,14 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Controller for admin dashboard functionality
@@ -31,6 +42,15 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
     
+    @Autowired
+    private AdminStatsSnapshotService statsSnapshotService;
+    
+    @Autowired
+    private MetricsRecorder metricsRecorder;
+    
+    @Autowired
+    private RevenueCubeService revenueCubeService;
+    
     /**
      * Redirect admin root to dashboard
      */
@@ -48,7 +68,7 @@ public class AdminController {
         logger.info("Loading admin dashboard");
         
         try {
-            AdminDashboardDTO dashboardData = adminService.getAdminDashboardData();
+            AdminDashboardDTO dashboardData = statsSnapshotService.getDashboardData();
             model.addAttribute("dashboardData", dashboardData);
             model.addAttribute("pageTitle", "Admin Dashboard");
             
@@ -66,21 +86,27 @@ public class AdminController {
      */
     @GetMapping("/users")
     public String userManagement(Model model, 
-                                @RequestParam(value = "tier", required = false) String tier) {
-        logger.info("Loading user management page with tier filter: {}", tier);
+                                @RequestParam(value = "tier", required = false) String tier,
+                                @RequestParam(value = "banned", required = false) Boolean banned,
+                                @RequestParam(value = "email", required = false) String email,
+                                @RequestParam(value = "after", required = false) Long after,
+                                @RequestParam(value = "size", defaultValue = "50") int size) {
+        logger.info("Loading user management page with tier filter: {}, banned: {}, after: {}", tier, banned, after);
         
         try {
-            List<UserManagementDTO> users;
-            
+            SubscriptionTier subscriptionTier = null;
             if (tier != null && !tier.isEmpty()) {
-                SubscriptionTier subscriptionTier = SubscriptionTier.valueOf(tier.toUpperCase());
-                users = adminService.getUsersByTier(subscriptionTier);
+                subscriptionTier = SubscriptionTier.valueOf(tier.toUpperCase());
                 model.addAttribute("selectedTier", tier);
-            } else {
-                users = adminService.getAllUsers();
             }
             
-            model.addAttribute("users", users);
+            UserPageDTO page = adminService.getUsersPage(subscriptionTier, banned, email, after, size);
+            
+            model.addAttribute("users", page.getUsers());
+            model.addAttribute("page", page);
+            model.addAttribute("selectedBanned", banned);
+            model.addAttribute("emailFilter", email);
+            model.addAttribute("firstPage", after == null);
             model.addAttribute("tiers", SubscriptionTier.values());
             model.addAttribute("pageTitle", "User Management");
             
@@ -101,11 +127,12 @@ public class AdminController {
         logger.info("Loading system monitoring page");
         
         try {
-            AdminDashboardDTO.SystemHealth systemHealth = adminService.getSystemHealth();
-            List<AdminDashboardDTO.SystemAlert> systemAlerts = adminService.getSystemAlerts();
+            AdminStatsSnapshot snapshot = statsSnapshotService.getSnapshot();
             
-            model.addAttribute("systemHealth", systemHealth);
-            model.addAttribute("systemAlerts", systemAlerts);
+            model.addAttribute("systemHealth", snapshot.getSystemHealth());
+            model.addAttribute("systemAlerts", snapshot.getSystemAlerts());
+            addSnapshotAttributes(model, snapshot);
+            model.addAttribute("metricSeries", metricsRecorder.getSeries(Duration.ofMinutes(30), 60));
             model.addAttribute("pageTitle", "System Monitoring");
             
             return "admin/system";
@@ -125,11 +152,11 @@ public class AdminController {
         logger.info("Loading revenue analytics page");
         
         try {
-            AdminDashboardDTO.RevenueStats revenueStats = adminService.getRevenueStats();
-            AdminDashboardDTO.UserStats userStats = adminService.getUserStats();
+            AdminStatsSnapshot snapshot = statsSnapshotService.getSnapshot();
             
-            model.addAttribute("revenueStats", revenueStats);
-            model.addAttribute("userStats", userStats);
+            model.addAttribute("revenueStats", snapshot.getRevenueStats());
+            model.addAttribute("userStats", snapshot.getUserStats());
+            addSnapshotAttributes(model, snapshot);
             model.addAttribute("pageTitle", "Revenue Analytics");
             
             return "admin/revenue";
@@ -251,7 +278,7 @@ public class AdminController {
         logger.debug("API request for dashboard data");
         
         try {
-            AdminDashboardDTO dashboardData = adminService.getAdminDashboardData();
+            AdminDashboardDTO dashboardData = statsSnapshotService.getDashboardData();
             return ResponseEntity.ok(dashboardData);
         } catch (Exception e) {
             logger.error("Error fetching dashboard data via API: {}", e.getMessage());
@@ -269,14 +296,68 @@ public class AdminController {
         logger.debug("API request for user statistics");
         
         try {
-            AdminDashboardDTO.UserStats userStats = adminService.getUserStats();
-            return ResponseEntity.ok(userStats);
+            AdminStatsSnapshot snapshot = statsSnapshotService.getSnapshot();
+            return snapshotResponse(snapshot).body(snapshot.getUserStats());
         } catch (Exception e) {
             logger.error("Error fetching user stats via API: {}", e.getMessage());
             return ResponseEntity.internalServerError().build();
         }
     }
     
+    /**
+     * Get daily signups by tier as JSON
+     * Implements Requirement 7.1
+     */
+    @GetMapping("/api/signup-trend")
+    @ResponseBody
+    public ResponseEntity<SignupTrendDTO> getSignupTrend(@RequestParam(defaultValue = "30") int days) {
+        logger.debug("API request for signup trend over {} days", days);
+        
+        if (days < 1 || days > 365) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        try {
+            return ResponseEntity.ok(adminService.getSignupTrend(days));
+        } catch (Exception e) {
+            logger.error("Error fetching signup trend via API: {}", e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * Get downsampled metrics history as JSON, optionally limited to a comma-separated list of gauges
+     * Implements Requirements 7.3, 7.5
+     */
+    @GetMapping("/api/metrics")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getMetrics(@RequestParam(defaultValue = "30") int minutes,
+                                                          @RequestParam(defaultValue = "60") int points,
+                                                          @RequestParam(required = false) List<String> names) {
+        logger.debug("API request for metrics over {} minutes ({} points)", minutes, points);
+        
+        if (minutes < 1 || minutes > 24 * 60 || points < 1 || points > 1000) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        Duration window = Duration.ofMinutes(minutes);
+        List<MetricSeriesDTO> series;
+        if (names == null || names.isEmpty()) {
+            series = metricsRecorder.getSeries(window, points);
+        } else {
+            series = names.stream()
+                .map(name -> metricsRecorder.getSeries(name, window, points))
+                .filter(Objects::nonNull)
+                .toList();
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("sampleIntervalMs", metricsRecorder.getSampleIntervalMs());
+        response.put("minutes", minutes);
+        response.put("series", series);
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Get system health as JSON
      * Implements Requirements 7.3, 7.5
@@ -287,8 +368,8 @@ public class AdminController {
         logger.debug("API request for system health");
         
         try {
-            AdminDashboardDTO.SystemHealth systemHealth = adminService.getSystemHealth();
-            return ResponseEntity.ok(systemHealth);
+            AdminStatsSnapshot snapshot = statsSnapshotService.getSnapshot();
+            return snapshotResponse(snapshot).body(snapshot.getSystemHealth());
         } catch (Exception e) {
             logger.error("Error fetching system health via API: {}", e.getMessage());
             return ResponseEntity.internalServerError().build();
@@ -305,11 +386,102 @@ public class AdminController {
         logger.debug("API request for revenue statistics");
         
         try {
-            AdminDashboardDTO.RevenueStats revenueStats = adminService.getRevenueStats();
-            return ResponseEntity.ok(revenueStats);
+            AdminStatsSnapshot snapshot = statsSnapshotService.getSnapshot();
+            return snapshotResponse(snapshot).body(snapshot.getRevenueStats());
         } catch (Exception e) {
             logger.error("Error fetching revenue stats via API: {}", e.getMessage());
             return ResponseEntity.internalServerError().build();
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Recompute the admin statistics snapshot now
+     * Implements Requirements 7.1, 7.3, 7.4
+     */
+    @PostMapping("/api/refresh-stats")
+    @ResponseBody
+    public ResponseEntity<AdminDashboardDTO> refreshStats() {
+        logger.info("Admin request to refresh statistics snapshot");
+        
+        try {
+            statsSnapshotService.refresh();
+            return ResponseEntity.ok(statsSnapshotService.getDashboardData());
+        } catch (Exception e) {
+            logger.error("Error refreshing statistics snapshot: {}", e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * Get daily revenue by tier from the revenue cube as JSON
+     * Implements Requirement 7.4
+     */
+    @GetMapping("/api/revenue-trend")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getRevenueTrend(@RequestParam(defaultValue = "30") int days) {
+        logger.debug("API request for revenue trend over {} days", days);
+        
+        if (days < 1 || days > 366) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        try {
+            List<Map<String, Object>> series = new ArrayList<>();
+            adminService.getRevenueTrend(days).forEach((day, byTier) -> {
+                Map<String, Object> point = new LinkedHashMap<>();
+                point.put("date", day);
+                BigDecimal total = BigDecimal.ZERO;
+                for (SubscriptionTier tier : SubscriptionTier.values()) {
+                    BigDecimal amount = byTier.getOrDefault(tier, BigDecimal.ZERO);
+                    point.put(tier.name(), amount);
+                    total = total.add(amount);
+                }
+                point.put("total", total);
+                series.add(point);
+            });
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("days", days);
+            response.put("series", series);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error fetching revenue trend via API: {}", e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * Recompute the revenue cube from the subscriptions table (repair tool)
+     * Implements Requirement 7.4
+     */
+    @PostMapping("/api/revenue-cube/rebuild")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> rebuildRevenueCube() {
+        logger.info("Admin request to rebuild revenue cube");
+        
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("success", true);
+            response.put("cells", revenueCubeService.rebuild());
+            statsSnapshotService.requestRefresh();
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error rebuilding revenue cube: {}", e.getMessage());
+            response.put("success", false);
+            response.put("message", "An error occurred while rebuilding the revenue cube");
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+    
+    private void addSnapshotAttributes(Model model, AdminStatsSnapshot snapshot) {
+        model.addAttribute("statsGeneratedAt", snapshot.getGeneratedAtLocal());
+        model.addAttribute("statsAgeSeconds", snapshot.getAgeSeconds());
+        model.addAttribute("statsStale", statsSnapshotService.isStale(snapshot));
+    }
+    
+    private ResponseEntity.BodyBuilder snapshotResponse(AdminStatsSnapshot snapshot) {
+        return ResponseEntity.ok()
+            .header("X-Stats-Generated-At", snapshot.getGeneratedAt().toString())
+            .header("X-Stats-Age-Seconds", String.valueOf(snapshot.getAgeSeconds()));
+    }
+}
@@ -1,21 +1,34 @@
 package com.arthsethu.controller;
 
+import com.arthsethu.dto.BenchmarkDTO;
+import com.arthsethu.dto.ForecastDTO;
 import com.arthsethu.dto.HealthScoreDTO;
 import com.arthsethu.model.DailyMetrics;
+import com.arthsethu.model.MetricsAnomaly;
+import com.arthsethu.model.MetricsRollup;
+import com.arthsethu.model.RollupGranularity;
 import com.arthsethu.model.SubscriptionTier;
 import com.arthsethu.model.User;
-import com.arthsethu.repository.UserRepository;
+import com.arthsethu.security.CurrentUserService;
 import com.arthsethu.security.RequiresTier;
 import com.arthsethu.security.RequiresFeature;
+import com.arthsethu.service.AnomalyDetectionService;
 import com.arthsethu.service.DailyMetricsService;
+import com.arthsethu.service.ForecastService;
 import com.arthsethu.service.HealthScoreService;
+import com.arthsethu.service.MetricsImportService;
+import com.arthsethu.service.MetricsRollupService;
+import com.arthsethu.service.PeerBenchmarkService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.security.core.Authentication;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.HashMap;
@@ -29,15 +42,30 @@ public class DashboardController {
     
     private final DailyMetricsService dailyMetricsService;
     private final HealthScoreService healthScoreService;
-    private final UserRepository userRepository;
+    private final CurrentUserService currentUserService;
+    private final MetricsImportService metricsImportService;
+    private final MetricsRollupService metricsRollupService;
+    private final ForecastService forecastService;
+    private final AnomalyDetectionService anomalyDetectionService;
+    private final PeerBenchmarkService peerBenchmarkService;
     
     @Autowired
     public DashboardController(DailyMetricsService dailyMetricsService, 
                              HealthScoreService healthScoreService,
-                             UserRepository userRepository) {
+                             CurrentUserService currentUserService,
+                             MetricsImportService metricsImportService,
+                             MetricsRollupService metricsRollupService,
+                             ForecastService forecastService,
+                             AnomalyDetectionService anomalyDetectionService,
+                             PeerBenchmarkService peerBenchmarkService) {
         this.dailyMetricsService = dailyMetricsService;
         this.healthScoreService = healthScoreService;
-        this.userRepository = userRepository;
+        this.currentUserService = currentUserService;
+        this.metricsImportService = metricsImportService;
+        this.metricsRollupService = metricsRollupService;
+        this.forecastService = forecastService;
+        this.anomalyDetectionService = anomalyDetectionService;
+        this.peerBenchmarkService = peerBenchmarkService;
     }
     
     /**
@@ -74,6 +102,10 @@ public class DashboardController {
         model.addAttribute("dashboardType", "vistar");
         model.addAttribute("healthScore", healthScore);
         model.addAttribute("trendData", trendData);
+        model.addAttribute("forecast", forecastService.getForecast(user, LocalDate.now()).orElse(null));
+        model.addAttribute("anomalies", anomalyDetectionService.getRecentAnomalies(user, LocalDate.now()));
+        model.addAttribute("benchmarks", peerBenchmarkService.getBenchmarks(user,
+            trendData.isEmpty() ? null : trendData.get(0), LocalDate.now()).orElse(null));
         model.addAttribute("hasLoggedToday", dailyMetricsService.hasLoggedToday(user));
         
         return "dashboard/vistar";
@@ -146,13 +178,19 @@ public class DashboardController {
             }
             
             // Save metrics
-            DailyMetrics metrics = dailyMetricsService.saveDailyMetrics(user, LocalDate.now(), sales, expenses, wastage);
+            LocalDate today = LocalDate.now();
+            DailyMetrics metrics = dailyMetricsService.saveDailyMetrics(user, today, sales, expenses, wastage);
+            List<String> anomalies = anomalyDetectionService.getRecentAnomalies(user, today).stream()
+                .filter(anomaly -> anomaly.getMetricDate().equals(today))
+                .map(MetricsAnomaly::getDescription)
+                .toList();
             
             response.put("success", true);
             response.put("message", "Daily metrics saved successfully");
             response.put("healthScore", metrics.getHealthScore());
             response.put("margin", metrics.getMargin());
             response.put("wastagePercentage", metrics.getWastagePercentage());
+            response.put("anomalies", anomalies);
             
             return ResponseEntity.ok(response);
             
@@ -163,6 +201,50 @@ public class DashboardController {
         }
     }
     
+    /**
+     * Import historical daily metrics from CSV or JSON, sent as a multipart "file" or as the
+     * request body. Progress is pushed to /user/topic/imports while the import runs.
+     */
+    @PostMapping("/metrics/import")
+    @RequiresTier(SubscriptionTier.VISTAR)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> importMetrics(
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "format", required = false) String format,
+            HttpServletRequest request,
+            Authentication authentication) {
+        
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            User user = getCurrentUser(authentication);
+            MetricsImportService.ImportResult result;
+            if (file != null && !file.isEmpty()) {
+                try (InputStream input = file.getInputStream()) {
+                    result = metricsImportService.importMetrics(user, input,
+                        MetricsImportService.Format.detect(format, file.getContentType(), file.getOriginalFilename()));
+                }
+            } else {
+                result = metricsImportService.importMetrics(user, request.getInputStream(),
+                    MetricsImportService.Format.detect(format, request.getContentType(), null));
+            }
+            
+            response.putAll(result.toMap());
+            response.put("success", true);
+            response.put("message", "Imported " + result.getImported() + " days of metrics");
+            return ResponseEntity.ok(response);
+            
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Error importing metrics: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+    
     /**
      * Get health score data for Chart.js - API endpoint
      */
@@ -187,6 +269,58 @@ public class DashboardController {
         return ResponseEntity.ok(trendData);
     }
     
+    /**
+     * Weekly or monthly history for long-range charts, read from the rollups
+     */
+    @GetMapping("/api/history")
+    @RequiresTier(SubscriptionTier.VISTAR)
+    @ResponseBody
+    public ResponseEntity<List<MetricsRollup>> getHistory(
+            @RequestParam(defaultValue = "MONTH") RollupGranularity granularity,
+            @RequestParam(defaultValue = "12") int periods,
+            Authentication authentication) {
+        User user = getCurrentUser(authentication);
+        return ResponseEntity.ok(metricsRollupService.getHistory(user, granularity, periods, LocalDate.now()));
+    }
+    
+    /**
+     * Next 30 days of sales, expense and health score forecasts; no content until enough days are logged
+     */
+    @GetMapping("/api/forecast")
+    @RequiresTier(SubscriptionTier.VISTAR)
+    @ResponseBody
+    public ResponseEntity<ForecastDTO> getForecast(Authentication authentication) {
+        User user = getCurrentUser(authentication);
+        return forecastService.getForecast(user, LocalDate.now())
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    /**
+     * Sales drops, expense spikes and wastage spikes flagged over the last two weeks, newest first
+     */
+    @GetMapping("/api/anomalies")
+    @RequiresTier(SubscriptionTier.VISTAR)
+    @ResponseBody
+    public ResponseEntity<List<MetricsAnomaly>> getAnomalies(Authentication authentication) {
+        User user = getCurrentUser(authentication);
+        return ResponseEntity.ok(anomalyDetectionService.getRecentAnomalies(user, LocalDate.now()));
+    }
+
+    /**
+     * Percentile ranks of the latest logged day among businesses of the same type and city;
+     * no content without a business profile or enough peer data
+     */
+    @GetMapping("/api/benchmarks")
+    @RequiresTier(SubscriptionTier.VISTAR)
+    @ResponseBody
+    public ResponseEntity<BenchmarkDTO> getBenchmarks(Authentication authentication) {
+        User user = getCurrentUser(authentication);
+        return peerBenchmarkService.getBenchmarks(user, dailyMetricsService.getLatestMetrics(user).orElse(null), LocalDate.now())
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
     /**
      * Advanced analytics - requires Shikhar tier
      */
@@ -222,8 +356,7 @@ public class DashboardController {
     
     // Helper method to get current user from authentication
     private User getCurrentUser(Authentication authentication) {
-        String email = authentication.getName();
-        return userRepository.findByEmail(email)
-            .orElseThrow(() -> new RuntimeException("User not found: " + email));
+        return currentUserService.getCurrentUser(authentication)
+            .orElseThrow(() -> new RuntimeException("User not found: " + authentication.getName()));
     }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.arthsethu.controller;
+
+import com.arthsethu.service.PaymentGateway.PaymentResult;
+import com.arthsethu.service.PaymentService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Receives payment results from the payment provider.
+ *
+ * The body is {"reference": "...", "status": "SUCCESS" | "FAILED", "reason": "..."} and
+ * must carry an X-Payment-Signature header with the hex HMAC-SHA256 of the raw body under
+ * arthsethu.payment.webhook-secret; webhooks are refused while no secret is configured.
+ */
+@RestController
+@RequestMapping("/payments")
+public class PaymentWebhookController {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentWebhookController.class);
+
+    private final PaymentService paymentService;
+    private final ObjectMapper objectMapper;
+    private final byte[] webhookSecret;
+
+    public PaymentWebhookController(PaymentService paymentService,
+                                    ObjectMapper objectMapper,
+                                    @Value("${arthsethu.payment.webhook-secret:}") String webhookSecret) {
+        this.paymentService = paymentService;
+        this.objectMapper = objectMapper;
+        this.webhookSecret = webhookSecret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostMapping("/webhook")
+    public ResponseEntity<Map<String, Object>> handleWebhook(
+            @RequestHeader(value = "X-Payment-Signature", required = false) String signature,
+            @RequestBody String body) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        if (!isValidSignature(body, signature)) {
+            logger.warn("Rejected payment webhook with missing or invalid signature");
+            response.put("received", false);
+            response.put("message", "Invalid signature");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+
+        try {
+            JsonNode payload = objectMapper.readTree(body);
+            String reference = payload.path("reference").asText(null);
+            String status = payload.path("status").asText("");
+            if (reference == null || !(status.equals("SUCCESS") || status.equals("FAILED"))) {
+                response.put("received", false);
+                response.put("message", "Expected reference and status SUCCESS or FAILED");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            boolean success = status.equals("SUCCESS");
+            String reason = success ? null : payload.path("reason").asText("Payment failed");
+            if (!paymentService.completePayment(new PaymentResult(reference, success, reason))) {
+                response.put("received", false);
+                response.put("message", "Unknown payment reference");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+
+            response.put("received", true);
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Error handling payment webhook: {}", e.getMessage());
+            response.put("received", false);
+            response.put("message", "Malformed webhook");
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    private boolean isValidSignature(String body, String signature) {
+        if (webhookSecret.length == 0 || signature == null) {
+            return false;
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(webhookSecret, "HmacSHA256"));
+            byte[] expected = mac.doFinal(body.getBytes(StandardCharsets.UTF_8));
+            byte[] presented = HexFormat.of().parseHex(signature.trim().toLowerCase());
+            return MessageDigest.isEqual(expected, presented);
+        } catch (IllegalArgumentException e) {
+            return false;
+        } catch (Exception e) {
+            logger.error("Unable to verify payment webhook signature: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -3,6 +3,10 @@ package com.arthsethu.controller;
 import com.arthsethu.model.FeasibilityReport;
 import com.arthsethu.model.User;
 import com.arthsethu.repository.FeasibilityReportRepository;
+import com.arthsethu.security.RateLimitClass;
+import com.arthsethu.security.RateLimitExceededException;
+import com.arthsethu.security.RateLimited;
+import com.arthsethu.security.RateLimiter;
 import com.arthsethu.service.FeasibilityEngineService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,11 +33,14 @@ public class ReportController {
     
     private final FeasibilityReportRepository feasibilityReportRepository;
     private final FeasibilityEngineService feasibilityEngineService;
+    private final RateLimiter rateLimiter;
     
     public ReportController(FeasibilityReportRepository feasibilityReportRepository,
-                          FeasibilityEngineService feasibilityEngineService) {
+                          FeasibilityEngineService feasibilityEngineService,
+                          RateLimiter rateLimiter) {
         this.feasibilityReportRepository = feasibilityReportRepository;
         this.feasibilityEngineService = feasibilityEngineService;
+        this.rateLimiter = rateLimiter;
     }
     
     /**
@@ -66,6 +73,8 @@ public class ReportController {
                 logger.info("Using existing PDF content for report ID: {}", reportId);
                 pdfContent = report.getPdfContent();
             } else {
+                // Only rendering is expensive; cached PDFs are served without touching the limit
+                rateLimiter.acquireForCurrentUser(RateLimitClass.PDF);
                 logger.info("Generating new PDF content for report ID: {}", reportId);
                 pdfContent = feasibilityEngineService.generatePDFReport(report);
                 
@@ -92,6 +101,8 @@ public class ReportController {
                     .headers(headers)
                     .body(pdfContent);
                     
+        } catch (RateLimitExceededException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error downloading report ID: {}", reportId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -139,6 +150,7 @@ public class ReportController {
      * Regenerate PDF for a report (force refresh)
      */
     @PostMapping("/{reportId}/regenerate")
+    @RateLimited(RateLimitClass.PDF)
     public ResponseEntity<String> regenerateReport(@PathVariable Long reportId) {
         logger.info("Request to regenerate PDF for report ID: {}", reportId);
         
@@ -3,11 +3,12 @@ package com.arthsethu.controller;
 import com.arthsethu.model.Subscription;
 import com.arthsethu.model.SubscriptionTier;
 import com.arthsethu.model.User;
+import com.arthsethu.security.CurrentUserService;
+import com.arthsethu.service.PaymentService;
 import com.arthsethu.service.SubscriptionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -24,6 +25,12 @@ public class SubscriptionController {
     @Autowired
     private SubscriptionService subscriptionService;
     
+    @Autowired
+    private CurrentUserService currentUserService;
+    
+    @Autowired
+    private PaymentService paymentService;
+    
     /**
      * Display subscription tiers and pricing
      */
@@ -33,9 +40,9 @@ public class SubscriptionController {
         model.addAttribute("tiers", tiers);
         
         // Get current user's subscription if authenticated
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth != null && auth.isAuthenticated() && auth.getPrincipal() instanceof User) {
-            User user = (User) auth.getPrincipal();
+        Optional<User> currentUser = currentUserService.getCurrentUser();
+        if (currentUser.isPresent()) {
+            User user = currentUser.get();
             Optional<Subscription> currentSubscription = subscriptionService.getUserSubscription(user);
             model.addAttribute("currentTier", user.getTier());
             model.addAttribute("currentSubscription", currentSubscription.orElse(null));
@@ -56,13 +63,14 @@ public class SubscriptionController {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            if (authentication == null || !(authentication.getPrincipal() instanceof User)) {
+            Optional<User> currentUser = currentUserService.getCurrentUser(authentication);
+            if (currentUser.isEmpty()) {
                 response.put("success", false);
                 response.put("message", "User not authenticated");
                 return ResponseEntity.badRequest().body(response);
             }
             
-            User user = (User) authentication.getPrincipal();
+            User user = currentUser.get();
             SubscriptionTier newTier = SubscriptionTier.valueOf(tierName.toUpperCase());
             
             // Check if upgrade is valid
@@ -101,7 +109,8 @@ public class SubscriptionController {
     }
     
     /**
-     * Process payment for subscription
+     * Start payment for a subscription. Returns 202 at once with the subscription in
+     * PROCESSING; the outcome is pushed to /user/topic/payments and can be polled.
      */
     @PostMapping("/payment")
     @ResponseBody
@@ -113,26 +122,29 @@ public class SubscriptionController {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            if (authentication == null || !(authentication.getPrincipal() instanceof User)) {
+            Optional<User> currentUser = currentUserService.getCurrentUser(authentication);
+            if (currentUser.isEmpty()) {
                 response.put("success", false);
                 response.put("message", "User not authenticated");
                 return ResponseEntity.badRequest().body(response);
             }
             
-            // Process payment simulation
-            boolean paymentSuccess = subscriptionService.processPayment(subscriptionId, paymentMethod);
+            Subscription subscription = paymentService.startPayment(currentUser.get(), subscriptionId, paymentMethod);
             
-            if (paymentSuccess) {
-                response.put("success", true);
-                response.put("message", "Payment processed successfully. Subscription activated!");
-                response.put("redirectUrl", "/dashboard");
-            } else {
-                response.put("success", false);
-                response.put("message", "Payment failed. Please try again.");
-            }
+            response.put("success", true);
+            response.put("status", subscription.getStatus().name());
+            response.put("subscriptionId", subscription.getId());
+            response.put("paymentReference", subscription.getPaymentReference());
+            response.put("statusUrl", "/subscription/payment/" + subscription.getId() + "/status");
+            response.put("topic", "/user/topic/payments");
+            response.put("message", "Payment is being processed.");
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.accepted().body(response);
             
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Payment processing failed: " + e.getMessage());
@@ -140,6 +152,26 @@ public class SubscriptionController {
         }
     }
     
+    /**
+     * Poll the payment state of a subscription
+     */
+    @GetMapping("/payment/{subscriptionId}/status")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getPaymentStatus(@PathVariable Long subscriptionId,
+                                                                Authentication authentication) {
+        Optional<User> currentUser = currentUserService.getCurrentUser(authentication);
+        if (currentUser.isEmpty()) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "User not authenticated");
+            return ResponseEntity.badRequest().body(response);
+        }
+        
+        return paymentService.getPaymentStatus(currentUser.get(), subscriptionId)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
     /**
      * Cancel subscription
      */
@@ -149,13 +181,14 @@ public class SubscriptionController {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            if (authentication == null || !(authentication.getPrincipal() instanceof User)) {
+            Optional<User> currentUser = currentUserService.getCurrentUser(authentication);
+            if (currentUser.isEmpty()) {
                 response.put("success", false);
                 response.put("message", "User not authenticated");
                 return ResponseEntity.badRequest().body(response);
             }
             
-            User user = (User) authentication.getPrincipal();
+            User user = currentUser.get();
             subscriptionService.cancelSubscription(user);
             
             response.put("success", true);
@@ -179,13 +212,14 @@ public class SubscriptionController {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            if (authentication == null || !(authentication.getPrincipal() instanceof User)) {
+            Optional<User> currentUser = currentUserService.getCurrentUser(authentication);
+            if (currentUser.isEmpty()) {
                 response.put("success", false);
                 response.put("message", "User not authenticated");
                 return ResponseEntity.badRequest().body(response);
             }
             
-            User user = (User) authentication.getPrincipal();
+            User user = currentUser.get();
             Optional<Subscription> subscription = subscriptionService.getUserSubscription(user);
             
             response.put("success", true);
@@ -221,13 +255,14 @@ public class SubscriptionController {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            if (authentication == null || !(authentication.getPrincipal() instanceof User)) {
+            Optional<User> currentUser = currentUserService.getCurrentUser(authentication);
+            if (currentUser.isEmpty()) {
                 response.put("hasAccess", false);
                 response.put("message", "User not authenticated");
                 return ResponseEntity.ok(response);
             }
             
-            User user = (User) authentication.getPrincipal();
+            User user = currentUser.get();
             boolean hasAccess = subscriptionService.canAccessFeature(user, featureName);
             
             response.put("hasAccess", hasAccess);
@@ -266,11 +301,12 @@ public class SubscriptionController {
      */
     @GetMapping("/manage")
     public String manageSubscription(Model model, Authentication authentication) {
-        if (authentication == null || !(authentication.getPrincipal() instanceof User)) {
+        Optional<User> currentUser = currentUserService.getCurrentUser(authentication);
+        if (currentUser.isEmpty()) {
             return "redirect:/login";
         }
         
-        User user = (User) authentication.getPrincipal();
+        User user = currentUser.get();
         Optional<Subscription> subscription = subscriptionService.getUserSubscription(user);
         
         model.addAttribute("user", user);
@@ -14,6 +14,9 @@ public class AdminDashboardDTO {
     private SystemHealth systemHealth;
     private RevenueStats revenueStats;
     private List<SystemAlert> systemAlerts;
+    private LocalDateTime generatedAt;
+    private long ageSeconds;
+    private boolean stale;
     
     public AdminDashboardDTO() {}
     
@@ -58,6 +61,30 @@ public class AdminDashboardDTO {
         this.systemAlerts = systemAlerts;
     }
     
+    public LocalDateTime getGeneratedAt() {
+        return generatedAt;
+    }
+    
+    public void setGeneratedAt(LocalDateTime generatedAt) {
+        this.generatedAt = generatedAt;
+    }
+    
+    public long getAgeSeconds() {
+        return ageSeconds;
+    }
+    
+    public void setAgeSeconds(long ageSeconds) {
+        this.ageSeconds = ageSeconds;
+    }
+    
+    public boolean isStale() {
+        return stale;
+    }
+    
+    public void setStale(boolean stale) {
+        this.stale = stale;
+    }
+    
     /**
      * User statistics for admin dashboard
      */
@@ -114,6 +141,11 @@ public class AdminDashboardDTO {
         private boolean databaseStatus;
         private double systemLoad;
         private long memoryUsage;
+        private String aiCircuitState;
+        private double aiFailureRate;
+        private double aiSlowCallRate;
+        private int aiFallbackResponses;
+        private int aiQueueDepth;
         
         public SystemHealth() {}
         
@@ -150,6 +182,21 @@ public class AdminDashboardDTO {
         
         public long getMemoryUsage() { return memoryUsage; }
         public void setMemoryUsage(long memoryUsage) { this.memoryUsage = memoryUsage; }
+        
+        public String getAiCircuitState() { return aiCircuitState; }
+        public void setAiCircuitState(String aiCircuitState) { this.aiCircuitState = aiCircuitState; }
+        
+        public double getAiFailureRate() { return aiFailureRate; }
+        public void setAiFailureRate(double aiFailureRate) { this.aiFailureRate = aiFailureRate; }
+        
+        public double getAiSlowCallRate() { return aiSlowCallRate; }
+        public void setAiSlowCallRate(double aiSlowCallRate) { this.aiSlowCallRate = aiSlowCallRate; }
+        
+        public int getAiFallbackResponses() { return aiFallbackResponses; }
+        public void setAiFallbackResponses(int aiFallbackResponses) { this.aiFallbackResponses = aiFallbackResponses; }
+        
+        public int getAiQueueDepth() { return aiQueueDepth; }
+        public void setAiQueueDepth(int aiQueueDepth) { this.aiQueueDepth = aiQueueDepth; }
     }
     
     /**
@@ -0,0 +1,85 @@
+package com.arthsethu.dto;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Immutable point-in-time copy of the admin aggregates, shared by every admin view
+ * until the next refresh. Readers must not modify the contained DTOs.
+ */
+public final class AdminStatsSnapshot {
+    
+    private final AdminDashboardDTO.UserStats userStats;
+    private final AdminDashboardDTO.RevenueStats revenueStats;
+    private final AdminDashboardDTO.SystemHealth systemHealth;
+    private final List<AdminDashboardDTO.SystemAlert> systemAlerts;
+    private final Instant generatedAt;
+    private final long refreshMillis;
+    
+    public AdminStatsSnapshot(AdminDashboardDTO.UserStats userStats,
+                              AdminDashboardDTO.RevenueStats revenueStats,
+                              AdminDashboardDTO.SystemHealth systemHealth,
+                              List<AdminDashboardDTO.SystemAlert> systemAlerts,
+                              Instant generatedAt,
+                              long refreshMillis) {
+        this.userStats = userStats;
+        this.revenueStats = revenueStats;
+        this.systemHealth = systemHealth;
+        this.systemAlerts = List.copyOf(systemAlerts);
+        this.generatedAt = generatedAt;
+        this.refreshMillis = refreshMillis;
+    }
+    
+    public AdminDashboardDTO.UserStats getUserStats() {
+        return userStats;
+    }
+    
+    public AdminDashboardDTO.RevenueStats getRevenueStats() {
+        return revenueStats;
+    }
+    
+    public AdminDashboardDTO.SystemHealth getSystemHealth() {
+        return systemHealth;
+    }
+    
+    public List<AdminDashboardDTO.SystemAlert> getSystemAlerts() {
+        return systemAlerts;
+    }
+    
+    public Instant getGeneratedAt() {
+        return generatedAt;
+    }
+    
+    public LocalDateTime getGeneratedAtLocal() {
+        return LocalDateTime.ofInstant(generatedAt, ZoneId.systemDefault());
+    }
+    
+    /**
+     * Time taken to compute this snapshot
+     */
+    public long getRefreshMillis() {
+        return refreshMillis;
+    }
+    
+    public long getAgeSeconds() {
+        return Duration.between(generatedAt, Instant.now()).getSeconds();
+    }
+    
+    public boolean isStale(Duration maxAge) {
+        return Duration.between(generatedAt, Instant.now()).compareTo(maxAge) > 0;
+    }
+    
+    /**
+     * Dashboard view of this snapshot, including staleness
+     */
+    public AdminDashboardDTO toDashboardDTO(Duration maxAge) {
+        AdminDashboardDTO dto = new AdminDashboardDTO(userStats, systemHealth, revenueStats, systemAlerts);
+        dto.setGeneratedAt(getGeneratedAtLocal());
+        dto.setAgeSeconds(getAgeSeconds());
+        dto.setStale(isStale(maxAge));
+        return dto;
+    }
+}
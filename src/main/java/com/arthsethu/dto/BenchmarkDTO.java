@@ -0,0 +1,84 @@
+package com.arthsethu.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * How a user's latest logged day ranks against the days logged by businesses of the same
+ * type in the same city over the last few months
+ */
+public class BenchmarkDTO {
+    private String city;
+    private String businessType;
+    private LocalDate date;
+    private Integer windowMonths;
+    private List<BenchmarkRank> ranks;
+
+    // Nested class for one benchmarked metric
+    public static class BenchmarkRank {
+        private String metric;
+        private String label;
+        private Double value;
+        private Double peerMedian;
+        private Integer betterThanPercent;
+        private Long peerDays;
+
+        public BenchmarkRank() {}
+
+        public BenchmarkRank(String metric, String label, Double value, Double peerMedian,
+                             Integer betterThanPercent, Long peerDays) {
+            this.metric = metric;
+            this.label = label;
+            this.value = value;
+            this.peerMedian = peerMedian;
+            this.betterThanPercent = betterThanPercent;
+            this.peerDays = peerDays;
+        }
+
+        // Getters and Setters
+        public String getMetric() { return metric; }
+        public void setMetric(String metric) { this.metric = metric; }
+
+        public String getLabel() { return label; }
+        public void setLabel(String label) { this.label = label; }
+
+        public Double getValue() { return value; }
+        public void setValue(Double value) { this.value = value; }
+
+        public Double getPeerMedian() { return peerMedian; }
+        public void setPeerMedian(Double peerMedian) { this.peerMedian = peerMedian; }
+
+        public Integer getBetterThanPercent() { return betterThanPercent; }
+        public void setBetterThanPercent(Integer betterThanPercent) { this.betterThanPercent = betterThanPercent; }
+
+        public Long getPeerDays() { return peerDays; }
+        public void setPeerDays(Long peerDays) { this.peerDays = peerDays; }
+    }
+
+    // Constructors
+    public BenchmarkDTO() {}
+
+    public BenchmarkDTO(String city, String businessType, LocalDate date, Integer windowMonths, List<BenchmarkRank> ranks) {
+        this.city = city;
+        this.businessType = businessType;
+        this.date = date;
+        this.windowMonths = windowMonths;
+        this.ranks = ranks;
+    }
+
+    // Getters and Setters
+    public String getCity() { return city; }
+    public void setCity(String city) { this.city = city; }
+
+    public String getBusinessType() { return businessType; }
+    public void setBusinessType(String businessType) { this.businessType = businessType; }
+
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public Integer getWindowMonths() { return windowMonths; }
+    public void setWindowMonths(Integer windowMonths) { this.windowMonths = windowMonths; }
+
+    public List<BenchmarkRank> getRanks() { return ranks; }
+    public void setRanks(List<BenchmarkRank> ranks) { this.ranks = ranks; }
+}
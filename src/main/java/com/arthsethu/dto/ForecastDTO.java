@@ -0,0 +1,104 @@
+package com.arthsethu.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Daily sales, expense and health score forecasts for the days after asOf, each with a
+ * 95% prediction interval
+ */
+public class ForecastDTO {
+    private LocalDate asOf;
+    private Integer daysObserved;
+    private List<ForecastPoint> sales;
+    private List<ForecastPoint> expenses;
+    private List<ForecastPoint> healthScore;
+
+    // Nested class for one forecast day, or a sum of them
+    public static class ForecastPoint {
+        private LocalDate date;
+        private BigDecimal value;
+        private BigDecimal lower;
+        private BigDecimal upper;
+
+        public ForecastPoint() {}
+
+        public ForecastPoint(LocalDate date, BigDecimal value, BigDecimal lower, BigDecimal upper) {
+            this.date = date;
+            this.value = value;
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        // Getters and Setters
+        public LocalDate getDate() { return date; }
+        public void setDate(LocalDate date) { this.date = date; }
+
+        public BigDecimal getValue() { return value; }
+        public void setValue(BigDecimal value) { this.value = value; }
+
+        public BigDecimal getLower() { return lower; }
+        public void setLower(BigDecimal lower) { this.lower = lower; }
+
+        public BigDecimal getUpper() { return upper; }
+        public void setUpper(BigDecimal upper) { this.upper = upper; }
+    }
+
+    // Constructors
+    public ForecastDTO() {}
+
+    public ForecastDTO(LocalDate asOf, Integer daysObserved, List<ForecastPoint> sales,
+                       List<ForecastPoint> expenses, List<ForecastPoint> healthScore) {
+        this.asOf = asOf;
+        this.daysObserved = daysObserved;
+        this.sales = sales;
+        this.expenses = expenses;
+        this.healthScore = healthScore;
+    }
+
+    // Business methods
+
+    /**
+     * Forecast sales over the next days. The bounds add up the daily bounds, so they are
+     * wider than a 95% interval on the total.
+     */
+    public ForecastPoint salesTotal(int days) {
+        return total(sales, days);
+    }
+
+    public ForecastPoint expensesTotal(int days) {
+        return total(expenses, days);
+    }
+
+    /**
+     * Forecast health score on the given day ahead, counting tomorrow as day 1
+     */
+    public ForecastPoint healthScoreOn(int day) {
+        return healthScore.get(Math.min(day, healthScore.size()) - 1);
+    }
+
+    private static ForecastPoint total(List<ForecastPoint> points, int days) {
+        List<ForecastPoint> window = points.subList(0, Math.min(days, points.size()));
+        return new ForecastPoint(window.get(window.size() - 1).getDate(),
+            window.stream().map(ForecastPoint::getValue).reduce(BigDecimal.ZERO, BigDecimal::add),
+            window.stream().map(ForecastPoint::getLower).reduce(BigDecimal.ZERO, BigDecimal::add),
+            window.stream().map(ForecastPoint::getUpper).reduce(BigDecimal.ZERO, BigDecimal::add));
+    }
+
+    // Getters and Setters
+    public LocalDate getAsOf() { return asOf; }
+    public void setAsOf(LocalDate asOf) { this.asOf = asOf; }
+
+    public Integer getDaysObserved() { return daysObserved; }
+    public void setDaysObserved(Integer daysObserved) { this.daysObserved = daysObserved; }
+
+    public List<ForecastPoint> getSales() { return sales; }
+    public void setSales(List<ForecastPoint> sales) { this.sales = sales; }
+
+    public List<ForecastPoint> getExpenses() { return expenses; }
+    public void setExpenses(List<ForecastPoint> expenses) { this.expenses = expenses; }
+
+    public List<ForecastPoint> getHealthScore() { return healthScore; }
+    public void setHealthScore(List<ForecastPoint> healthScore) { this.healthScore = healthScore; }
+}
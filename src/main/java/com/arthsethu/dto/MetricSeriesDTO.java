@@ -0,0 +1,79 @@
+package com.arthsethu.dto;
+
+import java.util.List;
+
+/**
+ * Downsampled history of one recorded gauge. Timestamps are epoch milliseconds of the
+ * last sample in each bucket; a null value means no sample was available in that bucket.
+ * Implements Requirements 7.3, 7.5
+ */
+public class MetricSeriesDTO {
+    
+    private String name;
+    private String unit;
+    private String rollup;
+    private List<Long> timestamps;
+    private List<Double> values;
+    private Double latest;
+    
+    public MetricSeriesDTO() {}
+    
+    public MetricSeriesDTO(String name, String unit, String rollup, List<Long> timestamps,
+                         List<Double> values, Double latest) {
+        this.name = name;
+        this.unit = unit;
+        this.rollup = rollup;
+        this.timestamps = timestamps;
+        this.values = values;
+        this.latest = latest;
+    }
+    
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public String getUnit() {
+        return unit;
+    }
+    
+    public void setUnit(String unit) {
+        this.unit = unit;
+    }
+    
+    public String getRollup() {
+        return rollup;
+    }
+    
+    public void setRollup(String rollup) {
+        this.rollup = rollup;
+    }
+    
+    public List<Long> getTimestamps() {
+        return timestamps;
+    }
+    
+    public void setTimestamps(List<Long> timestamps) {
+        this.timestamps = timestamps;
+    }
+    
+    public List<Double> getValues() {
+        return values;
+    }
+    
+    public void setValues(List<Double> values) {
+        this.values = values;
+    }
+    
+    public Double getLatest() {
+        return latest;
+    }
+    
+    public void setLatest(Double latest) {
+        this.latest = latest;
+    }
+}
@@ -0,0 +1,103 @@
+package com.arthsethu.dto;
+
+import com.arthsethu.model.SubscriptionTier;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO for daily signup counts by tier
+ * Implements Requirement 7.1
+ */
+public class SignupTrendDTO {
+    
+    private LocalDate from;
+    private LocalDate to;
+    private long totalSignups;
+    private List<DailySignups> days;
+    
+    public SignupTrendDTO() {}
+    
+    public SignupTrendDTO(LocalDate from, LocalDate to, List<DailySignups> days) {
+        this.from = from;
+        this.to = to;
+        this.days = days;
+        this.totalSignups = days.stream().mapToLong(DailySignups::getTotal).sum();
+    }
+    
+    // Getters and Setters
+    public LocalDate getFrom() {
+        return from;
+    }
+    
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+    
+    public LocalDate getTo() {
+        return to;
+    }
+    
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+    
+    public long getTotalSignups() {
+        return totalSignups;
+    }
+    
+    public void setTotalSignups(long totalSignups) {
+        this.totalSignups = totalSignups;
+    }
+    
+    public List<DailySignups> getDays() {
+        return days;
+    }
+    
+    public void setDays(List<DailySignups> days) {
+        this.days = days;
+    }
+    
+    /**
+     * Signups on one day, split by tier
+     */
+    public static class DailySignups {
+        private LocalDate date;
+        private long aarambh;
+        private long vistar;
+        private long shikhar;
+        
+        public DailySignups() {}
+        
+        public DailySignups(LocalDate date) {
+            this.date = date;
+        }
+        
+        public void add(SubscriptionTier tier, long count) {
+            if (tier == null) {
+                return;
+            }
+            switch (tier) {
+                case AARAMBH -> aarambh += count;
+                case VISTAR -> vistar += count;
+                case SHIKHAR -> shikhar += count;
+            }
+        }
+        
+        public LocalDate getDate() { return date; }
+        public void setDate(LocalDate date) { this.date = date; }
+        
+        public long getAarambh() { return aarambh; }
+        public void setAarambh(long aarambh) { this.aarambh = aarambh; }
+        
+        public long getVistar() { return vistar; }
+        public void setVistar(long vistar) { this.vistar = vistar; }
+        
+        public long getShikhar() { return shikhar; }
+        public void setShikhar(long shikhar) { this.shikhar = shikhar; }
+        
+        public long getTotal() {
+            return aarambh + vistar + shikhar;
+        }
+    }
+}
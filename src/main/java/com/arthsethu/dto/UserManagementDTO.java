@@ -1,5 +1,6 @@
 package com.arthsethu.dto;
 
+import com.arthsethu.model.BusinessType;
 import com.arthsethu.model.SubscriptionTier;
 import java.time.LocalDateTime;
 
@@ -35,6 +36,16 @@ public class UserManagementDTO {
         this.city = city;
     }
     
+    /**
+     * Projection constructor used by the admin user page query
+     */
+    public UserManagementDTO(Long userId, String email, SubscriptionTier tier, LocalDateTime createdAt,
+                           Boolean banned, BusinessType businessType, String city) {
+        this(userId, email, tier, createdAt, null,
+             !Boolean.TRUE.equals(banned) && tier != null, Boolean.TRUE.equals(banned),
+             businessType != null ? businessType.toString() : null, city);
+    }
+    
     // Getters and Setters
     public Long getUserId() {
         return userId;
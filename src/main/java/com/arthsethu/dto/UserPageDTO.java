@@ -0,0 +1,57 @@
+package com.arthsethu.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of the admin user list
+ * Implements Requirements 7.1, 7.2
+ */
+public class UserPageDTO {
+    
+    private List<UserManagementDTO> users;
+    private Long nextAfterId;
+    private boolean hasMore;
+    private int pageSize;
+    
+    public UserPageDTO() {}
+    
+    public UserPageDTO(List<UserManagementDTO> users, Long nextAfterId, boolean hasMore, int pageSize) {
+        this.users = users;
+        this.nextAfterId = nextAfterId;
+        this.hasMore = hasMore;
+        this.pageSize = pageSize;
+    }
+    
+    // Getters and Setters
+    public List<UserManagementDTO> getUsers() {
+        return users;
+    }
+    
+    public void setUsers(List<UserManagementDTO> users) {
+        this.users = users;
+    }
+    
+    public Long getNextAfterId() {
+        return nextAfterId;
+    }
+    
+    public void setNextAfterId(Long nextAfterId) {
+        this.nextAfterId = nextAfterId;
+    }
+    
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+    
+    public int getPageSize() {
+        return pageSize;
+    }
+    
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+}
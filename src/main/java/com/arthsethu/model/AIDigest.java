@@ -0,0 +1,96 @@
+package com.arthsethu.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Pre-generated AI CFO daily insight digest for a Shikhar user
+ */
+@Entity
+@Table(name = "ai_digests",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "digest_date"}),
+       indexes = @Index(name = "idx_ai_digests_user_date", columnList = "user_id, digest_date"))
+public class AIDigest {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    
+    @Column(name = "digest_date", nullable = false)
+    private LocalDate digestDate;
+    
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String content;
+    
+    @Column(name = "metrics_days")
+    private Integer metricsDays;
+    
+    @Column(name = "generated_at", nullable = false)
+    private LocalDateTime generatedAt;
+    
+    // Constructors
+    public AIDigest() {
+        this.generatedAt = LocalDateTime.now();
+    }
+    
+    public AIDigest(User user, LocalDate digestDate, String content, Integer metricsDays) {
+        this();
+        this.user = user;
+        this.digestDate = digestDate;
+        this.content = content;
+        this.metricsDays = metricsDays;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public User getUser() {
+        return user;
+    }
+    
+    public void setUser(User user) {
+        this.user = user;
+    }
+    
+    public LocalDate getDigestDate() {
+        return digestDate;
+    }
+    
+    public void setDigestDate(LocalDate digestDate) {
+        this.digestDate = digestDate;
+    }
+    
+    public String getContent() {
+        return content;
+    }
+    
+    public void setContent(String content) {
+        this.content = content;
+    }
+    
+    public Integer getMetricsDays() {
+        return metricsDays;
+    }
+    
+    public void setMetricsDays(Integer metricsDays) {
+        this.metricsDays = metricsDays;
+    }
+    
+    public LocalDateTime getGeneratedAt() {
+        return generatedAt;
+    }
+    
+    public void setGeneratedAt(LocalDateTime generatedAt) {
+        this.generatedAt = generatedAt;
+    }
+}
@@ -0,0 +1,173 @@
+package com.arthsethu.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One user's running baseline for anomaly detection: for each {@link AnomalyMetric}, an
+ * exponentially weighted mean and mean absolute deviation, and how many days they cover.
+ *
+ * The latest submitted day is held as pending rather than folded in, so resubmitting it
+ * replaces it instead of counting it twice; it joins the baseline when a later day arrives.
+ */
+@Entity
+@Table(name = "anomaly_baselines")
+public class AnomalyBaseline {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false, unique = true)
+    private Long userId;
+
+    @Column(name = "sales_count", nullable = false)
+    private Integer salesCount = 0;
+
+    @Column(name = "sales_mean", nullable = false)
+    private Double salesMean = 0.0;
+
+    @Column(name = "sales_deviation", nullable = false)
+    private Double salesDeviation = 0.0;
+
+    @Column(name = "expenses_count", nullable = false)
+    private Integer expensesCount = 0;
+
+    @Column(name = "expenses_mean", nullable = false)
+    private Double expensesMean = 0.0;
+
+    @Column(name = "expenses_deviation", nullable = false)
+    private Double expensesDeviation = 0.0;
+
+    @Column(name = "wastage_count", nullable = false)
+    private Integer wastageCount = 0;
+
+    @Column(name = "wastage_mean", nullable = false)
+    private Double wastageMean = 0.0;
+
+    @Column(name = "wastage_deviation", nullable = false)
+    private Double wastageDeviation = 0.0;
+
+    @Column(name = "pending_date")
+    private LocalDate pendingDate;
+
+    @Column(name = "pending_sales", precision = 10, scale = 2)
+    private BigDecimal pendingSales;
+
+    @Column(name = "pending_expenses", precision = 10, scale = 2)
+    private BigDecimal pendingExpenses;
+
+    @Column(name = "pending_wastage", precision = 10, scale = 2)
+    private BigDecimal pendingWastage;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public AnomalyBaseline() {}
+
+    public AnomalyBaseline(Long userId) {
+        this.userId = userId;
+    }
+
+    // Lifecycle callbacks
+    @PrePersist
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Business methods
+    public int getCount(AnomalyMetric metric) {
+        return switch (metric) {
+            case SALES_DROP -> salesCount;
+            case EXPENSE_SPIKE -> expensesCount;
+            case WASTAGE_SPIKE -> wastageCount;
+        };
+    }
+
+    public double getMean(AnomalyMetric metric) {
+        return switch (metric) {
+            case SALES_DROP -> salesMean;
+            case EXPENSE_SPIKE -> expensesMean;
+            case WASTAGE_SPIKE -> wastageMean;
+        };
+    }
+
+    public double getDeviation(AnomalyMetric metric) {
+        return switch (metric) {
+            case SALES_DROP -> salesDeviation;
+            case EXPENSE_SPIKE -> expensesDeviation;
+            case WASTAGE_SPIKE -> wastageDeviation;
+        };
+    }
+
+    public void update(AnomalyMetric metric, int count, double mean, double deviation) {
+        switch (metric) {
+            case SALES_DROP -> {
+                salesCount = count;
+                salesMean = mean;
+                salesDeviation = deviation;
+            }
+            case EXPENSE_SPIKE -> {
+                expensesCount = count;
+                expensesMean = mean;
+                expensesDeviation = deviation;
+            }
+            case WASTAGE_SPIKE -> {
+                wastageCount = count;
+                wastageMean = mean;
+                wastageDeviation = deviation;
+            }
+        }
+    }
+
+    public void setPending(LocalDate date, BigDecimal sales, BigDecimal expenses, BigDecimal wastage) {
+        this.pendingDate = date;
+        this.pendingSales = sales;
+        this.pendingExpenses = expenses;
+        this.pendingWastage = wastage;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDate getPendingDate() {
+        return pendingDate;
+    }
+
+    public BigDecimal getPendingSales() {
+        return pendingSales;
+    }
+
+    public BigDecimal getPendingExpenses() {
+        return pendingExpenses;
+    }
+
+    public BigDecimal getPendingWastage() {
+        return pendingWastage;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
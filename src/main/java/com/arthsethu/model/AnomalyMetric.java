@@ -0,0 +1,59 @@
+package com.arthsethu.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * A daily figure watched for anomalies and the direction that counts as abnormal.
+ * Wastage is watched as a share of sales, so busy days do not look wasteful.
+ */
+public enum AnomalyMetric {
+    SALES_DROP("Sales", false, 1.0),
+    EXPENSE_SPIKE("Expenses", true, 1.0),
+    WASTAGE_SPIKE("Wastage", true, 0.005);
+
+    private final String label;
+    private final boolean high;
+    // Smallest deviation scale, so a perfectly steady baseline does not flag every change
+    private final double minScale;
+
+    AnomalyMetric(String label, boolean high, double minScale) {
+        this.label = label;
+        this.high = high;
+        this.minScale = minScale;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public boolean isHigh() {
+        return high;
+    }
+
+    public double getMinScale() {
+        return minScale;
+    }
+
+    /**
+     * The watched value for a day; null for wastage when there were no sales
+     */
+    public Double valueOf(BigDecimal sales, BigDecimal expenses, BigDecimal wastage) {
+        return switch (this) {
+            case SALES_DROP -> sales.doubleValue();
+            case EXPENSE_SPIKE -> expenses.doubleValue();
+            case WASTAGE_SPIKE -> sales.signum() > 0
+                ? wastage.divide(sales, 6, RoundingMode.HALF_UP).doubleValue() : null;
+        };
+    }
+
+    /**
+     * A value as shown to the user: rupees, or a percentage of sales for wastage
+     */
+    public String format(BigDecimal value) {
+        if (this == WASTAGE_SPIKE) {
+            return value.multiply(BigDecimal.valueOf(100)).setScale(1, RoundingMode.HALF_UP) + "% of sales";
+        }
+        return "₹" + value.setScale(0, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,63 @@
+package com.arthsethu.model;
+
+/**
+ * A daily figure that businesses are benchmarked on, with the fixed bins its peer sketches
+ * count values in. Values outside [min, max) fall into the first or last bin.
+ */
+public enum BenchmarkMetric {
+    MARGIN("Margin", -1.0, 1.0, 200, true),
+    WASTAGE("Wastage", 0.0, 0.5, 200, false),
+    HEALTH_SCORE("Health Score", -0.5, 100.5, 101, true);
+
+    private final String label;
+    private final double min;
+    private final double max;
+    private final int bins;
+    private final boolean higherIsBetter;
+
+    BenchmarkMetric(String label, double min, double max, int bins, boolean higherIsBetter) {
+        this.label = label;
+        this.min = min;
+        this.max = max;
+        this.bins = bins;
+        this.higherIsBetter = higherIsBetter;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public int getBins() {
+        return bins;
+    }
+
+    public boolean isHigherIsBetter() {
+        return higherIsBetter;
+    }
+
+    /**
+     * The benchmarked value for a day: margin and wastage as shares of sales, null on days
+     * without sales
+     */
+    public Double valueOf(DailyMetrics metrics) {
+        if (this == HEALTH_SCORE) {
+            return metrics.getHealthScore().doubleValue();
+        }
+        if (metrics.getSales().signum() <= 0) {
+            return null;
+        }
+        return this == MARGIN ? metrics.getMargin().doubleValue() : metrics.getWastagePercentage().doubleValue();
+    }
+
+    public int binOf(double value) {
+        int bin = (int) Math.floor((value - min) / (max - min) * bins);
+        return Math.max(0, Math.min(bins - 1, bin));
+    }
+
+    /**
+     * Midpoint of a bin, the value a bin's observations are reported as
+     */
+    public double valueAt(int bin) {
+        return min + (bin + 0.5) * (max - min) / bins;
+    }
+}
@@ -0,0 +1,78 @@
+package com.arthsethu.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Append-only AI CFO chat transcript entry. Rows are never updated; older turns are
+ * folded into {@link ChatSummary} for prompt assembly but kept here for history paging.
+ */
+@Entity
+@Table(name = "chat_messages",
+       indexes = @Index(name = "idx_chat_messages_user_id", columnList = "user_id, id"))
+public class ChatMessage {
+    
+    public enum Sender {
+        USER, AI
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false, updatable = false)
+    private User user;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false, length = 10)
+    private Sender sender;
+    
+    @Column(columnDefinition = "TEXT", nullable = false, updatable = false)
+    private String content;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public ChatMessage() {
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    public ChatMessage(User user, Sender sender, String content) {
+        this();
+        this.user = user;
+        this.sender = sender;
+        this.content = content;
+    }
+    
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    
+    public User getUser() {
+        return user;
+    }
+    
+    public Sender getSender() {
+        return sender;
+    }
+    
+    public String getContent() {
+        return content;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "ChatMessage{" +
+                "id=" + id +
+                ", sender=" + sender +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
@@ -0,0 +1,83 @@
+package com.arthsethu.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Rolling compacted summary of a user's older AI CFO chat turns.
+ * Everything up to and including {@code lastCompactedMessageId} is represented by {@code summary}.
+ */
+@Entity
+@Table(name = "chat_summaries")
+public class ChatSummary {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false, unique = true)
+    private User user;
+    
+    @Column(columnDefinition = "TEXT")
+    private String summary = "";
+    
+    @Column(name = "last_compacted_message_id", nullable = false)
+    private Long lastCompactedMessageId = 0L;
+    
+    @Column(name = "compacted_messages", nullable = false)
+    private Integer compactedMessages = 0;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Version
+    private Long version;
+    
+    // Constructors
+    public ChatSummary() {
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    public ChatSummary(User user) {
+        this();
+        this.user = user;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public User getUser() {
+        return user;
+    }
+    
+    public String getSummary() {
+        return summary;
+    }
+    
+    public void setSummary(String summary) {
+        this.summary = summary;
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    public Long getLastCompactedMessageId() {
+        return lastCompactedMessageId;
+    }
+    
+    public void setLastCompactedMessageId(Long lastCompactedMessageId) {
+        this.lastCompactedMessageId = lastCompactedMessageId;
+    }
+    
+    public Integer getCompactedMessages() {
+        return compactedMessages;
+    }
+    
+    public void setCompactedMessages(Integer compactedMessages) {
+        this.compactedMessages = compactedMessages;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
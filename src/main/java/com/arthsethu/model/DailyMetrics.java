@@ -1,5 +1,6 @@
 package com.arthsethu.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -11,10 +12,15 @@ import java.time.LocalDateTime;
        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "metric_date"}),
        indexes = @Index(name = "idx_daily_metrics_user_date", columnList = "user_id, metric_date"))
 public class DailyMetrics {
+    // Pooled sequence rather than IDENTITY so Hibernate can batch inserts; bulk imports draw
+    // IDs from the same sequence (see DailyMetricsBulkRepository)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_metrics_seq")
+    @SequenceGenerator(name = "daily_metrics_seq", sequenceName = "daily_metrics_seq", allocationSize = 50)
     private Long id;
     
+    // Templates inline metrics as JSON; the owner would recurse back through User.dailyMetrics
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -34,6 +40,10 @@ public class DailyMetrics {
     @Column(name = "health_score")
     private Integer healthScore;
     
+    // HealthScoreFormula version the score was computed with; null on rows stored before versioning
+    @Column(name = "health_score_version")
+    private Integer healthScoreVersion;
+    
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
     
@@ -49,7 +59,7 @@ public class DailyMetrics {
         this.sales = sales;
         this.expenses = expenses;
         this.wastage = wastage;
-        this.healthScore = calculateHealthScore();
+        calculateHealthScore();
     }
     
     // Business logic methods
@@ -71,18 +81,13 @@ public class DailyMetrics {
         return wastage.divide(sales, 4, RoundingMode.HALF_UP);
     }
     
-    private Integer calculateHealthScore() {
-        // Basic health score calculation based on margin and wastage
-        BigDecimal margin = getMargin();
-        BigDecimal wastagePercent = getWastagePercentage();
-        
-        // Base score from margin (0-70 points)
-        int marginScore = Math.min(70, margin.multiply(BigDecimal.valueOf(350)).intValue());
-        
-        // Penalty from wastage (0-30 points deduction)
-        int wastagePenalty = Math.min(30, wastagePercent.multiply(BigDecimal.valueOf(300)).intValue());
-        
-        return Math.max(0, Math.min(100, marginScore - wastagePenalty));
+    private void calculateHealthScore() {
+        // Scored once the setters have filled in all three amounts
+        if (sales == null || expenses == null || wastage == null) {
+            return;
+        }
+        this.healthScore = HealthScoreFormula.CURRENT.score(sales, expenses, wastage);
+        this.healthScoreVersion = HealthScoreFormula.CURRENT.getVersion();
     }
     
     // Getters and Setters
@@ -116,7 +121,7 @@ public class DailyMetrics {
     
     public void setSales(BigDecimal sales) {
         this.sales = sales;
-        this.healthScore = calculateHealthScore();
+        calculateHealthScore();
     }
     
     public BigDecimal getExpenses() {
@@ -125,7 +130,7 @@ public class DailyMetrics {
     
     public void setExpenses(BigDecimal expenses) {
         this.expenses = expenses;
-        this.healthScore = calculateHealthScore();
+        calculateHealthScore();
     }
     
     public BigDecimal getWastage() {
@@ -134,7 +139,7 @@ public class DailyMetrics {
     
     public void setWastage(BigDecimal wastage) {
         this.wastage = wastage;
-        this.healthScore = calculateHealthScore();
+        calculateHealthScore();
     }
     
     public Integer getHealthScore() {
@@ -145,6 +150,14 @@ public class DailyMetrics {
         this.healthScore = healthScore;
     }
     
+    public Integer getHealthScoreVersion() {
+        return healthScoreVersion;
+    }
+    
+    public void setHealthScoreVersion(Integer healthScoreVersion) {
+        this.healthScoreVersion = healthScoreVersion;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,13 @@
+package com.arthsethu.model;
+
+/**
+ * Kinds of domain event written to the outbox. Every event concerns one user.
+ */
+public enum DomainEventType {
+    TIER_CHANGED,       // payload: from, to
+    PROFILE_CREATED,    // payload: profileId, businessType, city
+    METRICS_RECORDED,   // payload: date, sales, expenses, wastage, healthScore
+    METRICS_IMPORTED,   // payload: from, to, rows (one event per imported batch)
+    USER_BANNED,        // payload: reason, previousTier
+    USER_UNBANNED
+}
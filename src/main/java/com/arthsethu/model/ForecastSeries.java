@@ -0,0 +1,35 @@
+package com.arthsethu.model;
+
+/**
+ * A daily metric that is forecast, with the payload key it arrives under in
+ * METRICS_RECORDED events and the range its forecasts are clamped to.
+ */
+public enum ForecastSeries {
+    SALES("sales", Double.MAX_VALUE),
+    EXPENSES("expenses", Double.MAX_VALUE),
+    HEALTH_SCORE("healthScore", 100);
+
+    private final String payloadKey;
+    private final double max;
+
+    ForecastSeries(String payloadKey, double max) {
+        this.payloadKey = payloadKey;
+        this.max = max;
+    }
+
+    public String getPayloadKey() {
+        return payloadKey;
+    }
+
+    public double valueOf(DailyMetrics metrics) {
+        return switch (this) {
+            case SALES -> metrics.getSales().doubleValue();
+            case EXPENSES -> metrics.getExpenses().doubleValue();
+            case HEALTH_SCORE -> metrics.getHealthScore();
+        };
+    }
+
+    public double clamp(double value) {
+        return Math.max(0, Math.min(max, value));
+    }
+}
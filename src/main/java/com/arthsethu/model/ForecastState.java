@@ -0,0 +1,233 @@
+package com.arthsethu.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Holt-Winters smoothing state of one user's daily series: level, damped trend, one
+ * seasonal offset per weekday (Monday first) and the variance of one-day-ahead errors.
+ * Each new day updates it in place, so forecasting never reads history. The state from
+ * before the latest day is kept too, so correcting that day replaces its update instead
+ * of replaying the series.
+ */
+@Entity
+@Table(name = "forecast_states",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "series"}))
+public class ForecastState {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ForecastSeries series;
+
+    // Days observed so far
+    @Column(nullable = false)
+    private Integer observations = 0;
+
+    @Column(name = "last_date")
+    private LocalDate lastDate;
+
+    @Column(nullable = false)
+    private Double level = 0.0;
+
+    @Column(nullable = false)
+    private Double trend = 0.0;
+
+    // Seven comma-separated offsets, Monday first; raw values, NaN if unseen, until seeded
+    @Column(name = "seasonal_factors", nullable = false, length = 255)
+    private String seasonalFactors = join(unseen());
+
+    @Column(name = "error_variance", nullable = false)
+    private Double errorVariance = 0.0;
+
+    // State before lastDate was applied; previousLevel is null when it cannot be undone
+    @Column(name = "previous_date")
+    private LocalDate previousDate;
+
+    @Column(name = "previous_level")
+    private Double previousLevel;
+
+    @Column(name = "previous_trend")
+    private Double previousTrend;
+
+    @Column(name = "previous_seasonal")
+    private Double previousSeasonal;
+
+    @Column(name = "previous_error_variance")
+    private Double previousErrorVariance;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public ForecastState() {}
+
+    public ForecastState(Long userId, ForecastSeries series) {
+        this.userId = userId;
+        this.series = series;
+    }
+
+    // Lifecycle callbacks
+    @PrePersist
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Business methods
+    public double[] getSeasonals() {
+        return Arrays.stream(seasonalFactors.split(",")).mapToDouble(Double::parseDouble).toArray();
+    }
+
+    public void setSeasonals(double[] seasonals) {
+        this.seasonalFactors = join(seasonals);
+    }
+
+    /**
+     * Forget everything observed, before replaying a series from scratch
+     */
+    public void reset() {
+        observations = 0;
+        lastDate = null;
+        level = 0.0;
+        trend = 0.0;
+        seasonalFactors = join(unseen());
+        errorVariance = 0.0;
+        previousDate = null;
+        previousLevel = null;
+        previousTrend = null;
+        previousSeasonal = null;
+        previousErrorVariance = null;
+    }
+
+    private static double[] unseen() {
+        double[] values = new double[7];
+        Arrays.fill(values, Double.NaN);
+        return values;
+    }
+
+    private static String join(double[] values) {
+        return Arrays.stream(values).mapToObj(Double::toString).collect(Collectors.joining(","));
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public ForecastSeries getSeries() {
+        return series;
+    }
+
+    public void setSeries(ForecastSeries series) {
+        this.series = series;
+    }
+
+    public Integer getObservations() {
+        return observations;
+    }
+
+    public void setObservations(Integer observations) {
+        this.observations = observations;
+    }
+
+    public LocalDate getLastDate() {
+        return lastDate;
+    }
+
+    public void setLastDate(LocalDate lastDate) {
+        this.lastDate = lastDate;
+    }
+
+    public Double getLevel() {
+        return level;
+    }
+
+    public void setLevel(Double level) {
+        this.level = level;
+    }
+
+    public Double getTrend() {
+        return trend;
+    }
+
+    public void setTrend(Double trend) {
+        this.trend = trend;
+    }
+
+    public Double getErrorVariance() {
+        return errorVariance;
+    }
+
+    public void setErrorVariance(Double errorVariance) {
+        this.errorVariance = errorVariance;
+    }
+
+    public LocalDate getPreviousDate() {
+        return previousDate;
+    }
+
+    public void setPreviousDate(LocalDate previousDate) {
+        this.previousDate = previousDate;
+    }
+
+    public Double getPreviousLevel() {
+        return previousLevel;
+    }
+
+    public void setPreviousLevel(Double previousLevel) {
+        this.previousLevel = previousLevel;
+    }
+
+    public Double getPreviousTrend() {
+        return previousTrend;
+    }
+
+    public void setPreviousTrend(Double previousTrend) {
+        this.previousTrend = previousTrend;
+    }
+
+    public Double getPreviousSeasonal() {
+        return previousSeasonal;
+    }
+
+    public void setPreviousSeasonal(Double previousSeasonal) {
+        this.previousSeasonal = previousSeasonal;
+    }
+
+    public Double getPreviousErrorVariance() {
+        return previousErrorVariance;
+    }
+
+    public void setPreviousErrorVariance(Double previousErrorVariance) {
+        this.previousErrorVariance = previousErrorVariance;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,83 @@
+package com.arthsethu.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Versions of the daily health score (0-100). Every daily_metrics row records the version its
+ * score was computed with; to change the formula, add a constant with the next version number
+ * and point {@link #CURRENT} at it, and HealthScoreRecomputeService rescores the stored rows.
+ *
+ * Formulas work on amounts in paise (the two decimal places the amount columns store) with
+ * long arithmetic, so the recompute job can score whole chunks held in primitive arrays.
+ */
+public enum HealthScoreFormula {
+    /**
+     * Up to 70 points for margin (350 per unit, so a 20% margin earns them all) less up to 30
+     * for wastage (300 per unit of sales, so 10% wastage costs them all). Margin and wastage
+     * share are rounded half-up to four decimal places first. No sales scores 0.
+     */
+    V1(1) {
+        @Override
+        public int score(long sales, long expenses, long wastage) {
+            if (sales <= 0) {
+                return 0;
+            }
+            long margin = ratio(sales - expenses, sales);
+            long wastageShare = ratio(wastage, sales);
+            // Narrowed like the BigDecimal.intValue() the formula was first written with
+            int marginScore = Math.min(70, (int) (margin * 350 / RATIO_SCALE));
+            int wastagePenalty = Math.min(30, (int) (wastageShare * 300 / RATIO_SCALE));
+            return Math.max(0, Math.min(100, marginScore - wastagePenalty));
+        }
+    };
+
+    public static final HealthScoreFormula CURRENT = V1;
+
+    // Ratios are held in units of 1/10000 (four decimal places)
+    private static final long RATIO_SCALE = 10_000;
+
+    private final int version;
+
+    HealthScoreFormula(int version) {
+        this.version = version;
+    }
+
+    /**
+     * Score a day from its amounts in paise
+     */
+    public abstract int score(long sales, long expenses, long wastage);
+
+    /**
+     * Score a day from its amounts, rounded to paise as the columns store them
+     */
+    public int score(BigDecimal sales, BigDecimal expenses, BigDecimal wastage) {
+        return score(paise(sales), paise(expenses), paise(wastage));
+    }
+
+    /**
+     * Score the first count days of the given arrays of amounts in paise into scores
+     */
+    public final void scoreAll(long[] sales, long[] expenses, long[] wastage, int[] scores, int count) {
+        for (int i = 0; i < count; i++) {
+            scores[i] = score(sales[i], expenses[i], wastage[i]);
+        }
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public static long paise(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * numerator / denominator in units of 1/10000, rounded half away from zero like
+     * BigDecimal's HALF_UP; the denominator must be positive
+     */
+    private static long ratio(long numerator, long denominator) {
+        long rounded = (Math.abs(numerator) * RATIO_SCALE + denominator / 2) / denominator;
+        return numerator < 0 ? -rounded : rounded;
+    }
+}
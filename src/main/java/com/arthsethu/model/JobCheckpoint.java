@@ -0,0 +1,151 @@
+package com.arthsethu.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a chunked background job, written in the same transaction as each chunk so
+ * a run interrupted by a crash or restart resumes after the last committed chunk
+ */
+@Entity
+@Table(name = "job_checkpoints")
+public class JobCheckpoint {
+    @Id
+    @Column(name = "job_name", length = 64)
+    private String jobName;
+    
+    @Column(nullable = false, length = 32)
+    private String phase;
+    
+    // Last ID processed in the current phase (keyset position)
+    @Column(name = "last_id", nullable = false)
+    private Long lastId = 0L;
+    
+    // Cut-off time of the run, reused when resuming so the run sees the same due set
+    @Column(name = "as_of", nullable = false)
+    private LocalDateTime asOf;
+    
+    @Column(nullable = false)
+    private Long processed = 0L;
+    
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public JobCheckpoint() {}
+    
+    public JobCheckpoint(String jobName) {
+        this.jobName = jobName;
+    }
+    
+    /**
+     * Begin a new run at the given phase
+     */
+    public void start(String firstPhase, LocalDateTime asOf) {
+        this.phase = firstPhase;
+        this.lastId = 0L;
+        this.asOf = asOf;
+        this.processed = 0L;
+        this.startedAt = LocalDateTime.now();
+        this.completedAt = null;
+        this.updatedAt = startedAt;
+    }
+    
+    /**
+     * Record a committed chunk
+     */
+    public void advance(Long lastId, int processedInChunk) {
+        this.lastId = lastId;
+        this.processed += processedInChunk;
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    /**
+     * Move to the next phase, restarting the keyset position
+     */
+    public void enterPhase(String nextPhase) {
+        this.phase = nextPhase;
+        this.lastId = 0L;
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    public void complete() {
+        this.completedAt = LocalDateTime.now();
+        this.updatedAt = completedAt;
+    }
+    
+    public boolean isInProgress() {
+        return startedAt != null && completedAt == null;
+    }
+    
+    // Getters and Setters
+    public String getJobName() {
+        return jobName;
+    }
+    
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+    
+    public String getPhase() {
+        return phase;
+    }
+    
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+    
+    public Long getLastId() {
+        return lastId;
+    }
+    
+    public void setLastId(Long lastId) {
+        this.lastId = lastId;
+    }
+    
+    public LocalDateTime getAsOf() {
+        return asOf;
+    }
+    
+    public void setAsOf(LocalDateTime asOf) {
+        this.asOf = asOf;
+    }
+    
+    public Long getProcessed() {
+        return processed;
+    }
+    
+    public void setProcessed(Long processed) {
+        this.processed = processed;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+    
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
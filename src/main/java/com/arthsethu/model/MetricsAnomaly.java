@@ -0,0 +1,127 @@
+package com.arthsethu.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A submitted day whose sales, expenses or wastage strayed from the user's own baseline,
+ * with the baseline value and the robust z-score at the time it was submitted
+ */
+@Entity
+@Table(name = "metrics_anomalies",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "metric_date", "metric"}),
+       indexes = @Index(name = "idx_metrics_anomalies_user_date", columnList = "user_id, metric_date"))
+public class MetricsAnomaly {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "metric_date", nullable = false)
+    private LocalDate metricDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private AnomalyMetric metric;
+
+    @Column(name = "metric_value", nullable = false, precision = 14, scale = 4)
+    private BigDecimal value;
+
+    @Column(nullable = false, precision = 14, scale = 4)
+    private BigDecimal expected;
+
+    @Column(nullable = false, precision = 8, scale = 2)
+    private BigDecimal score;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public MetricsAnomaly() {}
+
+    public MetricsAnomaly(Long userId, LocalDate metricDate, AnomalyMetric metric,
+                          BigDecimal value, BigDecimal expected, BigDecimal score) {
+        this.userId = userId;
+        this.metricDate = metricDate;
+        this.metric = metric;
+        this.value = value;
+        this.expected = expected;
+        this.score = score;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Business methods
+    public String getDescription() {
+        return metric.getLabel() + " on " + metricDate + " was " + metric.format(value) +
+               ", against a usual " + metric.format(expected);
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDate getMetricDate() {
+        return metricDate;
+    }
+
+    public void setMetricDate(LocalDate metricDate) {
+        this.metricDate = metricDate;
+    }
+
+    public AnomalyMetric getMetric() {
+        return metric;
+    }
+
+    public void setMetric(AnomalyMetric metric) {
+        this.metric = metric;
+    }
+
+    public BigDecimal getValue() {
+        return value;
+    }
+
+    public void setValue(BigDecimal value) {
+        this.value = value;
+    }
+
+    public BigDecimal getExpected() {
+        return expected;
+    }
+
+    public void setExpected(BigDecimal expected) {
+        this.expected = expected;
+    }
+
+    public BigDecimal getScore() {
+        return score;
+    }
+
+    public void setScore(BigDecimal score) {
+        this.score = score;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
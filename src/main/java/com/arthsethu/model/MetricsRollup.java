@@ -0,0 +1,178 @@
+package com.arthsethu.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One user's daily metrics summarised over a week or a month: totals, the number of days
+ * logged and the mean, minimum and maximum health score. Rows are written by
+ * MetricsRollupService and outlive the raw daily rows they were computed from, so
+ * long-range views read a few dozen rollups instead of a year of daily rows.
+ */
+@Entity
+@Table(name = "daily_metrics_rollups",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "granularity", "period_start"}))
+public class MetricsRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private RollupGranularity granularity;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    // Days with metrics logged in the period
+    @Column(nullable = false)
+    private Integer days;
+
+    @Column(name = "sales_total", nullable = false, precision = 14, scale = 2)
+    private BigDecimal salesTotal;
+
+    @Column(name = "expenses_total", nullable = false, precision = 14, scale = 2)
+    private BigDecimal expensesTotal;
+
+    @Column(name = "wastage_total", nullable = false, precision = 14, scale = 2)
+    private BigDecimal wastageTotal;
+
+    @Column(name = "health_score_avg", precision = 5, scale = 2)
+    private BigDecimal healthScoreAvg;
+
+    @Column(name = "health_score_min")
+    private Integer healthScoreMin;
+
+    @Column(name = "health_score_max")
+    private Integer healthScoreMax;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public MetricsRollup() {}
+
+    // Business methods
+    public LocalDate getPeriodEnd() {
+        return granularity.plus(periodStart, 1).minusDays(1);
+    }
+
+    public BigDecimal getAverageSales() {
+        return average(salesTotal);
+    }
+
+    public BigDecimal getAverageExpenses() {
+        return average(expensesTotal);
+    }
+
+    public BigDecimal getAverageWastage() {
+        return average(wastageTotal);
+    }
+
+    private BigDecimal average(BigDecimal total) {
+        return days == null || days == 0 ? BigDecimal.ZERO : total.divide(BigDecimal.valueOf(days), 2, RoundingMode.HALF_UP);
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public RollupGranularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(RollupGranularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public Integer getDays() {
+        return days;
+    }
+
+    public void setDays(Integer days) {
+        this.days = days;
+    }
+
+    public BigDecimal getSalesTotal() {
+        return salesTotal;
+    }
+
+    public void setSalesTotal(BigDecimal salesTotal) {
+        this.salesTotal = salesTotal;
+    }
+
+    public BigDecimal getExpensesTotal() {
+        return expensesTotal;
+    }
+
+    public void setExpensesTotal(BigDecimal expensesTotal) {
+        this.expensesTotal = expensesTotal;
+    }
+
+    public BigDecimal getWastageTotal() {
+        return wastageTotal;
+    }
+
+    public void setWastageTotal(BigDecimal wastageTotal) {
+        this.wastageTotal = wastageTotal;
+    }
+
+    public BigDecimal getHealthScoreAvg() {
+        return healthScoreAvg;
+    }
+
+    public void setHealthScoreAvg(BigDecimal healthScoreAvg) {
+        this.healthScoreAvg = healthScoreAvg;
+    }
+
+    public Integer getHealthScoreMin() {
+        return healthScoreMin;
+    }
+
+    public void setHealthScoreMin(Integer healthScoreMin) {
+        this.healthScoreMin = healthScoreMin;
+    }
+
+    public Integer getHealthScoreMax() {
+        return healthScoreMax;
+    }
+
+    public void setHealthScoreMax(Integer healthScoreMax) {
+        this.healthScoreMax = healthScoreMax;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
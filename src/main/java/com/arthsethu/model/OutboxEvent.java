@@ -0,0 +1,165 @@
+package com.arthsethu.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * A domain event recorded in the same transaction as the change it describes and
+ * delivered to listeners once that transaction has committed.
+ */
+@Entity
+@Table(name = "outbox_events",
+       indexes = {
+           @Index(name = "idx_outbox_pending", columnList = "dispatched_at, next_attempt_at, id"),
+           @Index(name = "idx_outbox_user", columnList = "user_id")
+       })
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 32)
+    private DomainEventType eventType;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(columnDefinition = "TEXT")
+    private String payload; // JSON format
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Earliest time of the next delivery attempt; pushed back after each failure
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+    
+    @Column(name = "dispatched_at")
+    private LocalDateTime dispatchedAt;
+    
+    // Listeners that have already handled the event, so a retry only goes to the ones that failed
+    @Column(name = "delivered_to", length = 1000)
+    private String deliveredTo;
+    
+    // Constructors
+    public OutboxEvent() {}
+    
+    public OutboxEvent(DomainEventType eventType, Long userId, String payload) {
+        this.eventType = eventType;
+        this.userId = userId;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = createdAt;
+    }
+    
+    /**
+     * Record a failed delivery and when to try again
+     */
+    public void recordFailure(String error, LocalDateTime retryAt) {
+        this.attempts++;
+        this.lastError = error != null && error.length() > 500 ? error.substring(0, 500) : error;
+        this.nextAttemptAt = retryAt;
+    }
+    
+    public boolean isDeliveredTo(String listener) {
+        return deliveredTo != null && Set.of(deliveredTo.split(",")).contains(listener);
+    }
+    
+    /**
+     * Record that a listener has handled the event
+     */
+    public void recordDelivery(String listener) {
+        if (!isDeliveredTo(listener)) {
+            deliveredTo = deliveredTo == null ? listener : deliveredTo + "," + listener;
+        }
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public DomainEventType getEventType() {
+        return eventType;
+    }
+    
+    public void setEventType(DomainEventType eventType) {
+        this.eventType = eventType;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public String getPayload() {
+        return payload;
+    }
+    
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+    
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+    
+    public Integer getAttempts() {
+        return attempts;
+    }
+    
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+    
+    public String getLastError() {
+        return lastError;
+    }
+    
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+    
+    public LocalDateTime getDispatchedAt() {
+        return dispatchedAt;
+    }
+    
+    public void setDispatchedAt(LocalDateTime dispatchedAt) {
+        this.dispatchedAt = dispatchedAt;
+    }
+    
+    public String getDeliveredTo() {
+        return deliveredTo;
+    }
+    
+    public void setDeliveredTo(String deliveredTo) {
+        this.deliveredTo = deliveredTo;
+    }
+}
@@ -0,0 +1,114 @@
+package com.arthsethu.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * The latest day a user has added to the peer benchmark sketches, with the group and values
+ * it was counted under. Each day is counted once, in date order; resubmitting this day
+ * takes these values back out before the new ones go in.
+ */
+@Entity
+@Table(name = "peer_benchmark_contributions")
+public class PeerBenchmarkContribution {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false, unique = true)
+    private Long userId;
+
+    // Lower-cased, so spellings that differ only in case share a peer group
+    @Column(nullable = false)
+    private String city;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "business_type", nullable = false)
+    private BusinessType businessType;
+
+    @Column(name = "metric_date", nullable = false)
+    private LocalDate metricDate;
+
+    // Null on days without sales
+    @Column(name = "margin")
+    private Double margin;
+
+    @Column(name = "wastage")
+    private Double wastage;
+
+    @Column(name = "health_score", nullable = false)
+    private Double healthScore;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public PeerBenchmarkContribution() {}
+
+    public PeerBenchmarkContribution(Long userId) {
+        this.userId = userId;
+    }
+
+    // Lifecycle callbacks
+    @PrePersist
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Business methods
+    public Double getValue(BenchmarkMetric metric) {
+        return switch (metric) {
+            case MARGIN -> margin;
+            case WASTAGE -> wastage;
+            case HEALTH_SCORE -> healthScore;
+        };
+    }
+
+    public void record(String city, BusinessType businessType, DailyMetrics day) {
+        this.city = city;
+        this.businessType = businessType;
+        this.metricDate = day.getDate();
+        this.margin = BenchmarkMetric.MARGIN.valueOf(day);
+        this.wastage = BenchmarkMetric.WASTAGE.valueOf(day);
+        this.healthScore = BenchmarkMetric.HEALTH_SCORE.valueOf(day);
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public BusinessType getBusinessType() {
+        return businessType;
+    }
+
+    public LocalDate getMetricDate() {
+        return metricDate;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,128 @@
+package com.arthsethu.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Distribution of one {@link BenchmarkMetric} over the days logged in a month by businesses
+ * of one type in one city, stored as the non-empty bins of a fixed-bin histogram. Rows for
+ * different months are merged by adding bin counts to cover longer windows.
+ */
+@Entity
+@Table(name = "peer_benchmark_sketches",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"city", "business_type", "metric", "period_start"}),
+       indexes = @Index(name = "idx_peer_benchmark_group", columnList = "city, business_type, period_start"))
+public class PeerBenchmarkSketch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Lower-cased, so spellings that differ only in case share a peer group
+    @Column(nullable = false)
+    private String city;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "business_type", nullable = false)
+    private BusinessType businessType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private BenchmarkMetric metric;
+
+    // First day of the month the counted days fall in
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    // Comma-separated "bin:count" pairs
+    @Column(nullable = false, length = 4000)
+    private String bins = "";
+
+    @Column(name = "sample_count", nullable = false)
+    private Long sampleCount = 0L;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public PeerBenchmarkSketch() {}
+
+    public PeerBenchmarkSketch(String city, BusinessType businessType, BenchmarkMetric metric, LocalDate periodStart) {
+        this.city = city;
+        this.businessType = businessType;
+        this.metric = metric;
+        this.periodStart = periodStart;
+    }
+
+    // Lifecycle callbacks
+    @PrePersist
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    public BusinessType getBusinessType() {
+        return businessType;
+    }
+
+    public void setBusinessType(BusinessType businessType) {
+        this.businessType = businessType;
+    }
+
+    public BenchmarkMetric getMetric() {
+        return metric;
+    }
+
+    public void setMetric(BenchmarkMetric metric) {
+        this.metric = metric;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public String getBins() {
+        return bins;
+    }
+
+    public void setBins(String bins) {
+        this.bins = bins;
+    }
+
+    public Long getSampleCount() {
+        return sampleCount;
+    }
+
+    public void setSampleCount(Long sampleCount) {
+        this.sampleCount = sampleCount;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,99 @@
+package com.arthsethu.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One cell of the pre-aggregated revenue cube: subscription count and amount for a
+ * (start date, tier, status) combination. Cells are adjusted incrementally whenever a
+ * subscription changes state, so revenue analytics combine a handful of cells instead of
+ * scanning the subscriptions table.
+ */
+@Entity
+@Table(name = "revenue_cube",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"revenue_date", "tier", "status"}),
+       indexes = @Index(name = "idx_revenue_cube_status_date", columnList = "status, revenue_date"))
+public class RevenueCubeCell {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "revenue_date", nullable = false)
+    private LocalDate revenueDate;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SubscriptionTier tier;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SubscriptionStatus status;
+    
+    @Column(name = "subscription_count", nullable = false)
+    private long subscriptionCount;
+    
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal amount = BigDecimal.ZERO;
+    
+    // Constructors
+    public RevenueCubeCell() {}
+    
+    public RevenueCubeCell(LocalDate revenueDate, SubscriptionTier tier, SubscriptionStatus status,
+                           long subscriptionCount, BigDecimal amount) {
+        this.revenueDate = revenueDate;
+        this.tier = tier;
+        this.status = status;
+        this.subscriptionCount = subscriptionCount;
+        this.amount = amount;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public LocalDate getRevenueDate() {
+        return revenueDate;
+    }
+    
+    public void setRevenueDate(LocalDate revenueDate) {
+        this.revenueDate = revenueDate;
+    }
+    
+    public SubscriptionTier getTier() {
+        return tier;
+    }
+    
+    public void setTier(SubscriptionTier tier) {
+        this.tier = tier;
+    }
+    
+    public SubscriptionStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(SubscriptionStatus status) {
+        this.status = status;
+    }
+    
+    public long getSubscriptionCount() {
+        return subscriptionCount;
+    }
+    
+    public void setSubscriptionCount(long subscriptionCount) {
+        this.subscriptionCount = subscriptionCount;
+    }
+    
+    public BigDecimal getAmount() {
+        return amount;
+    }
+    
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+}
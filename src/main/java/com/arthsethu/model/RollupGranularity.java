@@ -0,0 +1,26 @@
+package com.arthsethu.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * Period length of a metrics rollup. Weeks start on Monday, months on the 1st.
+ */
+public enum RollupGranularity {
+    WEEK,
+    MONTH;
+
+    /**
+     * First day of the period containing the date
+     */
+    public LocalDate startOf(LocalDate date) {
+        return this == WEEK ? date.with(DayOfWeek.MONDAY) : date.withDayOfMonth(1);
+    }
+
+    /**
+     * Start of the period the given number of periods after (or before, if negative) a period start
+     */
+    public LocalDate plus(LocalDate periodStart, long periods) {
+        return this == WEEK ? periodStart.plusWeeks(periods) : periodStart.plusMonths(periods);
+    }
+}
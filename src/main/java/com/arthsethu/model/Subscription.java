@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 @Table(name = "subscriptions",
        indexes = {
            @Index(name = "idx_subscriptions_user", columnList = "user_id"),
-           @Index(name = "idx_subscriptions_status", columnList = "status")
+           @Index(name = "idx_subscriptions_status", columnList = "status"),
+           @Index(name = "idx_subscriptions_status_end_date", columnList = "status, end_date")
        })
 public class Subscription {
     @Id
@@ -42,6 +43,10 @@ public class Subscription {
     @Column(name = "auto_renew")
     private Boolean autoRenew = false;
     
+    // When a renewal charge for the current end date was last requested; cleared on renewal
+    @Column(name = "renewal_requested_at")
+    private LocalDateTime renewalRequestedAt;
+    
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
     
@@ -200,4 +205,12 @@ public class Subscription {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    public LocalDateTime getRenewalRequestedAt() {
+        return renewalRequestedAt;
+    }
+    
+    public void setRenewalRequestedAt(LocalDateTime renewalRequestedAt) {
+        this.renewalRequestedAt = renewalRequestedAt;
+    }
 }
\ No newline at end of file
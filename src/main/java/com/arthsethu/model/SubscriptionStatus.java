@@ -2,6 +2,8 @@ package com.arthsethu.model;
 
 public enum SubscriptionStatus {
     PENDING("Pending", "Subscription is pending activation"),
+    PROCESSING("Processing", "Payment for the subscription is being processed"),
+    FAILED("Payment failed", "Payment for the subscription failed"),
     ACTIVE("Active", "Subscription is currently active"),
     SUSPENDED("Suspended", "Subscription is temporarily suspended"),
     CANCELLED("Cancelled", "Subscription has been cancelled"),
@@ -32,6 +34,10 @@ public enum SubscriptionStatus {
     }
     
     public boolean canBeCancelled() {
-        return this == ACTIVE || this == PENDING || this == SUSPENDED;
+        return this == ACTIVE || this == PENDING || this == SUSPENDED || this == FAILED;
+    }
+    
+    public boolean canStartPayment() {
+        return this == PENDING || this == FAILED;
     }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.arthsethu.repository;
+
+import com.arthsethu.model.AIDigest;
+import com.arthsethu.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface AIDigestRepository extends JpaRepository<AIDigest, Long> {
+    
+    /**
+     * Find the most recent digest for a user on or after a date
+     */
+    Optional<AIDigest> findTopByUserAndDigestDateGreaterThanEqualOrderByDigestDateDesc(User user, LocalDate date);
+    
+    /**
+     * Check if a digest already exists for user on date (makes the batch job re-runnable)
+     */
+    boolean existsByUserAndDigestDate(User user, LocalDate digestDate);
+    
+    /**
+     * Delete digests older than the retention date
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AIDigest d WHERE d.digestDate < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDate cutoff);
+}
@@ -0,0 +1,22 @@
+package com.arthsethu.repository;
+
+import com.arthsethu.model.AnomalyBaseline;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AnomalyBaselineRepository extends JpaRepository<AnomalyBaseline, Long> {
+
+    /**
+     * Lock a user's baseline so concurrent submits fold and score one at a time
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM AnomalyBaseline b WHERE b.userId = :userId")
+    Optional<AnomalyBaseline> findByUserIdForUpdate(@Param("userId") Long userId);
+}
@@ -0,0 +1,33 @@
+package com.arthsethu.repository;
+
+import com.arthsethu.model.ChatMessage;
+import com.arthsethu.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
+    
+    /**
+     * Newest messages for a user (first page of history)
+     */
+    List<ChatMessage> findByUserOrderByIdDesc(User user, Pageable pageable);
+    
+    /**
+     * Messages older than a given ID, newest first (keyset paging)
+     */
+    List<ChatMessage> findByUserAndIdLessThanOrderByIdDesc(User user, Long beforeId, Pageable pageable);
+    
+    /**
+     * Messages newer than a given ID, oldest first (not yet compacted)
+     */
+    List<ChatMessage> findByUserAndIdGreaterThanOrderByIdAsc(User user, Long afterId, Pageable pageable);
+    
+    /**
+     * Count messages newer than a given ID
+     */
+    long countByUserAndIdGreaterThan(User user, Long afterId);
+}
@@ -0,0 +1,17 @@
+package com.arthsethu.repository;
+
+import com.arthsethu.model.ChatSummary;
+import com.arthsethu.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ChatSummaryRepository extends JpaRepository<ChatSummary, Long> {
+    
+    /**
+     * Find the rolling chat summary for a user
+     */
+    Optional<ChatSummary> findByUser(User user);
+}
@@ -0,0 +1,225 @@
+package com.arthsethu.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC upserts into daily_metrics: batched for bulk imports, single-row for daily submission.
+ *
+ * Each row is inserted, or overwrites the row already stored for the same user and date,
+ * in one atomic statement, so concurrent writes of the same day cannot trip the unique
+ * constraint; a batch sends one such statement per row as a single JDBC batch. New rows
+ * take their ID from daily_metrics_seq, the sequence the DailyMetrics entity allocates
+ * from, so bulk and JPA writes never collide. PostgreSQL uses INSERT ... ON CONFLICT and H2 uses MERGE.
+ * Upserts stamp the health score formula version; the recompute job reads stale scores here
+ * in ID-ordered chunks and writes the new ones back as batched updates.
+ */
+@Repository
+public class DailyMetricsBulkRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyMetricsBulkRepository.class);
+
+    // DailyMetrics' allocationSize; Hibernate hands out the block below each sequence value
+    private static final int SEQUENCE_ALLOCATION = 50;
+
+    private static final String POSTGRES_UPSERT =
+        "INSERT INTO daily_metrics (id, user_id, metric_date, sales, expenses, wastage, health_score, " +
+        "health_score_version, created_at) VALUES (nextval('daily_metrics_seq'), ?, ?, ?, ?, ?, ?, ?, ?) " +
+        "ON CONFLICT (user_id, metric_date) DO UPDATE SET sales = EXCLUDED.sales, expenses = EXCLUDED.expenses, " +
+        "wastage = EXCLUDED.wastage, health_score = EXCLUDED.health_score, " +
+        "health_score_version = EXCLUDED.health_score_version";
+
+    private static final String H2_UPSERT =
+        "MERGE INTO daily_metrics t USING (VALUES (CAST(? AS BIGINT), CAST(? AS DATE), CAST(? AS DECIMAL(10,2)), " +
+        "CAST(? AS DECIMAL(10,2)), CAST(? AS DECIMAL(10,2)), CAST(? AS INTEGER), CAST(? AS INTEGER), " +
+        "CAST(? AS TIMESTAMP))) " +
+        "AS s(user_id, metric_date, sales, expenses, wastage, health_score, health_score_version, created_at) " +
+        "ON t.user_id = s.user_id AND t.metric_date = s.metric_date " +
+        "WHEN MATCHED THEN UPDATE SET sales = s.sales, expenses = s.expenses, wastage = s.wastage, " +
+        "health_score = s.health_score, health_score_version = s.health_score_version " +
+        "WHEN NOT MATCHED THEN INSERT (id, user_id, metric_date, sales, expenses, wastage, health_score, " +
+        "health_score_version, created_at) VALUES (NEXT VALUE FOR daily_metrics_seq, s.user_id, s.metric_date, " +
+        "s.sales, s.expenses, s.wastage, s.health_score, s.health_score_version, s.created_at)";
+
+    private static final String POSTGRES_UPSERT_RETURNING = POSTGRES_UPSERT + " RETURNING id";
+
+    private static final String H2_UPSERT_RETURNING = "SELECT id FROM FINAL TABLE (" + H2_UPSERT + ")";
+
+    private static final int H2_MERGE_ATTEMPTS = 5;
+
+    // Amounts come back as paise so the rows fill primitive arrays without BigDecimals
+    private static final String SELECT_STALE_SCORES =
+        "SELECT id, metric_date, CAST(sales * 100 AS BIGINT) AS sales, CAST(expenses * 100 AS BIGINT) AS expenses, " +
+        "CAST(wastage * 100 AS BIGINT) AS wastage, health_score FROM daily_metrics " +
+        "WHERE id > ? AND (health_score_version IS NULL OR health_score_version <> ?) ORDER BY id LIMIT ?";
+
+    // The date lets PostgreSQL prune to one partition; the version check leaves rows that a
+    // concurrent upsert has already rescored alone
+    private static final String UPDATE_SCORE =
+        "UPDATE daily_metrics SET health_score = ?, health_score_version = ? " +
+        "WHERE id = ? AND metric_date = ? AND (health_score_version IS NULL OR health_score_version <> ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+
+    public DailyMetricsBulkRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.postgres = isPostgres(dataSource);
+    }
+
+    /**
+     * One day's figures with its precomputed health score and the formula version it came from
+     */
+    public record MetricsRow(LocalDate date, BigDecimal sales, BigDecimal expenses, BigDecimal wastage,
+                             int healthScore, int healthScoreVersion) {}
+
+    /**
+     * Upsert one row in a single round trip; returns the ID of the inserted or updated row
+     */
+    public Long upsert(Long userId, MetricsRow row) {
+        Object[] args = {userId, Date.valueOf(row.date()), row.sales(), row.expenses(), row.wastage(),
+                         row.healthScore(), row.healthScoreVersion(), Timestamp.valueOf(LocalDateTime.now())};
+        if (postgres) {
+            return jdbcTemplate.queryForObject(POSTGRES_UPSERT_RETURNING, Long.class, args);
+        }
+        // H2's MERGE is not atomic: two sessions can both take the insert branch, and the loser
+        // fails on the unique key. H2 only rolls back the failed statement, so retrying takes the
+        // update branch once the winner has committed.
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return jdbcTemplate.queryForObject(H2_UPSERT_RETURNING, Long.class, args);
+            } catch (DuplicateKeyException e) {
+                if (attempt == H2_MERGE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Upsert a batch of rows for one user; must run inside the caller's transaction
+     */
+    public void upsert(Long userId, List<MetricsRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(postgres ? POSTGRES_UPSERT : H2_UPSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                MetricsRow row = rows.get(i);
+                statement.setLong(1, userId);
+                statement.setDate(2, Date.valueOf(row.date()));
+                statement.setBigDecimal(3, row.sales());
+                statement.setBigDecimal(4, row.expenses());
+                statement.setBigDecimal(5, row.wastage());
+                statement.setInt(6, row.healthScore());
+                statement.setInt(7, row.healthScoreVersion());
+                statement.setTimestamp(8, createdAt);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    /**
+     * Read up to ids.length rows after afterId, in ID order, whose score was not computed with
+     * the given formula version: ID, date as an epoch day, amounts in paise and stored score.
+     * Returns the number of rows read.
+     */
+    public int findStaleScores(long afterId, int version, long[] ids, long[] days, long[] sales,
+                               long[] expenses, long[] wastage, int[] scores) {
+        int[] count = {0};
+        jdbcTemplate.query(SELECT_STALE_SCORES, rs -> {
+            int i = count[0]++;
+            ids[i] = rs.getLong(1);
+            days[i] = rs.getDate(2).toLocalDate().toEpochDay();
+            sales[i] = rs.getLong(3);
+            expenses[i] = rs.getLong(4);
+            wastage[i] = rs.getLong(5);
+            scores[i] = rs.getInt(6);
+        }, afterId, version, ids.length);
+        return count[0];
+    }
+
+    /**
+     * Write the first count scores back as one JDBC batch, stamped with the formula version
+     */
+    public void updateScores(long[] ids, long[] days, int[] scores, int count, int version) {
+        jdbcTemplate.batchUpdate(UPDATE_SCORE, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                statement.setInt(1, scores[i]);
+                statement.setInt(2, version);
+                statement.setLong(3, ids[i]);
+                statement.setDate(4, Date.valueOf(LocalDate.ofEpochDay(days[i])));
+                statement.setInt(5, version);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+
+    /**
+     * Date of the oldest stored row, or null if there are none
+     */
+    public LocalDate findEarliestDate() {
+        Date earliest = jdbcTemplate.queryForObject("SELECT MIN(metric_date) FROM daily_metrics", Date.class);
+        return earliest == null ? null : earliest.toLocalDate();
+    }
+
+    /**
+     * Delete up to limit rows dated before the cutoff; returns the number deleted
+     */
+    public int deleteBefore(LocalDate cutoff, int limit) {
+        return jdbcTemplate.update("DELETE FROM daily_metrics WHERE id IN " +
+            "(SELECT id FROM daily_metrics WHERE metric_date < ? LIMIT ?)", Date.valueOf(cutoff), limit);
+    }
+
+    /**
+     * Move daily_metrics_seq past the existing IDs. Tables created while DailyMetrics used
+     * IDENTITY get a fresh sequence from schema update, starting at 1; without this the first
+     * inserts after the upgrade would reuse existing IDs.
+     */
+    public void alignIdSequence() {
+        if (!postgres) {
+            return;
+        }
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM daily_metrics", Long.class);
+        Long lastValue = jdbcTemplate.queryForObject("SELECT last_value FROM daily_metrics_seq", Long.class);
+        if (maxId != null && lastValue != null && lastValue <= maxId) {
+            jdbcTemplate.queryForObject("SELECT setval('daily_metrics_seq', ?)", Long.class, maxId + SEQUENCE_ALLOCATION);
+            logger.info("Moved daily_metrics_seq from {} past existing ID {}", lastValue, maxId);
+        }
+    }
+
+    static boolean isPostgres(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getDatabaseProductName().toLowerCase().contains("postgres");
+        } catch (SQLException e) {
+            logger.warn("Could not determine database type, assuming H2: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.arthsethu.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Monthly range partitioning of daily_metrics on PostgreSQL.
+ *
+ * Partitions are named daily_metrics_pYYYY_MM and cover one calendar month each; rows
+ * outside every partition land in daily_metrics_default. Queries on a date range only
+ * read the partitions it overlaps, and retention drops whole partitions instead of
+ * deleting rows. Hibernate creates daily_metrics as a plain table, so
+ * {@link #convertToPartitioned} rebuilds it once with the same columns, keys and indexes.
+ * On other databases every method is a no-op.
+ */
+@Repository
+public class DailyMetricsPartitionRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyMetricsPartitionRepository.class);
+
+    private static final String DEFAULT_PARTITION = "daily_metrics_default";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("daily_metrics_p(\\d{4})_(\\d{2})");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+
+    public DailyMetricsPartitionRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.postgres = DailyMetricsBulkRepository.isPostgres(dataSource);
+    }
+
+    public boolean isSupported() {
+        return postgres;
+    }
+
+    public boolean isPartitioned() {
+        if (!postgres) {
+            return false;
+        }
+        List<String> kinds = jdbcTemplate.queryForList(
+            "SELECT c.relkind::text FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+            "WHERE c.relname = 'daily_metrics' AND n.nspname = current_schema()", String.class);
+        return kinds.contains("p");
+    }
+
+    /**
+     * Rebuild daily_metrics as a partitioned table with partitions from its oldest row's
+     * month through lastMonth. Holds an exclusive lock on the table while rows are copied.
+     */
+    @Transactional
+    public void convertToPartitioned(LocalDate lastMonth) {
+        if (!postgres || isPartitioned()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        jdbcTemplate.execute("LOCK TABLE daily_metrics IN ACCESS EXCLUSIVE MODE");
+
+        // Keep Hibernate's constraint names so schema update recognises them
+        String uniqueName = constraintName("u", "uk_daily_metrics_user_date");
+        String foreignKeyName = constraintName("f", "fk_daily_metrics_user");
+        Date earliest = jdbcTemplate.queryForObject("SELECT MIN(metric_date) FROM daily_metrics", Date.class);
+        LocalDate firstMonth = (earliest != null ? earliest.toLocalDate() : lastMonth).withDayOfMonth(1);
+
+        jdbcTemplate.execute("ALTER TABLE daily_metrics RENAME TO daily_metrics_unpartitioned");
+        jdbcTemplate.execute("CREATE TABLE daily_metrics (LIKE daily_metrics_unpartitioned INCLUDING DEFAULTS) " +
+                             "PARTITION BY RANGE (metric_date)");
+        jdbcTemplate.execute("CREATE TABLE " + DEFAULT_PARTITION + " PARTITION OF daily_metrics DEFAULT");
+        int partitions = createPartitions(firstMonth, lastMonth);
+        int rows = jdbcTemplate.update("INSERT INTO daily_metrics SELECT * FROM daily_metrics_unpartitioned");
+        jdbcTemplate.execute("DROP TABLE daily_metrics_unpartitioned");
+
+        // A partitioned table's unique keys must include the partition column
+        jdbcTemplate.execute("ALTER TABLE daily_metrics ADD PRIMARY KEY (id, metric_date)");
+        jdbcTemplate.execute("ALTER TABLE daily_metrics ADD CONSTRAINT " + uniqueName + " UNIQUE (user_id, metric_date)");
+        jdbcTemplate.execute("CREATE INDEX idx_daily_metrics_user_date ON daily_metrics (user_id, metric_date)");
+        jdbcTemplate.execute("ALTER TABLE daily_metrics ADD CONSTRAINT " + foreignKeyName +
+                             " FOREIGN KEY (user_id) REFERENCES users (id)");
+        logger.info("Partitioned daily_metrics into {} monthly partitions, moved {} rows in {}ms",
+                    partitions, rows, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Create any missing monthly partitions from firstMonth through lastMonth; returns the number created
+     */
+    public int createPartitions(LocalDate firstMonth, LocalDate lastMonth) {
+        if (!postgres) {
+            return 0;
+        }
+        List<String> existing = partitionNames();
+        int created = 0;
+        for (LocalDate month = firstMonth.withDayOfMonth(1); !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            String name = "daily_metrics_p" + month.format(PARTITION_SUFFIX);
+            if (existing.contains(name)) {
+                continue;
+            }
+            jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF daily_metrics FOR VALUES FROM ('" +
+                                 month + "') TO ('" + month.plusMonths(1) + "')");
+            created++;
+        }
+        return created;
+    }
+
+    /**
+     * Detach and drop the monthly partitions that end on or before the cutoff; returns the number dropped
+     */
+    public int dropPartitionsBefore(LocalDate cutoff) {
+        if (!postgres) {
+            return 0;
+        }
+        int dropped = 0;
+        for (String name : partitionNames()) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (!matcher.matches()) {
+                continue;
+            }
+            LocalDate month = LocalDate.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)), 1);
+            if (!month.plusMonths(1).isAfter(cutoff)) {
+                jdbcTemplate.execute("ALTER TABLE daily_metrics DETACH PARTITION " + name);
+                jdbcTemplate.execute("DROP TABLE " + name);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Delete rows dated before the cutoff from the default partition; returns the number deleted
+     */
+    public int deleteFromDefaultPartitionBefore(LocalDate cutoff) {
+        if (!postgres) {
+            return 0;
+        }
+        return jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE metric_date < ?", Date.valueOf(cutoff));
+    }
+
+    private List<String> partitionNames() {
+        return jdbcTemplate.queryForList(
+            "SELECT c.relname::text FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'daily_metrics'::regclass", String.class);
+    }
+
+    private String constraintName(String type, String fallback) {
+        List<String> names = jdbcTemplate.queryForList(
+            "SELECT conname::text FROM pg_constraint WHERE conrelid = 'daily_metrics'::regclass AND contype::text = ?",
+            String.class, type);
+        return names.isEmpty() ? fallback : names.get(0);
+    }
+}
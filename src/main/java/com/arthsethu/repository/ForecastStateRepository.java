@@ -0,0 +1,16 @@
+package com.arthsethu.repository;
+
+import com.arthsethu.model.ForecastState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ForecastStateRepository extends JpaRepository<ForecastState, Long> {
+
+    /**
+     * Smoothing state of each of a user's forecast series
+     */
+    List<ForecastState> findByUserId(Long userId);
+}
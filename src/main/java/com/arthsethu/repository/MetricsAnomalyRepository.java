@@ -0,0 +1,27 @@
+package com.arthsethu.repository;
+
+import com.arthsethu.model.MetricsAnomaly;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MetricsAnomalyRepository extends JpaRepository<MetricsAnomaly, Long> {
+
+    /**
+     * A user's anomalies from a date onwards, newest first
+     */
+    List<MetricsAnomaly> findByUserIdAndMetricDateGreaterThanEqualOrderByMetricDateDescIdAsc(Long userId, LocalDate from);
+
+    /**
+     * Clear a day's anomalies before it is scored again
+     */
+    @Modifying
+    @Query("DELETE FROM MetricsAnomaly a WHERE a.userId = :userId AND a.metricDate = :date")
+    int deleteByUserIdAndMetricDate(@Param("userId") Long userId, @Param("date") LocalDate date);
+}
@@ -0,0 +1,80 @@
+package com.arthsethu.repository;
+
+import com.arthsethu.model.RollupGranularity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Computes daily_metrics_rollups rows straight from daily_metrics.
+ *
+ * One statement aggregates a period's raw rows per user and upserts the result, so a
+ * rollup never travels through the application and recomputing a period is idempotent.
+ * Each statement reads a single date range, which on PostgreSQL touches one or two
+ * monthly partitions of daily_metrics.
+ */
+@Repository
+public class MetricsRollupBulkRepository {
+
+    private static final String SOURCE =
+        "SELECT a.user_id, CAST(? AS VARCHAR(16)) AS granularity, CAST(? AS DATE) AS period_start, a.days, " +
+        "a.sales_total, a.expenses_total, a.wastage_total, a.health_score_avg, a.health_score_min, " +
+        "a.health_score_max, CAST(? AS TIMESTAMP) AS updated_at FROM (" +
+        "SELECT user_id, COUNT(*) AS days, SUM(sales) AS sales_total, SUM(expenses) AS expenses_total, " +
+        "SUM(wastage) AS wastage_total, ROUND(AVG(CAST(health_score AS DECIMAL(10,2))), 2) AS health_score_avg, " +
+        "MIN(health_score) AS health_score_min, MAX(health_score) AS health_score_max " +
+        "FROM daily_metrics WHERE metric_date >= ? AND metric_date < ? %s GROUP BY user_id) a";
+
+    private static final String COLUMNS =
+        "user_id, granularity, period_start, days, sales_total, expenses_total, wastage_total, " +
+        "health_score_avg, health_score_min, health_score_max, updated_at";
+
+    private static final String POSTGRES_UPSERT =
+        "INSERT INTO daily_metrics_rollups (" + COLUMNS + ") " + SOURCE + " " +
+        "ON CONFLICT (user_id, granularity, period_start) DO UPDATE SET days = EXCLUDED.days, " +
+        "sales_total = EXCLUDED.sales_total, expenses_total = EXCLUDED.expenses_total, " +
+        "wastage_total = EXCLUDED.wastage_total, health_score_avg = EXCLUDED.health_score_avg, " +
+        "health_score_min = EXCLUDED.health_score_min, health_score_max = EXCLUDED.health_score_max, " +
+        "updated_at = EXCLUDED.updated_at";
+
+    private static final String H2_UPSERT =
+        "MERGE INTO daily_metrics_rollups t USING (" + SOURCE + ") s " +
+        "ON t.user_id = s.user_id AND t.granularity = s.granularity AND t.period_start = s.period_start " +
+        "WHEN MATCHED THEN UPDATE SET days = s.days, sales_total = s.sales_total, expenses_total = s.expenses_total, " +
+        "wastage_total = s.wastage_total, health_score_avg = s.health_score_avg, " +
+        "health_score_min = s.health_score_min, health_score_max = s.health_score_max, updated_at = s.updated_at " +
+        "WHEN NOT MATCHED THEN INSERT (" + COLUMNS + ") VALUES (s.user_id, s.granularity, s.period_start, s.days, " +
+        "s.sales_total, s.expenses_total, s.wastage_total, s.health_score_avg, s.health_score_min, " +
+        "s.health_score_max, s.updated_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+
+    public MetricsRollupBulkRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.postgres = DailyMetricsBulkRepository.isPostgres(dataSource);
+    }
+
+    /**
+     * Recompute one period for every user with metrics in it; returns the number of rollups written
+     */
+    public int rollUp(RollupGranularity granularity, LocalDate periodStart) {
+        return jdbcTemplate.update(String.format(postgres ? POSTGRES_UPSERT : H2_UPSERT, ""),
+            granularity.name(), Date.valueOf(periodStart), Timestamp.valueOf(LocalDateTime.now()),
+            Date.valueOf(periodStart), Date.valueOf(granularity.plus(periodStart, 1)));
+    }
+
+    /**
+     * Recompute one period for a single user
+     */
+    public int rollUp(RollupGranularity granularity, LocalDate periodStart, Long userId) {
+        return jdbcTemplate.update(String.format(postgres ? POSTGRES_UPSERT : H2_UPSERT, "AND user_id = ?"),
+            granularity.name(), Date.valueOf(periodStart), Timestamp.valueOf(LocalDateTime.now()),
+            Date.valueOf(periodStart), Date.valueOf(granularity.plus(periodStart, 1)), userId);
+    }
+}
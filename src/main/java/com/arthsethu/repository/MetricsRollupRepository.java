@@ -0,0 +1,23 @@
+package com.arthsethu.repository;
+
+import com.arthsethu.model.MetricsRollup;
+import com.arthsethu.model.RollupGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MetricsRollupRepository extends JpaRepository<MetricsRollup, Long> {
+
+    /**
+     * A user's rollups of one granularity from a period start onwards, oldest first
+     */
+    List<MetricsRollup> findByUserIdAndGranularityAndPeriodStartGreaterThanEqualOrderByPeriodStartAsc(
+        Long userId, RollupGranularity granularity, LocalDate from);
+
+    Optional<MetricsRollup> findByUserIdAndGranularityAndPeriodStart(Long userId, RollupGranularity granularity,
+                                                                    LocalDate periodStart);
+}
@@ -0,0 +1,16 @@
+package com.arthsethu.repository;
+
+import com.arthsethu.model.PeerBenchmarkContribution;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PeerBenchmarkContributionRepository extends JpaRepository<PeerBenchmarkContribution, Long> {
+
+    /**
+     * The latest day a user has added to the peer sketches
+     */
+    Optional<PeerBenchmarkContribution> findByUserId(Long userId);
+}
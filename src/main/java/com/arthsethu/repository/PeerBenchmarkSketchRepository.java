@@ -0,0 +1,36 @@
+package com.arthsethu.repository;
+
+import com.arthsethu.model.BenchmarkMetric;
+import com.arthsethu.model.BusinessType;
+import com.arthsethu.model.PeerBenchmarkSketch;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PeerBenchmarkSketchRepository extends JpaRepository<PeerBenchmarkSketch, Long> {
+
+    /**
+     * Lock one month's sketch so concurrent updates merge into it one at a time
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PeerBenchmarkSketch s WHERE s.city = :city AND s.businessType = :businessType " +
+           "AND s.metric = :metric AND s.periodStart = :periodStart")
+    Optional<PeerBenchmarkSketch> findForUpdate(@Param("city") String city,
+                                                @Param("businessType") BusinessType businessType,
+                                                @Param("metric") BenchmarkMetric metric,
+                                                @Param("periodStart") LocalDate periodStart);
+
+    /**
+     * A peer group's sketches for every metric from a month onwards
+     */
+    List<PeerBenchmarkSketch> findByCityAndBusinessTypeAndPeriodStartGreaterThanEqual(String city, BusinessType businessType,
+                                                                                     LocalDate from);
+}
@@ -0,0 +1,56 @@
+package com.arthsethu.repository;
+
+import com.arthsethu.model.RevenueCubeCell;
+import com.arthsethu.model.SubscriptionStatus;
+import com.arthsethu.model.SubscriptionTier;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RevenueCubeRepository extends JpaRepository<RevenueCubeCell, Long> {
+    
+    /**
+     * Check whether a cell exists before adjusting it
+     */
+    boolean existsByRevenueDateAndTierAndStatus(LocalDate revenueDate, SubscriptionTier tier, SubscriptionStatus status);
+    
+    /**
+     * Atomically add deltas to one cell; returns the number of cells updated
+     */
+    @Modifying
+    @Query("UPDATE RevenueCubeCell c SET c.subscriptionCount = c.subscriptionCount + :countDelta, " +
+           "c.amount = c.amount + :amountDelta " +
+           "WHERE c.revenueDate = :revenueDate AND c.tier = :tier AND c.status = :status")
+    int increment(@Param("revenueDate") LocalDate revenueDate,
+                  @Param("tier") SubscriptionTier tier,
+                  @Param("status") SubscriptionStatus status,
+                  @Param("countDelta") long countDelta,
+                  @Param("amountDelta") BigDecimal amountDelta);
+    
+    /**
+     * Combine the cells of a date range into tier/status totals: [tier, status, count, amount]
+     */
+    @Query("SELECT c.tier, c.status, SUM(c.subscriptionCount), SUM(c.amount) FROM RevenueCubeCell c " +
+           "WHERE c.revenueDate BETWEEN :from AND :to GROUP BY c.tier, c.status")
+    List<Object[]> sumByTierAndStatus(@Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    /**
+     * Combine all cells into tier/status totals: [tier, status, count, amount]
+     */
+    @Query("SELECT c.tier, c.status, SUM(c.subscriptionCount), SUM(c.amount) FROM RevenueCubeCell c " +
+           "GROUP BY c.tier, c.status")
+    List<Object[]> sumAllByTierAndStatus();
+    
+    /**
+     * Cells for one status in a date range, for daily revenue time series
+     */
+    List<RevenueCubeCell> findByStatusAndRevenueDateBetweenOrderByRevenueDateAsc(SubscriptionStatus status,
+                                                                                  LocalDate from, LocalDate to);
+}
@@ -4,13 +4,17 @@ import com.arthsethu.model.Subscription;
 import com.arthsethu.model.SubscriptionStatus;
 import com.arthsethu.model.SubscriptionTier;
 import com.arthsethu.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -84,6 +88,11 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
         @Param("endDate") LocalDateTime endDate
     );
     
+    /**
+     * Find a user's subscriptions in a status (used to build entitlements)
+     */
+    List<Subscription> findByUserIdAndStatus(Long userId, SubscriptionStatus status);
+    
     /**
      * Find subscriptions with auto-renewal enabled
      */
@@ -94,6 +103,62 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
      */
     Optional<Subscription> findByPaymentReference(String paymentReference);
     
+    /**
+     * Find and lock a subscription by payment reference, so duplicate payment callbacks
+     * are applied one at a time
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Subscription s WHERE s.paymentReference = :paymentReference")
+    Optional<Subscription> findByPaymentReferenceForUpdate(@Param("paymentReference") String paymentReference);
+    
+    /**
+     * Find subscriptions left in a status since before the given time
+     */
+    List<Subscription> findByStatusAndUpdatedAtBefore(SubscriptionStatus status, LocalDateTime updatedBefore);
+    
+    /**
+     * Lock a chunk of subscriptions, in ID order so concurrent chunks cannot deadlock
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Subscription s WHERE s.id IN :ids ORDER BY s.id")
+    List<Subscription> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Next page of IDs of subscriptions in a status whose end date has passed (keyset by ID)
+     */
+    @Query("SELECT s.id FROM Subscription s WHERE s.status = :status AND s.endDate < :cutoff " +
+           "AND s.id > :afterId ORDER BY s.id")
+    List<Long> findIdsEndedBefore(@Param("status") SubscriptionStatus status,
+                                  @Param("cutoff") LocalDateTime cutoff,
+                                  @Param("afterId") Long afterId,
+                                  Pageable pageable);
+    
+    /**
+     * Next page of IDs of auto-renewing subscriptions ending in [from, to] with no renewal
+     * requested since retryBefore (keyset by ID)
+     */
+    @Query("SELECT s.id FROM Subscription s WHERE s.status = :status AND s.autoRenew = true " +
+           "AND s.endDate BETWEEN :from AND :to " +
+           "AND (s.renewalRequestedAt IS NULL OR s.renewalRequestedAt < :retryBefore) " +
+           "AND s.id > :afterId ORDER BY s.id")
+    List<Long> findIdsDueForRenewal(@Param("status") SubscriptionStatus status,
+                                    @Param("from") LocalDateTime from,
+                                    @Param("to") LocalDateTime to,
+                                    @Param("retryBefore") LocalDateTime retryBefore,
+                                    @Param("afterId") Long afterId,
+                                    Pageable pageable);
+    
+    /**
+     * Next page of (ID, end date) pairs for subscriptions ending in (from, to] (keyset by ID)
+     */
+    @Query("SELECT s.id, s.endDate FROM Subscription s WHERE s.status = :status " +
+           "AND s.endDate > :from AND s.endDate <= :to AND s.id > :afterId ORDER BY s.id")
+    List<Object[]> findEndDatesBetween(@Param("status") SubscriptionStatus status,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to,
+                                       @Param("afterId") Long afterId,
+                                       Pageable pageable);
+    
     /**
      * Find subscriptions created within date range
      */
@@ -121,4 +186,12 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
      */
     @Query("SELECT CASE WHEN COUNT(s) > 0 THEN true ELSE false END FROM Subscription s WHERE s.user = :user AND s.status = :status AND (s.endDate IS NULL OR s.endDate > :currentDate)")
     boolean hasActiveSubscription(@Param("user") User user, @Param("status") SubscriptionStatus status, @Param("currentDate") LocalDateTime currentDate);
+    
+    /**
+     * Aggregate subscriptions into revenue cube cells: [day, tier, status, count, amount].
+     * Used to rebuild the cube; regular reads go to RevenueCubeRepository.
+     */
+    @Query("SELECT CAST(s.startDate AS LocalDate), s.tier, s.status, COUNT(s), SUM(COALESCE(s.amount, 0)) " +
+           "FROM Subscription s GROUP BY CAST(s.startDate AS LocalDate), s.tier, s.status")
+    List<Object[]> aggregateForRevenueCube();
 }
\ No newline at end of file
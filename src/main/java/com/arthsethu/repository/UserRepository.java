@@ -1,13 +1,16 @@
 package com.arthsethu.repository;
 
+import com.arthsethu.dto.UserManagementDTO;
 import com.arthsethu.model.User;
 import com.arthsethu.model.SubscriptionTier;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +32,37 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     List<User> findByTier(SubscriptionTier tier);
     
+    /**
+     * Find users by tier after a given ID (keyset paging for batch jobs)
+     */
+    List<User> findByTierAndIdGreaterThanOrderByIdAsc(SubscriptionTier tier, Long afterId, Pageable pageable);
+    
+    /**
+     * Keyset page of users for admin management, projected straight into the DTO with the
+     * business profile joined in SQL. bannedMode: 0 = all, 1 = banned only, 2 = not banned.
+     * emailPattern is a LIKE pattern using '!' as the escape character.
+     */
+    @Query("SELECT new com.arthsethu.dto.UserManagementDTO(u.id, u.email, u.tier, u.createdAt, " +
+           "CASE WHEN SUBSTRING(u.passwordHash, 1, 7) = 'BANNED_' THEN true ELSE false END, " +
+           "bp.businessType, bp.city) " +
+           "FROM User u LEFT JOIN u.businessProfile bp " +
+           "WHERE u.id > :afterId AND u.tier IN :tiers AND u.email LIKE :emailPattern ESCAPE '!' " +
+           "AND (:bannedMode = 0 " +
+           "  OR (:bannedMode = 1 AND SUBSTRING(u.passwordHash, 1, 7) = 'BANNED_') " +
+           "  OR (:bannedMode = 2 AND SUBSTRING(u.passwordHash, 1, 7) <> 'BANNED_')) " +
+           "ORDER BY u.id ASC")
+    List<UserManagementDTO> findUserManagementPage(@Param("afterId") Long afterId,
+                                                   @Param("tiers") Collection<SubscriptionTier> tiers,
+                                                   @Param("emailPattern") String emailPattern,
+                                                   @Param("bannedMode") int bannedMode,
+                                                   Pageable pageable);
+    
+    /**
+     * Count users per subscription tier in one query
+     */
+    @Query("SELECT u.tier, COUNT(u) FROM User u GROUP BY u.tier")
+    List<Object[]> countUsersGroupedByTier();
+    
     /**
      * Count users by subscription tier
      */
@@ -39,6 +73,20 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     List<User> findByCreatedAtAfter(LocalDateTime date);
     
+    /**
+     * Count users created after a specific date
+     */
+    long countByCreatedAtAfter(LocalDateTime date);
+    
+    /**
+     * Signups per day and tier since a date, as (LocalDate day, SubscriptionTier tier, Long count) rows
+     */
+    @Query("SELECT CAST(u.createdAt AS LocalDate), u.tier, COUNT(u) FROM User u " +
+           "WHERE u.createdAt >= :since " +
+           "GROUP BY CAST(u.createdAt AS LocalDate), u.tier " +
+           "ORDER BY CAST(u.createdAt AS LocalDate)")
+    List<Object[]> countSignupsByDayAndTier(@Param("since") LocalDateTime since);
+    
     /**
      * Find users with active subscriptions (for admin dashboard)
      */
@@ -0,0 +1,38 @@
+package com.arthsethu.security;
+
+import com.arthsethu.model.SubscriptionTier;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Security principal for a logged-in ArthSethu user. Carries the user ID and the tier at
+ * login so callers can look the user up by primary key (or skip the lookup entirely)
+ * instead of querying by email on every request.
+ */
+public class AuthenticatedUser extends User {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final Long userId;
+    private final SubscriptionTier tier;
+    
+    public AuthenticatedUser(Long userId, String email, String passwordHash, SubscriptionTier tier,
+                             Collection<? extends GrantedAuthority> authorities) {
+        super(email, passwordHash, authorities);
+        this.userId = userId;
+        this.tier = tier;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    /**
+     * Tier at login time; use EntitlementCache for the current effective tier
+     */
+    public SubscriptionTier getTier() {
+        return tier;
+    }
+}
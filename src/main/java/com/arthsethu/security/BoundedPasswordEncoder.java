@@ -0,0 +1,156 @@
+package com.arthsethu.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder that verifies passwords on a small bounded executor.
+ *
+ * A login burst can only occupy the verification threads (one per CPU by default) and a
+ * short queue; further logins, and queued ones that waited longer than the maximum queue
+ * time, fail fast with {@link LoginBusyException} instead of tying up Tomcat threads and
+ * CPU. Hashing new passwords stays on the caller's thread. {@link #upgradeEncoding} reports
+ * hashes whose cost differs from the configured strength, so Spring Security rehashes them
+ * on the next successful login.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final PasswordEncoder delegate;
+    private final int strength;
+    private final long maxQueueNanos;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder verifyNanos = new LongAdder();
+    private final LongAdder dequeued = new LongAdder();
+    private final LongAdder queueNanos = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, long maxQueueMs) {
+        this(new BCryptPasswordEncoder(strength), strength, threads, queueCapacity, maxQueueMs);
+    }
+
+    BoundedPasswordEncoder(PasswordEncoder delegate, int strength, int threads, int queueCapacity, long maxQueueMs) {
+        this.delegate = delegate;
+        this.strength = strength;
+        this.maxQueueNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueMs);
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize,
+            60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "password-verify-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+        logger.info("Password verification pool: {} threads, queue {}, max queue time {} ms",
+                    poolSize, queueCapacity, maxQueueMs);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long enqueuedAt = System.nanoTime();
+        Future<Boolean> result;
+        try {
+            result = executor.submit(() -> verify(rawPassword, encodedPassword, enqueuedAt));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new LoginBusyException("Password verification queue is full");
+        }
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new LoginBusyException("Interrupted while verifying password");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password verification failed", e.getCause());
+        }
+    }
+
+    private boolean verify(CharSequence rawPassword, String encodedPassword, long enqueuedAt) {
+        long startedAt = System.nanoTime();
+        queueNanos.add(startedAt - enqueuedAt);
+        dequeued.increment();
+        if (startedAt - enqueuedAt > maxQueueNanos) {
+            // The caller has waited long enough; don't spend the CPU on a login that is already late
+            rejected.increment();
+            throw new LoginBusyException("Password verification queued too long");
+        }
+        try {
+            return delegate.matches(rawPassword, encodedPassword);
+        } finally {
+            verifyNanos.add(System.nanoTime() - startedAt);
+            verifications.increment();
+        }
+    }
+
+    /**
+     * True for hashes created with a different cost than the configured strength, in either
+     * direction, so lowering the cost takes effect as well as raising it
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public long getVerifications() {
+        return verifications.sum();
+    }
+
+    public long getVerifyNanos() {
+        return verifyNanos.sum();
+    }
+
+    public long getDequeued() {
+        return dequeued.sum();
+    }
+
+    public long getQueueNanos() {
+        return queueNanos.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
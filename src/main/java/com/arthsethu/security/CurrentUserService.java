@@ -0,0 +1,77 @@
+package com.arthsethu.security;
+
+import com.arthsethu.model.User;
+import com.arthsethu.repository.UserRepository;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.security.Principal;
+import java.util.Optional;
+
+/**
+ * Resolves the current user from the security principal.
+ *
+ * The {@link AuthenticatedUser} principal carries the user ID, so the entity comes from
+ * {@link UserCache} (usually without a query), and the result is memoised as a request
+ * attribute so an HTTP request resolves its user at most once. WebSocket handlers have no
+ * request scope and resolve through the cache on every message.
+ */
+@Service
+public class CurrentUserService {
+
+    private static final String REQUEST_ATTRIBUTE = CurrentUserService.class.getName() + ".user";
+
+    private final UserCache userCache;
+    private final UserRepository userRepository;
+
+    public CurrentUserService(UserCache userCache, UserRepository userRepository) {
+        this.userCache = userCache;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Current user of the security context
+     */
+    public Optional<User> getCurrentUser() {
+        return getCurrentUser(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    /**
+     * User behind an authentication or STOMP session principal
+     */
+    public Optional<User> getCurrentUser(Principal principal) {
+        if (principal == null || (principal instanceof Authentication auth && !auth.isAuthenticated())) {
+            return Optional.empty();
+        }
+
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            Object memoised = request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (memoised instanceof User user && principal.getName().equals(user.getEmail())) {
+                return Optional.of(user);
+            }
+        }
+
+        Optional<User> user = getPrincipal(principal)
+            .map(authenticated -> userCache.findById(authenticated.getUserId()))
+            .orElseGet(() -> userRepository.findByEmail(principal.getName()));
+
+        if (request != null && user.isPresent()) {
+            request.setAttribute(REQUEST_ATTRIBUTE, user.get(), RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    /**
+     * The ArthSethu principal, if the user logged in through our UserDetailsService
+     */
+    public Optional<AuthenticatedUser> getPrincipal(Principal principal) {
+        if (principal instanceof Authentication auth && auth.getPrincipal() instanceof AuthenticatedUser user) {
+            return Optional.of(user);
+        }
+        return Optional.empty();
+    }
+}
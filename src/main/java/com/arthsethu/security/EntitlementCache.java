@@ -0,0 +1,219 @@
+package com.arthsethu.security;
+
+import com.arthsethu.model.Subscription;
+import com.arthsethu.model.SubscriptionStatus;
+import com.arthsethu.model.SubscriptionTier;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.SubscriptionRepository;
+import com.arthsethu.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user cache of effective subscription entitlements for tier and feature checks.
+ *
+ * An entry holds the effective tier (paid tiers fall back to Aarambh without an active
+ * subscription), a bitset of the known features it allows and an expiry instant, which is
+ * the subscription end date or the TTL, whichever comes first. Checks are lock-free map
+ * reads; only a miss or an expired entry touches the database. SubscriptionService and
+ * AdminService invalidate a user's entry whenever they change subscription state.
+ */
+@Component
+public class EntitlementCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntitlementCache.class);
+
+    /**
+     * Features checked through {@link RequiresFeature}; index = bit position
+     */
+    static final String[] KNOWN_FEATURES = {
+        "feasibility_report", "pdf_download", "health_score", "daily_metrics",
+        "operational_dashboard", "ai_cfo", "what_if_simulation"
+    };
+
+    private static final Map<String, Integer> FEATURE_BITS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < KNOWN_FEATURES.length; i++) {
+            FEATURE_BITS.put(KNOWN_FEATURES[i], i);
+        }
+    }
+
+    private final SubscriptionRepository subscriptionRepository;
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+
+    private final ConcurrentHashMap<Long, Entitlement> entries = new ConcurrentHashMap<>();
+    // Bumped on every invalidation; a load that raced with one is returned but not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public EntitlementCache(SubscriptionRepository subscriptionRepository,
+                            UserRepository userRepository,
+                            @Value("${arthsethu.security.entitlement.ttl-ms:300000}") long ttlMillis) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Effective entitlement of a user, loaded on a miss or after expiry
+     */
+    public Entitlement get(User user) {
+        if (user.getId() == null) {
+            return load(null, user.getTier(), System.currentTimeMillis());
+        }
+        return get(user.getId(), user.getTier());
+    }
+    
+    /**
+     * Effective entitlement by user ID, without needing the user entity
+     */
+    public Entitlement get(Long userId) {
+        return get(userId, null);
+    }
+
+    private Entitlement get(Long userId, SubscriptionTier knownTier) {
+        long now = System.currentTimeMillis();
+        Entitlement cached = entries.get(userId);
+        if (cached != null && now < cached.getExpiresAtMillis()) {
+            return cached;
+        }
+        long loadGeneration = generation.get();
+        Entitlement loaded = load(userId, knownTier, now);
+        if (generation.get() == loadGeneration) {
+            entries.put(userId, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drop a user's entry now and again after the current transaction commits, so a
+     * concurrent reader cannot re-cache the state from before the change
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        entries.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                    entries.remove(userId);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Remove expired entries so the map only holds recently active users
+     */
+    @Scheduled(fixedDelayString = "${arthsethu.security.entitlement.ttl-ms:300000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> now >= entry.getExpiresAtMillis());
+    }
+
+    private Entitlement load(Long userId, SubscriptionTier knownTier, long now) {
+        SubscriptionTier tier = userId != null
+            ? userRepository.findById(userId).map(User::getTier).orElse(knownTier)
+            : knownTier;
+        if (tier == null) {
+            tier = SubscriptionTier.AARAMBH;
+        }
+
+        long expiresAt = now + ttlMillis;
+        if (tier != SubscriptionTier.AARAMBH) {
+            // Same rule as SubscriptionRepository.hasActiveSubscription, but keep the end date
+            LocalDateTime latestEnd = null;
+            boolean active = false;
+            List<Subscription> subscriptions = userId != null
+                ? subscriptionRepository.findByUserIdAndStatus(userId, SubscriptionStatus.ACTIVE)
+                : List.of();
+            LocalDateTime current = LocalDateTime.now();
+            for (Subscription subscription : subscriptions) {
+                LocalDateTime end = subscription.getEndDate();
+                if (end == null) {
+                    active = true;
+                    latestEnd = null;
+                    break;
+                }
+                if (end.isAfter(current)) {
+                    active = true;
+                    latestEnd = latestEnd == null || end.isAfter(latestEnd) ? end : latestEnd;
+                }
+            }
+            if (!active) {
+                logger.debug("User {} has tier {} without an active subscription; treating as AARAMBH", userId, tier);
+                tier = SubscriptionTier.AARAMBH;
+            } else if (latestEnd != null) {
+                expiresAt = Math.min(expiresAt, latestEnd.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+        }
+        return new Entitlement(userId, tier, featureBits(tier), expiresAt);
+    }
+
+    private static long featureBits(SubscriptionTier tier) {
+        long bits = 0;
+        for (int i = 0; i < KNOWN_FEATURES.length; i++) {
+            if (tier.allowsFeature(KNOWN_FEATURES[i])) {
+                bits |= 1L << i;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Immutable snapshot of what a user may access
+     */
+    public static final class Entitlement {
+        private final Long userId;
+        private final SubscriptionTier tier;
+        private final long featureBits;
+        private final long expiresAtMillis;
+
+        Entitlement(Long userId, SubscriptionTier tier, long featureBits, long expiresAtMillis) {
+            this.userId = userId;
+            this.tier = tier;
+            this.featureBits = featureBits;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public boolean allowsTier(SubscriptionTier requiredTier) {
+            return tier.getMonthlyPrice() >= requiredTier.getMonthlyPrice();
+        }
+
+        public boolean allowsFeature(String featureName) {
+            Integer bit = FEATURE_BITS.get(featureName);
+            return bit != null ? (featureBits & (1L << bit)) != 0 : tier.allowsFeature(featureName);
+        }
+
+        public Long getUserId() { return userId; }
+        public SubscriptionTier getTier() { return tier; }
+        public long getExpiresAtMillis() { return expiresAtMillis; }
+    }
+}
@@ -0,0 +1,14 @@
+package com.arthsethu.security;
+
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+
+/**
+ * Thrown when a login could not be verified because the password verification pool is
+ * saturated. The login page shows a "try again" message instead of a credentials error.
+ */
+public class LoginBusyException extends InternalAuthenticationServiceException {
+
+    public LoginBusyException(String message) {
+        super(message);
+    }
+}
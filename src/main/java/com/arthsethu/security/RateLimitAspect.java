@@ -0,0 +1,23 @@
+package com.arthsethu.security;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Aspect to apply per-user rate limits to methods annotated with {@link RateLimited}
+ */
+@Aspect
+@Component
+public class RateLimitAspect {
+    
+    @Autowired
+    private RateLimiter rateLimiter;
+    
+    @Before("@annotation(rateLimited)")
+    public void checkRateLimit(JoinPoint joinPoint, RateLimited rateLimited) {
+        rateLimiter.acquireForCurrentUser(rateLimited.value());
+    }
+}
@@ -0,0 +1,11 @@
+package com.arthsethu.security;
+
+/**
+ * Groups of expensive endpoints that share a per-user rate limit
+ */
+public enum RateLimitClass {
+    /** AI CFO queries and what-if simulations (LLM calls) */
+    AI,
+    /** PDF rendering of feasibility reports */
+    PDF
+}
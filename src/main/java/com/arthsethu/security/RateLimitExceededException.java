@@ -0,0 +1,24 @@
+package com.arthsethu.security;
+
+/**
+ * Exception thrown when a user exceeds the rate limit of an endpoint class
+ */
+public class RateLimitExceededException extends RuntimeException {
+    
+    private final RateLimitClass endpointClass;
+    private final long retryAfterSeconds;
+    
+    public RateLimitExceededException(RateLimitClass endpointClass, long retryAfterSeconds) {
+        super("Too many requests, please retry in " + retryAfterSeconds + " seconds");
+        this.endpointClass = endpointClass;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public RateLimitClass getEndpointClass() {
+        return endpointClass;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
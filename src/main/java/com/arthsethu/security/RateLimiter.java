@@ -0,0 +1,207 @@
+package com.arthsethu.security;
+
+import com.arthsethu.model.SubscriptionTier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-user token-bucket rate limiter for expensive endpoint classes.
+ *
+ * Each (user, endpoint class) bucket is a single AtomicLong holding the theoretical
+ * arrival time of the next request (the GCRA form of a token bucket): a request is
+ * admitted when no more than burst - 1 intervals are outstanding and pushes the arrival
+ * time one interval forward with a CAS, so checks never lock and buckets are spread over
+ * the striped ConcurrentHashMap. Limits are requests per minute per
+ * {@link SubscriptionTier}, configured as e.g. {@code VISTAR=5,SHIKHAR=20}; tiers not
+ * listed are unlimited. A bucket whose arrival time has passed is full and therefore
+ * indistinguishable from a new one, so idle buckets are dropped periodically and
+ * whenever the map grows past max-buckets.
+ *
+ * A request that does the work of several (e.g. a batch of model calls) is charged its cost
+ * in tokens: it is admitted whenever a single request would be, and moves the arrival time
+ * forward by cost intervals, so the following requests wait until the debt is repaid.
+ */
+@Component
+public class RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private record Key(Long userId, RateLimitClass endpointClass) {}
+
+    /**
+     * Emission interval and the burst tolerance in front of it, both in nanoseconds
+     */
+    record Limit(long intervalNanos, long toleranceNanos) {
+
+        static Limit perMinute(int requestsPerMinute, int burst) {
+            long interval = MINUTE_NANOS / requestsPerMinute;
+            return new Limit(interval, interval * (Math.max(1, burst) - 1));
+        }
+    }
+
+    private final Map<RateLimitClass, Map<SubscriptionTier, Limit>> limits = new EnumMap<>(RateLimitClass.class);
+    private final ConcurrentHashMap<Key, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final int maxBuckets;
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    private CurrentUserService currentUserService;
+
+    @Autowired
+    private EntitlementCache entitlementCache;
+
+    @Autowired
+    public RateLimiter(@Value("${arthsethu.rate-limit.ai.per-minute:AARAMBH=2,VISTAR=5,SHIKHAR=20}") String aiLimits,
+                       @Value("${arthsethu.rate-limit.ai.burst:5}") int aiBurst,
+                       @Value("${arthsethu.rate-limit.pdf.per-minute:AARAMBH=3,VISTAR=10,SHIKHAR=30}") String pdfLimits,
+                       @Value("${arthsethu.rate-limit.pdf.burst:3}") int pdfBurst,
+                       @Value("${arthsethu.rate-limit.max-buckets:100000}") int maxBuckets) {
+        this(Map.of(RateLimitClass.AI, parseLimits(aiLimits, aiBurst),
+                    RateLimitClass.PDF, parseLimits(pdfLimits, pdfBurst)),
+             maxBuckets, System::nanoTime);
+    }
+
+    RateLimiter(Map<RateLimitClass, Map<SubscriptionTier, Limit>> limits, int maxBuckets, LongSupplier nanoClock) {
+        for (RateLimitClass endpointClass : RateLimitClass.values()) {
+            Map<SubscriptionTier, Limit> tierLimits = new EnumMap<>(SubscriptionTier.class);
+            tierLimits.putAll(limits.getOrDefault(endpointClass, Map.of()));
+            this.limits.put(endpointClass, tierLimits);
+        }
+        this.maxBuckets = maxBuckets;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Apply the current user's limit, throwing {@link RateLimitExceededException} when it
+     * is exhausted. Unauthenticated requests are left to Spring Security.
+     */
+    public void acquireForCurrentUser(RateLimitClass endpointClass) {
+        acquireForCurrentUser(endpointClass, 1);
+    }
+
+    /**
+     * Apply the current user's limit to a request costing the given number of tokens
+     */
+    public void acquireForCurrentUser(RateLimitClass endpointClass, int cost) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return;
+        }
+        Optional<AuthenticatedUser> principal = currentUserService.getPrincipal(authentication);
+        if (principal.isEmpty()) {
+            return;
+        }
+        Long userId = principal.get().getUserId();
+        acquire(userId, entitlementCache.get(userId).getTier(), endpointClass, cost);
+    }
+
+    public void acquire(Long userId, SubscriptionTier tier, RateLimitClass endpointClass) {
+        acquire(userId, tier, endpointClass, 1);
+    }
+
+    public void acquire(Long userId, SubscriptionTier tier, RateLimitClass endpointClass, int cost) {
+        long waitNanos = tryAcquire(userId, tier, endpointClass, cost);
+        if (waitNanos > 0) {
+            long retryAfterSeconds = retryAfterSeconds(waitNanos);
+            logger.debug("Rate limited user {} on {} for {}s", userId, endpointClass, retryAfterSeconds);
+            throw new RateLimitExceededException(endpointClass, retryAfterSeconds);
+        }
+    }
+
+    /**
+     * Take one request from the bucket.
+     * Returns 0 when admitted, otherwise the nanoseconds until a request would be admitted.
+     */
+    public long tryAcquire(Long userId, SubscriptionTier tier, RateLimitClass endpointClass) {
+        return tryAcquire(userId, tier, endpointClass, 1);
+    }
+
+    /**
+     * Take cost requests' worth of tokens from the bucket.
+     * Returns 0 when admitted, otherwise the nanoseconds until a request would be admitted.
+     */
+    public long tryAcquire(Long userId, SubscriptionTier tier, RateLimitClass endpointClass, int cost) {
+        if (cost < 1) {
+            throw new IllegalArgumentException("Cost must be at least 1");
+        }
+        Limit limit = limits.get(endpointClass).get(tier);
+        if (limit == null) {
+            return 0;
+        }
+        long now = nanoClock.getAsLong();
+        AtomicLong bucket = buckets.get(new Key(userId, endpointClass));
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets) {
+                purgeIdle();
+            }
+            bucket = buckets.computeIfAbsent(new Key(userId, endpointClass), key -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long arrival = bucket.get();
+            long earliest = arrival - limit.toleranceNanos();
+            if (now - earliest < 0) {
+                return earliest - now;
+            }
+            long next = Math.max(arrival, now) + limit.intervalNanos() * cost;
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Whole seconds to wait, rounded up, for a Retry-After header
+     */
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    /**
+     * Drop buckets that have refilled completely; they behave exactly like absent ones.
+     * A request racing with the removal can at worst be granted one extra token.
+     */
+    @Scheduled(fixedDelayString = "${arthsethu.rate-limit.purge-interval-ms:60000}")
+    public void purgeIdle() {
+        long now = nanoClock.getAsLong();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    public int getBucketCount() {
+        return buckets.size();
+    }
+
+    static Map<SubscriptionTier, Limit> parseLimits(String spec, int burst) {
+        Map<SubscriptionTier, Limit> tierLimits = new EnumMap<>(SubscriptionTier.class);
+        if (spec == null || spec.isBlank()) {
+            return tierLimits;
+        }
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid rate limit entry '" + entry + "', expected TIER=requestsPerMinute");
+            }
+            int perMinute = Integer.parseInt(parts[1].trim());
+            if (perMinute > 0) {
+                tierLimits.put(SubscriptionTier.valueOf(parts[0].trim().toUpperCase()), Limit.perMinute(perMinute, burst));
+            }
+        }
+        return tierLimits;
+    }
+}
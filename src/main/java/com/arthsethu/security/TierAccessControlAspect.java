@@ -1,8 +1,6 @@
 package com.arthsethu.security;
 
 import com.arthsethu.model.SubscriptionTier;
-import com.arthsethu.model.User;
-import com.arthsethu.service.SubscriptionService;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
@@ -11,6 +9,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.util.Optional;
+
 /**
  * Aspect to handle tier-based access control using annotations
  */
@@ -19,7 +19,10 @@ import org.springframework.stereotype.Component;
 public class TierAccessControlAspect {
     
     @Autowired
-    private SubscriptionService subscriptionService;
+    private EntitlementCache entitlementCache;
+    
+    @Autowired
+    private CurrentUserService currentUserService;
     
     /**
      * Check tier-based access before method execution
@@ -28,24 +31,15 @@ public class TierAccessControlAspect {
     public void checkTierAccess(JoinPoint joinPoint, RequiresTier requiresTier) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         
-        if (authentication == null || !(authentication.getPrincipal() instanceof User)) {
+        EntitlementCache.Entitlement entitlement = resolveEntitlement(authentication);
+        if (entitlement == null) {
             throw new InsufficientTierException("User not authenticated", null, requiresTier.value());
         }
         
-        User user = (User) authentication.getPrincipal();
-        SubscriptionTier userTier = user.getTier();
+        // Effective tier already accounts for lapsed paid subscriptions
         SubscriptionTier requiredTier = requiresTier.value();
-        
-        // Check if user has active subscription for paid tiers
-        if (userTier != SubscriptionTier.AARAMBH && !subscriptionService.hasActiveSubscription(user)) {
-            // Downgrade user to free tier if subscription is not active
-            user.setTier(SubscriptionTier.AARAMBH);
-            userTier = SubscriptionTier.AARAMBH;
-        }
-        
-        // Check if user's tier meets the requirement
-        if (userTier.getMonthlyPrice() < requiredTier.getMonthlyPrice()) {
-            throw new InsufficientTierException(requiresTier.message(), userTier, requiredTier);
+        if (!entitlement.allowsTier(requiredTier)) {
+            throw new InsufficientTierException(requiresTier.message(), entitlement.getTier(), requiredTier);
         }
     }
     
@@ -56,17 +50,29 @@ public class TierAccessControlAspect {
     public void checkFeatureAccess(JoinPoint joinPoint, RequiresFeature requiresFeature) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         
-        if (authentication == null || !(authentication.getPrincipal() instanceof User)) {
+        EntitlementCache.Entitlement entitlement = resolveEntitlement(authentication);
+        if (entitlement == null) {
             throw new InsufficientTierException("User not authenticated", null, requiresFeature.value());
         }
         
-        User user = (User) authentication.getPrincipal();
         String featureName = requiresFeature.value();
-        
-        // Use subscription service to check feature access
-        if (!subscriptionService.canAccessFeature(user, featureName)) {
-            throw new InsufficientTierException(requiresFeature.message(), user.getTier(), featureName);
+        if (!entitlement.allowsFeature(featureName)) {
+            throw new InsufficientTierException(requiresFeature.message(), entitlement.getTier(), featureName);
+        }
+    }
+    
+    /**
+     * Entitlement of the authenticated user; the principal's user ID avoids any user lookup
+     */
+    private EntitlementCache.Entitlement resolveEntitlement(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        Optional<AuthenticatedUser> principal = currentUserService.getPrincipal(authentication);
+        if (principal.isPresent()) {
+            return entitlementCache.get(principal.get().getUserId());
         }
+        return currentUserService.getCurrentUser(authentication).map(entitlementCache::get).orElse(null);
     }
     
     /**
@@ -2,10 +2,7 @@ package com.arthsethu.security;
 
 import com.arthsethu.model.SubscriptionTier;
 import com.arthsethu.model.User;
-import com.arthsethu.service.SubscriptionService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 /**
@@ -15,7 +12,10 @@ import org.springframework.stereotype.Service;
 public class TierAccessControlService {
     
     @Autowired
-    private SubscriptionService subscriptionService;
+    private EntitlementCache entitlementCache;
+    
+    @Autowired
+    private CurrentUserService currentUserService;
     
     /**
      * Check if current user has access to a specific tier
@@ -26,8 +26,7 @@ public class TierAccessControlService {
             return false;
         }
         
-        return user.getTier().getMonthlyPrice() >= requiredTier.getMonthlyPrice() &&
-               subscriptionService.hasActiveSubscription(user);
+        return entitlementCache.get(user).allowsTier(requiredTier);
     }
     
     /**
@@ -39,20 +38,14 @@ public class TierAccessControlService {
             return false;
         }
         
-        return subscriptionService.canAccessFeature(user, featureName);
+        return entitlementCache.get(user).allowsFeature(featureName);
     }
     
     /**
      * Get current authenticated user
      */
     public User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        
-        if (authentication != null && authentication.getPrincipal() instanceof User) {
-            return (User) authentication.getPrincipal();
-        }
-        
-        return null;
+        return currentUserService.getCurrentUser().orElse(null);
     }
     
     /**
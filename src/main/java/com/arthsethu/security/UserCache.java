@@ -0,0 +1,116 @@
+package com.arthsethu.security;
+
+import com.arthsethu.model.User;
+import com.arthsethu.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived, bounded cache of users by ID for resolving the current user.
+ *
+ * Entries are detached copies of the scalar columns only (no associations), and every
+ * lookup hands out a fresh copy, so callers can modify or save what they get without
+ * touching the cache or cascading stale associations. Entries are evicted when the user
+ * row is updated or deleted (see {@link UserCacheEvictionListener}) and otherwise live for
+ * arthsethu.security.user-cache.ttl-ms.
+ */
+@Component
+public class UserCache {
+    
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+    private final Map<Long, CachedUser> entries;
+    // Bumped on every eviction; a load that raced with one is returned but not cached
+    private final AtomicLong generation = new AtomicLong();
+    
+    public UserCache(UserRepository userRepository,
+                     @Value("${arthsethu.security.user-cache.ttl-ms:60000}") long ttlMillis,
+                     @Value("${arthsethu.security.user-cache.max-size:1000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlMillis;
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<Long, CachedUser>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedUser> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+    
+    private record CachedUser(User user, long expiresAtMillis) {}
+    
+    /**
+     * Find a user by ID, querying the database only on a miss or after expiry
+     */
+    public Optional<User> findById(Long userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        CachedUser cached = entries.get(userId);
+        if (cached != null && now < cached.expiresAtMillis()) {
+            return Optional.of(copyOf(cached.user()));
+        }
+        
+        long loadGeneration = generation.get();
+        Optional<User> loaded = userRepository.findById(userId);
+        loaded.ifPresent(user -> {
+            if (generation.get() == loadGeneration) {
+                entries.put(userId, new CachedUser(copyOf(user), now + ttlMillis));
+            }
+        });
+        return loaded;
+    }
+    
+    /**
+     * Seed the cache with a user that was just loaded (e.g. at login)
+     */
+    public void put(User user) {
+        if (user.getId() != null) {
+            entries.put(user.getId(), new CachedUser(copyOf(user), System.currentTimeMillis() + ttlMillis));
+        }
+    }
+    
+    /**
+     * Evict a user now and again once the current transaction completes
+     */
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        entries.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                    entries.remove(userId);
+                }
+            });
+        }
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    private static User copyOf(User source) {
+        User copy = new User();
+        copy.setId(source.getId());
+        copy.setEmail(source.getEmail());
+        copy.setPasswordHash(source.getPasswordHash());
+        copy.setRole(source.getRole());
+        copy.setTier(source.getTier());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        return copy;
+    }
+}
@@ -0,0 +1,32 @@
+package com.arthsethu.security;
+
+import com.arthsethu.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that evicts a user from {@link UserCache} and {@link EntitlementCache}
+ * whenever the user row changes (tier, password/ban state, role). The caches are resolved
+ * lazily because this listener is created while the EntityManagerFactory is being built.
+ */
+@Component
+public class UserCacheEvictionListener {
+    
+    private final ObjectProvider<UserCache> userCache;
+    private final ObjectProvider<EntitlementCache> entitlementCache;
+    
+    public UserCacheEvictionListener(ObjectProvider<UserCache> userCache,
+                                     ObjectProvider<EntitlementCache> entitlementCache) {
+        this.userCache = userCache;
+        this.entitlementCache = entitlementCache;
+    }
+    
+    @PostUpdate
+    @PostRemove
+    public void evict(User user) {
+        userCache.ifAvailable(cache -> cache.evict(user.getId()));
+        entitlementCache.ifAvailable(cache -> cache.invalidate(user.getId()));
+    }
+}
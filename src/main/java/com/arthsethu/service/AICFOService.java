@@ -1,29 +1,47 @@
 package com.arthsethu.service;
 
+import com.arthsethu.dto.ForecastDTO;
+import com.arthsethu.dto.ForecastDTO.ForecastPoint;
 import com.arthsethu.dto.WhatIfAnalysis;
 import com.arthsethu.model.BusinessProfile;
 import com.arthsethu.model.DailyMetrics;
+import com.arthsethu.model.MetricsAnomaly;
 import com.arthsethu.repository.DailyMetricsRepository;
-import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class AICFOService {
     
-    private final ChatModel chatModel;
+    private final AICircuitBreaker circuitBreaker;
     private final DailyMetricsRepository dailyMetricsRepository;
     
     @Autowired
-    public AICFOService(ChatModel chatModel, DailyMetricsRepository dailyMetricsRepository) {
-        this.chatModel = chatModel;
+    private AIMicroBatcher microBatcher;
+    
+    @Autowired
+    private ForecastService forecastService;
+    
+    @Autowired
+    private AnomalyDetectionService anomalyDetectionService;
+    
+    @Value("${arthsethu.anomaly.ai-context:true}")
+    private boolean anomaliesInContext;
+    
+    @Autowired
+    public AICFOService(AICircuitBreaker circuitBreaker, DailyMetricsRepository dailyMetricsRepository) {
+        this.circuitBreaker = circuitBreaker;
         this.dailyMetricsRepository = dailyMetricsRepository;
     }
     
@@ -31,7 +49,26 @@ public class AICFOService {
      * Process a user query with contextual awareness of their business data
      */
     public String processQuery(String query, BusinessProfile profile, List<DailyMetrics> history) {
+        return processQuery(query, profile, history, null);
+    }
+    
+    /**
+     * Process a user query with the bounded conversation context from {@link ChatHistoryService}
+     */
+    public String processQuery(String query, BusinessProfile profile, List<DailyMetrics> history,
+                               String conversationContext) {
+        return answerQuery(query, profile, history, conversationContext).content();
+    }
+    
+    /**
+     * As {@link #processQuery}, but marks fallback and error text so that only genuine model
+     * answers are kept in the chat history
+     */
+    public AICircuitBreaker.Answer answerQuery(String query, BusinessProfile profile, List<DailyMetrics> history,
+                                               String conversationContext) {
         String context = buildBusinessContext(profile, history);
+        String conversation = conversationContext == null || conversationContext.isBlank()
+            ? "" : "\n" + conversationContext + "\n";
         
         String promptContent = String.format("""
             You are an AI CFO for ArthSethu, a financial intelligence platform. 
@@ -39,23 +76,22 @@ public class AICFOService {
             
             Business Context:
             %s
-            
+            %s
             User Query: %s
             
             Provide a detailed, quantitative analysis with specific recommendations. 
             Focus on actionable insights based on the business data provided.
             Include relevant financial metrics and calculations where appropriate.
-            """, context, query);
+            """, context, conversation, query);
         
         Prompt prompt = new Prompt(promptContent);
         
         try {
-            var result = chatModel.call(prompt);
-            return result.getResult().getOutput().toString();
+            return circuitBreaker.answer(prompt, userIdOf(profile), query);
         } catch (Exception e) {
-            return "I apologize, but I'm currently unable to process your request. " +
+            return new AICircuitBreaker.Answer("I apologize, but I'm currently unable to process your request. " +
                    "Please try again later or contact support if the issue persists. " +
-                   "Error: " + e.getMessage();
+                   "Error: " + e.getMessage(), true);
         }
     }
     
@@ -66,8 +102,42 @@ public class AICFOService {
         List<DailyMetrics> recentMetrics = dailyMetricsRepository
             .findLast30DaysMetrics(profile.getUser(), java.time.LocalDate.now().minusDays(30));
         
+        Prompt prompt = buildSimulationPrompt(scenario, buildBusinessContext(profile, recentMetrics));
+        
+        try {
+            String response = circuitBreaker.call(prompt, userIdOf(profile), "what if " + scenario);
+            return toAnalysis(scenario, response, recentMetrics);
+        } catch (Exception e) {
+            return failedAnalysis(scenario, e);
+        }
+    }
+    
+    /**
+     * Run a sweep of what-if scenarios for one business through the micro-batcher.
+     * The business context is built once and shared by every scenario prompt.
+     */
+    public List<WhatIfAnalysis> performSimulations(List<String> scenarios, BusinessProfile profile) {
+        List<DailyMetrics> recentMetrics = dailyMetricsRepository
+            .findLast30DaysMetrics(profile.getUser(), java.time.LocalDate.now().minusDays(30));
         String context = buildBusinessContext(profile, recentMetrics);
         
+        List<Prompt> prompts = scenarios.stream()
+            .map(scenario -> buildSimulationPrompt(scenario, context))
+            .toList();
+        List<CompletableFuture<String>> responses = microBatcher.submitAll(prompts);
+        
+        List<WhatIfAnalysis> analyses = new ArrayList<>(scenarios.size());
+        for (int i = 0; i < scenarios.size(); i++) {
+            try {
+                analyses.add(toAnalysis(scenarios.get(i), responses.get(i).join(), recentMetrics));
+            } catch (Exception e) {
+                analyses.add(failedAnalysis(scenarios.get(i), e.getCause() != null ? e.getCause() : e));
+            }
+        }
+        return analyses;
+    }
+    
+    private Prompt buildSimulationPrompt(String scenario, String context) {
         String promptContent = String.format("""
             You are an AI CFO performing a what-if analysis for ArthSethu.
             
@@ -86,28 +156,54 @@ public class AICFOService {
             Format your response as a detailed financial analysis.
             """, context, scenario);
         
-        Prompt prompt = new Prompt(promptContent);
+        return new Prompt(promptContent);
+    }
+    
+    private WhatIfAnalysis toAnalysis(String scenario, String response, List<DailyMetrics> recentMetrics) {
+        WhatIfAnalysis analysis = new WhatIfAnalysis();
+        analysis.setScenario(scenario);
+        analysis.setAnalysis(response);
         
+        // Extract projected metrics and impact score from response
+        analysis.setProjectedMetrics(extractProjectedMetrics(response, recentMetrics));
+        analysis.setImpactScore(extractImpactScore(response));
+        analysis.setRecommendations(extractRecommendations(response));
+        return analysis;
+    }
+    
+    private WhatIfAnalysis failedAnalysis(String scenario, Throwable e) {
         WhatIfAnalysis analysis = new WhatIfAnalysis();
         analysis.setScenario(scenario);
+        analysis.setAnalysis("Unable to perform simulation analysis at this time. " +
+                           "Please try again later. Error: " + e.getMessage());
+        analysis.setImpactScore(BigDecimal.ZERO);
+        return analysis;
+    }
+    
+    /**
+     * Queue a daily digest on the micro-batcher for off-peak pre-generation.
+     * The batcher calls the circuit breaker without a fallback, so canned answers are never stored.
+     */
+    public CompletableFuture<String> generateDailyDigestAsync(BusinessProfile profile, List<DailyMetrics> history) {
+        return microBatcher.submit(buildDigestPrompt(profile, history));
+    }
+    
+    private Prompt buildDigestPrompt(BusinessProfile profile, List<DailyMetrics> history) {
+        String context = buildBusinessContext(profile, history);
         
-        try {
-            var result = chatModel.call(prompt);
-            String response = result.getResult().getOutput().toString();
-            analysis.setAnalysis(response);
+        String promptContent = String.format("""
+            You are an AI CFO for ArthSethu preparing a short daily briefing for a business owner.
             
-            // Extract projected metrics and impact score from response
-            analysis.setProjectedMetrics(extractProjectedMetrics(response, recentMetrics));
-            analysis.setImpactScore(extractImpactScore(response));
-            analysis.setRecommendations(extractRecommendations(response));
+            Business Context:
+            %s
             
-        } catch (Exception e) {
-            analysis.setAnalysis("Unable to perform simulation analysis at this time. " +
-                               "Please try again later. Error: " + e.getMessage());
-            analysis.setImpactScore(BigDecimal.ZERO);
-        }
+            Answer the question "How is my business doing?" in under 200 words:
+            1. One-line overall verdict
+            2. Three key observations from the recent numbers
+            3. Two concrete actions for today
+            """, context);
         
-        return analysis;
+        return new Prompt(promptContent);
     }
     
     /**
@@ -170,9 +266,38 @@ public class AICFOService {
             context.append("Average Profit Margin: ").append(profitMargin).append("%\n");
         }
         
+        // Forward-looking figures from the incrementally maintained forecasts
+        if (profile.getUser() != null) {
+            forecastService.getForecast(profile.getUser(), LocalDate.now())
+                .ifPresent(forecast -> appendForecast(context, forecast));
+        }
+        
+        if (profile.getUser() != null && anomaliesInContext) {
+            List<MetricsAnomaly> anomalies = anomalyDetectionService.getRecentAnomalies(profile.getUser(), LocalDate.now());
+            if (!anomalies.isEmpty()) {
+                context.append("\nRecent Anomalies (last 14 days):\n");
+                anomalies.forEach(anomaly -> context.append(anomaly.getDescription()).append("\n"));
+            }
+        }
+        
         return context.toString();
     }
     
+    private void appendForecast(StringBuilder context, ForecastDTO forecast) {
+        context.append("\nForecast (95% prediction intervals):\n");
+        for (int days : new int[] {7, 30}) {
+            ForecastPoint sales = forecast.salesTotal(days);
+            ForecastPoint expenses = forecast.expensesTotal(days);
+            ForecastPoint healthScore = forecast.healthScoreOn(days);
+            context.append("Next ").append(days).append(" Days Sales: ₹").append(sales.getValue())
+                .append(" (₹").append(sales.getLower()).append(" to ₹").append(sales.getUpper()).append(")\n");
+            context.append("Next ").append(days).append(" Days Expenses: ₹").append(expenses.getValue())
+                .append(" (₹").append(expenses.getLower()).append(" to ₹").append(expenses.getUpper()).append(")\n");
+            context.append("Health Score in ").append(days).append(" Days: ").append(healthScore.getValue())
+                .append(" (").append(healthScore.getLower()).append(" to ").append(healthScore.getUpper()).append(")\n");
+        }
+    }
+    
     /**
      * Extract projected metrics from AI response (simplified implementation)
      */
@@ -242,17 +367,31 @@ public class AICFOService {
                "Continue monitoring your metrics and consider the analysis provided.";
     }
     
+    // Cached fallback answers are kept per user, since they quote the user's own figures
+    private static Long userIdOf(BusinessProfile profile) {
+        return profile != null && profile.getUser() != null ? profile.getUser().getId() : null;
+    }
+    
     /**
      * Check if AI service is available
+     * An open circuit reports unavailable without sending a health-check prompt to Ollama.
      */
     public boolean isAIServiceAvailable() {
+        if (circuitBreaker.getState() == AICircuitBreaker.State.OPEN) {
+            return false;
+        }
         try {
-            Prompt testPrompt = new Prompt("Health check");
-            var result = chatModel.call(testPrompt);
-            String response = result.getResult().getOutput().toString();
+            String response = circuitBreaker.execute(new Prompt("Health check"));
             return response != null && !response.trim().isEmpty();
         } catch (Exception e) {
             return false;
         }
     }
+    
+    /**
+     * Get circuit breaker state for admin monitoring
+     */
+    public AICircuitBreaker.CircuitBreakerStatus getCircuitBreakerStatus() {
+        return circuitBreaker.getStatus();
+    }
 }
\ No newline at end of file
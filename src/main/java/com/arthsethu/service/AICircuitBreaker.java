@@ -0,0 +1,432 @@
+package com.arthsethu.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Circuit breaker around the Ollama ChatModel.
+ *
+ * Calls run on a small bounded executor so a request thread never waits longer than the
+ * configured call timeout. Failures and slow calls are tracked over a sliding window of the
+ * most recent calls; when either rate crosses its threshold the breaker opens and queries are
+ * answered from the configured fallback until a half-open probe succeeds.
+ *
+ * Bulk work (digests, what-if sweeps) calls {@link #executeBulk} and runs on a separate,
+ * smaller, low-priority executor, so it never takes an interactive call slot or queue
+ * place. Bulk calls are only made while the breaker is closed and never use a half-open
+ * probe; their outcomes still count in the window, as they say the same about the model.
+ */
+@Component
+public class AICircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(AICircuitBreaker.class);
+
+    private static final byte OUTCOME_SUCCESS = 0;
+    private static final byte OUTCOME_SLOW = 1;
+    private static final byte OUTCOME_FAILURE = 2;
+
+    private static final int CACHED_ANSWER_LIMIT = 256;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    public enum Fallback {
+        MOCK, CACHED, NONE
+    }
+
+    private final ChatModel chatModel;
+    private final MockChatModel mockChatModel;
+
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallThresholdMs;
+    private final int minimumCalls;
+    private final long openDurationMs;
+    private final int halfOpenProbes;
+    private final long callTimeoutMs;
+    private final Fallback fallback;
+
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor bulkExecutor;
+
+    // Sliding window of call outcomes, guarded by "this"
+    private final byte[] window;
+    private int windowPosition;
+    private int windowCount;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAtNanos;
+    private volatile LocalDateTime lastStateChange = LocalDateTime.now();
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+
+    private final AtomicInteger rejectedCalls = new AtomicInteger();
+    private final AtomicInteger fallbackResponses = new AtomicInteger();
+
+    // Last successful answer per user and normalised query, used by the CACHED fallback.
+    // Answers are built from the asking user's own figures, so they are never shared.
+    private final Map<String, String> cachedAnswers = Collections.synchronizedMap(
+        new LinkedHashMap<String, String>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > CACHED_ANSWER_LIMIT;
+            }
+        });
+
+    public AICircuitBreaker(ChatModel chatModel,
+                            MockChatModel mockChatModel,
+                            @Value("${arthsethu.ai.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+                            @Value("${arthsethu.ai.circuit-breaker.slow-call-rate-threshold:80}") int slowCallRateThreshold,
+                            @Value("${arthsethu.ai.circuit-breaker.slow-call-threshold-ms:20000}") long slowCallThresholdMs,
+                            @Value("${arthsethu.ai.circuit-breaker.window-size:20}") int windowSize,
+                            @Value("${arthsethu.ai.circuit-breaker.minimum-calls:5}") int minimumCalls,
+                            @Value("${arthsethu.ai.circuit-breaker.open-duration-ms:30000}") long openDurationMs,
+                            @Value("${arthsethu.ai.circuit-breaker.half-open-probes:2}") int halfOpenProbes,
+                            @Value("${arthsethu.ai.circuit-breaker.call-timeout-ms:45000}") long callTimeoutMs,
+                            @Value("${arthsethu.ai.circuit-breaker.max-concurrent-calls:4}") int maxConcurrentCalls,
+                            @Value("${arthsethu.ai.circuit-breaker.max-bulk-calls:3}") int maxBulkCalls,
+                            @Value("${arthsethu.ai.circuit-breaker.fallback:MOCK}") Fallback fallback) {
+        this.chatModel = chatModel;
+        this.mockChatModel = mockChatModel;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallThresholdMs = slowCallThresholdMs;
+        this.window = new byte[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.openDurationMs = openDurationMs;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.callTimeoutMs = callTimeoutMs;
+        this.fallback = fallback;
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrentCalls, maxConcurrentCalls,
+            60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(maxConcurrentCalls * 2),
+            runnable -> {
+                Thread thread = new Thread(runnable, "ai-call-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        AtomicInteger bulkThreadCounter = new AtomicInteger();
+        this.bulkExecutor = new ThreadPoolExecutor(maxBulkCalls, maxBulkCalls,
+            60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(maxBulkCalls * 2),
+            runnable -> {
+                Thread thread = new Thread(runnable, "ai-bulk-call-" + bulkThreadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        this.bulkExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Call the chat model through the breaker on behalf of a user.
+     * The fallback hint is the user's own question, used to pick a mock answer or the answer
+     * last given to the same user; without a user ID no answer is cached.
+     */
+    public String call(Prompt prompt, Long userId, String fallbackHint) {
+        return answer(prompt, userId, fallbackHint).content();
+    }
+
+    /**
+     * As {@link #call}, but says whether the answer came from the model or the fallback
+     */
+    public Answer answer(Prompt prompt, Long userId, String fallbackHint) {
+        String cacheKey = cacheKey(userId, fallbackHint);
+        try {
+            String answer = execute(prompt);
+            if (cacheKey != null) {
+                cachedAnswers.put(cacheKey, answer);
+            }
+            return new Answer(answer, false);
+        } catch (AIUnavailableException e) {
+            String fallbackAnswer = fallbackFor(cacheKey, fallbackHint);
+            if (fallbackAnswer == null) {
+                throw e;
+            }
+            fallbackResponses.incrementAndGet();
+            return new Answer(fallbackAnswer, true);
+        }
+    }
+
+    /**
+     * Call the chat model through the breaker without any fallback.
+     * Throws AIUnavailableException when the breaker is open or the call fails.
+     */
+    public String execute(Prompt prompt) {
+        if (!tryAcquirePermission()) {
+            rejectedCalls.incrementAndGet();
+            throw new AIUnavailableException("AI service circuit is open");
+        }
+        return run(prompt, executor);
+    }
+
+    /**
+     * Call the chat model for bulk work on the bulk executor, only while the breaker is closed.
+     * Throws AIUnavailableException otherwise or when the call fails.
+     */
+    public String executeBulk(Prompt prompt) {
+        if (state != State.CLOSED) {
+            rejectedCalls.incrementAndGet();
+            throw new AIUnavailableException("AI service circuit is not closed");
+        }
+        return run(prompt, bulkExecutor);
+    }
+
+    private String run(Prompt prompt, ThreadPoolExecutor callExecutor) {
+        long start = System.nanoTime();
+        Future<ChatResponse> future;
+        try {
+            future = callExecutor.submit(() -> chatModel.call(prompt));
+        } catch (RejectedExecutionException e) {
+            // Saturated executor: fail fast without counting against the model
+            releaseProbe();
+            rejectedCalls.incrementAndGet();
+            throw new AIUnavailableException("AI service is saturated");
+        }
+
+        try {
+            ChatResponse response = future.get(callTimeoutMs, TimeUnit.MILLISECONDS);
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            String text = response.getResult().getOutput().getText();
+            recordOutcome(elapsedMs >= slowCallThresholdMs ? OUTCOME_SLOW : OUTCOME_SUCCESS);
+            return text;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            recordOutcome(OUTCOME_FAILURE);
+            throw new AIUnavailableException("AI service call timed out after " + callTimeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            releaseProbe();
+            throw new AIUnavailableException("AI service call interrupted");
+        } catch (ExecutionException e) {
+            recordOutcome(OUTCOME_FAILURE);
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new AIUnavailableException("AI service call failed: " + cause.getMessage());
+        } catch (RuntimeException e) {
+            recordOutcome(OUTCOME_FAILURE);
+            throw new AIUnavailableException("AI service call failed: " + e.getMessage());
+        }
+    }
+
+    public State getState() {
+        if (state == State.OPEN && openDurationElapsed()) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Snapshot of breaker state for the admin system page
+     */
+    public synchronized CircuitBreakerStatus getStatus() {
+        int failures = 0;
+        int slow = 0;
+        for (int i = 0; i < windowCount; i++) {
+            if (window[i] == OUTCOME_FAILURE) failures++;
+            else if (window[i] == OUTCOME_SLOW) slow++;
+        }
+        double failureRate = windowCount > 0 ? failures * 100.0 / windowCount : 0.0;
+        double slowCallRate = windowCount > 0 ? slow * 100.0 / windowCount : 0.0;
+        return new CircuitBreakerStatus(getState().name(), failureRate, slowCallRate, windowCount,
+            rejectedCalls.get(), fallbackResponses.get(), executor.getQueue().size(),
+            executor.getActiveCount(), fallback.name(), lastStateChange);
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        bulkExecutor.shutdownNow();
+    }
+
+    private boolean tryAcquirePermission() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (!openDurationElapsed()) {
+                return false;
+            }
+            transitionToHalfOpen();
+        }
+        // HALF_OPEN: admit a limited number of probes
+        return halfOpenPermits.getAndUpdate(p -> p > 0 ? p - 1 : 0) > 0;
+    }
+
+    private synchronized void transitionToHalfOpen() {
+        if (state == State.OPEN) {
+            state = State.HALF_OPEN;
+            halfOpenPermits.set(halfOpenProbes);
+            halfOpenSuccesses.set(0);
+            lastStateChange = LocalDateTime.now();
+            logger.info("AI circuit breaker half-open, admitting {} probe call(s)", halfOpenProbes);
+        }
+    }
+
+    private void releaseProbe() {
+        if (state == State.HALF_OPEN) {
+            halfOpenPermits.incrementAndGet();
+        }
+    }
+
+    private synchronized void recordOutcome(byte outcome) {
+        if (state == State.HALF_OPEN) {
+            if (outcome == OUTCOME_FAILURE || outcome == OUTCOME_SLOW) {
+                transitionToOpen("half-open probe " + (outcome == OUTCOME_SLOW ? "was slow" : "failed"));
+            } else if (halfOpenSuccesses.incrementAndGet() >= halfOpenProbes) {
+                state = State.CLOSED;
+                windowCount = 0;
+                windowPosition = 0;
+                lastStateChange = LocalDateTime.now();
+                logger.info("AI circuit breaker closed after {} successful probe(s)", halfOpenProbes);
+            }
+            return;
+        }
+
+        window[windowPosition] = outcome;
+        windowPosition = (windowPosition + 1) % window.length;
+        if (windowCount < window.length) {
+            windowCount++;
+        }
+
+        if (state == State.CLOSED && windowCount >= minimumCalls) {
+            int failures = 0;
+            int slow = 0;
+            for (int i = 0; i < windowCount; i++) {
+                if (window[i] == OUTCOME_FAILURE) failures++;
+                else if (window[i] == OUTCOME_SLOW) slow++;
+            }
+            if (failures * 100 >= failureRateThreshold * windowCount) {
+                transitionToOpen("failure rate " + (failures * 100 / windowCount) + "%");
+            } else if (slow * 100 >= slowCallRateThreshold * windowCount) {
+                transitionToOpen("slow call rate " + (slow * 100 / windowCount) + "%");
+            }
+        }
+    }
+
+    private void transitionToOpen(String reason) {
+        state = State.OPEN;
+        openedAtNanos = System.nanoTime();
+        halfOpenPermits.set(0);
+        lastStateChange = LocalDateTime.now();
+        logger.warn("AI circuit breaker opened: {}", reason);
+    }
+
+    private boolean openDurationElapsed() {
+        return System.nanoTime() - openedAtNanos >= TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+    }
+
+    private String fallbackFor(String cacheKey, String hint) {
+        switch (fallback) {
+            case CACHED:
+                String cached = cacheKey != null ? cachedAnswers.get(cacheKey) : null;
+                if (cached != null) {
+                    return cached;
+                }
+                // No cached answer for this question, use the deterministic response instead
+                return mockAnswer(hint);
+            case MOCK:
+                return mockAnswer(hint);
+            case NONE:
+            default:
+                return null;
+        }
+    }
+
+    private String mockAnswer(String hint) {
+        String content = mockChatModel.call(new MockChatModel.MockPrompt(hint != null ? hint : ""))
+            .getResult().getOutput().getContent();
+        return "Note: the AI CFO is under heavy load, so this is a general answer rather than a " +
+               "personalised analysis. Please ask again in a few minutes.\n\n" + content;
+    }
+
+    private static String cacheKey(Long userId, String hint) {
+        if (userId == null || hint == null) {
+            return null;
+        }
+        return userId + ":" + hint.trim().toLowerCase().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Answer text; fallback is true for mock, cached or error text rather than a fresh model answer
+     */
+    public record Answer(String content, boolean fallback) {}
+
+    /**
+     * Thrown when the chat model cannot be reached through the breaker
+     */
+    public static class AIUnavailableException extends RuntimeException {
+        public AIUnavailableException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Circuit breaker state snapshot
+     */
+    public static class CircuitBreakerStatus {
+        private final String state;
+        private final double failureRate;
+        private final double slowCallRate;
+        private final int bufferedCalls;
+        private final int rejectedCalls;
+        private final int fallbackResponses;
+        private final int queueDepth;
+        private final int activeCalls;
+        private final String fallback;
+        private final LocalDateTime lastStateChange;
+
+        public CircuitBreakerStatus(String state, double failureRate, double slowCallRate, int bufferedCalls,
+                                    int rejectedCalls, int fallbackResponses, int queueDepth, int activeCalls,
+                                    String fallback, LocalDateTime lastStateChange) {
+            this.state = state;
+            this.failureRate = failureRate;
+            this.slowCallRate = slowCallRate;
+            this.bufferedCalls = bufferedCalls;
+            this.rejectedCalls = rejectedCalls;
+            this.fallbackResponses = fallbackResponses;
+            this.queueDepth = queueDepth;
+            this.activeCalls = activeCalls;
+            this.fallback = fallback;
+            this.lastStateChange = lastStateChange;
+        }
+
+        public String getState() { return state; }
+        public double getFailureRate() { return failureRate; }
+        public double getSlowCallRate() { return slowCallRate; }
+        public int getBufferedCalls() { return bufferedCalls; }
+        public int getRejectedCalls() { return rejectedCalls; }
+        public int getFallbackResponses() { return fallbackResponses; }
+        public int getQueueDepth() { return queueDepth; }
+        public int getActiveCalls() { return activeCalls; }
+        public String getFallback() { return fallback; }
+        public LocalDateTime getLastStateChange() { return lastStateChange; }
+    }
+}
@@ -0,0 +1,257 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.AIDigest;
+import com.arthsethu.model.BusinessProfile;
+import com.arthsethu.model.DailyMetrics;
+import com.arthsethu.model.SubscriptionTier;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.AIDigestRepository;
+import com.arthsethu.repository.BusinessProfileRepository;
+import com.arthsethu.repository.DailyMetricsRepository;
+import com.arthsethu.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Off-peak batch pre-generation of AI CFO daily digests for Shikhar users.
+ *
+ * The nightly run walks Shikhar users in keyset-paged batches on a single minimum-priority
+ * thread and backs off whenever interactive AI CFO calls are queued, so digest generation only
+ * uses capacity the chat path is not using. Each page's prompts are queued on the
+ * {@link AIMicroBatcher} together and stored as they complete. Digests are kept per user per
+ * day and shown on the AI CFO page without an LLM round trip.
+ */
+@Service
+public class AIDigestService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AIDigestService.class);
+    
+    private static final int USER_BATCH_SIZE = 50;
+    private static final long BACKOFF_MS = 2000;
+    private static final int MAX_BACKOFFS_PER_USER = 30;
+    
+    private final UserRepository userRepository;
+    private final BusinessProfileRepository businessProfileRepository;
+    private final DailyMetricsRepository dailyMetricsRepository;
+    private final AIDigestRepository aiDigestRepository;
+    private final AICFOService aicfoService;
+    private final AICircuitBreaker circuitBreaker;
+    
+    private final boolean enabled;
+    private final int retentionDays;
+    
+    private final ExecutorService digestExecutor;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    
+    public AIDigestService(UserRepository userRepository,
+                           BusinessProfileRepository businessProfileRepository,
+                           DailyMetricsRepository dailyMetricsRepository,
+                           AIDigestRepository aiDigestRepository,
+                           AICFOService aicfoService,
+                           AICircuitBreaker circuitBreaker,
+                           @Value("${arthsethu.ai.digest.enabled:true}") boolean enabled,
+                           @Value("${arthsethu.ai.digest.retention-days:30}") int retentionDays) {
+        this.userRepository = userRepository;
+        this.businessProfileRepository = businessProfileRepository;
+        this.dailyMetricsRepository = dailyMetricsRepository;
+        this.aiDigestRepository = aiDigestRepository;
+        this.aicfoService = aicfoService;
+        this.circuitBreaker = circuitBreaker;
+        this.enabled = enabled;
+        this.retentionDays = retentionDays;
+        this.digestExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ai-digest");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+    
+    /**
+     * Nightly trigger - hands the run to the low-priority digest thread
+     */
+    @Scheduled(cron = "${arthsethu.ai.digest.cron:0 30 2 * * *}")
+    public void scheduleDailyDigests() {
+        if (!enabled) {
+            return;
+        }
+        triggerDigestRun();
+    }
+    
+    /**
+     * Start a digest run unless one is already in progress
+     */
+    public boolean triggerDigestRun() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("AI digest run already in progress, skipping trigger");
+            return false;
+        }
+        digestExecutor.submit(() -> {
+            try {
+                generateDailyDigests(LocalDate.now());
+            } catch (Exception e) {
+                logger.error("AI digest run failed: {}", e.getMessage(), e);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+    
+    /**
+     * Generate today's digest for every Shikhar user that does not have one yet.
+     * Re-running on the same day only fills in the users that were missed.
+     */
+    public DigestRunResult generateDailyDigests(LocalDate digestDate) {
+        logger.info("Starting AI digest run for {}", digestDate);
+        long start = System.currentTimeMillis();
+        int generated = 0;
+        int skipped = 0;
+        int failed = 0;
+        
+        Long afterId = 0L;
+        while (true) {
+            List<User> batch = userRepository.findByTierAndIdGreaterThanOrderByIdAsc(
+                SubscriptionTier.SHIKHAR, afterId, PageRequest.of(0, USER_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            
+            List<PendingDigest> pending = new ArrayList<>(batch.size());
+            boolean circuitOpen = false;
+            for (User user : batch) {
+                afterId = user.getId();
+                
+                if (circuitBreaker.getState() == AICircuitBreaker.State.OPEN) {
+                    circuitOpen = true;
+                    break;
+                }
+                
+                if (aiDigestRepository.existsByUserAndDigestDate(user, digestDate)) {
+                    skipped++;
+                    continue;
+                }
+                
+                Optional<BusinessProfile> profile = businessProfileRepository.findByUser(user);
+                if (profile.isEmpty()) {
+                    skipped++;
+                    continue;
+                }
+                
+                yieldToInteractiveCalls();
+                
+                List<DailyMetrics> history = dailyMetricsRepository
+                    .findLast30DaysMetrics(user, digestDate.minusDays(30));
+                pending.add(new PendingDigest(user, history.size(),
+                    aicfoService.generateDailyDigestAsync(profile.get(), history)));
+            }
+            
+            // Digests of this page are generated in micro-batches; store them as they complete
+            for (PendingDigest digest : pending) {
+                try {
+                    String content = digest.content.join();
+                    aiDigestRepository.save(new AIDigest(digest.user, digestDate, content, digest.metricsDays));
+                    generated++;
+                } catch (Exception e) {
+                    failed++;
+                    logger.warn("Failed to generate AI digest for user {}: {}", digest.user.getId(),
+                                e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+                }
+            }
+            
+            if (circuitOpen) {
+                logger.warn("AI circuit open, stopping digest run early; remaining users will be picked up next run");
+                break;
+            }
+        }
+        
+        return finish(digestDate, generated, skipped, failed, start);
+    }
+    
+    /**
+     * Latest stored digest for a user, if generated within the last two days
+     */
+    @Transactional(readOnly = true)
+    public Optional<AIDigest> getLatestDigest(User user) {
+        return aiDigestRepository.findTopByUserAndDigestDateGreaterThanEqualOrderByDigestDateDesc(
+            user, LocalDate.now().minusDays(1));
+    }
+    
+    public boolean isRunning() {
+        return running.get();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        digestExecutor.shutdownNow();
+    }
+    
+    /**
+     * Wait while interactive AI CFO calls are queued so the batch never competes with users
+     */
+    private void yieldToInteractiveCalls() {
+        int backoffs = 0;
+        while (circuitBreaker.getQueueDepth() > 0 && backoffs < MAX_BACKOFFS_PER_USER) {
+            backoffs++;
+            try {
+                TimeUnit.MILLISECONDS.sleep(BACKOFF_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    private DigestRunResult finish(LocalDate digestDate, int generated, int skipped, int failed, long start) {
+        int purged = 0;
+        try {
+            purged = aiDigestRepository.deleteOlderThan(digestDate.minusDays(retentionDays));
+        } catch (Exception e) {
+            logger.warn("Failed to purge old AI digests: {}", e.getMessage());
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        logger.info("AI digest run for {} finished in {} ms: generated={}, skipped={}, failed={}, purged={}",
+                    digestDate, elapsed, generated, skipped, failed, purged);
+        return new DigestRunResult(generated, skipped, failed, elapsed);
+    }
+    
+    private record PendingDigest(User user, int metricsDays, CompletableFuture<String> content) { }
+    
+    /**
+     * Summary of a digest run
+     */
+    public static class DigestRunResult {
+        private final int generated;
+        private final int skipped;
+        private final int failed;
+        private final long elapsedMs;
+        
+        public DigestRunResult(int generated, int skipped, int failed, long elapsedMs) {
+            this.generated = generated;
+            this.skipped = skipped;
+            this.failed = failed;
+            this.elapsedMs = elapsedMs;
+        }
+        
+        public int getGenerated() { return generated; }
+        public int getSkipped() { return skipped; }
+        public int getFailed() { return failed; }
+        public long getElapsedMs() { return elapsedMs; }
+    }
+}
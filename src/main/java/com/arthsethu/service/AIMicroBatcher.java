@@ -0,0 +1,262 @@
+package com.arthsethu.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micro-batching layer for background (non-interactive) AI workloads.
+ *
+ * Prompts submitted within a short window are grouped into a batch of bounded size and the
+ * batch is sent to the model concurrently, so Ollama can decode them together
+ * (OLLAMA_NUM_PARALLEL) against one loaded model instead of one request at a time.
+ * The next batch is only formed once the current one finishes. Calls go through
+ * {@link AICircuitBreaker#executeBulk(Prompt)}, which runs them on the breaker's bulk
+ * executor, so batches never take the call slots or queue of interactive chat; keep
+ * max-batch-size at or below the breaker's max-bulk-calls.
+ *
+ * With arthsethu.ai.batch.enabled=false prompts run one at a time, which gives the
+ * sequential baseline for the throughput figures in {@link BatchStats}.
+ */
+@Component
+public class AIMicroBatcher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AIMicroBatcher.class);
+    
+    private final AICircuitBreaker circuitBreaker;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxWaitMs;
+    private final int queueCapacity;
+    
+    private final BlockingQueue<PendingPrompt> queue;
+    private final ExecutorService workers;
+    private final Thread collector;
+    private volatile boolean running = true;
+    
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong items = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final AtomicLong cpuNanos = new AtomicLong();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+    
+    public AIMicroBatcher(AICircuitBreaker circuitBreaker,
+                          @Value("${arthsethu.ai.batch.enabled:true}") boolean enabled,
+                          @Value("${arthsethu.ai.batch.max-batch-size:3}") int maxBatchSize,
+                          @Value("${arthsethu.ai.batch.max-wait-ms:50}") long maxWaitMs,
+                          @Value("${arthsethu.ai.batch.queue-capacity:500}") int queueCapacity) {
+        this.circuitBreaker = circuitBreaker;
+        this.enabled = enabled;
+        this.maxBatchSize = enabled ? Math.max(1, maxBatchSize) : 1;
+        this.maxWaitMs = maxWaitMs;
+        this.queueCapacity = queueCapacity;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(this.maxBatchSize, runnable -> {
+            Thread thread = new Thread(runnable, "ai-batch-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.collector = new Thread(this::collectLoop, "ai-batch-collector");
+        this.collector.setDaemon(true);
+        this.collector.start();
+    }
+    
+    /**
+     * Queue a prompt for the next batch
+     */
+    public CompletableFuture<String> submit(Prompt prompt) {
+        PendingPrompt pending = new PendingPrompt(prompt);
+        if (!running || !queue.offer(pending)) {
+            pending.result.completeExceptionally(
+                new RejectedExecutionException("AI batch queue is full (" + queueCapacity + " prompts)"));
+        }
+        return pending.result;
+    }
+    
+    /**
+     * Queue several prompts at once; results are in submission order
+     */
+    public List<CompletableFuture<String>> submitAll(List<Prompt> prompts) {
+        List<CompletableFuture<String>> results = new ArrayList<>(prompts.size());
+        for (Prompt prompt : prompts) {
+            results.add(submit(prompt));
+        }
+        return results;
+    }
+    
+    public int getQueueDepth() {
+        return queue.size();
+    }
+    
+    public BatchStats getStats() {
+        return new BatchStats(enabled, maxBatchSize, batches.get(), items.get(), failures.get(),
+                              largestBatch.get(), queue.size(),
+                              TimeUnit.NANOSECONDS.toMillis(busyNanos.get()),
+                              TimeUnit.NANOSECONDS.toMillis(cpuNanos.get()),
+                              Runtime.getRuntime().availableProcessors());
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        collector.interrupt();
+        workers.shutdownNow();
+        PendingPrompt pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new RejectedExecutionException("AI batcher shut down"));
+        }
+    }
+    
+    private void collectLoop() {
+        List<PendingPrompt> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingPrompt next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                runBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("AI batch dispatch failed: {}", e.getMessage(), e);
+                batch.forEach(pending -> pending.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    /**
+     * Send every prompt of the batch concurrently and wait for all of them
+     */
+    private void runBatch(List<PendingPrompt> batch) {
+        long start = System.nanoTime();
+        long cpuStart = processCpuNanos();
+        
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            PendingPrompt pending = batch.get(i);
+            calls[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    pending.result.complete(circuitBreaker.executeBulk(pending.prompt));
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                    pending.result.completeExceptionally(e);
+                }
+            }, workers);
+        }
+        CompletableFuture.allOf(calls).join();
+        
+        batches.incrementAndGet();
+        items.addAndGet(batch.size());
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+        busyNanos.addAndGet(System.nanoTime() - start);
+        long cpuEnd = processCpuNanos();
+        if (cpuStart >= 0 && cpuEnd >= 0) {
+            cpuNanos.addAndGet(cpuEnd - cpuStart);
+        }
+    }
+    
+    private static long processCpuNanos() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getProcessCpuTime();
+        }
+        return -1;
+    }
+    
+    private static class PendingPrompt {
+        private final Prompt prompt;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        
+        PendingPrompt(Prompt prompt) {
+            this.prompt = prompt;
+        }
+    }
+    
+    /**
+     * Cumulative batching statistics. Throughput is measured over the time batches were in
+     * flight, so idle gaps between bulk jobs do not dilute it.
+     */
+    public static class BatchStats {
+        private final boolean batchingEnabled;
+        private final int maxBatchSize;
+        private final long batches;
+        private final long items;
+        private final long failures;
+        private final int largestBatch;
+        private final int queueDepth;
+        private final long busyMillis;
+        private final long cpuMillis;
+        private final int cores;
+        
+        public BatchStats(boolean batchingEnabled, int maxBatchSize, long batches, long items, long failures,
+                          int largestBatch, int queueDepth, long busyMillis, long cpuMillis, int cores) {
+            this.batchingEnabled = batchingEnabled;
+            this.maxBatchSize = maxBatchSize;
+            this.batches = batches;
+            this.items = items;
+            this.failures = failures;
+            this.largestBatch = largestBatch;
+            this.queueDepth = queueDepth;
+            this.busyMillis = busyMillis;
+            this.cpuMillis = cpuMillis;
+            this.cores = cores;
+        }
+        
+        public boolean isBatchingEnabled() { return batchingEnabled; }
+        public int getMaxBatchSize() { return maxBatchSize; }
+        public long getBatches() { return batches; }
+        public long getItems() { return items; }
+        public long getFailures() { return failures; }
+        public int getLargestBatch() { return largestBatch; }
+        public int getQueueDepth() { return queueDepth; }
+        public long getBusyMillis() { return busyMillis; }
+        public long getCpuMillis() { return cpuMillis; }
+        public int getCores() { return cores; }
+        
+        public double getAverageBatchSize() {
+            return batches == 0 ? 0 : (double) items / batches;
+        }
+        
+        public double getItemsPerSecond() {
+            return busyMillis == 0 ? 0 : items * 1000.0 / busyMillis;
+        }
+        
+        /** Wall-clock throughput normalised by the cores of this host */
+        public double getItemsPerSecondPerCore() {
+            return getItemsPerSecond() / cores;
+        }
+        
+        /** Items completed per second of JVM CPU time spent while batches were in flight */
+        public double getItemsPerCpuSecond() {
+            return cpuMillis == 0 ? 0 : items * 1000.0 / cpuMillis;
+        }
+    }
+}
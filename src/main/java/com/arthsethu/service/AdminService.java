@@ -1,13 +1,17 @@
 package com.arthsethu.service;
 
 import com.arthsethu.dto.AdminDashboardDTO;
+import com.arthsethu.dto.SignupTrendDTO;
 import com.arthsethu.dto.UserManagementDTO;
+import com.arthsethu.dto.UserPageDTO;
 import com.arthsethu.model.*;
 import com.arthsethu.repository.SubscriptionRepository;
 import com.arthsethu.repository.UserRepository;
+import com.arthsethu.security.EntitlementCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,12 +20,18 @@ import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
 import java.lang.management.OperatingSystemMXBean;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * Service for admin dashboard functionality
@@ -33,12 +43,20 @@ public class AdminService {
     
     private static final Logger logger = LoggerFactory.getLogger(AdminService.class);
     
+    private static final int MAX_USER_PAGE_SIZE = 200;
+    
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
     private SubscriptionRepository subscriptionRepository;
     
+    @Autowired
+    private RevenueCubeService revenueCubeService;
+    
+    @Autowired
+    private EntitlementCache entitlementCache;
+    
     @Autowired
     private GovernmentDataInterface governmentDataService;
     
@@ -48,6 +66,9 @@ public class AdminService {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private DomainEventPublisher eventPublisher;
+    
     /**
      * Get comprehensive admin dashboard data
      * Implements Requirements 7.1, 7.2, 7.3, 7.4, 7.5
@@ -58,7 +79,7 @@ public class AdminService {
         AdminDashboardDTO.UserStats userStats = getUserStats();
         AdminDashboardDTO.SystemHealth systemHealth = getSystemHealth();
         AdminDashboardDTO.RevenueStats revenueStats = getRevenueStats();
-        List<AdminDashboardDTO.SystemAlert> systemAlerts = getSystemAlerts();
+        List<AdminDashboardDTO.SystemAlert> systemAlerts = getSystemAlerts(systemHealth);
         
         return new AdminDashboardDTO(userStats, systemHealth, revenueStats, systemAlerts);
     }
@@ -70,21 +91,61 @@ public class AdminService {
     public AdminDashboardDTO.UserStats getUserStats() {
         logger.debug("Calculating user statistics");
         
+        // One grouped query instead of a count per tier plus a total
+        Map<SubscriptionTier, Long> usersByTier = new EnumMap<>(SubscriptionTier.class);
+        for (Object[] row : userRepository.countUsersGroupedByTier()) {
+            if (row[0] != null) {
+                usersByTier.put((SubscriptionTier) row[0], (Long) row[1]);
+            }
+        }
+        long aarambhUsers = usersByTier.getOrDefault(SubscriptionTier.AARAMBH, 0L);
+        long vistarUsers = usersByTier.getOrDefault(SubscriptionTier.VISTAR, 0L);
+        long shikharUsers = usersByTier.getOrDefault(SubscriptionTier.SHIKHAR, 0L);
         long totalUsers = userRepository.countTotalUsers();
-        long aarambhUsers = userRepository.countByTier(SubscriptionTier.AARAMBH);
-        long vistarUsers = userRepository.countByTier(SubscriptionTier.VISTAR);
-        long shikharUsers = userRepository.countByTier(SubscriptionTier.SHIKHAR);
         
         LocalDateTime today = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0);
         LocalDateTime monthStart = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
         
-        long newUsersToday = userRepository.findByCreatedAtAfter(today).size();
-        long newUsersThisMonth = userRepository.findByCreatedAtAfter(monthStart).size();
+        long newUsersToday = userRepository.countByCreatedAtAfter(today);
+        long newUsersThisMonth = userRepository.countByCreatedAtAfter(monthStart);
         
         return new AdminDashboardDTO.UserStats(totalUsers, aarambhUsers, vistarUsers, 
                                              shikharUsers, newUsersToday, newUsersThisMonth);
     }
     
+    /**
+     * Get daily signups by tier for the last given number of days (oldest first, gaps filled with zeros)
+     * Implements Requirement 7.1
+     */
+    @Transactional(readOnly = true)
+    public SignupTrendDTO getSignupTrend(int days) {
+        logger.debug("Calculating signup trend for {} days", days);
+        
+        LocalDate firstDay = LocalDate.now().minusDays(days - 1L);
+        Map<LocalDate, SignupTrendDTO.DailySignups> byDay = new LinkedHashMap<>();
+        for (LocalDate day = firstDay; !day.isAfter(LocalDate.now()); day = day.plusDays(1)) {
+            byDay.put(day, new SignupTrendDTO.DailySignups(day));
+        }
+        
+        for (Object[] row : userRepository.countSignupsByDayAndTier(firstDay.atStartOfDay())) {
+            SignupTrendDTO.DailySignups daily = byDay.get((LocalDate) row[0]);
+            if (daily != null) {
+                daily.add((SubscriptionTier) row[1], (Long) row[2]);
+            }
+        }
+        
+        return new SignupTrendDTO(firstDay, LocalDate.now(), new ArrayList<>(byDay.values()));
+    }
+    
+    /**
+     * Get daily revenue of active subscriptions by tier for the last N days (including today)
+     * Implements Requirement 7.4
+     */
+    public Map<LocalDate, Map<SubscriptionTier, BigDecimal>> getRevenueTrend(int days) {
+        LocalDate to = LocalDate.now();
+        return revenueCubeService.getDailySeries(SubscriptionStatus.ACTIVE, to.minusDays(days - 1L), to);
+    }
+    
     /**
      * Get system health monitoring data
      * Implements Requirements 7.3, 7.5
@@ -126,9 +187,19 @@ public class AdminService {
         MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
         long memoryUsage = memoryBean.getHeapMemoryUsage().getUsed() / (1024 * 1024); // MB
         
-        return new AdminDashboardDTO.SystemHealth(govApiStatus, govApiLastUpdate,
+        AdminDashboardDTO.SystemHealth health = new AdminDashboardDTO.SystemHealth(govApiStatus, govApiLastUpdate,
                                                  ollamaStatus, ollamaLastCheck,
                                                  databaseStatus, systemLoad, memoryUsage);
+        
+        // AI circuit breaker state
+        AICircuitBreaker.CircuitBreakerStatus breaker = aicfoService.getCircuitBreakerStatus();
+        health.setAiCircuitState(breaker.getState());
+        health.setAiFailureRate(breaker.getFailureRate());
+        health.setAiSlowCallRate(breaker.getSlowCallRate());
+        health.setAiFallbackResponses(breaker.getFallbackResponses());
+        health.setAiQueueDepth(breaker.getQueueDepth());
+        
+        return health;
     }
     
     /**
@@ -142,38 +213,24 @@ public class AdminService {
         LocalDateTime monthStart = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
         LocalDateTime yearStart = LocalDateTime.now().withDayOfYear(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
         
-        // Get total revenue
-        BigDecimal totalRevenue = subscriptionRepository.getTotalRevenueByDateRange(
-            SubscriptionStatus.ACTIVE, yearStart, LocalDateTime.now());
-        if (totalRevenue == null) totalRevenue = BigDecimal.ZERO;
-        
-        // Get monthly recurring revenue
-        BigDecimal monthlyRecurringRevenue = subscriptionRepository.getMonthlyRecurringRevenue(
-            SubscriptionStatus.ACTIVE, SubscriptionTier.AARAMBH);
-        if (monthlyRecurringRevenue == null) monthlyRecurringRevenue = BigDecimal.ZERO;
+        // Combine revenue cube cells instead of scanning subscriptions
+        RevenueCubeService.RevenueSlice yearToDate = revenueCubeService.slice(yearStart.toLocalDate(), today.toLocalDate());
+        RevenueCubeService.RevenueSlice monthToDate = revenueCubeService.slice(monthStart.toLocalDate(), today.toLocalDate());
+        RevenueCubeService.RevenueSlice todayOnly = revenueCubeService.slice(today.toLocalDate(), today.toLocalDate());
+        RevenueCubeService.RevenueSlice allTime = revenueCubeService.sliceAll();
         
-        // Get today's revenue
-        BigDecimal revenueToday = subscriptionRepository.getTotalRevenueByDateRange(
-            SubscriptionStatus.ACTIVE, today, LocalDateTime.now());
-        if (revenueToday == null) revenueToday = BigDecimal.ZERO;
-        
-        // Get this month's revenue
-        BigDecimal revenueThisMonth = subscriptionRepository.getTotalRevenueByDateRange(
-            SubscriptionStatus.ACTIVE, monthStart, LocalDateTime.now());
-        if (revenueThisMonth == null) revenueThisMonth = BigDecimal.ZERO;
+        BigDecimal totalRevenue = yearToDate.getAmount(SubscriptionStatus.ACTIVE);
+        BigDecimal monthlyRecurringRevenue = allTime.getAmountExcluding(SubscriptionTier.AARAMBH, SubscriptionStatus.ACTIVE);
+        BigDecimal revenueToday = todayOnly.getAmount(SubscriptionStatus.ACTIVE);
+        BigDecimal revenueThisMonth = monthToDate.getAmount(SubscriptionStatus.ACTIVE);
         
         // Get revenue by tier
-        BigDecimal vistarRevenue = subscriptionRepository.getTotalRevenueByTierAndDateRange(
-            SubscriptionTier.VISTAR, SubscriptionStatus.ACTIVE, yearStart, LocalDateTime.now());
-        if (vistarRevenue == null) vistarRevenue = BigDecimal.ZERO;
-        
-        BigDecimal shikharRevenue = subscriptionRepository.getTotalRevenueByTierAndDateRange(
-            SubscriptionTier.SHIKHAR, SubscriptionStatus.ACTIVE, yearStart, LocalDateTime.now());
-        if (shikharRevenue == null) shikharRevenue = BigDecimal.ZERO;
+        BigDecimal vistarRevenue = yearToDate.getAmount(SubscriptionTier.VISTAR, SubscriptionStatus.ACTIVE);
+        BigDecimal shikharRevenue = yearToDate.getAmount(SubscriptionTier.SHIKHAR, SubscriptionStatus.ACTIVE);
         
         // Calculate conversion rate (paid users / total users)
         long totalUsers = userRepository.countTotalUsers();
-        long paidUsers = subscriptionRepository.countPaidSubscriptions(SubscriptionTier.AARAMBH, SubscriptionStatus.ACTIVE);
+        long paidUsers = allTime.getCountExcluding(SubscriptionTier.AARAMBH, SubscriptionStatus.ACTIVE);
         double conversionRate = totalUsers > 0 ? (double) paidUsers / totalUsers * 100 : 0.0;
         
         return new AdminDashboardDTO.RevenueStats(totalRevenue, monthlyRecurringRevenue,
@@ -186,12 +243,18 @@ public class AdminService {
      * Implements Requirement 7.5
      */
     public List<AdminDashboardDTO.SystemAlert> getSystemAlerts() {
+        return getSystemAlerts(getSystemHealth());
+    }
+    
+    /**
+     * Get system alerts for an already computed health check
+     */
+    public List<AdminDashboardDTO.SystemAlert> getSystemAlerts(AdminDashboardDTO.SystemHealth health) {
         logger.debug("Generating system alerts");
         
         List<AdminDashboardDTO.SystemAlert> alerts = new ArrayList<>();
         
         // Check for system issues and generate alerts
-        AdminDashboardDTO.SystemHealth health = getSystemHealth();
         
         if (!health.isGovernmentApiStatus()) {
             alerts.add(new AdminDashboardDTO.SystemAlert(
@@ -211,6 +274,15 @@ public class AdminService {
             ));
         }
         
+        if ("OPEN".equals(health.getAiCircuitState())) {
+            alerts.add(new AdminDashboardDTO.SystemAlert(
+                "AI_CIRCUIT_OPEN", 
+                "AI CFO circuit breaker is open - serving fallback responses", 
+                "HIGH", 
+                LocalDateTime.now()
+            ));
+        }
+        
         if (!health.isDatabaseStatus()) {
             alerts.add(new AdminDashboardDTO.SystemAlert(
                 "DB_ERROR", 
@@ -242,29 +314,33 @@ public class AdminService {
     }
     
     /**
-     * Get all users for management
+     * Get one keyset page of users for management, optionally filtered by tier, banned status
+     * and email prefix. Pass the returned nextAfterId to fetch the following page.
      * Implements Requirement 7.1
      */
-    public List<UserManagementDTO> getAllUsers() {
-        logger.debug("Fetching all users for management");
-        
-        List<User> users = userRepository.findAll();
-        return users.stream()
-                   .map(this::convertToUserManagementDTO)
-                   .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public UserPageDTO getUsersPage(SubscriptionTier tier, Boolean banned, String emailPrefix,
+                                    Long afterId, int pageSize) {
+        int size = Math.max(1, Math.min(pageSize, MAX_USER_PAGE_SIZE));
+        logger.debug("Fetching users page after {} (tier={}, banned={}, emailPrefix={})", afterId, tier, banned, emailPrefix);
+        
+        Collection<SubscriptionTier> tiers = tier != null ? List.of(tier) : EnumSet.allOf(SubscriptionTier.class);
+        int bannedMode = banned == null ? 0 : (banned ? 1 : 2);
+        String emailPattern = emailPrefix == null || emailPrefix.isBlank()
+            ? "%" : escapeLike(emailPrefix.trim()) + "%";
+        
+        // Fetch one extra row to know whether another page follows
+        List<UserManagementDTO> rows = userRepository.findUserManagementPage(
+            afterId != null ? afterId : 0L, tiers, emailPattern, bannedMode, PageRequest.of(0, size + 1));
+        boolean hasMore = rows.size() > size;
+        List<UserManagementDTO> users = hasMore ? rows.subList(0, size) : rows;
+        Long nextAfterId = hasMore ? users.get(users.size() - 1).getUserId() : null;
+        
+        return new UserPageDTO(new ArrayList<>(users), nextAfterId, hasMore, size);
     }
     
-    /**
-     * Get users by tier
-     * Implements Requirement 7.1
-     */
-    public List<UserManagementDTO> getUsersByTier(SubscriptionTier tier) {
-        logger.debug("Fetching users by tier: {}", tier);
-        
-        List<User> users = userRepository.findByTier(tier);
-        return users.stream()
-                   .map(this::convertToUserManagementDTO)
-                   .collect(Collectors.toList());
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
     }
     
     /**
@@ -291,13 +367,23 @@ public class AdminService {
         Optional<Subscription> subscriptionOpt = subscriptionRepository.findByUser(user);
         if (subscriptionOpt.isPresent()) {
             Subscription subscription = subscriptionOpt.get();
+            RevenueCubeService.Contribution before = RevenueCubeService.Contribution.of(subscription);
             subscription.cancel();
             subscriptionRepository.save(subscription);
+            revenueCubeService.move(before, RevenueCubeService.Contribution.of(subscription));
         }
         
         // Downgrade to free tier
+        SubscriptionTier previousTier = user.getTier();
         user.setTier(SubscriptionTier.AARAMBH);
         userRepository.save(user);
+        entitlementCache.invalidate(user.getId());
+        
+        Map<String, Object> event = new HashMap<>();
+        event.put("reason", reason);
+        event.put("previousTier", previousTier != null ? previousTier.name() : null);
+        eventPublisher.publish(DomainEventType.USER_BANNED, user.getId(), event);
+        eventPublisher.publishTierChange(user.getId(), previousTier, user.getTier());
         
         logger.info("User {} has been banned successfully", userId);
         return true;
@@ -328,6 +414,7 @@ public class AdminService {
         String originalPasswordHash = user.getPasswordHash().substring("BANNED_".length());
         user.setPasswordHash(originalPasswordHash);
         userRepository.save(user);
+        eventPublisher.publish(DomainEventType.USER_UNBANNED, user.getId(), Map.of());
         
         logger.info("User {} has been unbanned successfully", userId);
         return true;
@@ -377,32 +464,4 @@ public class AdminService {
     private String generateTemporaryPassword() {
         return "temp_" + UUID.randomUUID().toString().replace("-", "").substring(0, 8);
     }
-    
-    /**
-     * Convert User entity to UserManagementDTO
-     */
-    private UserManagementDTO convertToUserManagementDTO(User user) {
-        boolean isBanned = user.getPasswordHash().startsWith("BANNED_");
-        boolean isActive = !isBanned && user.getTier() != null;
-        
-        String businessType = null;
-        String city = null;
-        if (user.getBusinessProfile() != null) {
-            businessType = user.getBusinessProfile().getBusinessType() != null ? 
-                          user.getBusinessProfile().getBusinessType().toString() : null;
-            city = user.getBusinessProfile().getCity();
-        }
-        
-        return new UserManagementDTO(
-            user.getId(),
-            user.getEmail(),
-            user.getTier(),
-            user.getCreatedAt(),
-            null, // lastLogin - would need to track this separately
-            isActive,
-            isBanned,
-            businessType,
-            city
-        );
-    }
 }
\ No newline at end of file
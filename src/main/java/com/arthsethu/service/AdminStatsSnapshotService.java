@@ -0,0 +1,173 @@
+package com.arthsethu.service;
+
+import com.arthsethu.dto.AdminDashboardDTO;
+import com.arthsethu.dto.AdminStatsSnapshot;
+import com.arthsethu.model.DomainEventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Holds the admin statistics as one immutable snapshot that every admin view reads.
+ *
+ * The aggregates are recomputed on a fixed schedule (and on demand after admin actions)
+ * instead of on every page view or JSON poll. Scheduled refreshes only run while an admin
+ * has read the snapshot recently, so an idle admin console costs nothing. Domain events
+ * that move the user and revenue numbers (tier changes, bans, new profiles) queue a
+ * background refresh, coalesced across each dispatched batch.
+ * Implements Requirements 7.1, 7.3, 7.4
+ */
+@Service
+public class AdminStatsSnapshotService implements DomainEventListener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AdminStatsSnapshotService.class);
+    
+    private static final Set<DomainEventType> REFRESH_EVENTS = EnumSet.of(
+        DomainEventType.TIER_CHANGED, DomainEventType.PROFILE_CREATED,
+        DomainEventType.USER_BANNED, DomainEventType.USER_UNBANNED);
+    
+    private final AdminService adminService;
+    private final Duration maxAge;
+    private final Duration idleTimeout;
+    
+    private final Object refreshLock = new Object();
+    private final AtomicBoolean refreshQueued = new AtomicBoolean(false);
+    private final ExecutorService refreshExecutor;
+    
+    private volatile AdminStatsSnapshot snapshot;
+    private volatile long lastReadNanos;
+    
+    public AdminStatsSnapshotService(AdminService adminService,
+                                     @Value("${arthsethu.admin.stats.refresh-ms:60000}") long refreshMs,
+                                     @Value("${arthsethu.admin.stats.idle-timeout-ms:600000}") long idleTimeoutMs) {
+        this.adminService = adminService;
+        // A snapshot older than two refresh intervals means refreshes are failing or falling behind
+        this.maxAge = Duration.ofMillis(refreshMs * 2);
+        this.idleTimeout = Duration.ofMillis(idleTimeoutMs);
+        this.refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "admin-stats-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Current snapshot; the first read computes it synchronously
+     */
+    public AdminStatsSnapshot getSnapshot() {
+        lastReadNanos = System.nanoTime();
+        AdminStatsSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (refreshLock) {
+                current = snapshot;
+                if (current == null) {
+                    current = refresh();
+                }
+            }
+        }
+        return current;
+    }
+    
+    public AdminDashboardDTO getDashboardData() {
+        return getSnapshot().toDashboardDTO(maxAge);
+    }
+    
+    public AdminDashboardDTO.UserStats getUserStats() {
+        return getSnapshot().getUserStats();
+    }
+    
+    public AdminDashboardDTO.RevenueStats getRevenueStats() {
+        return getSnapshot().getRevenueStats();
+    }
+    
+    public AdminDashboardDTO.SystemHealth getSystemHealth() {
+        return getSnapshot().getSystemHealth();
+    }
+    
+    public List<AdminDashboardDTO.SystemAlert> getSystemAlerts() {
+        return getSnapshot().getSystemAlerts();
+    }
+    
+    public boolean isStale(AdminStatsSnapshot snapshot) {
+        return snapshot.isStale(maxAge);
+    }
+    
+    /**
+     * Ask for a refresh in the background, e.g. after an admin action changed the numbers.
+     * Requests arriving while one is queued are coalesced.
+     */
+    public void requestRefresh() {
+        if (snapshot == null || !refreshQueued.compareAndSet(false, true)) {
+            return;
+        }
+        refreshExecutor.submit(() -> {
+            refreshQueued.set(false);
+            try {
+                refresh();
+            } catch (Exception e) {
+                logger.warn("Admin stats refresh failed: {}", e.getMessage());
+            }
+        });
+    }
+    
+    @Override
+    public Set<DomainEventType> getEventTypes() {
+        return REFRESH_EVENTS;
+    }
+    
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        requestRefresh();
+    }
+    
+    @Scheduled(fixedDelayString = "${arthsethu.admin.stats.refresh-ms:60000}",
+               initialDelayString = "${arthsethu.admin.stats.refresh-ms:60000}")
+    public void scheduledRefresh() {
+        if (snapshot == null || Duration.ofNanos(System.nanoTime() - lastReadNanos).compareTo(idleTimeout) > 0) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (Exception e) {
+            // Keep serving the previous snapshot; its age shows it is stale
+            logger.warn("Scheduled admin stats refresh failed: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Recompute every aggregate and publish a new snapshot
+     */
+    public AdminStatsSnapshot refresh() {
+        synchronized (refreshLock) {
+            long start = System.currentTimeMillis();
+            AdminDashboardDTO.UserStats userStats = adminService.getUserStats();
+            AdminDashboardDTO.RevenueStats revenueStats = adminService.getRevenueStats();
+            AdminDashboardDTO.SystemHealth systemHealth = adminService.getSystemHealth();
+            List<AdminDashboardDTO.SystemAlert> systemAlerts = adminService.getSystemAlerts(systemHealth);
+            long elapsed = System.currentTimeMillis() - start;
+            
+            AdminStatsSnapshot refreshed = new AdminStatsSnapshot(userStats, revenueStats, systemHealth,
+                                                                  systemAlerts, Instant.now(), elapsed);
+            snapshot = refreshed;
+            logger.debug("Admin stats snapshot refreshed in {} ms", elapsed);
+            return refreshed;
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,157 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.AnomalyBaseline;
+import com.arthsethu.model.AnomalyMetric;
+import com.arthsethu.model.MetricsAnomaly;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.AnomalyBaselineRepository;
+import com.arthsethu.repository.MetricsAnomalyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Online anomaly detection for submitted daily metrics.
+ *
+ * Each submit is scored against the user's {@link AnomalyBaseline} with a robust z-score:
+ * the distance from the exponentially weighted mean in units of the weighted mean absolute
+ * deviation, scaled to a standard deviation. Sales drops, expense spikes and wastage spikes
+ * beyond z-threshold are stored as {@link MetricsAnomaly} rows. Values are clipped to the
+ * threshold before they join the baseline, so one bad day does not teach it that bad days
+ * are normal. The state is one row per user and nothing reads metrics history.
+ */
+@Service
+public class AnomalyDetectionService {
+
+    // Mean absolute deviation of a normal distribution is sigma * sqrt(2 / pi)
+    private static final double MAD_TO_SIGMA = 1.2533;
+
+    // The scale never drops below this share of the mean
+    private static final double MIN_RELATIVE_SCALE = 0.05;
+
+    static final int RECENT_DAYS = 14;
+
+    private final AnomalyBaselineRepository baselineRepository;
+    private final MetricsAnomalyRepository anomalyRepository;
+    private final TransactionTemplate newTransaction;
+    private final double alpha;
+    private final double threshold;
+    private final int minDays;
+
+    public AnomalyDetectionService(AnomalyBaselineRepository baselineRepository,
+                                   MetricsAnomalyRepository anomalyRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${arthsethu.anomaly.alpha:0.1}") double alpha,
+                                   @Value("${arthsethu.anomaly.z-threshold:3.0}") double threshold,
+                                   @Value("${arthsethu.anomaly.min-days:7}") int minDays) {
+        this.baselineRepository = baselineRepository;
+        this.anomalyRepository = anomalyRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.alpha = alpha;
+        this.threshold = threshold;
+        this.minDays = minDays;
+    }
+
+    /**
+     * Score a submitted day against the user's baseline, replacing any anomalies stored for
+     * that day, and move the baseline on. Returns the day's anomalies.
+     */
+    @Transactional
+    public List<MetricsAnomaly> detect(Long userId, LocalDate date, BigDecimal sales,
+                                       BigDecimal expenses, BigDecimal wastage) {
+        AnomalyBaseline baseline = lockBaseline(userId);
+        LocalDate pending = baseline.getPendingDate();
+        if (pending != null && date.isAfter(pending)) {
+            fold(baseline, baseline.getPendingSales(), baseline.getPendingExpenses(), baseline.getPendingWastage());
+            baseline.setPending(null, null, null, null);
+        }
+
+        List<MetricsAnomaly> anomalies = new ArrayList<>();
+        for (AnomalyMetric metric : AnomalyMetric.values()) {
+            Double value = metric.valueOf(sales, expenses, wastage);
+            if (value == null || baseline.getCount(metric) < minDays) {
+                continue;
+            }
+            double mean = baseline.getMean(metric);
+            double z = (value - mean) / scale(metric, mean, baseline.getDeviation(metric));
+            if (metric.isHigh() ? z >= threshold : z <= -threshold) {
+                anomalies.add(new MetricsAnomaly(userId, date, metric, decimal(value, 4), decimal(mean, 4), decimal(z, 2)));
+            }
+        }
+
+        // Back-dated edits are scored but do not move the baseline
+        if (baseline.getPendingDate() == null || !date.isBefore(baseline.getPendingDate())) {
+            baseline.setPending(date, sales, expenses, wastage);
+        }
+        baselineRepository.save(baseline);
+        anomalyRepository.deleteByUserIdAndMetricDate(userId, date);
+        return anomalyRepository.saveAll(anomalies);
+    }
+
+    /**
+     * The user's anomalies over the last two weeks, newest first
+     */
+    @Transactional(readOnly = true)
+    public List<MetricsAnomaly> getRecentAnomalies(User user, LocalDate today) {
+        return anomalyRepository.findByUserIdAndMetricDateGreaterThanEqualOrderByMetricDateDescIdAsc(
+            user.getId(), today.minusDays(RECENT_DAYS - 1));
+    }
+
+    private AnomalyBaseline lockBaseline(Long userId) {
+        Optional<AnomalyBaseline> baseline = baselineRepository.findByUserIdForUpdate(userId);
+        if (baseline.isPresent()) {
+            return baseline.get();
+        }
+        // First submit: create the row in its own transaction, so racing submits cannot both insert it
+        try {
+            newTransaction.executeWithoutResult(status -> baselineRepository.save(new AnomalyBaseline(userId)));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent submit created it first
+        }
+        return baselineRepository.findByUserIdForUpdate(userId).orElseThrow();
+    }
+
+    private void fold(AnomalyBaseline baseline, BigDecimal sales, BigDecimal expenses, BigDecimal wastage) {
+        for (AnomalyMetric metric : AnomalyMetric.values()) {
+            Double value = metric.valueOf(sales, expenses, wastage);
+            if (value == null) {
+                continue;
+            }
+            int count = baseline.getCount(metric);
+            if (count == 0) {
+                baseline.update(metric, 1, value, 0);
+                continue;
+            }
+            double mean = baseline.getMean(metric);
+            double deviation = baseline.getDeviation(metric);
+            if (count >= minDays) {
+                double limit = threshold * scale(metric, mean, deviation);
+                value = Math.max(mean - limit, Math.min(mean + limit, value));
+            }
+            // A plain running mean until 1/(n+1) falls below alpha
+            double weight = Math.max(alpha, 1.0 / (count + 1));
+            double diff = value - mean;
+            baseline.update(metric, count + 1, mean + weight * diff, deviation + weight * (Math.abs(diff) - deviation));
+        }
+    }
+
+    private static double scale(AnomalyMetric metric, double mean, double deviation) {
+        return Math.max(MAD_TO_SIGMA * deviation, Math.max(MIN_RELATIVE_SCALE * Math.abs(mean), metric.getMinScale()));
+    }
+
+    private static BigDecimal decimal(double value, int scale) {
+        return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP);
+    }
+}
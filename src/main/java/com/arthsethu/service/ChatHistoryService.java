@@ -0,0 +1,203 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.ChatMessage;
+import com.arthsethu.model.ChatSummary;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.ChatMessageRepository;
+import com.arthsethu.repository.ChatSummaryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Persistent AI CFO chat transcript with windowed context compaction.
+ *
+ * Every turn is appended to chat_messages. Prompts only carry the last few turns verbatim;
+ * anything older is folded into a per-user extractive summary capped at a fixed size, so the
+ * prompt sent to Ollama stays bounded no matter how long the conversation gets.
+ * Implements Requirements 6.2, 6.5
+ */
+@Service
+public class ChatHistoryService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ChatHistoryService.class);
+    
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int SUMMARY_QUESTION_CHARS = 140;
+    private static final int SUMMARY_ANSWER_CHARS = 180;
+    
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatSummaryRepository chatSummaryRepository;
+    
+    private final int recentMessages;
+    private final int compactionBatch;
+    private final int maxTurnChars;
+    private final int maxSummaryChars;
+    
+    public ChatHistoryService(ChatMessageRepository chatMessageRepository,
+                              ChatSummaryRepository chatSummaryRepository,
+                              @Value("${arthsethu.ai.chat.recent-messages:6}") int recentMessages,
+                              @Value("${arthsethu.ai.chat.compaction-batch:4}") int compactionBatch,
+                              @Value("${arthsethu.ai.chat.max-turn-chars:600}") int maxTurnChars,
+                              @Value("${arthsethu.ai.chat.max-summary-chars:1500}") int maxSummaryChars) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.chatSummaryRepository = chatSummaryRepository;
+        this.recentMessages = recentMessages;
+        this.compactionBatch = compactionBatch;
+        this.maxTurnChars = maxTurnChars;
+        this.maxSummaryChars = maxSummaryChars;
+    }
+    
+    /**
+     * Append a question/answer pair to the transcript and compact older turns if the
+     * verbatim window has grown past its limit
+     */
+    public void recordExchange(User user, String query, String answer) {
+        chatMessageRepository.saveAll(List.of(
+            new ChatMessage(user, ChatMessage.Sender.USER, query),
+            new ChatMessage(user, ChatMessage.Sender.AI, answer)));
+        
+        try {
+            compactIfNeeded(user);
+        } catch (DataAccessException e) {
+            // A concurrent exchange compacted first; the next exchange will catch up
+            logger.debug("Chat compaction skipped for user {}: {}", user.getId(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Build the bounded conversation context for a prompt: the rolling summary of older
+     * turns followed by the most recent turns verbatim
+     */
+    public String buildConversationContext(User user) {
+        ChatSummary summary = chatSummaryRepository.findByUser(user).orElse(null);
+        long compactedUpTo = summary != null ? summary.getLastCompactedMessageId() : 0L;
+        
+        List<ChatMessage> recent = new ArrayList<>(
+            chatMessageRepository.findByUserOrderByIdDesc(user, PageRequest.of(0, recentMessages)));
+        Collections.reverse(recent);
+        
+        StringBuilder context = new StringBuilder();
+        if (summary != null && summary.getSummary() != null && !summary.getSummary().isBlank()) {
+            context.append("Summary of earlier conversation:\n")
+                   .append(summary.getSummary())
+                   .append("\n\n");
+        }
+        
+        boolean headerWritten = false;
+        for (ChatMessage message : recent) {
+            if (message.getId() <= compactedUpTo) {
+                continue;
+            }
+            if (!headerWritten) {
+                context.append("Recent conversation:\n");
+                headerWritten = true;
+            }
+            context.append(message.getSender() == ChatMessage.Sender.USER ? "User: " : "AI CFO: ")
+                   .append(truncate(message.getContent(), maxTurnChars))
+                   .append('\n');
+        }
+        
+        return context.toString().trim();
+    }
+    
+    /**
+     * Page through a user's transcript newest-first using the message ID as the keyset.
+     * The returned page is in chronological order.
+     */
+    public List<ChatMessage> getHistory(User user, Long beforeId, int limit) {
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        List<ChatMessage> messages = new ArrayList<>(beforeId == null
+            ? chatMessageRepository.findByUserOrderByIdDesc(user, page)
+            : chatMessageRepository.findByUserAndIdLessThanOrderByIdDesc(user, beforeId, page));
+        Collections.reverse(messages);
+        return messages;
+    }
+    
+    /**
+     * Fold the oldest uncompacted turns into the summary once there are more than
+     * recentMessages + compactionBatch of them, leaving the recent window untouched
+     */
+    void compactIfNeeded(User user) {
+        ChatSummary summary = chatSummaryRepository.findByUser(user).orElseGet(() -> new ChatSummary(user));
+        long pending = chatMessageRepository.countByUserAndIdGreaterThan(user, summary.getLastCompactedMessageId());
+        if (pending < recentMessages + compactionBatch) {
+            return;
+        }
+        
+        int toCompact = (int) (pending - recentMessages);
+        List<ChatMessage> oldest = chatMessageRepository.findByUserAndIdGreaterThanOrderByIdAsc(
+            user, summary.getLastCompactedMessageId(), PageRequest.of(0, toCompact));
+        if (oldest.isEmpty()) {
+            return;
+        }
+        
+        StringBuilder updated = new StringBuilder(summary.getSummary() == null ? "" : summary.getSummary());
+        for (ChatMessage message : oldest) {
+            if (updated.length() > 0) {
+                updated.append('\n');
+            }
+            if (message.getSender() == ChatMessage.Sender.USER) {
+                updated.append("- Asked: ").append(firstSentence(message.getContent(), SUMMARY_QUESTION_CHARS));
+            } else {
+                updated.append("  Answered: ").append(firstSentence(message.getContent(), SUMMARY_ANSWER_CHARS));
+            }
+        }
+        
+        summary.setSummary(trimToBudget(updated.toString()));
+        summary.setLastCompactedMessageId(oldest.get(oldest.size() - 1).getId());
+        summary.setCompactedMessages(summary.getCompactedMessages() + oldest.size());
+        chatSummaryRepository.save(summary);
+        
+        logger.debug("Compacted {} chat messages for user {}", oldest.size(), user.getId());
+    }
+    
+    /**
+     * Drop the oldest summary lines until the summary fits the character budget
+     */
+    private String trimToBudget(String summary) {
+        if (summary.length() <= maxSummaryChars) {
+            return summary;
+        }
+        int cut = summary.length() - maxSummaryChars;
+        int lineBreak = summary.indexOf('\n', cut);
+        String kept = lineBreak >= 0 ? summary.substring(lineBreak + 1) : summary.substring(cut);
+        // Never start the summary with an orphaned answer line
+        while (kept.startsWith("  Answered:")) {
+            int next = kept.indexOf('\n');
+            if (next < 0) {
+                break;
+            }
+            kept = kept.substring(next + 1);
+        }
+        return kept;
+    }
+    
+    private static String firstSentence(String text, int maxChars) {
+        String cleaned = text.replace("**", "").replaceAll("\\s+", " ").trim();
+        int end = -1;
+        for (int i = 0; i < cleaned.length(); i++) {
+            char c = cleaned.charAt(i);
+            if ((c == '.' || c == '?' || c == '!') && (i + 1 == cleaned.length() || cleaned.charAt(i + 1) == ' ')) {
+                end = i + 1;
+                break;
+            }
+        }
+        String sentence = end > 0 ? cleaned.substring(0, end) : cleaned;
+        return truncate(sentence, maxChars);
+    }
+    
+    private static String truncate(String text, int maxChars) {
+        if (text == null) {
+            return "";
+        }
+        return text.length() <= maxChars ? text : text.substring(0, maxChars - 3) + "...";
+    }
+}
@@ -2,16 +2,23 @@ package com.arthsethu.service;
 
 import com.arthsethu.dto.HealthScoreDTO;
 import com.arthsethu.model.DailyMetrics;
+import com.arthsethu.model.DomainEventType;
+import com.arthsethu.model.HealthScoreFormula;
 import com.arthsethu.model.User;
+import com.arthsethu.repository.DailyMetricsBulkRepository;
+import com.arthsethu.repository.DailyMetricsBulkRepository.MetricsRow;
 import com.arthsethu.repository.DailyMetricsRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -20,30 +27,47 @@ import java.util.stream.Collectors;
 public class DailyMetricsService {
     
     private final DailyMetricsRepository dailyMetricsRepository;
+    private final DailyMetricsBulkRepository dailyMetricsBulkRepository;
+    private final DomainEventPublisher eventPublisher;
+    private final AnomalyDetectionService anomalyDetectionService;
     
     @Autowired
-    public DailyMetricsService(DailyMetricsRepository dailyMetricsRepository) {
+    public DailyMetricsService(DailyMetricsRepository dailyMetricsRepository,
+                               DailyMetricsBulkRepository dailyMetricsBulkRepository,
+                               DomainEventPublisher eventPublisher,
+                               AnomalyDetectionService anomalyDetectionService) {
         this.dailyMetricsRepository = dailyMetricsRepository;
+        this.dailyMetricsBulkRepository = dailyMetricsBulkRepository;
+        this.eventPublisher = eventPublisher;
+        this.anomalyDetectionService = anomalyDetectionService;
     }
     
     /**
-     * Save or update daily metrics for a user
+     * Save or update daily metrics for a user.
+     * One upsert statement, so concurrent submits for the same day both succeed (last one wins).
+     * The day is scored for anomalies in the same transaction. The returned metrics are detached.
      */
     public DailyMetrics saveDailyMetrics(User user, LocalDate date, BigDecimal sales, 
                                        BigDecimal expenses, BigDecimal wastage) {
-        Optional<DailyMetrics> existingMetrics = dailyMetricsRepository.findByUserAndDate(user, date);
+        // Stored at the column scale, so the score matches what a reload would compute
+        DailyMetrics metrics = new DailyMetrics(user, date, sales.setScale(2, RoundingMode.HALF_UP),
+                                                expenses.setScale(2, RoundingMode.HALF_UP),
+                                                wastage.setScale(2, RoundingMode.HALF_UP));
+        metrics.setId(dailyMetricsBulkRepository.upsert(user.getId(), new MetricsRow(
+            date, metrics.getSales(), metrics.getExpenses(), metrics.getWastage(), metrics.getHealthScore(),
+            metrics.getHealthScoreVersion())));
+        anomalyDetectionService.detect(user.getId(), date, metrics.getSales(), metrics.getExpenses(), metrics.getWastage());
         
-        DailyMetrics metrics;
-        if (existingMetrics.isPresent()) {
-            metrics = existingMetrics.get();
-            metrics.setSales(sales);
-            metrics.setExpenses(expenses);
-            metrics.setWastage(wastage);
-        } else {
-            metrics = new DailyMetrics(user, date, sales, expenses, wastage);
-        }
+        // Amounts as strings so listeners get them back without floating-point rounding
+        Map<String, Object> event = new HashMap<>();
+        event.put("date", date.toString());
+        event.put("sales", metrics.getSales().toPlainString());
+        event.put("expenses", metrics.getExpenses().toPlainString());
+        event.put("wastage", metrics.getWastage().toPlainString());
+        event.put("healthScore", metrics.getHealthScore());
+        eventPublisher.publish(DomainEventType.METRICS_RECORDED, user.getId(), event);
         
-        return dailyMetricsRepository.save(metrics);
+        return metrics;
     }
     
     /**
@@ -52,8 +76,14 @@ public class DailyMetricsService {
     @Transactional(readOnly = true)
     public HealthScoreDTO getHealthScoreAnalysis(User user) {
         LocalDate thirtyDaysAgo = LocalDate.now().minusDays(30);
-        List<DailyMetrics> last30Days = dailyMetricsRepository.findLast30DaysMetrics(user, thirtyDaysAgo);
-        
+        return analyze(dailyMetricsRepository.findLast30DaysMetrics(user, thirtyDaysAgo));
+    }
+    
+    /**
+     * Health score analysis of the given days, newest first; reads nothing from the database
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public HealthScoreDTO analyze(List<DailyMetrics> last30Days) {
         if (last30Days.isEmpty()) {
             return createEmptyHealthScoreDTO();
         }
@@ -89,23 +119,7 @@ public class DailyMetricsService {
      * Calculate health score for given metrics (0-100 range)
      */
     public Integer calculateHealthScore(BigDecimal sales, BigDecimal expenses, BigDecimal wastage) {
-        if (sales.compareTo(BigDecimal.ZERO) <= 0) {
-            return 0;
-        }
-        
-        BigDecimal profit = sales.subtract(expenses);
-        BigDecimal margin = profit.divide(sales, 4, RoundingMode.HALF_UP);
-        BigDecimal wastagePercent = wastage.divide(sales, 4, RoundingMode.HALF_UP);
-        
-        // Base score from margin (0-70 points)
-        // Healthy margin is considered 20% (0.2), so we scale accordingly
-        int marginScore = Math.min(70, margin.multiply(BigDecimal.valueOf(350)).intValue());
-        
-        // Penalty from wastage (0-30 points deduction)
-        // Wastage above 10% (0.1) gets maximum penalty
-        int wastagePenalty = Math.min(30, wastagePercent.multiply(BigDecimal.valueOf(300)).intValue());
-        
-        return Math.max(0, Math.min(100, marginScore - wastagePenalty));
+        return HealthScoreFormula.CURRENT.score(sales, expenses, wastage);
     }
     
     /**
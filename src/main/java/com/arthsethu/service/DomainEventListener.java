@@ -0,0 +1,36 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.DomainEventType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process consumer of domain events from the outbox.
+ *
+ * Listeners are beans picked up by the {@link OutboxDispatcher}. Events arrive in batches,
+ * in commit order, on the dispatcher thread and only after the change that produced them
+ * has committed. Delivery is at least once: a failed event is delivered again later to
+ * the listeners that failed it, and a crash before the dispatcher records a delivery
+ * repeats it, so handling must be idempotent.
+ */
+public interface DomainEventListener {
+
+    /**
+     * Event types this listener receives
+     */
+    Set<DomainEventType> getEventTypes();
+
+    /**
+     * Handle a batch of events; throwing schedules them for redelivery
+     */
+    void onEvents(List<DomainEvent> events);
+
+    /**
+     * One delivered event; payload is the map given to {@link DomainEventPublisher#publish}
+     */
+    record DomainEvent(Long id, DomainEventType type, Long userId, Map<String, Object> payload,
+                       LocalDateTime occurredAt) {}
+}
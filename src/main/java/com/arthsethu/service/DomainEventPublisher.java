@@ -0,0 +1,70 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.DomainEventType;
+import com.arthsethu.model.OutboxEvent;
+import com.arthsethu.model.SubscriptionTier;
+import com.arthsethu.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records domain events in the outbox table.
+ *
+ * {@link #publish} must run inside the transaction that makes the change, so the event is
+ * stored if and only if the change commits. The dispatcher is woken once that happens.
+ */
+@Component
+public class DomainEventPublisher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxDispatcher dispatcher;
+    private final ObjectMapper objectMapper;
+
+    public DomainEventPublisher(OutboxEventRepository outboxEventRepository,
+                                OutboxDispatcher dispatcher,
+                                ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.dispatcher = dispatcher;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(DomainEventType type, Long userId, Map<String, Object> payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Domain event payload is not serializable", e);
+        }
+        outboxEventRepository.save(new OutboxEvent(type, userId, json));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatcher.wakeUp();
+            }
+        });
+    }
+
+    /**
+     * Publish TIER_CHANGED if the tier actually changed
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishTierChange(Long userId, SubscriptionTier from, SubscriptionTier to) {
+        if (from == to) {
+            return;
+        }
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("from", from != null ? from.name() : null);
+        payload.put("to", to != null ? to.name() : null);
+        publish(DomainEventType.TIER_CHANGED, userId, payload);
+    }
+}
@@ -0,0 +1,209 @@
+package com.arthsethu.service;
+
+import com.arthsethu.dto.ForecastDTO;
+import com.arthsethu.dto.ForecastDTO.ForecastPoint;
+import com.arthsethu.model.DailyMetrics;
+import com.arthsethu.model.DomainEventType;
+import com.arthsethu.model.ForecastSeries;
+import com.arthsethu.model.ForecastState;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.DailyMetricsRepository;
+import com.arthsethu.repository.ForecastStateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Sales, expense and health score forecasts from per-user Holt-Winters state.
+ *
+ * The state is updated from METRICS_RECORDED and METRICS_IMPORTED events in constant time
+ * per new day, using the values carried in the event, so no user's history is ever refit
+ * on a schedule. A correction to the latest day replaces its update. Only a change to an
+ * older day, or an import that reaches back before the latest day, replays the user's
+ * last fit-days of metrics. Forecasts are computed from the state on demand and cached
+ * per user until the state changes, the day rolls over or cache-ttl-ms passes.
+ */
+@Service
+public class ForecastService implements DomainEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ForecastService.class);
+
+    private static final Set<DomainEventType> FORECAST_EVENTS = EnumSet.of(
+        DomainEventType.METRICS_RECORDED, DomainEventType.METRICS_IMPORTED);
+
+    static final int MAX_HORIZON_DAYS = 30;
+
+    // Two-sided 95% prediction interval
+    private static final double INTERVAL_Z = 1.96;
+
+    private final ForecastStateRepository forecastStateRepository;
+    private final DailyMetricsRepository dailyMetricsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final HoltWinters model;
+    private final int minDays;
+    private final int fitDays;
+    private final long cacheTtlMillis;
+    private final Map<Long, CachedForecast> cache;
+
+    public ForecastService(ForecastStateRepository forecastStateRepository,
+                           DailyMetricsRepository dailyMetricsRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${arthsethu.forecast.alpha:0.3}") double alpha,
+                           @Value("${arthsethu.forecast.beta:0.05}") double beta,
+                           @Value("${arthsethu.forecast.gamma:0.2}") double gamma,
+                           @Value("${arthsethu.forecast.damping:0.95}") double damping,
+                           @Value("${arthsethu.forecast.min-days:14}") int minDays,
+                           @Value("${arthsethu.forecast.fit-days:365}") int fitDays,
+                           @Value("${arthsethu.forecast.cache-ttl-ms:300000}") long cacheTtlMillis,
+                           @Value("${arthsethu.forecast.cache-max-size:1000}") int cacheMaxSize) {
+        this.forecastStateRepository = forecastStateRepository;
+        this.dailyMetricsRepository = dailyMetricsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.model = new HoltWinters(alpha, beta, gamma, damping);
+        this.minDays = minDays;
+        this.fitDays = fitDays;
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<Long, CachedForecast>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedForecast> eldest) {
+                return size() > cacheMaxSize;
+            }
+        });
+    }
+
+    private record CachedForecast(Optional<ForecastDTO> forecast, LocalDate today, long expiresAtMillis) {}
+
+    @Override
+    public Set<DomainEventType> getEventTypes() {
+        return FORECAST_EVENTS;
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            transactionTemplate.executeWithoutResult(status -> apply(event));
+            cache.remove(event.userId());
+        }
+    }
+
+    private void apply(DomainEvent event) {
+        Map<ForecastSeries, ForecastState> states = loadStates(event.userId());
+        Map<String, Object> payload = event.payload();
+        ForecastState sales = states.get(ForecastSeries.SALES);
+
+        if (event.type() == DomainEventType.METRICS_RECORDED) {
+            LocalDate date = LocalDate.parse(String.valueOf(payload.get("date")));
+            if (!HoltWinters.canObserve(sales, date)) {
+                refit(event.userId(), states);
+                return;
+            }
+            for (ForecastState state : states.values()) {
+                Object value = payload.get(state.getSeries().getPayloadKey());
+                model.observe(state, date, Double.parseDouble(String.valueOf(value)));
+            }
+        } else {
+            LocalDate from = LocalDate.parse(String.valueOf(payload.get("from")));
+            LocalDate to = LocalDate.parse(String.valueOf(payload.get("to")));
+            if (sales.getLastDate() != null && !from.isAfter(sales.getLastDate())) {
+                refit(event.userId(), states);
+                return;
+            }
+            List<DailyMetrics> rows = dailyMetricsRepository.findByUserIdAndDateBetweenOrderByDateDesc(event.userId(), from, to);
+            observe(states, rows);
+        }
+        forecastStateRepository.saveAll(states.values());
+    }
+
+    /**
+     * Rebuild a user's state from their last fit-days of metrics
+     */
+    private void refit(Long userId, Map<ForecastSeries, ForecastState> states) {
+        LocalDate today = LocalDate.now();
+        List<DailyMetrics> rows = dailyMetricsRepository.findByUserIdAndDateBetweenOrderByDateDesc(
+            userId, today.minusDays(fitDays), today);
+        states.values().forEach(ForecastState::reset);
+        observe(states, rows);
+        forecastStateRepository.saveAll(states.values());
+        logger.debug("Refit forecasts for user {} from {} days", userId, rows.size());
+    }
+
+    private void observe(Map<ForecastSeries, ForecastState> states, List<DailyMetrics> newestFirst) {
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            DailyMetrics day = newestFirst.get(i);
+            for (ForecastState state : states.values()) {
+                model.observe(state, day.getDate(), state.getSeries().valueOf(day));
+            }
+        }
+    }
+
+    private Map<ForecastSeries, ForecastState> loadStates(Long userId) {
+        Map<ForecastSeries, ForecastState> states = new EnumMap<>(ForecastSeries.class);
+        forecastStateRepository.findByUserId(userId).forEach(state -> states.put(state.getSeries(), state));
+        for (ForecastSeries series : ForecastSeries.values()) {
+            states.computeIfAbsent(series, s -> new ForecastState(userId, s));
+        }
+        return states;
+    }
+
+    /**
+     * The user's forecasts for the next 30 days, or empty until min-days have been logged
+     */
+    public Optional<ForecastDTO> getForecast(User user, LocalDate today) {
+        long now = System.currentTimeMillis();
+        CachedForecast cached = cache.get(user.getId());
+        if (cached != null && cached.today().equals(today) && now < cached.expiresAtMillis()) {
+            return cached.forecast();
+        }
+        Optional<ForecastDTO> forecast = compute(user.getId(), today);
+        cache.put(user.getId(), new CachedForecast(forecast, today, now + cacheTtlMillis));
+        return forecast;
+    }
+
+    private Optional<ForecastDTO> compute(Long userId, LocalDate today) {
+        Map<ForecastSeries, ForecastState> states = new EnumMap<>(ForecastSeries.class);
+        forecastStateRepository.findByUserId(userId).forEach(state -> states.put(state.getSeries(), state));
+        ForecastState sales = states.get(ForecastSeries.SALES);
+        if (states.size() < ForecastSeries.values().length || sales.getObservations() < Math.max(minDays, HoltWinters.SEASON + 1)) {
+            return Optional.empty();
+        }
+        // Forecasts start tomorrow, or after the last logged day if that is later
+        LocalDate start = sales.getLastDate().isAfter(today) ? sales.getLastDate() : today;
+        return Optional.of(new ForecastDTO(start, sales.getObservations(),
+            points(states.get(ForecastSeries.SALES), start, 2),
+            points(states.get(ForecastSeries.EXPENSES), start, 2),
+            points(states.get(ForecastSeries.HEALTH_SCORE), start, 0)));
+    }
+
+    private List<ForecastPoint> points(ForecastState state, LocalDate start, int scale) {
+        ForecastSeries series = state.getSeries();
+        List<ForecastPoint> points = new ArrayList<>(MAX_HORIZON_DAYS);
+        for (int day = 1; day <= MAX_HORIZON_DAYS; day++) {
+            LocalDate date = start.plusDays(day);
+            double value = model.forecast(state, date);
+            double halfWidth = model.halfWidth(state, date, INTERVAL_Z);
+            points.add(new ForecastPoint(date, round(series.clamp(value), scale),
+                round(series.clamp(value - halfWidth), scale), round(series.clamp(value + halfWidth), scale)));
+        }
+        return points;
+    }
+
+    private static BigDecimal round(double value, int scale) {
+        return BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_UP);
+    }
+}
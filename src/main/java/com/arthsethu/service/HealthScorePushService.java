@@ -0,0 +1,236 @@
+package com.arthsethu.service;
+
+import com.arthsethu.dto.HealthScoreDTO;
+import com.arthsethu.model.DailyMetrics;
+import com.arthsethu.model.DomainEventType;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.DailyMetricsRepository;
+import com.arthsethu.security.UserCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes a user's updated health score to /user/topic/health-score after their metrics change,
+ * so an open dashboard patches itself instead of reloading.
+ *
+ * Listens for METRICS_RECORDED and METRICS_IMPORTED. The first write schedules a push
+ * debounce-ms later and writes arriving before it fires ride along, so a burst of edits
+ * costs one push. A push is a delta: score, trend, averages and recommendation, plus only
+ * the days that changed since the previous push. Each recently active user's last 30 days
+ * are kept in a bounded window that recorded events patch in place from the event
+ * payload; the database is read only for users not in the window and after imports.
+ * Windows are only loaded and patched on the dispatcher thread, in event order.
+ */
+@Service
+public class HealthScorePushService implements DomainEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(HealthScorePushService.class);
+
+    static final String TOPIC = "/topic/health-score";
+
+    private static final Set<DomainEventType> PUSH_EVENTS = EnumSet.of(
+        DomainEventType.METRICS_RECORDED, DomainEventType.METRICS_IMPORTED);
+
+    // Same window as DailyMetricsService.getHealthScoreAnalysis
+    private static final int WINDOW_DAYS = 30;
+
+    private final DailyMetricsService dailyMetricsService;
+    private final DailyMetricsRepository dailyMetricsRepository;
+    private final UserCache userCache;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long debounceMs;
+    private final Map<Long, Window> windows;
+    private final Set<Long> scheduled = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService pushExecutor;
+
+    public HealthScorePushService(DailyMetricsService dailyMetricsService,
+                                  DailyMetricsRepository dailyMetricsRepository,
+                                  UserCache userCache,
+                                  SimpMessagingTemplate messagingTemplate,
+                                  @Value("${arthsethu.dashboard.push.debounce-ms:1000}") long debounceMs,
+                                  @Value("${arthsethu.dashboard.push.max-windows:1000}") int maxWindows) {
+        this.dailyMetricsService = dailyMetricsService;
+        this.dailyMetricsRepository = dailyMetricsRepository;
+        this.userCache = userCache;
+        this.messagingTemplate = messagingTemplate;
+        this.debounceMs = debounceMs;
+        this.windows = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Window> eldest) {
+                return size() > maxWindows;
+            }
+        };
+        this.pushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "health-score-push");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * One user's recent days by date, and the dates changed since the last push
+     */
+    private static class Window {
+        final TreeMap<LocalDate, DailyMetrics> days = new TreeMap<>();
+        final Set<LocalDate> changed = new TreeSet<>();
+        // Loaded from the database since the last push; clients replace their series
+        boolean reloaded;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pushExecutor.shutdownNow();
+    }
+
+    @Override
+    public Set<DomainEventType> getEventTypes() {
+        return PUSH_EVENTS;
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        LocalDate today = LocalDate.now();
+        for (DomainEvent event : events) {
+            if (event.type() == DomainEventType.METRICS_RECORDED && patch(event)) {
+                schedulePush(event.userId());
+                continue;
+            }
+            // Imports touch many days at once, and users without a window have nothing to patch
+            userCache.findById(event.userId()).ifPresent(user -> {
+                Window window = load(user, today);
+                synchronized (windows) {
+                    windows.put(user.getId(), window);
+                }
+                schedulePush(user.getId());
+            });
+        }
+    }
+
+    /**
+     * Apply a recorded day to the user's window; false if the user has no window
+     */
+    private boolean patch(DomainEvent event) {
+        Map<String, Object> payload = event.payload();
+        DailyMetrics day = new DailyMetrics(null, LocalDate.parse(String.valueOf(payload.get("date"))),
+            new BigDecimal(String.valueOf(payload.get("sales"))),
+            new BigDecimal(String.valueOf(payload.get("expenses"))),
+            new BigDecimal(String.valueOf(payload.get("wastage"))));
+        synchronized (windows) {
+            Window window = windows.get(event.userId());
+            if (window == null) {
+                return false;
+            }
+            window.days.put(day.getDate(), day);
+            window.changed.add(day.getDate());
+            return true;
+        }
+    }
+
+    private void schedulePush(Long userId) {
+        if (scheduled.add(userId)) {
+            pushExecutor.schedule(() -> push(userId), debounceMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void push(Long userId) {
+        // Cleared before reading, so a write landing during this push schedules another
+        scheduled.remove(userId);
+        try {
+            User user = userCache.findById(userId).orElse(null);
+            if (user == null) {
+                return;
+            }
+            messagingTemplate.convertAndSendToUser(user.getEmail(), TOPIC, buildDelta(user, LocalDate.now()));
+        } catch (Exception e) {
+            // The open dashboard catches up on the next push or page load
+            logger.warn("Failed to push health score update to user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * The user's current analysis and the days changed since the previous delta
+     */
+    Map<String, Object> buildDelta(User user, LocalDate today) {
+        Window window;
+        synchronized (windows) {
+            window = windows.get(user.getId());
+        }
+        if (window == null) {
+            // Evicted since the event; read it for this push without caching
+            window = load(user, today);
+        }
+        List<DailyMetrics> newestFirst;
+        List<DailyMetrics> changed = new ArrayList<>();
+        boolean reloaded;
+        synchronized (windows) {
+            window.days.headMap(today.minusDays(WINDOW_DAYS)).clear();
+            newestFirst = new ArrayList<>(window.days.descendingMap().values());
+            for (LocalDate date : window.changed) {
+                DailyMetrics day = window.days.get(date);
+                if (day != null) {
+                    changed.add(day);
+                }
+            }
+            reloaded = window.reloaded;
+            window.changed.clear();
+            window.reloaded = false;
+        }
+
+        HealthScoreDTO analysis = dailyMetricsService.analyze(newestFirst);
+        Map<String, Object> delta = new HashMap<>();
+        delta.put("currentHealthScore", analysis.getCurrentHealthScore());
+        delta.put("previousHealthScore", analysis.getPreviousHealthScore());
+        delta.put("trend", analysis.getTrend());
+        delta.put("averageMargin", analysis.getAverageMargin());
+        delta.put("averageWastagePercentage", analysis.getAverageWastagePercentage());
+        delta.put("marginStability", analysis.getMarginStability());
+        delta.put("recommendation", analysis.getRecommendation());
+        delta.put("daysLogged", newestFirst.size());
+        delta.put("replaceDays", reloaded);
+        delta.put("days", changed.stream().map(HealthScorePushService::toDay).toList());
+        return delta;
+    }
+
+    private Window load(User user, LocalDate today) {
+        Window window = new Window();
+        for (DailyMetrics day : dailyMetricsRepository.findLast30DaysMetrics(user, today.minusDays(WINDOW_DAYS))) {
+            window.days.put(day.getDate(), day);
+            window.changed.add(day.getDate());
+        }
+        window.reloaded = true;
+        return window;
+    }
+
+    // Dates as ISO strings, which clients key their series on
+    private static Map<String, Object> toDay(DailyMetrics day) {
+        Map<String, Object> point = new HashMap<>();
+        point.put("date", day.getDate().toString());
+        point.put("healthScore", day.getHealthScore());
+        point.put("sales", day.getSales());
+        point.put("expenses", day.getExpenses());
+        point.put("wastage", day.getWastage());
+        point.put("margin", day.getMargin());
+        point.put("wastagePercentage", day.getWastagePercentage());
+        return point;
+    }
+}
@@ -0,0 +1,181 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.HealthScoreFormula;
+import com.arthsethu.model.JobCheckpoint;
+import com.arthsethu.repository.DailyMetricsBulkRepository;
+import com.arthsethu.repository.JobCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rescores stored days whose health score was computed with an older {@link HealthScoreFormula}.
+ *
+ * A run reads daily_metrics over JDBC in ID order, one chunk per transaction, into primitive
+ * arrays with the amounts in paise; the chunk is scored in one tight loop and written back as
+ * a single batch of updates that also stamp the formula version. No entity is ever loaded, so
+ * memory stays at one chunk however many rows there are. The run's checkpoint advances in the
+ * same commit as each chunk, so an interrupted run resumes after the last committed chunk;
+ * updates skip rows already at the current version, so replaying a chunk is harmless and a
+ * concurrent upsert is never overwritten.
+ *
+ * The checkpoint's phase records the version a run is for, so the schedule starts a run only
+ * after the formula changes. If any score changed, the rollups are backfilled again on the
+ * next maintenance run and the peer benchmark sketches are recounted.
+ */
+@Service
+public class HealthScoreRecomputeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HealthScoreRecomputeService.class);
+
+    static final String JOB_NAME = "health-score-recompute";
+
+    private final DailyMetricsBulkRepository dailyMetricsBulkRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final MetricsRollupService metricsRollupService;
+    private final PeerBenchmarkService peerBenchmarkService;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private final boolean enabled;
+    private final int chunkSize;
+
+    public HealthScoreRecomputeService(DailyMetricsBulkRepository dailyMetricsBulkRepository,
+                                       JobCheckpointRepository checkpointRepository,
+                                       MetricsRollupService metricsRollupService,
+                                       PeerBenchmarkService peerBenchmarkService,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${arthsethu.health-score.recompute.enabled:true}") boolean enabled,
+                                       @Value("${arthsethu.health-score.recompute.chunk-size:5000}") int chunkSize) {
+        this.dailyMetricsBulkRepository = dailyMetricsBulkRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.metricsRollupService = metricsRollupService;
+        this.peerBenchmarkService = peerBenchmarkService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Reusable buffers for one chunk: IDs, dates and amounts in, scores out
+     */
+    private static final class Chunk {
+        final long[] ids;
+        final long[] days;
+        final long[] sales;
+        final long[] expenses;
+        final long[] wastage;
+        final int[] storedScores;
+        final int[] scores;
+
+        Chunk(int size) {
+            ids = new long[size];
+            days = new long[size];
+            sales = new long[size];
+            expenses = new long[size];
+            wastage = new long[size];
+            storedScores = new int[size];
+            scores = new int[size];
+        }
+    }
+
+    @Scheduled(cron = "${arthsethu.health-score.recompute.cron:0 45 * * * *}")
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            recompute();
+        } catch (Exception e) {
+            logger.error("Health score recompute failed, will resume on the next run: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Start, resume or skip a recompute to the current formula version.
+     * Returns false if a run is already in progress in this instance.
+     */
+    public boolean recompute() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Health score recompute already in progress, skipping");
+            return false;
+        }
+        try {
+            HealthScoreFormula formula = HealthScoreFormula.CURRENT;
+            String phase = "V" + formula.getVersion();
+            JobCheckpoint checkpoint = transactionTemplate.execute(status -> {
+                JobCheckpoint current = checkpointRepository.findByJobNameForUpdate(JOB_NAME)
+                    .orElseGet(() -> new JobCheckpoint(JOB_NAME));
+                if (phase.equals(current.getPhase())) {
+                    if (current.isInProgress()) {
+                        logger.info("Resuming health score recompute to {} after ID {}", phase, current.getLastId());
+                    }
+                } else {
+                    current.start(phase, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+                }
+                return checkpointRepository.save(current);
+            });
+            if (!checkpoint.isInProgress()) {
+                return true;
+            }
+
+            long start = System.currentTimeMillis();
+            Chunk chunk = new Chunk(chunkSize);
+            long rows = 0;
+            int read;
+            while ((read = transactionTemplate.execute(status -> processChunk(formula, chunk))) > 0) {
+                rows += read;
+            }
+
+            long changed = checkpointRepository.findById(JOB_NAME).map(JobCheckpoint::getProcessed).orElse(0L);
+            logger.info("Health score recompute to {} rescored {} rows in {}ms; {} scores changed in the run",
+                        phase, rows, System.currentTimeMillis() - start, changed);
+            if (changed > 0) {
+                metricsRollupService.restartBackfill();
+                peerBenchmarkService.rebuild();
+            }
+            return true;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Rescore the next chunk after the checkpoint; returns the number of rows read, 0 once
+     * the run has completed
+     */
+    private int processChunk(HealthScoreFormula formula, Chunk chunk) {
+        JobCheckpoint checkpoint = checkpointRepository.findByJobNameForUpdate(JOB_NAME).orElse(null);
+        if (checkpoint == null || !checkpoint.isInProgress()) {
+            return 0;
+        }
+        int version = formula.getVersion();
+        int count = dailyMetricsBulkRepository.findStaleScores(checkpoint.getLastId(), version, chunk.ids, chunk.days,
+            chunk.sales, chunk.expenses, chunk.wastage, chunk.storedScores);
+        if (count == 0) {
+            checkpoint.complete();
+            checkpointRepository.save(checkpoint);
+            return 0;
+        }
+
+        formula.scoreAll(chunk.sales, chunk.expenses, chunk.wastage, chunk.scores, count);
+        int changed = 0;
+        for (int i = 0; i < count; i++) {
+            if (chunk.scores[i] != chunk.storedScores[i]) {
+                changed++;
+            }
+        }
+        dailyMetricsBulkRepository.updateScores(chunk.ids, chunk.days, chunk.scores, count, version);
+        checkpoint.advance(chunk.ids[count - 1], changed);
+        checkpointRepository.save(checkpoint);
+        return count;
+    }
+}
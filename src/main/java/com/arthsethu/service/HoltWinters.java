@@ -0,0 +1,148 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.ForecastState;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+/**
+ * Additive Holt-Winters with a damped trend and weekly seasonality, updated one day at a
+ * time on a {@link ForecastState}. Seasonal offsets are indexed by weekday, so days with no
+ * metrics logged only carry the level and trend forward. The first seven observations
+ * are held as raw values per weekday; the seventh seeds the level with their mean and each
+ * weekday's offset with its deviation from it.
+ */
+final class HoltWinters {
+
+    static final int SEASON = 7;
+
+    // Error variance is a running mean over the first four weeks, then a moving average
+    private static final int VARIANCE_WINDOW = 28;
+
+    private final double alpha;
+    private final double beta;
+    private final double gamma;
+    private final double phi;
+
+    HoltWinters(double alpha, double beta, double gamma, double phi) {
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.phi = phi;
+    }
+
+    /**
+     * Whether a day can be applied without replaying the series: it is after the last
+     * observed day, or it is that day and the update before it can still be undone
+     */
+    static boolean canObserve(ForecastState state, LocalDate date) {
+        LocalDate last = state.getLastDate();
+        return last == null || date.isAfter(last) || (date.equals(last) && state.getPreviousLevel() != null);
+    }
+
+    /**
+     * Apply one day's value; a value for the last observed day replaces it
+     */
+    void observe(ForecastState state, LocalDate date, double value) {
+        if (!canObserve(state, date)) {
+            throw new IllegalArgumentException("Cannot apply " + date + " after " + state.getLastDate());
+        }
+        if (date.equals(state.getLastDate())) {
+            undoLast(state);
+        }
+
+        double[] seasonals = state.getSeasonals();
+        int index = weekday(date);
+        int observed = state.getObservations();
+        state.setPreviousDate(state.getLastDate());
+        state.setPreviousLevel(state.getLevel());
+        state.setPreviousTrend(state.getTrend());
+        state.setPreviousSeasonal(seasonals[index]);
+        state.setPreviousErrorVariance(state.getErrorVariance());
+
+        if (observed < SEASON - 1) {
+            seasonals[index] = value;
+        } else if (observed == SEASON - 1) {
+            seasonals[index] = value;
+            seed(state, seasonals);
+        } else {
+            long gap = ChronoUnit.DAYS.between(state.getLastDate(), date);
+            // Level and trend on the day before, carried across days without metrics
+            double level = state.getLevel() + dampedSum(gap - 1) * state.getTrend();
+            double trend = state.getTrend() * Math.pow(phi, gap - 1);
+            double predictedLevel = level + phi * trend;
+            double error = value - (predictedLevel + seasonals[index]);
+
+            double newLevel = alpha * (value - seasonals[index]) + (1 - alpha) * predictedLevel;
+            state.setTrend(beta * (newLevel - level) + (1 - beta) * phi * trend);
+            seasonals[index] = gamma * (value - newLevel) + (1 - gamma) * seasonals[index];
+            state.setLevel(newLevel);
+
+            double weight = 1.0 / Math.min(observed - SEASON + 1, VARIANCE_WINDOW);
+            state.setErrorVariance(state.getErrorVariance() + weight * (error * error - state.getErrorVariance()));
+        }
+        state.setSeasonals(seasonals);
+        state.setLastDate(date);
+        state.setObservations(observed + 1);
+    }
+
+    /**
+     * Point forecast for a day after the last observed one
+     */
+    double forecast(ForecastState state, LocalDate date) {
+        long steps = ChronoUnit.DAYS.between(state.getLastDate(), date);
+        return state.getLevel() + dampedSum(steps) * state.getTrend() + state.getSeasonals()[weekday(date)];
+    }
+
+    /**
+     * Half-width of the interval around {@link #forecast} for z standard errors, from the
+     * closed-form h-step error variance of the additive damped-trend model
+     */
+    double halfWidth(ForecastState state, LocalDate date, double z) {
+        long steps = ChronoUnit.DAYS.between(state.getLastDate(), date);
+        double sum = 1;
+        for (long j = 1; j < steps; j++) {
+            double c = alpha * (1 + beta * dampedSum(j)) + (j % SEASON == 0 ? gamma : 0);
+            sum += c * c;
+        }
+        return z * Math.sqrt(state.getErrorVariance() * sum);
+    }
+
+    /**
+     * End of warm-up: level is the mean of the latest value on each weekday seen so far
+     */
+    private static void seed(ForecastState state, double[] rawValues) {
+        double level = Arrays.stream(rawValues).filter(v -> !Double.isNaN(v)).average().orElse(0);
+        for (int i = 0; i < SEASON; i++) {
+            rawValues[i] = Double.isNaN(rawValues[i]) ? 0 : rawValues[i] - level;
+        }
+        state.setLevel(level);
+        state.setTrend(0.0);
+        // Seeding rewrote every offset, so this day cannot be undone on its own
+        state.setPreviousLevel(null);
+    }
+
+    private void undoLast(ForecastState state) {
+        double[] seasonals = state.getSeasonals();
+        seasonals[weekday(state.getLastDate())] = state.getPreviousSeasonal();
+        state.setSeasonals(seasonals);
+        state.setLevel(state.getPreviousLevel());
+        state.setTrend(state.getPreviousTrend());
+        state.setErrorVariance(state.getPreviousErrorVariance());
+        state.setLastDate(state.getPreviousDate());
+        state.setObservations(state.getObservations() - 1);
+    }
+
+    // phi + phi^2 + ... + phi^steps
+    private double dampedSum(long steps) {
+        if (phi >= 1) {
+            return steps;
+        }
+        return phi * (1 - Math.pow(phi, steps)) / (1 - phi);
+    }
+
+    private static int weekday(LocalDate date) {
+        return date.getDayOfWeek().getValue() - 1;
+    }
+}
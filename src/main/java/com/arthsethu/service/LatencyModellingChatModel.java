@@ -0,0 +1,229 @@
+package com.arthsethu.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stub ChatModel that behaves like a locally hosted Ollama model under load, for sizing
+ * the AI CFO path without a GPU.
+ *
+ * Each call waits for one of a limited number of model slots (Ollama serves a fixed number of
+ * requests in parallel and queues the rest), then spends a sampled time-to-first-token plus
+ * a token-rate-driven generation time before returning a canned MockChatModel answer.
+ * Failures and hangs can be injected at configurable rates. Enabled with
+ * arthsethu.ai.stub.enabled=true; see {@link com.arthsethu.config.StubChatModelConfig}.
+ */
+public class LatencyModellingChatModel implements ChatModel {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LatencyModellingChatModel.class);
+    
+    /** z-score of the 99th percentile of a standard normal distribution */
+    private static final double Z_P99 = 2.326;
+    
+    public enum Distribution {
+        FIXED, UNIFORM, LOGNORMAL
+    }
+    
+    private final MockChatModel mockChatModel;
+    private final Distribution distribution;
+    private final long medianFirstTokenMs;
+    private final long p99FirstTokenMs;
+    private final double tokensPerSecond;
+    private final double failureRate;
+    private final double hangRate;
+    private final long hangMs;
+    private final Semaphore slots;
+    
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong injectedFailures = new AtomicLong();
+    private final AtomicLong injectedHangs = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger waitingForSlot = new AtomicInteger();
+    private final AtomicInteger maxWaitingForSlot = new AtomicInteger();
+    
+    public LatencyModellingChatModel(MockChatModel mockChatModel,
+                                     Distribution distribution,
+                                     long medianFirstTokenMs,
+                                     long p99FirstTokenMs,
+                                     double tokensPerSecond,
+                                     double failureRate,
+                                     double hangRate,
+                                     long hangMs,
+                                     int parallelSlots) {
+        this.mockChatModel = mockChatModel;
+        this.distribution = distribution;
+        this.medianFirstTokenMs = medianFirstTokenMs;
+        this.p99FirstTokenMs = Math.max(p99FirstTokenMs, medianFirstTokenMs);
+        this.tokensPerSecond = tokensPerSecond;
+        this.failureRate = failureRate;
+        this.hangRate = hangRate;
+        this.hangMs = hangMs;
+        this.slots = new Semaphore(Math.max(1, parallelSlots), true);
+        
+        logger.warn("Latency-modelling stub ChatModel active: {} first token median={}ms p99={}ms, {} tokens/s, " +
+                    "{} parallel slots, failureRate={}, hangRate={}",
+                    distribution, medianFirstTokenMs, this.p99FirstTokenMs, tokensPerSecond,
+                    parallelSlots, failureRate, hangRate);
+    }
+    
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        calls.incrementAndGet();
+        String text = cannedAnswer(prompt);
+        
+        acquireSlot();
+        inFlight.incrementAndGet();
+        try {
+            injectFaults();
+            sleep(sampleFirstTokenMs() + generationMs(text));
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+        } finally {
+            inFlight.decrementAndGet();
+            slots.release();
+        }
+    }
+    
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        calls.incrementAndGet();
+        String[] tokens = cannedAnswer(prompt).split("(?<=\\s)");
+        long tokenIntervalMicros = (long) (1_000_000 / tokensPerSecond);
+        
+        return Flux.using(
+                () -> {
+                    acquireSlot();
+                    inFlight.incrementAndGet();
+                    return slots;
+                },
+                slot -> {
+                    injectFaults();
+                    return Flux.fromArray(tokens)
+                        .delaySubscription(Duration.ofMillis(sampleFirstTokenMs()))
+                        .delayElements(Duration.ofNanos(tokenIntervalMicros * 1000))
+                        .map(token -> new ChatResponse(List.of(new Generation(new AssistantMessage(token)))));
+                },
+                slot -> {
+                    inFlight.decrementAndGet();
+                    slot.release();
+                })
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+    
+    public StubStats getStats() {
+        return new StubStats(calls.get(), injectedFailures.get(), injectedHangs.get(),
+                             inFlight.get(), waitingForSlot.get(), maxWaitingForSlot.get());
+    }
+    
+    private void acquireSlot() {
+        int waiting = waitingForSlot.incrementAndGet();
+        maxWaitingForSlot.accumulateAndGet(waiting, Math::max);
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a model slot", e);
+        } finally {
+            waitingForSlot.decrementAndGet();
+        }
+    }
+    
+    private void injectFaults() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < failureRate) {
+            injectedFailures.incrementAndGet();
+            throw new IllegalStateException("Injected model failure");
+        }
+        if (random.nextDouble() < hangRate) {
+            injectedHangs.incrementAndGet();
+            sleep(hangMs);
+            throw new IllegalStateException("Injected model hang");
+        }
+    }
+    
+    long sampleFirstTokenMs() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (distribution) {
+            case FIXED -> medianFirstTokenMs;
+            case UNIFORM -> random.nextLong(medianFirstTokenMs / 2, medianFirstTokenMs * 3 / 2 + 1);
+            case LOGNORMAL -> {
+                // Median and p99 pin down mu and sigma of the underlying normal distribution
+                double mu = Math.log(Math.max(1, medianFirstTokenMs));
+                double sigma = Math.log((double) Math.max(1, p99FirstTokenMs) / Math.max(1, medianFirstTokenMs)) / Z_P99;
+                yield Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+            }
+        };
+    }
+    
+    private long generationMs(String text) {
+        int tokens = text.split("\\s+").length;
+        return (long) (tokens * 1000 / tokensPerSecond);
+    }
+    
+    /**
+     * Pick a canned answer from the user query rather than the whole prompt, since the
+     * business context section mentions expenses and margins for every request
+     */
+    private String cannedAnswer(Prompt prompt) {
+        String contents = prompt.getContents();
+        int queryStart = contents.indexOf("User Query:");
+        String query = queryStart >= 0 ? contents.substring(queryStart) : contents;
+        int lineEnd = query.indexOf('\n');
+        if (lineEnd > 0) {
+            query = query.substring(0, lineEnd);
+        }
+        return mockChatModel.call(new MockChatModel.MockPrompt(query)).getResult().getOutput().getContent();
+    }
+    
+    private static void sleep(long ms) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during simulated generation", e);
+        }
+    }
+    
+    /**
+     * Point-in-time counters for load test reporting
+     */
+    public static class StubStats {
+        private final long calls;
+        private final long injectedFailures;
+        private final long injectedHangs;
+        private final int inFlight;
+        private final int waitingForSlot;
+        private final int maxWaitingForSlot;
+        
+        public StubStats(long calls, long injectedFailures, long injectedHangs,
+                         int inFlight, int waitingForSlot, int maxWaitingForSlot) {
+            this.calls = calls;
+            this.injectedFailures = injectedFailures;
+            this.injectedHangs = injectedHangs;
+            this.inFlight = inFlight;
+            this.waitingForSlot = waitingForSlot;
+            this.maxWaitingForSlot = maxWaitingForSlot;
+        }
+        
+        public long getCalls() { return calls; }
+        public long getInjectedFailures() { return injectedFailures; }
+        public long getInjectedHangs() { return injectedHangs; }
+        public int getInFlight() { return inFlight; }
+        public int getWaitingForSlot() { return waitingForSlot; }
+        public int getMaxWaitingForSlot() { return maxWaitingForSlot; }
+    }
+}
@@ -0,0 +1,403 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.DomainEventType;
+import com.arthsethu.model.HealthScoreFormula;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.DailyMetricsBulkRepository;
+import com.arthsethu.repository.DailyMetricsBulkRepository.MetricsRow;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bulk import of historical daily metrics from CSV or JSON.
+ *
+ * The input is parsed one row at a time and never held in memory as a whole. Valid rows
+ * are buffered up to batch-size and upserted with one JDBC batch per transaction, so an
+ * import of several years is a handful of round trips; re-importing a file overwrites the
+ * same days. Each committed batch is reported on /user/topic/imports and published as a
+ * METRICS_IMPORTED event. Invalid rows are skipped and reported, up to max-errors messages;
+ * that includes days older than the raw-metrics retention window, which would be deleted
+ * again before they could be rolled up.
+ *
+ * CSV needs a header naming date, sales, expenses and wastage (any order, other columns
+ * ignored); JSON is an array of objects with those fields. Dates are ISO (yyyy-MM-dd).
+ */
+@Service
+public class MetricsImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsImportService.class);
+
+    static final String IMPORT_DESTINATION = "/topic/imports";
+
+    // daily_metrics amount columns are DECIMAL(10,2)
+    private static final BigDecimal MAX_AMOUNT = new BigDecimal("99999999.99");
+
+    private static final List<String> FIELDS = List.of("date", "sales", "expenses", "wastage");
+
+    public enum Format {
+        CSV, JSON;
+
+        /**
+         * Pick the format from an explicit name, the content type or the file name; CSV by default
+         */
+        public static Format detect(String format, String contentType, String filename) {
+            if (format != null && !format.isBlank()) {
+                return Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+            }
+            if ((contentType != null && contentType.contains("json"))
+                || (filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".json"))) {
+                return JSON;
+            }
+            return CSV;
+        }
+    }
+
+    private final DailyMetricsBulkRepository bulkRepository;
+    private final DomainEventPublisher eventPublisher;
+    private final MetricsRollupService rollupService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxRows;
+    private final int maxErrors;
+
+    public MetricsImportService(DailyMetricsBulkRepository bulkRepository,
+                                DomainEventPublisher eventPublisher,
+                                MetricsRollupService rollupService,
+                                SimpMessagingTemplate messagingTemplate,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${arthsethu.metrics.import.batch-size:500}") int batchSize,
+                                @Value("${arthsethu.metrics.import.max-rows:20000}") int maxRows,
+                                @Value("${arthsethu.metrics.import.max-errors:50}") int maxErrors) {
+        this.bulkRepository = bulkRepository;
+        this.eventPublisher = eventPublisher;
+        this.rollupService = rollupService;
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxRows = maxRows;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Import a user's metrics from the stream. Batches committed before a failure are kept.
+     */
+    public ImportResult importMetrics(User user, InputStream input, Format format) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportResult result = new ImportResult();
+        List<MetricsRow> batch = new ArrayList<>(batchSize);
+        LocalDate today = LocalDate.now();
+        LocalDate oldest = rollupService.getRawCutoff(today);
+
+        try (RowReader reader = format == Format.JSON ? new JsonRowReader(input) : new CsvRowReader(input)) {
+            Map<String, String> fields;
+            while ((fields = reader.next()) != null) {
+                if (result.rowsRead >= maxRows) {
+                    result.error(maxErrors, "Row limit of " + maxRows + " reached; the rest of the file was not imported");
+                    result.truncated = true;
+                    break;
+                }
+                result.rowsRead++;
+                try {
+                    batch.add(toRow(fields, today, oldest));
+                } catch (IllegalArgumentException e) {
+                    result.rejected++;
+                    result.error(maxErrors, reader.position() + ": " + e.getMessage());
+                }
+                if (batch.size() >= batchSize) {
+                    writeBatch(user, batch, result);
+                }
+            }
+        }
+        writeBatch(user, batch, result);
+
+        result.elapsedMs = System.currentTimeMillis() - start;
+        result.done = true;
+        push(user, result);
+        logger.info("Imported {} of {} metric rows for user {} in {}ms ({} rejected)",
+                    result.imported, result.rowsRead, user.getId(), result.elapsedMs, result.rejected);
+        return result;
+    }
+
+    private void writeBatch(User user, List<MetricsRow> batch, ImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        LocalDate from = batch.get(0).date();
+        LocalDate to = from;
+        for (MetricsRow row : batch) {
+            from = row.date().isBefore(from) ? row.date() : from;
+            to = row.date().isAfter(to) ? row.date() : to;
+        }
+        LocalDate batchFrom = from;
+        LocalDate batchTo = to;
+        int rows = batch.size();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            bulkRepository.upsert(user.getId(), batch);
+            Map<String, Object> event = new HashMap<>();
+            event.put("from", batchFrom.toString());
+            event.put("to", batchTo.toString());
+            event.put("rows", rows);
+            eventPublisher.publish(DomainEventType.METRICS_IMPORTED, user.getId(), event);
+        });
+
+        result.imported += rows;
+        result.firstDate = result.firstDate == null || batchFrom.isBefore(result.firstDate) ? batchFrom : result.firstDate;
+        result.lastDate = result.lastDate == null || batchTo.isAfter(result.lastDate) ? batchTo : result.lastDate;
+        batch.clear();
+        push(user, result);
+    }
+
+    private MetricsRow toRow(Map<String, String> fields, LocalDate today, LocalDate oldest) {
+        LocalDate date;
+        try {
+            date = LocalDate.parse(required(fields, "date"));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("date must be yyyy-MM-dd");
+        }
+        if (date.isAfter(today)) {
+            throw new IllegalArgumentException("date " + date + " is in the future");
+        }
+        if (oldest != null && date.isBefore(oldest)) {
+            throw new IllegalArgumentException("date " + date + " is before " + oldest + ", the oldest day kept");
+        }
+        BigDecimal sales = amount(fields, "sales");
+        BigDecimal expenses = amount(fields, "expenses");
+        BigDecimal wastage = amount(fields, "wastage");
+        HealthScoreFormula formula = HealthScoreFormula.CURRENT;
+        return new MetricsRow(date, sales, expenses, wastage, formula.score(sales, expenses, wastage), formula.getVersion());
+    }
+
+    private static BigDecimal amount(Map<String, String> fields, String name) {
+        BigDecimal value;
+        try {
+            value = new BigDecimal(required(fields, name)).setScale(2, RoundingMode.HALF_UP);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " is not a number");
+        }
+        if (value.signum() < 0 || value.compareTo(MAX_AMOUNT) > 0) {
+            throw new IllegalArgumentException(name + " must be between 0 and " + MAX_AMOUNT.toPlainString());
+        }
+        return value;
+    }
+
+    private static String required(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(name + " is missing");
+        }
+        return value.trim();
+    }
+
+    private void push(User user, ImportResult result) {
+        try {
+            messagingTemplate.convertAndSendToUser(user.getEmail(), IMPORT_DESTINATION, result.toMap());
+        } catch (Exception e) {
+            logger.debug("Could not push import progress: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Running totals of an import; the final one is returned to the caller
+     */
+    public static class ImportResult {
+        private int rowsRead;
+        private int imported;
+        private int rejected;
+        private LocalDate firstDate;
+        private LocalDate lastDate;
+        private final List<String> errors = new ArrayList<>();
+        private boolean truncated;
+        private boolean done;
+        private long elapsedMs;
+
+        void error(int maxErrors, String message) {
+            if (errors.size() < maxErrors) {
+                errors.add(message);
+            }
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("rowsRead", rowsRead);
+            map.put("imported", imported);
+            map.put("rejected", rejected);
+            map.put("firstDate", firstDate != null ? firstDate.toString() : null);
+            map.put("lastDate", lastDate != null ? lastDate.toString() : null);
+            map.put("errors", List.copyOf(errors));
+            map.put("truncated", truncated);
+            map.put("done", done);
+            map.put("elapsedMs", elapsedMs);
+            return map;
+        }
+
+        public int getRowsRead() { return rowsRead; }
+        public int getImported() { return imported; }
+        public int getRejected() { return rejected; }
+        public LocalDate getFirstDate() { return firstDate; }
+        public LocalDate getLastDate() { return lastDate; }
+        public List<String> getErrors() { return errors; }
+        public boolean isTruncated() { return truncated; }
+    }
+
+    /**
+     * Source of rows as field name -> raw value; returns null at the end of input
+     */
+    private interface RowReader extends AutoCloseable {
+        Map<String, String> next() throws IOException;
+
+        String position();
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static class CsvRowReader implements RowReader {
+        private final BufferedReader reader;
+        private final int[] columns = new int[FIELDS.size()];
+        private int line;
+
+        CsvRowReader(InputStream input) throws IOException {
+            this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            String header = nextLine();
+            if (header == null) {
+                throw new IllegalArgumentException("The file is empty");
+            }
+            List<String> names = split(header.replace("\uFEFF", ""));
+            for (int i = 0; i < FIELDS.size(); i++) {
+                columns[i] = names.indexOf(FIELDS.get(i));
+                if (columns[i] < 0) {
+                    throw new IllegalArgumentException("CSV header must contain " + String.join(", ", FIELDS));
+                }
+            }
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            String row = nextLine();
+            if (row == null) {
+                return null;
+            }
+            List<String> values = split(row);
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < FIELDS.size(); i++) {
+                fields.put(FIELDS.get(i), columns[i] < values.size() ? values.get(columns[i]) : null);
+            }
+            return fields;
+        }
+
+        @Override
+        public String position() {
+            return "Line " + line;
+        }
+
+        private String nextLine() throws IOException {
+            String row;
+            do {
+                row = reader.readLine();
+                line++;
+            } while (row != null && row.isBlank());
+            return row;
+        }
+
+        /**
+         * Split one line on commas, honouring double quotes (so "1,200.50" stays one value)
+         */
+        private static List<String> split(String row) {
+            List<String> values = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < row.length(); i++) {
+                char c = row.charAt(i);
+                if (c == '"') {
+                    if (quoted && i + 1 < row.length() && row.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = !quoted;
+                    }
+                } else if (c == ',' && !quoted) {
+                    values.add(current.toString().trim().toLowerCase(Locale.ROOT));
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            values.add(current.toString().trim().toLowerCase(Locale.ROOT));
+            // Amounts copied from spreadsheets often carry thousands separators
+            values.replaceAll(value -> value.matches("[0-9,]+(\\.[0-9]*)?") ? value.replace(",", "") : value);
+            return values;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private class JsonRowReader implements RowReader {
+        private final JsonParser parser;
+        private int index;
+
+        JsonRowReader(InputStream input) throws IOException {
+            this.parser = objectMapper.getFactory().createParser(input);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("JSON import must be an array of objects");
+            }
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            index++;
+            JsonNode node = objectMapper.readTree(parser);
+            Map<String, String> fields = new HashMap<>();
+            for (String field : FIELDS) {
+                JsonNode value = node != null ? node.get(field) : null;
+                fields.put(field, value != null && !value.isNull() ? value.asText() : null);
+            }
+            return fields;
+        }
+
+        @Override
+        public String position() {
+            return "Item " + index;
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.arthsethu.service;
+
+import com.arthsethu.config.CacheConfig;
+import com.arthsethu.dto.MetricSeriesDTO;
+import com.arthsethu.security.BoundedPasswordEncoder;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * In-process time-series store for system health history.
+ *
+ * Every registered gauge is sampled on a fixed interval into a fixed-size double[] ring
+ * buffer that shares one long[] ring of sample timestamps, so the stored history stays a
+ * constant size (capacity x gauges x 8 bytes) however long the process runs. Each sample
+ * still makes a few short-lived objects (the gauge snapshot, the gauges' own readings), but
+ * nothing that is kept. Reads downsample the requested window into buckets using each
+ * gauge's {@link Rollup}.
+ *
+ * Built-in gauges cover load, heap, GC pauses, threads, the Hikari pool, Spring cache
+ * hit rates, the AI executor queues and password verification; other components can add their own with
+ * {@link #registerGauge}, {@link #registerCounter}, {@link #registerRatio} or {@link #registerMean}.
+ * Implements Requirements 7.3, 7.5
+ */
+@Component
+public class MetricsRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsRecorder.class);
+
+    private static final double MB = 1024.0 * 1024.0;
+
+    /**
+     * How samples are combined when several fall into one downsampled bucket
+     */
+    public enum Rollup {
+        AVG, MAX, SUM
+    }
+
+    private static final class Gauge {
+        final String name;
+        final String unit;
+        final Rollup rollup;
+        final DoubleSupplier supplier;
+        final double[] values;
+
+        Gauge(String name, String unit, Rollup rollup, DoubleSupplier supplier, int capacity) {
+            this.name = name;
+            this.unit = unit;
+            this.rollup = rollup;
+            this.supplier = supplier;
+            this.values = new double[capacity];
+            Arrays.fill(values, Double.NaN);
+        }
+    }
+
+    private final int capacity;
+    private final long sampleIntervalMs;
+    private final ObjectProvider<DataSource> dataSource;
+    private final ObjectProvider<CacheManager> cacheManager;
+    private final ObjectProvider<AICircuitBreaker> circuitBreaker;
+    private final ObjectProvider<AIMicroBatcher> microBatcher;
+    private final ObjectProvider<PasswordEncoder> passwordEncoder;
+
+    // Guarded by this
+    private final Map<String, Gauge> gauges = new LinkedHashMap<>();
+    private final long[] timestamps;
+    private int next;
+    private int count;
+
+    public MetricsRecorder(ObjectProvider<DataSource> dataSource,
+                           ObjectProvider<CacheManager> cacheManager,
+                           ObjectProvider<AICircuitBreaker> circuitBreaker,
+                           ObjectProvider<AIMicroBatcher> microBatcher,
+                           ObjectProvider<PasswordEncoder> passwordEncoder,
+                           @Value("${arthsethu.metrics.capacity:2160}") int capacity,
+                           @Value("${arthsethu.metrics.sample-interval-ms:10000}") long sampleIntervalMs) {
+        this.dataSource = dataSource;
+        this.cacheManager = cacheManager;
+        this.circuitBreaker = circuitBreaker;
+        this.microBatcher = microBatcher;
+        this.passwordEncoder = passwordEncoder;
+        this.capacity = Math.max(2, capacity);
+        this.sampleIntervalMs = sampleIntervalMs;
+        this.timestamps = new long[this.capacity];
+    }
+
+    @PostConstruct
+    void registerBuiltInGauges() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        registerGauge("system.load", "load", Rollup.AVG, os::getSystemLoadAverage);
+        if (os instanceof com.sun.management.OperatingSystemMXBean sunOs) {
+            registerGauge("process.cpu", "%", Rollup.AVG, () -> sunOs.getProcessCpuLoad() * 100.0);
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        registerGauge("jvm.heap.used", "MB", Rollup.MAX, () -> memory.getHeapMemoryUsage().getUsed() / MB);
+        registerGauge("jvm.heap.committed", "MB", Rollup.MAX, () -> memory.getHeapMemoryUsage().getCommitted() / MB);
+
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        registerCounter("jvm.gc.pause", "ms",
+            () -> collectors.stream().mapToLong(gc -> Math.max(0, gc.getCollectionTime())).sum());
+        registerCounter("jvm.gc.count", "collections",
+            () -> collectors.stream().mapToLong(gc -> Math.max(0, gc.getCollectionCount())).sum());
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        registerGauge("jvm.threads.live", "threads", Rollup.MAX, threads::getThreadCount);
+        registerGauge("jvm.threads.daemon", "threads", Rollup.MAX, threads::getDaemonThreadCount);
+
+        HikariDataSource hikari = unwrapHikari(dataSource.getIfAvailable());
+        if (hikari != null) {
+            registerGauge("db.pool.active", "connections", Rollup.MAX, () -> poolValue(hikari, HikariPoolMXBean::getActiveConnections));
+            registerGauge("db.pool.idle", "connections", Rollup.AVG, () -> poolValue(hikari, HikariPoolMXBean::getIdleConnections));
+            registerGauge("db.pool.pending", "threads", Rollup.MAX, () -> poolValue(hikari, HikariPoolMXBean::getThreadsAwaitingConnection));
+        }
+
+        CacheManager caches = cacheManager.getIfAvailable();
+        if (caches != null) {
+            for (String name : caches.getCacheNames()) {
+                Cache cache = caches.getCache(name);
+                if (cache instanceof CacheConfig.CountingCache counting) {
+                    registerRatio("cache." + name + ".hitRate", counting::getHits,
+                                  () -> counting.getHits() + counting.getMisses());
+                }
+            }
+        }
+
+        AICircuitBreaker breaker = circuitBreaker.getIfAvailable();
+        if (breaker != null) {
+            registerGauge("ai.breaker.queue", "calls", Rollup.MAX, breaker::getQueueDepth);
+        }
+        AIMicroBatcher batcher = microBatcher.getIfAvailable();
+        if (batcher != null) {
+            registerGauge("ai.batch.queue", "prompts", Rollup.MAX, batcher::getQueueDepth);
+        }
+        if (passwordEncoder.getIfAvailable() instanceof BoundedPasswordEncoder encoder) {
+            registerMean("auth.verify.latency", "ms", encoder::getVerifyNanos, encoder::getVerifications, 1e-6);
+            registerMean("auth.verify.queueTime", "ms", encoder::getQueueNanos, encoder::getDequeued, 1e-6);
+            registerGauge("auth.verify.queue", "logins", Rollup.MAX, encoder::getQueueDepth);
+            registerCounter("auth.verify.rejected", "logins", encoder::getRejected);
+        }
+
+        logger.info("Metrics recorder tracking {} gauges every {} ms ({} samples retained)",
+                    gauges.size(), sampleIntervalMs, capacity);
+    }
+
+    /**
+     * Register a gauge sampled as-is on every tick
+     */
+    public synchronized void registerGauge(String name, String unit, Rollup rollup, DoubleSupplier supplier) {
+        gauges.put(name, new Gauge(name, unit, rollup, supplier, capacity));
+    }
+
+    /**
+     * Register a cumulative counter; each sample records the increase since the previous tick
+     */
+    public void registerCounter(String name, String unit, LongSupplier cumulative) {
+        long[] previous = { cumulative.getAsLong() };
+        registerGauge(name, unit, Rollup.SUM, () -> {
+            long current = cumulative.getAsLong();
+            long delta = current - previous[0];
+            previous[0] = current;
+            return Math.max(0, delta);
+        });
+    }
+
+    /**
+     * Register a percentage computed from the increase of two cumulative counters per tick,
+     * e.g. cache hits over lookups. Ticks without any new lookups record no value.
+     */
+    public void registerRatio(String name, LongSupplier numerator, LongSupplier denominator) {
+        registerMean(name, "%", numerator, denominator, 100.0);
+    }
+
+    /**
+     * Register the per-tick mean of a cumulative total over a cumulative count, scaled,
+     * e.g. total nanoseconds over calls as milliseconds per call
+     */
+    public void registerMean(String name, String unit, LongSupplier total, LongSupplier count, double scale) {
+        long[] previous = { total.getAsLong(), count.getAsLong() };
+        registerGauge(name, unit, Rollup.AVG, () -> {
+            long currentTotal = total.getAsLong();
+            long currentCount = count.getAsLong();
+            long deltaTotal = currentTotal - previous[0];
+            long deltaCount = currentCount - previous[1];
+            previous[0] = currentTotal;
+            previous[1] = currentCount;
+            return deltaCount > 0 ? deltaTotal * scale / deltaCount : Double.NaN;
+        });
+    }
+
+    /**
+     * Take one sample of every gauge. Suppliers are read outside the lock so a slow
+     * MXBean never blocks readers.
+     */
+    @Scheduled(fixedRateString = "${arthsethu.metrics.sample-interval-ms:10000}")
+    public void sample() {
+        List<Gauge> current;
+        synchronized (this) {
+            current = new ArrayList<>(gauges.values());
+        }
+
+        double[] values = new double[current.size()];
+        for (int i = 0; i < values.length; i++) {
+            try {
+                values[i] = current.get(i).supplier.getAsDouble();
+            } catch (RuntimeException e) {
+                logger.debug("Gauge {} failed to sample: {}", current.get(i).name, e.getMessage());
+                values[i] = Double.NaN;
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            for (Gauge gauge : gauges.values()) {
+                gauge.values[next] = Double.NaN;
+            }
+            for (int i = 0; i < values.length; i++) {
+                current.get(i).values[next] = values[i];
+            }
+            timestamps[next] = now;
+            next = (next + 1) % capacity;
+            count = Math.min(count + 1, capacity);
+        }
+    }
+
+    public synchronized List<String> getGaugeNames() {
+        return new ArrayList<>(gauges.keySet());
+    }
+
+    public long getSampleIntervalMs() {
+        return sampleIntervalMs;
+    }
+
+    /**
+     * Downsampled series for every gauge over the given window
+     */
+    public synchronized List<MetricSeriesDTO> getSeries(Duration window, int maxPoints) {
+        List<MetricSeriesDTO> series = new ArrayList<>(gauges.size());
+        for (Gauge gauge : gauges.values()) {
+            series.add(downsample(gauge, window, maxPoints));
+        }
+        return series;
+    }
+
+    /**
+     * Downsampled series for one gauge, or null if no such gauge is registered
+     */
+    public synchronized MetricSeriesDTO getSeries(String name, Duration window, int maxPoints) {
+        Gauge gauge = gauges.get(name);
+        return gauge != null ? downsample(gauge, window, maxPoints) : null;
+    }
+
+    private MetricSeriesDTO downsample(Gauge gauge, Duration window, int maxPoints) {
+        long cutoff = System.currentTimeMillis() - window.toMillis();
+        int oldest = (next - count + capacity) % capacity;
+
+        // Skip samples older than the window; the ring is in time order from oldest
+        int skip = 0;
+        while (skip < count && timestamps[(oldest + skip) % capacity] < cutoff) {
+            skip++;
+        }
+        int available = count - skip;
+        int points = Math.max(1, Math.min(maxPoints, available));
+        int bucketSize = available == 0 ? 1 : (available + points - 1) / points;
+
+        List<Long> times = new ArrayList<>(points);
+        List<Double> values = new ArrayList<>(points);
+        for (int start = 0; start < available; start += bucketSize) {
+            int end = Math.min(start + bucketSize, available);
+            double acc = gauge.rollup == Rollup.MAX ? Double.NEGATIVE_INFINITY : 0.0;
+            int present = 0;
+            for (int i = start; i < end; i++) {
+                double v = gauge.values[(oldest + skip + i) % capacity];
+                if (Double.isNaN(v)) {
+                    continue;
+                }
+                acc = gauge.rollup == Rollup.MAX ? Math.max(acc, v) : acc + v;
+                present++;
+            }
+            times.add(timestamps[(oldest + skip + end - 1) % capacity]);
+            if (present == 0) {
+                values.add(null);
+            } else {
+                values.add(gauge.rollup == Rollup.AVG ? acc / present : acc);
+            }
+        }
+
+        Double latest = null;
+        if (count > 0) {
+            double last = gauge.values[(next - 1 + capacity) % capacity];
+            latest = Double.isNaN(last) ? null : last;
+        }
+        return new MetricSeriesDTO(gauge.name, gauge.unit, gauge.rollup.name(), times, values, latest);
+    }
+
+    private static HikariDataSource unwrapHikari(DataSource dataSource) {
+        if (dataSource == null) {
+            return null;
+        }
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            logger.debug("Data source is not a Hikari pool: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static double poolValue(HikariDataSource hikari, ToIntFunction<HikariPoolMXBean> metric) {
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        return pool != null ? metric.applyAsInt(pool) : Double.NaN;
+    }
+}
@@ -0,0 +1,292 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.DomainEventType;
+import com.arthsethu.model.JobCheckpoint;
+import com.arthsethu.model.MetricsRollup;
+import com.arthsethu.model.RollupGranularity;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.DailyMetricsBulkRepository;
+import com.arthsethu.repository.DailyMetricsPartitionRepository;
+import com.arthsethu.repository.JobCheckpointRepository;
+import com.arthsethu.repository.MetricsRollupBulkRepository;
+import com.arthsethu.repository.MetricsRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Weekly and monthly rollups of daily metrics, raw-row retention and, on PostgreSQL,
+ * the monthly partitions of daily_metrics.
+ *
+ * Rollups are kept current from METRICS_RECORDED and METRICS_IMPORTED events: each batch
+ * recomputes the affected weeks and months of the users in it, so long-range views read
+ * rollups and never scan raw rows. History that predates the rollups table is rolled up
+ * once by a checkpointed backfill, a month per transaction. Raw rows older than the
+ * retention window are then dropped (whole partitions on PostgreSQL); their rollups stay.
+ * Periods that start before the retention cutoff are never recomputed, since their raw
+ * rows may already be gone.
+ */
+@Service
+public class MetricsRollupService implements DomainEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsRollupService.class);
+
+    static final String BACKFILL_JOB = "metrics-rollup-backfill";
+
+    private static final Set<DomainEventType> ROLLUP_EVENTS = EnumSet.of(
+        DomainEventType.METRICS_RECORDED, DomainEventType.METRICS_IMPORTED);
+
+    // Ten years of months; the dashboard asks for far less
+    private static final int MAX_HISTORY_PERIODS = 120;
+
+    private final DailyMetricsBulkRepository dailyMetricsBulkRepository;
+    private final DailyMetricsPartitionRepository partitionRepository;
+    private final MetricsRollupBulkRepository rollupBulkRepository;
+    private final MetricsRollupRepository rollupRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean maintaining = new AtomicBoolean(false);
+
+    private final boolean partitioningEnabled;
+    private final int partitionMonthsAhead;
+    private final int rawRetentionMonths;
+    private final int deleteChunkSize;
+
+    public MetricsRollupService(DailyMetricsBulkRepository dailyMetricsBulkRepository,
+                                DailyMetricsPartitionRepository partitionRepository,
+                                MetricsRollupBulkRepository rollupBulkRepository,
+                                MetricsRollupRepository rollupRepository,
+                                JobCheckpointRepository checkpointRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${arthsethu.metrics.partitioning.enabled:false}") boolean partitioningEnabled,
+                                @Value("${arthsethu.metrics.partitioning.months-ahead:3}") int partitionMonthsAhead,
+                                @Value("${arthsethu.metrics.retention.raw-months:0}") int rawRetentionMonths,
+                                @Value("${arthsethu.metrics.retention.delete-chunk-size:5000}") int deleteChunkSize) {
+        this.dailyMetricsBulkRepository = dailyMetricsBulkRepository;
+        this.partitionRepository = partitionRepository;
+        this.rollupBulkRepository = rollupBulkRepository;
+        this.rollupRepository = rollupRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.partitioningEnabled = partitioningEnabled;
+        this.partitionMonthsAhead = partitionMonthsAhead;
+        this.rawRetentionMonths = rawRetentionMonths;
+        this.deleteChunkSize = deleteChunkSize;
+    }
+
+    @Override
+    public Set<DomainEventType> getEventTypes() {
+        return ROLLUP_EVENTS;
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        // One date range per user, so a multi-batch import recomputes each period once
+        Map<Long, LocalDate[]> ranges = new HashMap<>();
+        for (DomainEvent event : events) {
+            Map<String, Object> payload = event.payload();
+            LocalDate from = LocalDate.parse(String.valueOf(payload.getOrDefault("from", payload.get("date"))));
+            LocalDate to = LocalDate.parse(String.valueOf(payload.getOrDefault("to", payload.get("date"))));
+            ranges.merge(event.userId(), new LocalDate[] {from, to}, (a, b) -> new LocalDate[] {
+                a[0].isBefore(b[0]) ? a[0] : b[0], a[1].isAfter(b[1]) ? a[1] : b[1]});
+        }
+        ranges.forEach((userId, range) ->
+            transactionTemplate.executeWithoutResult(status -> rollUp(userId, range[0], range[1])));
+    }
+
+    /**
+     * Recompute a user's weeks and months that overlap the date range
+     */
+    public void rollUp(Long userId, LocalDate from, LocalDate to) {
+        LocalDate cutoff = getRawCutoff(LocalDate.now());
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            for (LocalDate period = granularity.startOf(from); !period.isAfter(to); period = granularity.plus(period, 1)) {
+                if (cutoff == null || !period.isBefore(cutoff)) {
+                    rollupBulkRepository.rollUp(granularity, period, userId);
+                }
+            }
+        }
+    }
+
+    /**
+     * The user's last few weeks or months, oldest first, including the current one
+     */
+    public List<MetricsRollup> getHistory(User user, RollupGranularity granularity, int periods, LocalDate today) {
+        int count = Math.max(1, Math.min(periods, MAX_HISTORY_PERIODS));
+        LocalDate from = granularity.plus(granularity.startOf(today), 1L - count);
+        return rollupRepository.findByUserIdAndGranularityAndPeriodStartGreaterThanEqualOrderByPeriodStartAsc(
+            user.getId(), granularity, from);
+    }
+
+    /**
+     * First day whose raw rows are kept, or null when raw rows are kept forever.
+     * Always the first of a month, so it falls on a partition boundary.
+     */
+    public LocalDate getRawCutoff(LocalDate today) {
+        return rawRetentionMonths > 0 ? today.withDayOfMonth(1).minusMonths(rawRetentionMonths) : null;
+    }
+
+    /**
+     * Partition daily_metrics on first start against PostgreSQL, if enabled
+     */
+    public void prepareStorage() {
+        if (!partitioningEnabled || !partitionRepository.isSupported()) {
+            return;
+        }
+        LocalDate lastMonth = LocalDate.now().withDayOfMonth(1).plusMonths(partitionMonthsAhead);
+        if (partitionRepository.isPartitioned()) {
+            partitionRepository.createPartitions(LocalDate.now(), lastMonth);
+        } else {
+            partitionRepository.convertToPartitioned(lastMonth);
+        }
+    }
+
+    @Scheduled(cron = "${arthsethu.metrics.rollup.maintenance-cron:0 30 2 * * *}")
+    public void scheduledMaintenance() {
+        try {
+            maintain(LocalDate.now());
+        } catch (Exception e) {
+            logger.error("Metrics storage maintenance failed, will resume on the next run: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Create upcoming partitions, finish any rollup backfill, then apply raw-row retention.
+     * Returns false if maintenance is already running in this instance.
+     */
+    public boolean maintain(LocalDate today) {
+        if (!maintaining.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            if (partitionRepository.isPartitioned()) {
+                int created = partitionRepository.createPartitions(today, today.withDayOfMonth(1).plusMonths(partitionMonthsAhead));
+                if (created > 0) {
+                    logger.info("Created {} daily_metrics partitions", created);
+                }
+            }
+            // Raw rows may only go once every period they belong to has been rolled up
+            if (backfill(today)) {
+                applyRetention(today);
+            }
+            return true;
+        } finally {
+            maintaining.set(false);
+        }
+    }
+
+    /**
+     * Roll up all stored history, one month per transaction, resuming after the last
+     * committed month. Returns true once the backfill has completed.
+     */
+    boolean backfill(LocalDate today) {
+        JobCheckpoint checkpoint = transactionTemplate.execute(status -> {
+            JobCheckpoint current = checkpointRepository.findByJobNameForUpdate(BACKFILL_JOB)
+                .orElseGet(() -> new JobCheckpoint(BACKFILL_JOB));
+            if (current.getStartedAt() == null) {
+                current.start("ROLLUP", today.atStartOfDay());
+            }
+            return checkpointRepository.save(current);
+        });
+        if (!checkpoint.isInProgress()) {
+            return true;
+        }
+
+        long start = System.currentTimeMillis();
+        LocalDate lastMonth = today.withDayOfMonth(1);
+        int months = 0;
+        while (Boolean.TRUE.equals(transactionTemplate.execute(status -> backfillMonth(lastMonth)))) {
+            months++;
+        }
+        logger.info("Rolled up {} months of daily metrics history in {}ms", months, System.currentTimeMillis() - start);
+        return checkpointRepository.findById(BACKFILL_JOB).map(c -> !c.isInProgress()).orElse(false);
+    }
+
+    /**
+     * Roll all stored history up again on the next maintenance run, after stored rows were
+     * changed in bulk. Retention waits until the new backfill completes.
+     */
+    public void restartBackfill() {
+        transactionTemplate.executeWithoutResult(status -> {
+            JobCheckpoint current = checkpointRepository.findByJobNameForUpdate(BACKFILL_JOB)
+                .orElseGet(() -> new JobCheckpoint(BACKFILL_JOB));
+            current.start("ROLLUP", LocalDate.now().atStartOfDay());
+            checkpointRepository.save(current);
+        });
+    }
+
+    /**
+     * Roll up the month after the checkpoint, and the weeks that start in it, for every user.
+     * Returns false once the backfill has reached lastMonth.
+     */
+    private boolean backfillMonth(LocalDate lastMonth) {
+        JobCheckpoint checkpoint = checkpointRepository.findByJobNameForUpdate(BACKFILL_JOB).orElse(null);
+        if (checkpoint == null || !checkpoint.isInProgress()) {
+            return false;
+        }
+        LocalDate month;
+        if (checkpoint.getLastId() > 0) {
+            month = LocalDate.ofEpochDay(checkpoint.getLastId());
+        } else {
+            LocalDate earliest = dailyMetricsBulkRepository.findEarliestDate();
+            month = (earliest != null ? earliest : lastMonth).withDayOfMonth(1);
+        }
+        if (month.isAfter(lastMonth)) {
+            checkpoint.complete();
+            checkpointRepository.save(checkpoint);
+            return false;
+        }
+
+        LocalDate nextMonth = month.plusMonths(1);
+        rollupBulkRepository.rollUp(RollupGranularity.MONTH, month);
+        LocalDate week = RollupGranularity.WEEK.startOf(month);
+        if (week.isBefore(month)) {
+            week = week.plusWeeks(1);
+        }
+        for (; week.isBefore(nextMonth); week = week.plusWeeks(1)) {
+            rollupBulkRepository.rollUp(RollupGranularity.WEEK, week);
+        }
+        checkpoint.advance(nextMonth.toEpochDay(), 1);
+        checkpointRepository.save(checkpoint);
+        return true;
+    }
+
+    /**
+     * Delete raw rows older than the retention window; returns the number of rows deleted
+     * outside dropped partitions
+     */
+    int applyRetention(LocalDate today) {
+        LocalDate cutoff = getRawCutoff(today);
+        if (cutoff == null) {
+            return 0;
+        }
+        int deleted = 0;
+        if (partitionRepository.isPartitioned()) {
+            int dropped = partitionRepository.dropPartitionsBefore(cutoff);
+            deleted = partitionRepository.deleteFromDefaultPartitionBefore(cutoff);
+            logger.info("Raw metrics retention before {}: dropped {} partitions, deleted {} rows", cutoff, dropped, deleted);
+            return deleted;
+        }
+        int chunk;
+        do {
+            chunk = transactionTemplate.execute(status -> dailyMetricsBulkRepository.deleteBefore(cutoff, deleteChunkSize));
+            deleted += chunk;
+        } while (chunk == deleteChunkSize);
+        if (deleted > 0) {
+            logger.info("Raw metrics retention before {}: deleted {} rows", cutoff, deleted);
+        }
+        return deleted;
+    }
+}
@@ -6,11 +6,13 @@ import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.arthsethu.dto.OnboardingRequest;
 import com.arthsethu.dto.QuestionnaireStep;
 import com.arthsethu.model.BusinessProfile;
 import com.arthsethu.model.BusinessType;
+import com.arthsethu.model.DomainEventType;
 import com.arthsethu.model.User;
 import com.arthsethu.repository.BusinessProfileRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -25,6 +27,9 @@ public class OnboardingService {
     @Autowired
     private ObjectMapper objectMapper;
     
+    @Autowired
+    private DomainEventPublisher eventPublisher;
+    
     /**
      * Gets the next question in the questionnaire based on business type and previous responses
      * Implements decision tree logic as per Requirements 1.1, 1.2, 1.3, 1.4
@@ -237,6 +242,7 @@ public class OnboardingService {
      * Creates a business profile from completed onboarding request
      * Implements Requirements 1.5
      */
+    @Transactional
     public BusinessProfile createBusinessProfile(OnboardingRequest request, User user) {
         BusinessProfile profile = new BusinessProfile(user, request.getBusinessType(), request.getCity());
         
@@ -262,7 +268,15 @@ public class OnboardingService {
             throw new RuntimeException("Failed to serialize questionnaire responses", e);
         }
         
-        return businessProfileRepository.save(profile);
+        profile = businessProfileRepository.save(profile);
+        
+        Map<String, Object> event = new HashMap<>();
+        event.put("profileId", profile.getId());
+        event.put("businessType", request.getBusinessType().name());
+        event.put("city", request.getCity());
+        eventPublisher.publish(DomainEventType.PROFILE_CREATED, user.getId(), event);
+        
+        return profile;
     }
     
     /**
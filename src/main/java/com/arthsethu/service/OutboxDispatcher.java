@@ -0,0 +1,215 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.OutboxEvent;
+import com.arthsethu.repository.OutboxEventRepository;
+import com.arthsethu.service.DomainEventListener.DomainEvent;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers outbox events to the {@link DomainEventListener} beans.
+ *
+ * A single dispatcher thread reads due events in ID order, a batch at a time, and hands
+ * each listener the events of its types as one list. If a listener rejects a batch, its
+ * events are retried one by one so a single bad event cannot hold back the others.
+ * Delivered events are marked dispatched; failed ones are retried with exponential
+ * back-off until max-attempts, after which they stay in the table for inspection.
+ * Each event records the listeners that have handled it, so a retry goes only to the
+ * listeners that failed it.
+ *
+ * The dispatcher is woken after every commit that published an event and also polls, so
+ * events left behind by a crash or a failed attempt are picked up without a trigger.
+ */
+@Service
+public class OutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectProvider<DomainEventListener> listeners;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final int retentionDays;
+
+    private final AtomicBoolean dispatchQueued = new AtomicBoolean(false);
+    private final ExecutorService dispatchExecutor;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            ObjectProvider<DomainEventListener> listeners,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${arthsethu.outbox.batch-size:100}") int batchSize,
+                            @Value("${arthsethu.outbox.max-attempts:8}") int maxAttempts,
+                            @Value("${arthsethu.outbox.retry-backoff-ms:1000}") long retryBackoffMs,
+                            @Value("${arthsethu.outbox.retention-days:7}") int retentionDays) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.listeners = listeners;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+        this.retentionDays = retentionDays;
+        this.dispatchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Schedule a dispatch pass; calls arriving while one is queued are coalesced
+     */
+    public void wakeUp() {
+        if (!dispatchQueued.compareAndSet(false, true)) {
+            return;
+        }
+        dispatchExecutor.submit(() -> {
+            dispatchQueued.set(false);
+            try {
+                dispatchPending();
+            } catch (Exception e) {
+                logger.warn("Outbox dispatch failed, will retry on the next poll: {}", e.getMessage());
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${arthsethu.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    /**
+     * Deliver every event that is due. Returns the number delivered.
+     */
+    public int dispatchPending() {
+        int delivered = 0;
+        Long afterId = 0L;
+        while (true) {
+            List<OutboxEvent> batch = outboxEventRepository.findDeliverable(
+                LocalDateTime.now(), maxAttempts, afterId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return delivered;
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+            delivered += deliver(batch);
+            if (batch.size() < batchSize) {
+                return delivered;
+            }
+        }
+    }
+
+    /**
+     * Drop delivered events past the retention period
+     */
+    @Scheduled(cron = "${arthsethu.outbox.purge-cron:0 15 3 * * *}")
+    public void purgeDispatched() {
+        Integer deleted = transactionTemplate.execute(status ->
+            outboxEventRepository.deleteDispatchedBefore(LocalDateTime.now().minusDays(retentionDays)));
+        logger.info("Purged {} dispatched outbox events", deleted);
+    }
+
+    private int deliver(List<OutboxEvent> batch) {
+        Map<Long, OutboxEvent> rows = new HashMap<>();
+        Map<Long, DomainEvent> events = new LinkedHashMap<>();
+        Map<Long, String> failures = new HashMap<>();
+        for (OutboxEvent row : batch) {
+            rows.put(row.getId(), row);
+            try {
+                events.put(row.getId(), new DomainEvent(row.getId(), row.getEventType(), row.getUserId(),
+                    row.getPayload() != null ? objectMapper.readValue(row.getPayload(), PAYLOAD_TYPE) : Map.of(),
+                    row.getCreatedAt()));
+            } catch (Exception e) {
+                failures.put(row.getId(), "Unreadable payload: " + e.getMessage());
+            }
+        }
+
+        listeners.orderedStream().forEach(listener -> {
+            String name = ClassUtils.getUserClass(listener).getSimpleName();
+            List<DomainEvent> relevant = new ArrayList<>();
+            for (DomainEvent event : events.values()) {
+                if (listener.getEventTypes().contains(event.type()) && !rows.get(event.id()).isDeliveredTo(name)) {
+                    relevant.add(event);
+                }
+            }
+            if (relevant.isEmpty()) {
+                return;
+            }
+            try {
+                listener.onEvents(relevant);
+                relevant.forEach(event -> rows.get(event.id()).recordDelivery(name));
+            } catch (Exception batchFailure) {
+                // Find the events the listener cannot handle
+                for (DomainEvent event : relevant) {
+                    try {
+                        listener.onEvents(List.of(event));
+                        rows.get(event.id()).recordDelivery(name);
+                    } catch (Exception e) {
+                        failures.merge(event.id(), name + ": " + e.getMessage(),
+                                       (first, next) -> first + "; " + next);
+                    }
+                }
+            }
+        });
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> dispatched = new ArrayList<>();
+        List<OutboxEvent> failed = new ArrayList<>();
+        for (OutboxEvent row : batch) {
+            String error = failures.get(row.getId());
+            if (error == null) {
+                dispatched.add(row.getId());
+                continue;
+            }
+            long backoff = retryBackoffMs << Math.min(row.getAttempts(), 20);
+            row.recordFailure(error, now.plusNanos(backoff * 1_000_000L));
+            failed.add(row);
+            if (row.getAttempts() >= maxAttempts) {
+                logger.error("Giving up on outbox event {} ({}) after {} attempts: {}",
+                             row.getId(), row.getEventType(), row.getAttempts(), error);
+            } else {
+                logger.warn("Outbox event {} ({}) failed, attempt {}: {}",
+                            row.getId(), row.getEventType(), row.getAttempts(), error);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!dispatched.isEmpty()) {
+                outboxEventRepository.markDispatched(dispatched, now);
+            }
+            outboxEventRepository.saveAll(failed);
+        });
+        return dispatched.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatchExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,33 @@
+package com.arthsethu.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Payment provider used to charge subscriptions.
+ *
+ * {@link #initiate} must return without waiting for the provider. The outcome arrives
+ * later, either through the callback (in-process gateways such as the stub) or through
+ * the payment webhook, and both paths end in {@link PaymentService#completePayment}.
+ */
+public interface PaymentGateway {
+
+    /**
+     * Start charging a payment
+     */
+    void initiate(PaymentRequest request, PaymentCallback callback);
+
+    /**
+     * One charge; the reference identifies it in callbacks and webhooks
+     */
+    record PaymentRequest(String reference, Long subscriptionId, BigDecimal amount, String paymentMethod) {}
+
+    /**
+     * Outcome of a charge; failureReason is null on success
+     */
+    record PaymentResult(String reference, boolean success, String failureReason) {}
+
+    @FunctionalInterface
+    interface PaymentCallback {
+        void onResult(PaymentResult result);
+    }
+}
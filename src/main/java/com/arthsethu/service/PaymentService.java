@@ -0,0 +1,257 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.Subscription;
+import com.arthsethu.model.SubscriptionStatus;
+import com.arthsethu.model.SubscriptionTier;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.SubscriptionRepository;
+import com.arthsethu.repository.UserRepository;
+import com.arthsethu.security.EntitlementCache;
+import com.arthsethu.service.PaymentGateway.PaymentRequest;
+import com.arthsethu.service.PaymentGateway.PaymentResult;
+import com.arthsethu.service.RevenueCubeService.Contribution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.arthsethu.service.TransactionCallbacks.afterCommit;
+
+/**
+ * Asynchronous subscription payments.
+ *
+ * A payment moves the subscription PENDING (or FAILED) -> PROCESSING in a short
+ * transaction and hands the charge to the {@link PaymentGateway} once that commits, so the
+ * request thread returns immediately. The gateway's callback or the payment webhook then
+ * settles it to ACTIVE or FAILED in a second transaction; settling locks the subscription
+ * and only applies to one still PROCESSING, so duplicate or late callbacks are harmless.
+ * Clients poll {@link #getPaymentStatus} or subscribe to /user/topic/payments.
+ * Payments stuck in PROCESSING past the timeout are failed by a sweep.
+ */
+@Service
+public class PaymentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentService.class);
+
+    static final String PAYMENT_DESTINATION = "/topic/payments";
+    static final String RENEWAL_PREFIX = "RNW_";
+
+    private final SubscriptionRepository subscriptionRepository;
+    private final UserRepository userRepository;
+    private final RevenueCubeService revenueCubeService;
+    private final EntitlementCache entitlementCache;
+    private final DomainEventPublisher eventPublisher;
+    private final PaymentGateway paymentGateway;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate renewalTemplate;
+    private final long processingTimeoutMs;
+
+    public PaymentService(SubscriptionRepository subscriptionRepository,
+                          UserRepository userRepository,
+                          RevenueCubeService revenueCubeService,
+                          EntitlementCache entitlementCache,
+                          DomainEventPublisher eventPublisher,
+                          PaymentGateway paymentGateway,
+                          SimpMessagingTemplate messagingTemplate,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${arthsethu.payment.processing-timeout-ms:600000}") long processingTimeoutMs) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.userRepository = userRepository;
+        this.revenueCubeService = revenueCubeService;
+        this.entitlementCache = entitlementCache;
+        this.eventPublisher = eventPublisher;
+        this.paymentGateway = paymentGateway;
+        this.messagingTemplate = messagingTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Always its own commit, even when called from another transaction's commit callback
+        this.renewalTemplate = new TransactionTemplate(transactionManager);
+        this.renewalTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.processingTimeoutMs = processingTimeoutMs;
+    }
+
+    /**
+     * Start paying for a user's pending or failed subscription.
+     * Returns the subscription in PROCESSING; the charge starts after the transaction commits.
+     */
+    public Subscription startPayment(User user, Long subscriptionId, String paymentMethod) {
+        return transactionTemplate.execute(status -> {
+            Subscription subscription = subscriptionRepository.findById(subscriptionId)
+                .filter(s -> Objects.equals(s.getUser().getId(), user.getId()))
+                .orElseThrow(() -> new IllegalArgumentException("Subscription not found"));
+
+            if (!subscription.getStatus().canStartPayment()) {
+                throw new IllegalStateException("Subscription is " + subscription.getStatus().getDisplayName().toLowerCase()
+                                                + " and cannot be paid for");
+            }
+
+            Contribution before = Contribution.of(subscription);
+            subscription.setStatus(SubscriptionStatus.PROCESSING);
+            subscription.setPaymentReference(generatePaymentReference());
+            subscription = subscriptionRepository.save(subscription);
+            revenueCubeService.move(before, Contribution.of(subscription));
+
+            PaymentRequest request = new PaymentRequest(subscription.getPaymentReference(), subscription.getId(),
+                                                        subscription.getAmount(), paymentMethod);
+            afterCommit(() -> paymentGateway.initiate(request, this::completePayment));
+            return subscription;
+        });
+    }
+
+    /**
+     * Settle a payment or renewal from a gateway callback or webhook.
+     * Returns false for an unknown reference; results for payments no longer PROCESSING are ignored.
+     */
+    public boolean completePayment(PaymentResult result) {
+        Boolean known = transactionTemplate.execute(status -> {
+            Optional<Subscription> subscriptionOpt = subscriptionRepository.findByPaymentReferenceForUpdate(result.reference());
+            if (subscriptionOpt.isEmpty()) {
+                logger.warn("Payment result for unknown reference {}", result.reference());
+                return false;
+            }
+
+            Subscription subscription = subscriptionOpt.get();
+            if (result.reference().startsWith(RENEWAL_PREFIX)) {
+                completeRenewal(subscription, result);
+                return true;
+            }
+            if (subscription.getStatus() != SubscriptionStatus.PROCESSING) {
+                logger.info("Ignoring payment result for {}: subscription {} is already {}",
+                            result.reference(), subscription.getId(), subscription.getStatus());
+                return true;
+            }
+
+            Contribution before = Contribution.of(subscription);
+            User user = subscription.getUser();
+            if (result.success()) {
+                subscription.activate();
+                SubscriptionTier previousTier = user.getTier();
+                user.setTier(subscription.getTier());
+                userRepository.save(user);
+                entitlementCache.invalidate(user.getId());
+                eventPublisher.publishTierChange(user.getId(), previousTier, user.getTier());
+            } else {
+                subscription.setStatus(SubscriptionStatus.FAILED);
+            }
+            subscriptionRepository.save(subscription);
+            revenueCubeService.move(before, Contribution.of(subscription));
+
+            logger.info("Payment {} for subscription {} {}", result.reference(), subscription.getId(),
+                        result.success() ? "succeeded" : "failed: " + result.failureReason());
+
+            Map<String, Object> update = toStatus(subscription);
+            if (result.failureReason() != null) {
+                update.put("message", result.failureReason());
+            }
+            String username = user.getEmail();
+            afterCommit(() -> messagingTemplate.convertAndSendToUser(username, PAYMENT_DESTINATION, update));
+            return true;
+        });
+        return Boolean.TRUE.equals(known);
+    }
+
+    /**
+     * Charge an active subscription for its next period; the end date moves on success only.
+     * The reference is derived from the subscription and its current end date, so a renewal
+     * requested twice for the same period reaches the gateway as the same charge. It is
+     * committed in a new transaction before the charge starts, whatever transaction the
+     * caller is in, so the renewal settles through the gateway callback or the payment
+     * webhook alike.
+     */
+    public void startRenewal(Long subscriptionId, LocalDateTime expectedEndDate, BigDecimal amount) {
+        String reference = renewalReference(subscriptionId, expectedEndDate);
+        Boolean due = renewalTemplate.execute(status ->
+            subscriptionRepository.findById(subscriptionId)
+                .filter(s -> s.getStatus() == SubscriptionStatus.ACTIVE && Objects.equals(s.getEndDate(), expectedEndDate))
+                .map(s -> {
+                    s.setPaymentReference(reference);
+                    subscriptionRepository.save(s);
+                    return true;
+                })
+                .orElse(false));
+        if (!Boolean.TRUE.equals(due)) {
+            logger.info("Not renewing subscription {}: no longer active until {}", subscriptionId, expectedEndDate);
+            return;
+        }
+        paymentGateway.initiate(new PaymentRequest(reference, subscriptionId, amount, "auto_renewal"), this::completePayment);
+    }
+
+    /**
+     * Apply a renewal result to the locked subscription
+     */
+    private void completeRenewal(Subscription subscription, PaymentResult result) {
+        // A duplicate result finds the end date already moved and does nothing
+        if (subscription.getStatus() != SubscriptionStatus.ACTIVE || subscription.getEndDate() == null
+                || !result.reference().equals(renewalReference(subscription.getId(), subscription.getEndDate()))) {
+            logger.info("Ignoring renewal result for {}: subscription {} is no longer due for it",
+                        result.reference(), subscription.getId());
+            return;
+        }
+        if (!result.success()) {
+            // renewalRequestedAt stays set, so the lifecycle job retries after its back-off
+            logger.warn("Renewal payment {} for subscription {} failed: {}", result.reference(), subscription.getId(),
+                        result.failureReason());
+            return;
+        }
+        subscription.setEndDate(subscription.getEndDate().plusDays(30));
+        subscription.setRenewalRequestedAt(null);
+        subscriptionRepository.save(subscription);
+        entitlementCache.invalidate(subscription.getUser().getId());
+        logger.info("Renewal payment {} for subscription {} succeeded", result.reference(), subscription.getId());
+    }
+
+    /**
+     * Current payment state of one of the user's subscriptions
+     */
+    public Optional<Map<String, Object>> getPaymentStatus(User user, Long subscriptionId) {
+        return subscriptionRepository.findById(subscriptionId)
+            .filter(s -> Objects.equals(s.getUser().getId(), user.getId()))
+            .map(this::toStatus);
+    }
+
+    /**
+     * Fail payments whose result never arrived
+     */
+    @Scheduled(fixedDelayString = "${arthsethu.payment.sweep-interval-ms:60000}")
+    public void failStalePayments() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(processingTimeoutMs));
+        List<Subscription> stale = subscriptionRepository.findByStatusAndUpdatedAtBefore(SubscriptionStatus.PROCESSING, cutoff);
+        for (Subscription subscription : stale) {
+            completePayment(new PaymentResult(subscription.getPaymentReference(), false, "Payment timed out"));
+        }
+    }
+
+    private Map<String, Object> toStatus(Subscription subscription) {
+        Map<String, Object> status = new HashMap<>();
+        status.put("subscriptionId", subscription.getId());
+        status.put("status", subscription.getStatus().name());
+        status.put("statusName", subscription.getStatus().getDisplayName());
+        status.put("tier", subscription.getTier().getDisplayName());
+        status.put("paymentReference", subscription.getPaymentReference());
+        status.put("active", subscription.getStatus() == SubscriptionStatus.ACTIVE);
+        return status;
+    }
+
+    static String renewalReference(Long subscriptionId, LocalDateTime endDate) {
+        return RENEWAL_PREFIX + subscriptionId + "_" + endDate.toLocalDate().toString().replace("-", "");
+    }
+
+    private static String generatePaymentReference() {
+        return "PAY_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
+    }
+}
@@ -0,0 +1,343 @@
+package com.arthsethu.service;
+
+import com.arthsethu.dto.BenchmarkDTO;
+import com.arthsethu.dto.BenchmarkDTO.BenchmarkRank;
+import com.arthsethu.model.BenchmarkMetric;
+import com.arthsethu.model.BusinessProfile;
+import com.arthsethu.model.BusinessType;
+import com.arthsethu.model.DailyMetrics;
+import com.arthsethu.model.DomainEventType;
+import com.arthsethu.model.PeerBenchmarkContribution;
+import com.arthsethu.model.PeerBenchmarkSketch;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.BusinessProfileRepository;
+import com.arthsethu.repository.DailyMetricsRepository;
+import com.arthsethu.repository.PeerBenchmarkContributionRepository;
+import com.arthsethu.repository.PeerBenchmarkSketchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Ranks a business's margin, wastage and health score against businesses of the same type
+ * in the same city.
+ *
+ * Every logged day is counted into a {@link PercentileSketch} per metric, peer group and
+ * month, stored in peer_benchmark_sketches. METRICS_RECORDED and METRICS_IMPORTED events
+ * build up a delta sketch per row they touch and merge it into the row under a lock, so
+ * nothing is ever re-aggregated from daily_metrics after the initial seeding. Ranks merge
+ * the last window-months of a group's rows and are cached per group for cache-ttl-ms.
+ *
+ * Each user's days are counted once each, in date order; only the latest counted day can
+ * be revised (see {@link PeerBenchmarkContribution}), which keeps redelivered events from
+ * counting a day twice.
+ */
+@Service
+public class PeerBenchmarkService implements DomainEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(PeerBenchmarkService.class);
+
+    private static final Set<DomainEventType> BENCHMARK_EVENTS = EnumSet.of(
+        DomainEventType.METRICS_RECORDED, DomainEventType.METRICS_IMPORTED);
+
+    private final PeerBenchmarkSketchRepository sketchRepository;
+    private final PeerBenchmarkContributionRepository contributionRepository;
+    private final BusinessProfileRepository businessProfileRepository;
+    private final DailyMetricsRepository dailyMetricsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransaction;
+    private final int windowMonths;
+    private final long minPeerDays;
+    private final long cacheTtlMillis;
+    private final Map<PeerGroup, CachedGroup> cache;
+
+    public PeerBenchmarkService(PeerBenchmarkSketchRepository sketchRepository,
+                                PeerBenchmarkContributionRepository contributionRepository,
+                                BusinessProfileRepository businessProfileRepository,
+                                DailyMetricsRepository dailyMetricsRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${arthsethu.benchmark.window-months:3}") int windowMonths,
+                                @Value("${arthsethu.benchmark.min-peer-days:30}") long minPeerDays,
+                                @Value("${arthsethu.benchmark.cache-ttl-ms:300000}") long cacheTtlMillis,
+                                @Value("${arthsethu.benchmark.cache-max-size:1000}") int cacheMaxSize) {
+        this.sketchRepository = sketchRepository;
+        this.contributionRepository = contributionRepository;
+        this.businessProfileRepository = businessProfileRepository;
+        this.dailyMetricsRepository = dailyMetricsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.windowMonths = windowMonths;
+        this.minPeerDays = minPeerDays;
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<PeerGroup, CachedGroup>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PeerGroup, CachedGroup> eldest) {
+                return size() > cacheMaxSize;
+            }
+        });
+    }
+
+    private record PeerGroup(String city, BusinessType businessType) {}
+
+    private record SketchKey(PeerGroup group, BenchmarkMetric metric, LocalDate periodStart) {}
+
+    private record CachedGroup(Map<BenchmarkMetric, PercentileSketch> sketches, LocalDate from, long expiresAtMillis) {}
+
+    @Override
+    public Set<DomainEventType> getEventTypes() {
+        return BENCHMARK_EVENTS;
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            transactionTemplate.executeWithoutResult(status -> apply(event));
+        }
+    }
+
+    private void apply(DomainEvent event) {
+        Optional<PeerGroup> group = groupOf(event.userId());
+        if (group.isEmpty()) {
+            return;
+        }
+        PeerBenchmarkContribution contribution = contributionRepository.findByUserId(event.userId())
+            .orElseGet(() -> new PeerBenchmarkContribution(event.userId()));
+        LocalDate counted = contribution.getMetricDate();
+        Map<SketchKey, PercentileSketch> deltas = new LinkedHashMap<>();
+        Map<String, Object> payload = event.payload();
+
+        if (event.type() == DomainEventType.METRICS_RECORDED) {
+            DailyMetrics day = new DailyMetrics(null, LocalDate.parse(String.valueOf(payload.get("date"))),
+                amount(payload, "sales"), amount(payload, "expenses"), amount(payload, "wastage"));
+            // Older days were counted when they were the latest
+            if (counted != null && day.getDate().isBefore(counted)) {
+                return;
+            }
+            if (day.getDate().equals(counted)) {
+                withdraw(deltas, contribution);
+            }
+            count(deltas, group.get(), day);
+            contribution.record(group.get().city(), group.get().businessType(), day);
+        } else {
+            LocalDate from = LocalDate.parse(String.valueOf(payload.get("from")));
+            LocalDate to = LocalDate.parse(String.valueOf(payload.get("to")));
+            if (counted != null && !from.isAfter(counted)) {
+                from = counted.plusDays(1);
+            }
+            if (from.isAfter(to)) {
+                return;
+            }
+            List<DailyMetrics> rows = dailyMetricsRepository.findByUserIdAndDateBetweenOrderByDateDesc(event.userId(), from, to);
+            if (rows.isEmpty()) {
+                return;
+            }
+            rows.forEach(day -> count(deltas, group.get(), day));
+            contribution.record(group.get().city(), group.get().businessType(), rows.get(0));
+        }
+        merge(deltas);
+        contributionRepository.save(contribution);
+    }
+
+    /**
+     * Recount every user's days in the current window from daily_metrics. Returns the
+     * number of days counted.
+     */
+    public int rebuild() {
+        LocalDate today = LocalDate.now();
+        LocalDate from = windowStart(today);
+        Integer days = transactionTemplate.execute(status -> {
+            sketchRepository.deleteAllInBatch();
+            contributionRepository.deleteAllInBatch();
+            Map<SketchKey, PercentileSketch> deltas = new LinkedHashMap<>();
+            int counted = 0;
+            for (BusinessProfile profile : businessProfileRepository.findAll()) {
+                Optional<PeerGroup> group = peerGroup(profile);
+                if (group.isEmpty() || profile.getUser() == null) {
+                    continue;
+                }
+                Long userId = profile.getUser().getId();
+                List<DailyMetrics> rows = dailyMetricsRepository.findByUserIdAndDateBetweenOrderByDateDesc(userId, from, today);
+                if (rows.isEmpty()) {
+                    continue;
+                }
+                rows.forEach(day -> count(deltas, group.get(), day));
+                PeerBenchmarkContribution contribution = new PeerBenchmarkContribution(userId);
+                contribution.record(group.get().city(), group.get().businessType(), rows.get(0));
+                contributionRepository.save(contribution);
+                counted += rows.size();
+            }
+            // The table was emptied above, so every row is new
+            deltas.forEach((key, sketch) -> {
+                PeerBenchmarkSketch row = new PeerBenchmarkSketch(key.group().city(), key.group().businessType(),
+                                                                  key.metric(), key.periodStart());
+                row.setBins(sketch.encode());
+                row.setSampleCount(sketch.total());
+                sketchRepository.save(row);
+            });
+            return counted;
+        });
+        cache.clear();
+        logger.info("Rebuilt peer benchmark sketches from {} days", days);
+        return days;
+    }
+
+    /**
+     * Seed the sketches for databases that have metrics from before they existed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        try {
+            if (contributionRepository.count() == 0 && dailyMetricsRepository.count() > 0) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            logger.error("Failed to seed peer benchmark sketches: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * How the given day ranks among peer days over the last window-months, or empty if the
+     * user has no business profile or too few peer days have been logged
+     */
+    public Optional<BenchmarkDTO> getBenchmarks(User user, DailyMetrics latest, LocalDate today) {
+        if (latest == null) {
+            return Optional.empty();
+        }
+        Optional<BusinessProfile> profile = businessProfileRepository.findByUserId(user.getId());
+        Optional<PeerGroup> group = profile.flatMap(PeerBenchmarkService::peerGroup);
+        if (group.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<BenchmarkMetric, PercentileSketch> sketches = peerSketches(group.get(), today);
+
+        List<BenchmarkRank> ranks = new ArrayList<>();
+        for (BenchmarkMetric metric : BenchmarkMetric.values()) {
+            Double value = metric.valueOf(latest);
+            PercentileSketch sketch = sketches.get(metric);
+            if (value == null || sketch == null || sketch.total() < minPeerDays) {
+                continue;
+            }
+            double below = sketch.rank(value);
+            int betterThan = (int) Math.round(metric.isHigherIsBetter() ? below : 100 - below);
+            ranks.add(new BenchmarkRank(metric.name(), metric.getLabel(), value, sketch.quantile(0.5),
+                                        betterThan, sketch.total()));
+        }
+        if (ranks.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new BenchmarkDTO(profile.get().getCity(), group.get().businessType().getDisplayName(),
+                                            latest.getDate(), windowMonths, ranks));
+    }
+
+    private Map<BenchmarkMetric, PercentileSketch> peerSketches(PeerGroup group, LocalDate today) {
+        long now = System.currentTimeMillis();
+        LocalDate from = windowStart(today);
+        CachedGroup cached = cache.get(group);
+        if (cached != null && cached.from().equals(from) && now < cached.expiresAtMillis()) {
+            return cached.sketches();
+        }
+        Map<BenchmarkMetric, PercentileSketch> sketches = new EnumMap<>(BenchmarkMetric.class);
+        for (PeerBenchmarkSketch row : sketchRepository.findByCityAndBusinessTypeAndPeriodStartGreaterThanEqual(
+                group.city(), group.businessType(), from)) {
+            sketches.computeIfAbsent(row.getMetric(), PercentileSketch::new)
+                    .merge(PercentileSketch.decode(row.getMetric(), row.getBins()));
+        }
+        cache.put(group, new CachedGroup(sketches, from, now + cacheTtlMillis));
+        return sketches;
+    }
+
+    private void count(Map<SketchKey, PercentileSketch> deltas, PeerGroup group, DailyMetrics day) {
+        LocalDate month = day.getDate().withDayOfMonth(1);
+        for (BenchmarkMetric metric : BenchmarkMetric.values()) {
+            Double value = metric.valueOf(day);
+            if (value != null) {
+                deltas.computeIfAbsent(new SketchKey(group, metric, month), key -> new PercentileSketch(metric)).add(value);
+            }
+        }
+    }
+
+    private void withdraw(Map<SketchKey, PercentileSketch> deltas, PeerBenchmarkContribution contribution) {
+        PeerGroup group = new PeerGroup(contribution.getCity(), contribution.getBusinessType());
+        LocalDate month = contribution.getMetricDate().withDayOfMonth(1);
+        for (BenchmarkMetric metric : BenchmarkMetric.values()) {
+            Double value = contribution.getValue(metric);
+            if (value != null) {
+                deltas.computeIfAbsent(new SketchKey(group, metric, month), key -> new PercentileSketch(metric)).remove(value);
+            }
+        }
+    }
+
+    /**
+     * Add each delta sketch into its stored row
+     */
+    private void merge(Map<SketchKey, PercentileSketch> deltas) {
+        deltas.forEach((key, delta) -> {
+            if (delta.isEmpty()) {
+                return;
+            }
+            PeerBenchmarkSketch row = lockSketch(key);
+            PercentileSketch sketch = PercentileSketch.decode(key.metric(), row.getBins());
+            sketch.merge(delta);
+            row.setBins(sketch.encode());
+            row.setSampleCount(sketch.total());
+            sketchRepository.save(row);
+        });
+    }
+
+    private PeerBenchmarkSketch lockSketch(SketchKey key) {
+        String city = key.group().city();
+        BusinessType businessType = key.group().businessType();
+        Optional<PeerBenchmarkSketch> row = sketchRepository.findForUpdate(city, businessType, key.metric(), key.periodStart());
+        if (row.isPresent()) {
+            return row.get();
+        }
+        // Create the row in its own transaction, so a concurrent insert only loses the race
+        try {
+            newTransaction.executeWithoutResult(status -> sketchRepository.save(
+                new PeerBenchmarkSketch(city, businessType, key.metric(), key.periodStart())));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Peer benchmark sketch {} created concurrently", key);
+        }
+        return sketchRepository.findForUpdate(city, businessType, key.metric(), key.periodStart()).orElseThrow();
+    }
+
+    private Optional<PeerGroup> groupOf(Long userId) {
+        return businessProfileRepository.findByUserId(userId).flatMap(PeerBenchmarkService::peerGroup);
+    }
+
+    private static Optional<PeerGroup> peerGroup(BusinessProfile profile) {
+        if (profile.getCity() == null || profile.getCity().isBlank() || profile.getBusinessType() == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new PeerGroup(profile.getCity().trim().toLowerCase(Locale.ROOT), profile.getBusinessType()));
+    }
+
+    private LocalDate windowStart(LocalDate today) {
+        return today.withDayOfMonth(1).minusMonths(windowMonths - 1);
+    }
+
+    private static BigDecimal amount(Map<String, Object> payload, String key) {
+        return new BigDecimal(String.valueOf(payload.get(key)));
+    }
+}
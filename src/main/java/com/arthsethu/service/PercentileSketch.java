@@ -0,0 +1,121 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.BenchmarkMetric;
+
+import java.util.StringJoiner;
+
+/**
+ * Fixed-bin histogram of one {@link BenchmarkMetric}, used as a quantile sketch.
+ *
+ * Its size is set by the metric's bins, not by how many values it holds, and two sketches
+ * of the same metric merge by adding counts, exactly and in any order, so sketches from
+ * different nodes or months combine into the same result. Counts can also be taken back
+ * out, which lets a corrected day replace its earlier value. Ranks and quantiles are
+ * accurate to within one bin.
+ */
+final class PercentileSketch {
+
+    private final BenchmarkMetric metric;
+    private final long[] counts;
+    private long total;
+
+    PercentileSketch(BenchmarkMetric metric) {
+        this.metric = metric;
+        this.counts = new long[metric.getBins()];
+    }
+
+    /**
+     * Rebuild a sketch from {@link #encode()} output
+     */
+    static PercentileSketch decode(BenchmarkMetric metric, String encoded) {
+        PercentileSketch sketch = new PercentileSketch(metric);
+        if (encoded == null || encoded.isEmpty()) {
+            return sketch;
+        }
+        for (String entry : encoded.split(",")) {
+            int colon = entry.indexOf(':');
+            sketch.add(Integer.parseInt(entry.substring(0, colon)), Long.parseLong(entry.substring(colon + 1)));
+        }
+        return sketch;
+    }
+
+    void add(double value) {
+        add(metric.binOf(value), 1);
+    }
+
+    void remove(double value) {
+        add(metric.binOf(value), -1);
+    }
+
+    void merge(PercentileSketch other) {
+        if (other.metric != metric) {
+            throw new IllegalArgumentException("Cannot merge " + other.metric + " into " + metric);
+        }
+        for (int bin = 0; bin < counts.length; bin++) {
+            if (other.counts[bin] != 0) {
+                add(bin, other.counts[bin]);
+            }
+        }
+    }
+
+    long total() {
+        return total;
+    }
+
+    boolean isEmpty() {
+        for (long count : counts) {
+            if (count != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Percentage of values below the given one, counting half of those in its bin
+     */
+    double rank(double value) {
+        if (total <= 0) {
+            return 0;
+        }
+        int bin = metric.binOf(value);
+        long below = 0;
+        for (int i = 0; i < bin; i++) {
+            below += counts[i];
+        }
+        return 100.0 * (below + counts[bin] / 2.0) / total;
+    }
+
+    /**
+     * The value at quantile q (0 to 1), as the midpoint of the bin it falls in
+     */
+    double quantile(double q) {
+        long target = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int bin = 0; bin < counts.length; bin++) {
+            seen += counts[bin];
+            if (seen >= Math.max(1, target)) {
+                return metric.valueAt(bin);
+            }
+        }
+        return metric.valueAt(counts.length - 1);
+    }
+
+    /**
+     * Non-empty bins as "bin:count" pairs, so sparse sketches store small
+     */
+    String encode() {
+        StringJoiner joiner = new StringJoiner(",");
+        for (int bin = 0; bin < counts.length; bin++) {
+            if (counts[bin] != 0) {
+                joiner.add(bin + ":" + counts[bin]);
+            }
+        }
+        return joiner.toString();
+    }
+
+    private void add(int bin, long delta) {
+        counts[bin] += delta;
+        total += delta;
+    }
+}
@@ -0,0 +1,229 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.RevenueCubeCell;
+import com.arthsethu.model.Subscription;
+import com.arthsethu.model.SubscriptionStatus;
+import com.arthsethu.model.SubscriptionTier;
+import com.arthsethu.repository.RevenueCubeRepository;
+import com.arthsethu.repository.SubscriptionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Maintains the daily revenue cube (start date x tier x status) and answers revenue range
+ * queries from it.
+ *
+ * Each subscription contributes its amount to exactly one cell, the same one the old
+ * SUM-over-subscriptions queries would have counted it in. Callers capture a
+ * {@link Contribution} before changing a subscription and pass it to {@link #move} with
+ * the contribution afterwards, inside the same transaction, so the cube never drifts
+ * from the table. {@link #rebuild()} recomputes it from scratch.
+ * Implements Requirement 7.4
+ */
+@Service
+public class RevenueCubeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevenueCubeService.class);
+
+    private final RevenueCubeRepository cubeRepository;
+    private final SubscriptionRepository subscriptionRepository;
+    private final TransactionTemplate newTransaction;
+
+    public RevenueCubeService(RevenueCubeRepository cubeRepository,
+                              SubscriptionRepository subscriptionRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.cubeRepository = cubeRepository;
+        this.subscriptionRepository = subscriptionRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * The cube cell a subscription currently counts towards
+     */
+    public record Contribution(LocalDate day, SubscriptionTier tier, SubscriptionStatus status, BigDecimal amount) {
+
+        public static Contribution of(Subscription subscription) {
+            if (subscription == null || subscription.getStartDate() == null
+                    || subscription.getTier() == null || subscription.getStatus() == null) {
+                return null;
+            }
+            BigDecimal amount = subscription.getAmount() != null ? subscription.getAmount() : BigDecimal.ZERO;
+            return new Contribution(subscription.getStartDate().toLocalDate(), subscription.getTier(),
+                                    subscription.getStatus(), amount);
+        }
+    }
+
+    /**
+     * Move a subscription's contribution between cells. Either side may be null for a
+     * subscription that is new or no longer counted.
+     */
+    @Transactional
+    public void move(Contribution before, Contribution after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        if (before != null) {
+            adjust(before, -1, before.amount().negate());
+        }
+        if (after != null) {
+            adjust(after, 1, after.amount());
+        }
+    }
+
+    private void adjust(Contribution cell, long countDelta, BigDecimal amountDelta) {
+        if (!cubeRepository.existsByRevenueDateAndTierAndStatus(cell.day(), cell.tier(), cell.status())) {
+            createEmptyCell(cell);
+        }
+        cubeRepository.increment(cell.day(), cell.tier(), cell.status(), countDelta, amountDelta);
+    }
+
+    /**
+     * Insert a zero cell in its own transaction so a concurrent insert of the same cell only
+     * loses the race instead of rolling back the caller's subscription change.
+     */
+    private void createEmptyCell(Contribution cell) {
+        try {
+            newTransaction.executeWithoutResult(status -> cubeRepository.saveAndFlush(
+                new RevenueCubeCell(cell.day(), cell.tier(), cell.status(), 0, BigDecimal.ZERO)));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Revenue cube cell {} created concurrently", cell);
+        }
+    }
+
+    /**
+     * Recompute the whole cube from the subscriptions table
+     */
+    @Transactional
+    public int rebuild() {
+        cubeRepository.deleteAllInBatch();
+        List<Object[]> rows = subscriptionRepository.aggregateForRevenueCube();
+        for (Object[] row : rows) {
+            cubeRepository.save(new RevenueCubeCell((LocalDate) row[0], (SubscriptionTier) row[1],
+                (SubscriptionStatus) row[2], ((Number) row[3]).longValue(), toBigDecimal(row[4])));
+        }
+        logger.info("Rebuilt revenue cube with {} cells", rows.size());
+        return rows.size();
+    }
+
+    /**
+     * Seed the cube for databases that have subscriptions from before it existed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        try {
+            if (cubeRepository.count() == 0 && subscriptionRepository.count() > 0) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            logger.error("Failed to seed revenue cube: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Totals per tier and status for subscriptions starting in [from, to]
+     */
+    @Transactional(readOnly = true)
+    public RevenueSlice slice(LocalDate from, LocalDate to) {
+        return new RevenueSlice(cubeRepository.sumByTierAndStatus(from, to));
+    }
+
+    /**
+     * Totals per tier and status across all dates
+     */
+    @Transactional(readOnly = true)
+    public RevenueSlice sliceAll() {
+        return new RevenueSlice(cubeRepository.sumAllByTierAndStatus());
+    }
+
+    /**
+     * Daily amount per tier for one status, gap-filled so every day in the range is present
+     */
+    @Transactional(readOnly = true)
+    public Map<LocalDate, Map<SubscriptionTier, BigDecimal>> getDailySeries(SubscriptionStatus status,
+                                                                          LocalDate from, LocalDate to) {
+        Map<LocalDate, Map<SubscriptionTier, BigDecimal>> series = new LinkedHashMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            series.put(day, new EnumMap<>(SubscriptionTier.class));
+        }
+        for (RevenueCubeCell cell : cubeRepository.findByStatusAndRevenueDateBetweenOrderByRevenueDateAsc(status, from, to)) {
+            series.get(cell.getRevenueDate()).merge(cell.getTier(), cell.getAmount(), BigDecimal::add);
+        }
+        return series;
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+
+    /**
+     * Combined cube cells for a date range, indexed by tier and status
+     */
+    public static class RevenueSlice {
+        private final Map<SubscriptionTier, Map<SubscriptionStatus, BigDecimal>> amounts = new EnumMap<>(SubscriptionTier.class);
+        private final Map<SubscriptionTier, Map<SubscriptionStatus, Long>> counts = new EnumMap<>(SubscriptionTier.class);
+
+        RevenueSlice(List<Object[]> rows) {
+            for (Object[] row : rows) {
+                SubscriptionTier tier = (SubscriptionTier) row[0];
+                SubscriptionStatus status = (SubscriptionStatus) row[1];
+                counts.computeIfAbsent(tier, t -> new EnumMap<>(SubscriptionStatus.class))
+                      .put(status, row[2] != null ? ((Number) row[2]).longValue() : 0L);
+                amounts.computeIfAbsent(tier, t -> new EnumMap<>(SubscriptionStatus.class))
+                       .put(status, toBigDecimal(row[3]));
+            }
+        }
+
+        public BigDecimal getAmount(SubscriptionTier tier, SubscriptionStatus status) {
+            return amounts.getOrDefault(tier, Map.of()).getOrDefault(status, BigDecimal.ZERO);
+        }
+
+        public BigDecimal getAmount(SubscriptionStatus status) {
+            BigDecimal total = BigDecimal.ZERO;
+            for (SubscriptionTier tier : SubscriptionTier.values()) {
+                total = total.add(getAmount(tier, status));
+            }
+            return total;
+        }
+
+        public long getCount(SubscriptionTier tier, SubscriptionStatus status) {
+            return counts.getOrDefault(tier, Map.of()).getOrDefault(status, 0L);
+        }
+
+        /**
+         * Amount for a status across all tiers except the given one (e.g. paid tiers only)
+         */
+        public BigDecimal getAmountExcluding(SubscriptionTier excludedTier, SubscriptionStatus status) {
+            return getAmount(status).subtract(getAmount(excludedTier, status));
+        }
+
+        public long getCountExcluding(SubscriptionTier excludedTier, SubscriptionStatus status) {
+            long total = 0;
+            for (SubscriptionTier tier : SubscriptionTier.values()) {
+                if (tier != excludedTier) {
+                    total += getCount(tier, status);
+                }
+            }
+            return total;
+        }
+    }
+}
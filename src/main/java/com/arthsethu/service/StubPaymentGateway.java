@@ -0,0 +1,60 @@
+package com.arthsethu.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local payment gateway for development and demos.
+ *
+ * Charges are settled on a single scheduler thread after a fixed delay, succeeding with
+ * the configured probability, so no request thread or database connection waits on them.
+ */
+@Component
+@ConditionalOnProperty(name = "arthsethu.payment.gateway", havingValue = "stub", matchIfMissing = true)
+public class StubPaymentGateway implements PaymentGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(StubPaymentGateway.class);
+
+    private final long delayMs;
+    private final double successRate;
+    private final ScheduledExecutorService scheduler;
+
+    public StubPaymentGateway(@Value("${arthsethu.payment.stub.delay-ms:1000}") long delayMs,
+                              @Value("${arthsethu.payment.stub.success-rate:0.95}") double successRate) {
+        this.delayMs = delayMs;
+        this.successRate = successRate;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void initiate(PaymentRequest request, PaymentCallback callback) {
+        scheduler.schedule(() -> {
+            boolean success = ThreadLocalRandom.current().nextDouble() < successRate;
+            logger.debug("Stub payment {} for subscription {} settled: {}", request.reference(),
+                         request.subscriptionId(), success ? "success" : "declined");
+            try {
+                callback.onResult(new PaymentResult(request.reference(), success, success ? null : "Payment declined"));
+            } catch (Exception e) {
+                logger.error("Failed to complete stub payment {}: {}", request.reference(), e.getMessage());
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
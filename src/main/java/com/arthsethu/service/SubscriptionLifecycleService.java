@@ -0,0 +1,337 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.JobCheckpoint;
+import com.arthsethu.model.Subscription;
+import com.arthsethu.model.SubscriptionStatus;
+import com.arthsethu.model.SubscriptionTier;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.JobCheckpointRepository;
+import com.arthsethu.repository.SubscriptionRepository;
+import com.arthsethu.repository.UserRepository;
+import com.arthsethu.security.EntitlementCache;
+import com.arthsethu.service.RevenueCubeService.Contribution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Scheduled subscription expiry and auto-renewal.
+ *
+ * Each run fixes a cut-off time and walks the due subscriptions in two phases, EXPIRE then
+ * RENEW, reading IDs with keyset-paged queries and handling one chunk per transaction: the
+ * chunk's rows are locked in ID order, re-checked, changed, and the run's checkpoint is
+ * advanced in the same commit. Only one chunk of rows is ever locked or in memory, and a
+ * run interrupted by a crash or restart resumes after the last committed chunk with the
+ * same cut-off. Every step re-checks its condition, so replaying a chunk changes nothing.
+ *
+ * Renewal charges go through {@link PaymentService#startRenewal} once the chunk's
+ * transaction has completed, so each charge stores its reference in a transaction of its own;
+ * the subscription's renewalRequestedAt keeps it from being charged again until the
+ * retry back-off passes. Subscriptions that end before the next run are put on a
+ * {@link TimingWheel} so they expire within a tick of their end date rather than an hour.
+ */
+@Service
+public class SubscriptionLifecycleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionLifecycleService.class);
+
+    static final String JOB_NAME = "subscription-lifecycle";
+
+    enum Phase { EXPIRE, RENEW, DONE }
+
+    private final SubscriptionRepository subscriptionRepository;
+    private final UserRepository userRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final RevenueCubeService revenueCubeService;
+    private final EntitlementCache entitlementCache;
+    private final DomainEventPublisher eventPublisher;
+    private final PaymentService paymentService;
+    private final TransactionTemplate transactionTemplate;
+    private final TimingWheel<Long> expiryWheel;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    private final boolean enabled;
+    private final int chunkSize;
+    private final int renewalWindowDays;
+    private final int renewalRetryHours;
+    private final int expiryGraceMinutes;
+
+    public SubscriptionLifecycleService(SubscriptionRepository subscriptionRepository,
+                                        UserRepository userRepository,
+                                        JobCheckpointRepository checkpointRepository,
+                                        RevenueCubeService revenueCubeService,
+                                        EntitlementCache entitlementCache,
+                                        DomainEventPublisher eventPublisher,
+                                        PaymentService paymentService,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${arthsethu.subscription.lifecycle.enabled:true}") boolean enabled,
+                                        @Value("${arthsethu.subscription.lifecycle.chunk-size:200}") int chunkSize,
+                                        @Value("${arthsethu.subscription.lifecycle.renewal-window-days:3}") int renewalWindowDays,
+                                        @Value("${arthsethu.subscription.lifecycle.renewal-retry-hours:6}") int renewalRetryHours,
+                                        @Value("${arthsethu.subscription.lifecycle.expiry-grace-minutes:60}") int expiryGraceMinutes,
+                                        @Value("${arthsethu.subscription.lifecycle.wheel.tick-ms:60000}") long wheelTickMs,
+                                        @Value("${arthsethu.subscription.lifecycle.wheel.size:120}") int wheelSize,
+                                        @Value("${arthsethu.subscription.lifecycle.wheel.max-entries:50000}") int wheelMaxEntries) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.userRepository = userRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.revenueCubeService = revenueCubeService;
+        this.entitlementCache = entitlementCache;
+        this.eventPublisher = eventPublisher;
+        this.paymentService = paymentService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.expiryWheel = new TimingWheel<>(wheelTickMs, wheelSize, wheelMaxEntries);
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.renewalWindowDays = renewalWindowDays;
+        this.renewalRetryHours = renewalRetryHours;
+        this.expiryGraceMinutes = expiryGraceMinutes;
+    }
+
+    @Scheduled(cron = "${arthsethu.subscription.lifecycle.cron:0 0 * * * *}")
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            runCycle(LocalDateTime.now());
+        } catch (Exception e) {
+            logger.error("Subscription lifecycle run failed, will resume on the next run: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Run (or resume) one expiry and renewal pass.
+     * Returns false if a pass is already running in this instance.
+     */
+    public boolean runCycle(LocalDateTime now) {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Subscription lifecycle run already in progress, skipping");
+            return false;
+        }
+        try {
+            JobCheckpoint checkpoint = transactionTemplate.execute(status -> {
+                JobCheckpoint current = checkpointRepository.findByJobNameForUpdate(JOB_NAME)
+                    .orElseGet(() -> new JobCheckpoint(JOB_NAME));
+                if (current.isInProgress()) {
+                    logger.info("Resuming subscription lifecycle run from {} after ID {} (cut-off {})",
+                                current.getPhase(), current.getLastId(), current.getAsOf());
+                } else {
+                    // Whole seconds, so the cut-off compares equal after a round trip through the database
+                    current.start(Phase.EXPIRE.name(), now.truncatedTo(ChronoUnit.SECONDS));
+                }
+                return checkpointRepository.save(current);
+            });
+            LocalDateTime asOf = checkpoint.getAsOf();
+
+            long start = System.currentTimeMillis();
+            int chunks = 0;
+            List<RenewalCharge> charges = new ArrayList<>();
+            while (Boolean.TRUE.equals(transactionTemplate.execute(status -> processChunk(asOf, charges)))) {
+                chunks++;
+                startRenewals(charges);
+                charges.clear();
+            }
+
+            int scheduled = loadExpiryWheel(now);
+            logger.info("Subscription lifecycle run for {} finished in {}ms: {} chunks, {} upcoming expiries scheduled",
+                        asOf, System.currentTimeMillis() - start, chunks, scheduled);
+            return true;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Expire subscriptions on the wheel that have come due since the last tick
+     */
+    @Scheduled(fixedDelayString = "${arthsethu.subscription.lifecycle.wheel.tick-ms:60000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        long nowMillis = toMillis(now);
+        List<Long> due = expiryWheel.advance(nowMillis);
+        LocalDateTime cutoff = now.minusMinutes(expiryGraceMinutes);
+        for (int from = 0; from < due.size(); from += chunkSize) {
+            List<Long> ids = due.subList(from, Math.min(from + chunkSize, due.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                    subscriptionRepository.findAllByIdForUpdate(ids).forEach(s -> {
+                        // Not due yet (e.g. the end date moved): back on the wheel rather than
+                        // waiting for the hourly run
+                        if (!expireIfDue(s, cutoff) && s.getStatus() == SubscriptionStatus.ACTIVE && s.getEndDate() != null) {
+                            expiryWheel.schedule(s.getId(), toMillis(s.getEndDate().plusMinutes(expiryGraceMinutes)), nowMillis);
+                        }
+                    }));
+            } catch (Exception e) {
+                // The hourly run picks these up
+                logger.warn("Failed to expire {} subscriptions from the wheel: {}", ids.size(), e.getMessage());
+            }
+        }
+    }
+
+    public int getScheduledExpiries() {
+        return expiryWheel.size();
+    }
+
+    /**
+     * Process the next chunk of the current phase, adding the renewals it requested to
+     * charges. Returns false once the run is complete.
+     */
+    private boolean processChunk(LocalDateTime asOf, List<RenewalCharge> charges) {
+        JobCheckpoint checkpoint = checkpointRepository.findByJobNameForUpdate(JOB_NAME).orElse(null);
+        if (checkpoint == null || !checkpoint.isInProgress() || !Objects.equals(checkpoint.getAsOf(), asOf)) {
+            // Another instance finished or restarted this run
+            return false;
+        }
+
+        Phase phase = Phase.valueOf(checkpoint.getPhase());
+        LocalDateTime expiryCutoff = asOf.minusMinutes(expiryGraceMinutes);
+        PageRequest chunk = PageRequest.of(0, chunkSize);
+        List<Long> ids = switch (phase) {
+            case EXPIRE -> subscriptionRepository.findIdsEndedBefore(
+                SubscriptionStatus.ACTIVE, expiryCutoff, checkpoint.getLastId(), chunk);
+            // Subscriptions still in their grace period get another renewal attempt
+            case RENEW -> subscriptionRepository.findIdsDueForRenewal(
+                SubscriptionStatus.ACTIVE, expiryCutoff, asOf.plusDays(renewalWindowDays),
+                asOf.minusHours(renewalRetryHours), checkpoint.getLastId(), chunk);
+            case DONE -> List.of();
+        };
+
+        if (ids.isEmpty()) {
+            if (phase == Phase.EXPIRE) {
+                checkpoint.enterPhase(Phase.RENEW.name());
+            } else {
+                checkpoint.enterPhase(Phase.DONE.name());
+                checkpoint.complete();
+                logger.info("Subscription lifecycle run for {} complete: {} subscriptions processed",
+                            asOf, checkpoint.getProcessed());
+            }
+            checkpointRepository.save(checkpoint);
+            return phase == Phase.EXPIRE;
+        }
+
+        int changed = 0;
+        for (Subscription subscription : subscriptionRepository.findAllByIdForUpdate(ids)) {
+            if (phase == Phase.EXPIRE) {
+                changed += expireIfDue(subscription, expiryCutoff) ? 1 : 0;
+            } else if (requestRenewal(subscription, asOf)) {
+                charges.add(new RenewalCharge(subscription.getId(), subscription.getEndDate(), subscription.getAmount()));
+                changed++;
+            }
+        }
+        checkpoint.advance(ids.get(ids.size() - 1), changed);
+        checkpointRepository.save(checkpoint);
+        return true;
+    }
+
+    /**
+     * Charge the renewals of a committed chunk
+     */
+    private void startRenewals(List<RenewalCharge> charges) {
+        for (RenewalCharge charge : charges) {
+            try {
+                paymentService.startRenewal(charge.subscriptionId(), charge.endDate(), charge.amount());
+            } catch (Exception e) {
+                // renewalRequestedAt is set, so this is retried after the back-off
+                logger.error("Failed to start renewal for subscription {}: {}", charge.subscriptionId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Expire an active subscription that ended before the cut-off and drop its user to the
+     * free tier. Returns false if the subscription is no longer due.
+     */
+    private boolean expireIfDue(Subscription subscription, LocalDateTime cutoff) {
+        if (subscription.getStatus() != SubscriptionStatus.ACTIVE
+            || subscription.getEndDate() == null || !subscription.getEndDate().isBefore(cutoff)) {
+            return false;
+        }
+
+        Contribution before = Contribution.of(subscription);
+        subscription.setStatus(SubscriptionStatus.EXPIRED);
+        subscriptionRepository.save(subscription);
+        revenueCubeService.move(before, Contribution.of(subscription));
+
+        User user = subscription.getUser();
+        if (user.getTier() == subscription.getTier() && user.getTier() != SubscriptionTier.AARAMBH) {
+            SubscriptionTier previousTier = user.getTier();
+            user.setTier(SubscriptionTier.AARAMBH);
+            userRepository.save(user);
+            eventPublisher.publishTierChange(user.getId(), previousTier, user.getTier());
+        }
+        entitlementCache.invalidate(user.getId());
+        logger.debug("Expired subscription {} for user {}", subscription.getId(), user.getId());
+        return true;
+    }
+
+    /**
+     * Mark an auto-renewing subscription as having a renewal in flight.
+     * Returns false if it no longer needs one.
+     */
+    private boolean requestRenewal(Subscription subscription, LocalDateTime asOf) {
+        LocalDateTime endDate = subscription.getEndDate();
+        LocalDateTime requestedAt = subscription.getRenewalRequestedAt();
+        if (subscription.getStatus() != SubscriptionStatus.ACTIVE || !Boolean.TRUE.equals(subscription.getAutoRenew())
+            || endDate == null || endDate.isAfter(asOf.plusDays(renewalWindowDays))
+            || (requestedAt != null && !requestedAt.isBefore(asOf.minusHours(renewalRetryHours)))) {
+            return false;
+        }
+        subscription.setRenewalRequestedAt(asOf);
+        subscriptionRepository.save(subscription);
+        return true;
+    }
+
+    /**
+     * Put active subscriptions that pass their grace period within the wheel's horizon on
+     * the wheel. Returns the number scheduled.
+     */
+    private int loadExpiryWheel(LocalDateTime now) {
+        expiryWheel.clear();
+        long nowMillis = toMillis(now);
+        LocalDateTime from = now.minusMinutes(expiryGraceMinutes);
+        LocalDateTime to = from.plusNanos(expiryWheel.getHorizonMillis() * 1_000_000L);
+
+        int scheduled = 0;
+        Long afterId = 0L;
+        while (true) {
+            List<Object[]> rows = subscriptionRepository.findEndDatesBetween(
+                SubscriptionStatus.ACTIVE, from, to, afterId, PageRequest.of(0, chunkSize));
+            if (rows.isEmpty()) {
+                return scheduled;
+            }
+            for (Object[] row : rows) {
+                afterId = (Long) row[0];
+                long dueAt = toMillis(((LocalDateTime) row[1]).plusMinutes(expiryGraceMinutes));
+                if (!expiryWheel.schedule(afterId, dueAt, nowMillis)) {
+                    logger.warn("Expiry wheel full at {} entries; later expiries wait for the next run", expiryWheel.size());
+                    return scheduled;
+                }
+                scheduled++;
+            }
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record RenewalCharge(Long subscriptionId, LocalDateTime endDate, BigDecimal amount) {}
+}
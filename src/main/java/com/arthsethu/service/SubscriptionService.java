@@ -3,15 +3,15 @@ package com.arthsethu.service;
 import com.arthsethu.model.*;
 import com.arthsethu.repository.SubscriptionRepository;
 import com.arthsethu.repository.UserRepository;
+import com.arthsethu.security.EntitlementCache;
+import com.arthsethu.service.RevenueCubeService.Contribution;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @Transactional
@@ -23,6 +23,15 @@ public class SubscriptionService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private RevenueCubeService revenueCubeService;
+    
+    @Autowired
+    private EntitlementCache entitlementCache;
+    
+    @Autowired
+    private DomainEventPublisher eventPublisher;
+    
     /**
      * Create a new subscription for a user
      */
@@ -41,11 +50,15 @@ public class SubscriptionService {
         }
         
         subscription = subscriptionRepository.save(subscription);
+        revenueCubeService.move(null, Contribution.of(subscription));
         
         // Update user's tier
+        SubscriptionTier previousTier = user.getTier();
         user.setTier(tier);
         user.setSubscription(subscription);
         userRepository.save(user);
+        entitlementCache.invalidate(user.getId());
+        eventPublisher.publishTierChange(user.getId(), previousTier, user.getTier());
         
         return subscription;
     }
@@ -69,78 +82,25 @@ public class SubscriptionService {
         }
         
         // Cancel current subscription
+        Contribution before = Contribution.of(currentSubscription);
         currentSubscription.cancel();
         subscriptionRepository.save(currentSubscription);
+        revenueCubeService.move(before, Contribution.of(currentSubscription));
         
         // Create new subscription with higher tier
         Subscription newSubscription = new Subscription(user, newTier);
         newSubscription.setStatus(SubscriptionStatus.PENDING); // Will be activated after payment
         newSubscription = subscriptionRepository.save(newSubscription);
+        revenueCubeService.move(null, Contribution.of(newSubscription));
         
         // Update user's subscription reference
         user.setSubscription(newSubscription);
         userRepository.save(user);
+        entitlementCache.invalidate(user.getId());
         
         return newSubscription;
     }
     
-    /**
-     * Simulate payment processing and activate subscription
-     */
-    public boolean processPayment(Long subscriptionId, String paymentMethod) {
-        Optional<Subscription> subscriptionOpt = subscriptionRepository.findById(subscriptionId);
-        
-        if (subscriptionOpt.isEmpty()) {
-            return false;
-        }
-        
-        Subscription subscription = subscriptionOpt.get();
-        
-        // Simulate payment processing
-        boolean paymentSuccess = simulatePayment(subscription.getAmount(), paymentMethod);
-        
-        if (paymentSuccess) {
-            // Generate payment reference
-            String paymentReference = generatePaymentReference();
-            subscription.setPaymentReference(paymentReference);
-            
-            // Activate subscription
-            subscription.activate();
-            
-            // Update user's tier
-            User user = subscription.getUser();
-            user.setTier(subscription.getTier());
-            userRepository.save(user);
-            
-            subscriptionRepository.save(subscription);
-            return true;
-        }
-        
-        return false;
-    }
-    
-    /**
-     * Simulate payment processing (for demo purposes)
-     */
-    private boolean simulatePayment(BigDecimal amount, String paymentMethod) {
-        // Simulate payment processing delay
-        try {
-            Thread.sleep(1000); // 1 second delay
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        
-        // Simulate 95% success rate
-        return Math.random() < 0.95;
-    }
-    
-    /**
-     * Generate unique payment reference
-     */
-    private String generatePaymentReference() {
-        return "PAY_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
-    }
-    
     /**
      * Cancel subscription
      */
@@ -149,12 +109,17 @@ public class SubscriptionService {
         
         if (subscriptionOpt.isPresent()) {
             Subscription subscription = subscriptionOpt.get();
+            Contribution before = Contribution.of(subscription);
             subscription.cancel();
             subscriptionRepository.save(subscription);
+            revenueCubeService.move(before, Contribution.of(subscription));
             
             // Downgrade user to free tier
+            SubscriptionTier previousTier = user.getTier();
             user.setTier(SubscriptionTier.AARAMBH);
             userRepository.save(user);
+            entitlementCache.invalidate(user.getId());
+            eventPublisher.publishTierChange(user.getId(), previousTier, user.getTier());
         }
     }
     
@@ -166,12 +131,17 @@ public class SubscriptionService {
         
         if (subscriptionOpt.isPresent()) {
             Subscription subscription = subscriptionOpt.get();
+            Contribution before = Contribution.of(subscription);
             subscription.suspend();
             subscriptionRepository.save(subscription);
+            revenueCubeService.move(before, Contribution.of(subscription));
             
             // Downgrade user to free tier
+            SubscriptionTier previousTier = user.getTier();
             user.setTier(SubscriptionTier.AARAMBH);
             userRepository.save(user);
+            entitlementCache.invalidate(user.getId());
+            eventPublisher.publishTierChange(user.getId(), previousTier, user.getTier());
         }
     }
     
@@ -185,12 +155,17 @@ public class SubscriptionService {
             Subscription subscription = subscriptionOpt.get();
             
             if (subscription.getStatus().canBeActivated()) {
+                Contribution before = Contribution.of(subscription);
                 subscription.activate();
                 subscriptionRepository.save(subscription);
+                revenueCubeService.move(before, Contribution.of(subscription));
                 
                 // Update user's tier
+                SubscriptionTier previousTier = user.getTier();
                 user.setTier(subscription.getTier());
                 userRepository.save(user);
+                entitlementCache.invalidate(user.getId());
+                eventPublisher.publishTierChange(user.getId(), previousTier, user.getTier());
                 
                 return true;
             }
@@ -224,8 +199,11 @@ public class SubscriptionService {
         if (userTier != SubscriptionTier.AARAMBH) {
             if (!hasActiveSubscription(user)) {
                 // Downgrade to free tier if subscription is not active
+                SubscriptionTier previousTier = user.getTier();
                 user.setTier(SubscriptionTier.AARAMBH);
                 userRepository.save(user);
+                entitlementCache.invalidate(user.getId());
+                eventPublisher.publishTierChange(user.getId(), previousTier, user.getTier());
                 userTier = SubscriptionTier.AARAMBH;
             }
         }
@@ -247,54 +225,24 @@ public class SubscriptionService {
         return SubscriptionTier.values();
     }
     
-    /**
-     * Process subscription renewals (for scheduled tasks)
-     */
-    public void processRenewals() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime renewalThreshold = now.plusDays(3); // 3 days before expiry
-        
-        List<Subscription> expiringSoon = subscriptionRepository.findSubscriptionsExpiringSoon(
-            SubscriptionStatus.ACTIVE, now, renewalThreshold);
-        
-        for (Subscription subscription : expiringSoon) {
-            if (subscription.getAutoRenew()) {
-                // Process auto-renewal
-                boolean renewed = processPayment(subscription.getId(), "auto_renewal");
-                if (renewed) {
-                    // Extend subscription by 30 days
-                    subscription.setEndDate(subscription.getEndDate().plusDays(30));
-                    subscriptionRepository.save(subscription);
-                }
-            }
-        }
-    }
-    
     /**
      * Get subscription statistics for admin dashboard
      */
     public SubscriptionStats getSubscriptionStats() {
-        long aarambhCount = subscriptionRepository.countActiveSubscriptionsByTier(
-            SubscriptionTier.AARAMBH, SubscriptionStatus.ACTIVE);
-        long vistarCount = subscriptionRepository.countActiveSubscriptionsByTier(
-            SubscriptionTier.VISTAR, SubscriptionStatus.ACTIVE);
-        long shikharCount = subscriptionRepository.countActiveSubscriptionsByTier(
-            SubscriptionTier.SHIKHAR, SubscriptionStatus.ACTIVE);
-        
-        BigDecimal monthlyRevenue = subscriptionRepository.getMonthlyRecurringRevenue(
-            SubscriptionStatus.ACTIVE, SubscriptionTier.AARAMBH);
+        RevenueCubeService.RevenueSlice all = revenueCubeService.sliceAll();
         
-        return new SubscriptionStats(aarambhCount, vistarCount, shikharCount, 
-                                   monthlyRevenue != null ? monthlyRevenue : BigDecimal.ZERO);
+        return new SubscriptionStats(all.getCount(SubscriptionTier.AARAMBH, SubscriptionStatus.ACTIVE),
+                                   all.getCount(SubscriptionTier.VISTAR, SubscriptionStatus.ACTIVE),
+                                   all.getCount(SubscriptionTier.SHIKHAR, SubscriptionStatus.ACTIVE),
+                                   all.getAmountExcluding(SubscriptionTier.AARAMBH, SubscriptionStatus.ACTIVE));
     }
     
     /**
      * Get revenue for date range
      */
     public BigDecimal getRevenueForDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        BigDecimal revenue = subscriptionRepository.getTotalRevenueByDateRange(
-            SubscriptionStatus.ACTIVE, startDate, endDate);
-        return revenue != null ? revenue : BigDecimal.ZERO;
+        return revenueCubeService.slice(startDate.toLocalDate(), endDate.toLocalDate())
+            .getAmount(SubscriptionStatus.ACTIVE);
     }
     
     /**
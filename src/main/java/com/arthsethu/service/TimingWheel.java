@@ -0,0 +1,110 @@
+package com.arthsethu.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel for items due within a bounded horizon.
+ *
+ * Time is split into ticks of tickMillis and the wheel holds wheelSize slots, so it covers
+ * tickMillis * wheelSize ahead of the last advance. Scheduling and advancing are O(1) per
+ * item; items beyond the horizon or past maxEntries are refused and left for the caller's
+ * regular sweep. Rescheduling an item replaces its earlier entry. Thread-safe.
+ */
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final List<Map<T, Long>> slots;
+    private final Map<T, Long> dueAt = new HashMap<>();
+    private final int maxEntries;
+    private long currentTick = -1;
+
+    public TimingWheel(long tickMillis, int wheelSize, int maxEntries) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.maxEntries = maxEntries;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Schedule an item; it fires on the first advance at or after dueAtMillis, and overdue
+     * items fire on the next advance.
+     * Returns false if the item is beyond the horizon or the wheel is full.
+     */
+    public synchronized boolean schedule(T item, long dueAtMillis, long nowMillis) {
+        if (currentTick < 0) {
+            currentTick = nowMillis / tickMillis;
+        }
+        // Rounded up, so an item never fires before it is due
+        long tick = Math.max(-Math.floorDiv(-dueAtMillis, tickMillis), currentTick + 1);
+        if (tick - currentTick > slots.size()) {
+            return false;
+        }
+        Long previous = dueAt.get(item);
+        if (previous != null) {
+            slotFor(previous).remove(item);
+        } else if (dueAt.size() >= maxEntries) {
+            return false;
+        }
+        dueAt.put(item, tick);
+        slotFor(tick).put(item, tick);
+        return true;
+    }
+
+    /**
+     * Move the wheel to nowMillis and return every item that has come due
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<T> due = new ArrayList<>();
+        if (currentTick < 0) {
+            currentTick = targetTick;
+            return due;
+        }
+        // Never walk more than one revolution; every entry lives within one
+        long from = Math.max(currentTick + 1, targetTick - slots.size() + 1);
+        for (long tick = from; tick <= targetTick; tick++) {
+            Map<T, Long> slot = slotFor(tick);
+            if (slot.isEmpty()) {
+                continue;
+            }
+            slot.entrySet().removeIf(entry -> {
+                if (entry.getValue() <= targetTick) {
+                    due.add(entry.getKey());
+                    dueAt.remove(entry.getKey());
+                    return true;
+                }
+                return false;
+            });
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return due;
+    }
+
+    /**
+     * Milliseconds ahead of the wheel's position that can still be scheduled
+     */
+    public long getHorizonMillis() {
+        return tickMillis * slots.size();
+    }
+
+    public synchronized int size() {
+        return dueAt.size();
+    }
+
+    public synchronized void clear() {
+        slots.forEach(Map::clear);
+        dueAt.clear();
+    }
+
+    private Map<T, Long> slotFor(long tick) {
+        return slots.get((int) Math.floorMod(tick, (long) slots.size()));
+    }
+}
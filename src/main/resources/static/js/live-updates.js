@@ -0,0 +1,74 @@
+// ArthSethu live dashboard updates over STOMP
+// Needs sockjs-client and stomp.js loaded first.
+
+(function() {
+    const HEALTH_SCORE_TOPIC = '/user/topic/health-score';
+    const RECONNECT_DELAY_MS = 5000;
+
+    // Subscribe to health score deltas; returns a handle whose connected flag tells
+    // callers whether they can rely on a push instead of reloading the page
+    function subscribeHealthScore(endpoint, onDelta) {
+        const handle = { connected: false };
+        if (typeof SockJS === 'undefined' || typeof Stomp === 'undefined') {
+            return handle;
+        }
+
+        function connect() {
+            const client = Stomp.over(new SockJS(endpoint));
+            client.debug = null;
+            client.connect({}, function() {
+                handle.connected = true;
+                client.subscribe(HEALTH_SCORE_TOPIC, function(message) {
+                    onDelta(JSON.parse(message.body));
+                });
+            }, function() {
+                handle.connected = false;
+                setTimeout(connect, RECONNECT_DELAY_MS);
+            });
+        }
+
+        connect();
+        return handle;
+    }
+
+    // Apply a delta's days to a newest-first series of {date, healthScore, ...} points
+    function mergeDays(series, delta) {
+        const byDate = new Map(delta.replaceDays ? [] : series.map(point => [String(point.date), point]));
+        (delta.days || []).forEach(point => byDate.set(point.date, point));
+        const merged = Array.from(byDate.values())
+            .sort((a, b) => String(b.date).localeCompare(String(a.date)))
+            .slice(0, delta.daysLogged);
+        series.length = 0;
+        merged.forEach(point => series.push(point));
+        return series;
+    }
+
+    function formatPercent(value, digits) {
+        return (Number(value || 0) * 100).toFixed(digits) + '%';
+    }
+
+    function setText(id, text) {
+        const element = document.getElementById(id);
+        if (element) {
+            element.textContent = text;
+        }
+    }
+
+    // Replace the chart on a canvas, destroying the one drawn before
+    function redraw(canvasId, create) {
+        const canvas = document.getElementById(canvasId);
+        const existing = canvas && typeof Chart !== 'undefined' ? Chart.getChart(canvas) : null;
+        if (existing) {
+            existing.destroy();
+        }
+        return create();
+    }
+
+    window.ArthSethuLive = {
+        subscribeHealthScore,
+        mergeDays,
+        formatPercent,
+        setText,
+        redraw
+    };
+})();
@@ -0,0 +1,130 @@
+package com.arthsethu.controller;
+
+import com.arthsethu.model.Subscription;
+import com.arthsethu.model.SubscriptionStatus;
+import com.arthsethu.model.SubscriptionTier;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.SubscriptionRepository;
+import com.arthsethu.repository.UserRepository;
+import com.arthsethu.security.EntitlementCache;
+import com.arthsethu.service.DomainEventPublisher;
+import com.arthsethu.service.PaymentGateway;
+import com.arthsethu.service.PaymentGateway.PaymentRequest;
+import com.arthsethu.service.PaymentService;
+import com.arthsethu.service.RevenueCubeService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drives a real {@link PaymentService} through signed webhooks
+ */
+class PaymentWebhookControllerTest {
+
+    private static final String SECRET = "webhook-secret";
+
+    private SubscriptionRepository subscriptionRepository;
+    private PaymentGateway paymentGateway;
+    private EntitlementCache entitlementCache;
+    private PaymentService paymentService;
+    private PaymentWebhookController controller;
+
+    private Subscription subscription;
+    private LocalDateTime endDate;
+
+    @BeforeEach
+    void setUp() {
+        subscriptionRepository = mock(SubscriptionRepository.class);
+        paymentGateway = mock(PaymentGateway.class);
+        entitlementCache = mock(EntitlementCache.class);
+        paymentService = new PaymentService(subscriptionRepository, mock(UserRepository.class),
+            mock(RevenueCubeService.class), entitlementCache, mock(DomainEventPublisher.class), paymentGateway,
+            mock(SimpMessagingTemplate.class), mock(PlatformTransactionManager.class), 600_000);
+        controller = new PaymentWebhookController(paymentService, new ObjectMapper(), SECRET);
+
+        User user = new User("shikhar@example.com", "hash");
+        user.setId(5L);
+        subscription = new Subscription(user, SubscriptionTier.SHIKHAR);
+        subscription.setId(21L);
+        subscription.activate();
+        endDate = subscription.getEndDate();
+        subscription.setRenewalRequestedAt(endDate.minusDays(1));
+
+        when(subscriptionRepository.findById(21L)).thenReturn(Optional.of(subscription));
+        when(subscriptionRepository.save(any(Subscription.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(subscriptionRepository.findByPaymentReferenceForUpdate(any()))
+            .thenAnswer(invocation -> invocation.getArgument(0).equals(subscription.getPaymentReference())
+                ? Optional.of(subscription) : Optional.empty());
+    }
+
+    @Test
+    void testRenewalSettlesThroughTheWebhook() throws Exception {
+        paymentService.startRenewal(21L, endDate, new BigDecimal("999.00"));
+
+        // The reference is stored before the charge reaches the gateway
+        ArgumentCaptor<PaymentRequest> request = ArgumentCaptor.forClass(PaymentRequest.class);
+        verify(paymentGateway).initiate(request.capture(), any());
+        String reference = request.getValue().reference();
+        assertTrue(reference.startsWith("RNW_21_"));
+        assertEquals(reference, subscription.getPaymentReference());
+
+        String body = "{\"reference\":\"" + reference + "\",\"status\":\"SUCCESS\"}";
+        ResponseEntity<Map<String, Object>> response = controller.handleWebhook(sign(body), body);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(SubscriptionStatus.ACTIVE, subscription.getStatus());
+        assertEquals(endDate.plusDays(30), subscription.getEndDate());
+        assertNull(subscription.getRenewalRequestedAt());
+        verify(entitlementCache).invalidate(5L);
+
+        // A redelivered webhook is acknowledged but does not extend the subscription again
+        assertEquals(HttpStatus.OK, controller.handleWebhook(sign(body), body).getStatusCode());
+        assertEquals(endDate.plusDays(30), subscription.getEndDate());
+    }
+
+    @Test
+    void testFailedRenewalLeavesTheSubscriptionForTheNextAttempt() throws Exception {
+        paymentService.startRenewal(21L, endDate, new BigDecimal("999.00"));
+        String body = "{\"reference\":\"" + subscription.getPaymentReference()
+                      + "\",\"status\":\"FAILED\",\"reason\":\"Card expired\"}";
+
+        assertEquals(HttpStatus.OK, controller.handleWebhook(sign(body), body).getStatusCode());
+
+        assertEquals(SubscriptionStatus.ACTIVE, subscription.getStatus());
+        assertEquals(endDate, subscription.getEndDate());
+        assertNotNull(subscription.getRenewalRequestedAt());
+    }
+
+    @Test
+    void testUnsignedWebhookIsRejected() {
+        String body = "{\"reference\":\"RNW_21_20240101\",\"status\":\"SUCCESS\"}";
+
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.handleWebhook(null, body).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.handleWebhook("00", body).getStatusCode());
+        verify(subscriptionRepository, never()).findByPaymentReferenceForUpdate(any());
+    }
+
+    private static String sign(String body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
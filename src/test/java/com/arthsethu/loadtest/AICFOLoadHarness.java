@@ -0,0 +1,493 @@
+package com.arthsethu.loadtest;
+
+import com.arthsethu.ArthSethuApplication;
+import com.arthsethu.model.BusinessProfile;
+import com.arthsethu.model.BusinessType;
+import com.arthsethu.model.DailyMetrics;
+import com.arthsethu.model.SubscriptionTier;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.BusinessProfileRepository;
+import com.arthsethu.repository.DailyMetricsRepository;
+import com.arthsethu.repository.UserRepository;
+import com.arthsethu.service.AICFOService;
+import com.arthsethu.service.AICircuitBreaker;
+import com.arthsethu.service.AIMicroBatcher;
+import com.arthsethu.service.LatencyModellingChatModel;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load-generation harness for the AI CFO path.
+ *
+ * Boots the application with the "loadtest" profile (H2 plus {@link LatencyModellingChatModel}
+ * in place of Ollama), seeds Shikhar users with a business profile and 30 days of metrics,
+ * logs each virtual user in through the real form login, then drives POST /ai-cfo/query
+ * and/or the /ai-cfo-websocket STOMP endpoint at the target concurrency. Reports latency
+ * percentiles, throughput, errors, peak threads, peak heap and GC time.
+ *
+ * mode=bulk instead runs a what-if sweep of requests scenarios twice, once with one model
+ * call per scenario and once through {@link AIMicroBatcher}, and reports throughput per core
+ * for each.
+ *
+ * Not a JUnit test; run from the IDE or with
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.arthsethu.loadtest.AICFOLoadHarness \
+ *     -Dexec.args="mode=both concurrency=32 requests=400 arthsethu.ai.stub.parallel-slots=4"
+ * </pre>
+ * Arguments are key=value pairs: mode (http|stomp|both|bulk), concurrency, requests (per mode),
+ * warmup (per mode), users, timeout-seconds. Any other key is passed to Spring as a property.
+ */
+public class AICFOLoadHarness {
+    
+    private static final String PASSWORD = "LoadTest#123";
+    
+    private static final String[] QUERIES = {
+        "How is my business performing?",
+        "How can I reduce my costs?",
+        "How do I improve my profit margin?",
+        "What if I increase my prices by 10%?",
+        "What should I focus on this week?"
+    };
+    
+    private final Map<String, String> options;
+    private final int concurrency;
+    private final int requests;
+    private final int warmup;
+    private final int users;
+    private final Duration timeout;
+    
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    
+    public AICFOLoadHarness(Map<String, String> options) {
+        this.options = options;
+        this.concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        this.requests = Integer.parseInt(options.getOrDefault("requests", "200"));
+        this.warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        this.users = Integer.parseInt(options.getOrDefault("users", String.valueOf(Math.min(concurrency, 50))));
+        this.timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout-seconds", "120")));
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                options.put(arg.substring(0, eq).replaceFirst("^--", ""), arg.substring(eq + 1));
+            }
+        }
+        
+        AICFOLoadHarness harness = new AICFOLoadHarness(options);
+        try {
+            harness.start();
+            String mode = options.getOrDefault("mode", "both");
+            if (mode.equals("http") || mode.equals("both")) {
+                harness.report("HTTP POST /ai-cfo/query", harness.runHttp());
+            }
+            if (mode.equals("stomp") || mode.equals("both")) {
+                harness.report("STOMP /app/ai-cfo/chat", harness.runStomp());
+            }
+            if (mode.equals("bulk")) {
+                harness.runBulk();
+            }
+        } finally {
+            harness.stop();
+        }
+        System.exit(0);
+    }
+    
+    void start() {
+        List<String> springArgs = new ArrayList<>();
+        options.forEach((key, value) -> {
+            if (key.contains(".")) {
+                springArgs.add("--" + key + "=" + value);
+            }
+        });
+        
+        context = new SpringApplicationBuilder(ArthSethuApplication.class)
+            .profiles("loadtest")
+            .run(springArgs.toArray(new String[0]));
+        
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "");
+        baseUrl = "http://localhost:" + port + contextPath;
+        
+        seedUsers();
+    }
+    
+    void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+    
+    private void seedUsers() {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        BusinessProfileRepository profileRepository = context.getBean(BusinessProfileRepository.class);
+        DailyMetricsRepository metricsRepository = context.getBean(DailyMetricsRepository.class);
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        
+        for (int i = 0; i < users; i++) {
+            User user = new User(email(i), passwordHash);
+            user.setTier(SubscriptionTier.SHIKHAR);
+            user = userRepository.save(user);
+            
+            BusinessProfile profile = new BusinessProfile(user, BusinessType.values()[i % BusinessType.values().length], "Pune");
+            profile.setSeatingCapacity(30);
+            profileRepository.save(profile);
+            
+            List<DailyMetrics> metrics = new ArrayList<>();
+            for (int day = 1; day <= 30; day++) {
+                BigDecimal sales = BigDecimal.valueOf(15000 + (day * 137 + i * 59) % 5000);
+                BigDecimal expenses = sales.multiply(BigDecimal.valueOf(0.7 + (day % 5) * 0.03));
+                BigDecimal wastage = BigDecimal.valueOf(300 + (day * 31) % 400);
+                metrics.add(new DailyMetrics(user, LocalDate.now().minusDays(day), sales, expenses, wastage));
+            }
+            metricsRepository.saveAll(metrics);
+        }
+        System.out.printf("Seeded %d Shikhar users with profiles and 30 days of metrics%n", users);
+    }
+    
+    RunResult runHttp() throws Exception {
+        List<HttpClient> clients = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            clients.add(login(email(i)).client);
+        }
+        
+        return drive((worker, index) -> {
+            HttpClient client = clients.get(worker % clients.size());
+            String body = "{\"query\":\"" + QUERIES[index % QUERIES.length] + "\"}";
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/ai-cfo/query"))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 && response.body().contains("\"success\":true");
+        });
+    }
+    
+    RunResult runStomp() throws Exception {
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        String wsUrl = baseUrl.replaceFirst("^http", "ws") + "/ai-cfo-websocket/websocket";
+        
+        List<StompSession> sessions = new ArrayList<>();
+        List<BlockingQueue<Map<String, Object>>> inboxes = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+            headers.add("Cookie", "JSESSIONID=" + login(email(i % users)).sessionId);
+            StompSession session = stompClient
+                .connectAsync(wsUrl, headers, new StompSessionHandlerAdapter() { })
+                .get(30, TimeUnit.SECONDS);
+            
+            BlockingQueue<Map<String, Object>> inbox = new ArrayBlockingQueue<>(16);
+            session.subscribe("/user/topic/ai-cfo", new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return Map.class;
+                }
+                
+                @Override
+                @SuppressWarnings("unchecked")
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    inbox.offer((Map<String, Object>) payload);
+                }
+            });
+            sessions.add(session);
+            inboxes.add(inbox);
+        }
+        // Give the broker a moment to register the subscriptions
+        Thread.sleep(500);
+        
+        try {
+            return drive((worker, index) -> {
+                BlockingQueue<Map<String, Object>> inbox = inboxes.get(worker);
+                inbox.clear();
+                sessions.get(worker).send("/app/ai-cfo/chat", Map.of("query", QUERIES[index % QUERIES.length]));
+                Map<String, Object> reply = inbox.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                return reply != null && Boolean.TRUE.equals(reply.get("success"));
+            });
+        } finally {
+            sessions.forEach(StompSession::disconnect);
+            stompClient.stop();
+        }
+    }
+    
+    /**
+     * Compare one-call-per-item against micro-batched execution for a bulk what-if sweep
+     */
+    void runBulk() {
+        AICFOService aicfoService = context.getBean(AICFOService.class);
+        User user = context.getBean(UserRepository.class).findByEmail(email(0)).orElseThrow();
+        BusinessProfile profile = context.getBean(BusinessProfileRepository.class).findByUser(user).orElseThrow();
+        List<String> scenarios = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            scenarios.add("What if I increase my prices by " + (i % 20 + 1) + "%?");
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        
+        long wallStart = System.nanoTime();
+        long cpuStart = processCpuNanos();
+        for (String scenario : scenarios) {
+            aicfoService.performSimulation(scenario, profile);
+        }
+        reportBulk("sequential (one call per item)", requests, System.nanoTime() - wallStart,
+                   processCpuNanos() - cpuStart, cores);
+        
+        wallStart = System.nanoTime();
+        cpuStart = processCpuNanos();
+        aicfoService.performSimulations(scenarios, profile);
+        reportBulk("micro-batched", requests, System.nanoTime() - wallStart, processCpuNanos() - cpuStart, cores);
+        
+        AIMicroBatcher.BatchStats stats = context.getBean(AIMicroBatcher.class).getStats();
+        System.out.printf("batcher: enabled=%s maxBatch=%d batches=%d avgBatch=%.2f largest=%d failures=%d%n",
+                          stats.isBatchingEnabled(), stats.getMaxBatchSize(), stats.getBatches(),
+                          stats.getAverageBatchSize(), stats.getLargestBatch(), stats.getFailures());
+    }
+    
+    private void reportBulk(String label, int items, long wallNanos, long cpuNanos, int cores) {
+        double seconds = wallNanos / 1e9;
+        System.out.println();
+        System.out.println("=== Bulk what-if sweep: " + label + " ===");
+        System.out.printf("items=%d wall=%.1fs throughput=%.2f items/s per-core=%.3f items/s jvmCpu=%.2fs items/cpu-s=%.1f%n",
+                          items, seconds, items / seconds, items / seconds / cores, cpuNanos / 1e9,
+                          cpuNanos <= 0 ? 0.0 : items / (cpuNanos / 1e9));
+    }
+    
+    private static long processCpuNanos() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getProcessCpuTime();
+        }
+        return 0;
+    }
+    
+    /**
+     * Run warmup + requests calls across a fixed pool of concurrency workers, recording the
+     * latency of every non-warmup call
+     */
+    private RunResult drive(Call call) throws InterruptedException {
+        int total = warmup + requests;
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger measured = new AtomicInteger();
+        AtomicLong errors = new AtomicLong();
+        long[] latenciesMicros = new long[requests];
+        
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        ResourceSampler sampler = new ResourceSampler();
+        sampler.start();
+        
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        CountDownLatch done = new CountDownLatch(concurrency);
+        long start = System.nanoTime();
+        for (int w = 0; w < concurrency; w++) {
+            int worker = w;
+            workers.submit(() -> {
+                try {
+                    int index;
+                    while ((index = next.getAndIncrement()) < total) {
+                        long callStart = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = call.execute(worker, index);
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        long elapsedMicros = (System.nanoTime() - callStart) / 1000;
+                        if (index >= warmup) {
+                            latenciesMicros[measured.getAndIncrement()] = elapsedMicros;
+                            if (!ok) {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long wallMillis = (System.nanoTime() - start) / 1_000_000;
+        workers.shutdown();
+        sampler.stop();
+        
+        return new RunResult(Arrays.copyOf(latenciesMicros, measured.get()), errors.get(), wallMillis,
+                             threads.getPeakThreadCount(), sampler);
+    }
+    
+    private Login login(String email) throws Exception {
+        java.net.CookieManager cookies = new java.net.CookieManager();
+        HttpClient client = HttpClient.newBuilder()
+            .cookieHandler(cookies)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        
+        String form = "username=" + URLEncoder.encode(email, StandardCharsets.UTF_8)
+                    + "&password=" + URLEncoder.encode(PASSWORD, StandardCharsets.UTF_8);
+        HttpResponse<Void> response = client.send(
+            HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build(),
+            HttpResponse.BodyHandlers.discarding());
+        
+        String location = response.headers().firstValue("Location").orElse("");
+        if (response.statusCode() != 302 || location.contains("error")) {
+            throw new IllegalStateException("Login failed for " + email + ": " + response.statusCode() + " " + location);
+        }
+        String sessionId = cookies.getCookieStore().getCookies().stream()
+            .filter(cookie -> cookie.getName().equals("JSESSIONID"))
+            .map(java.net.HttpCookie::getValue)
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("No session cookie for " + email));
+        return new Login(client, sessionId);
+    }
+    
+    void report(String label, RunResult result) {
+        long[] sorted = result.latenciesMicros.clone();
+        Arrays.sort(sorted);
+        
+        System.out.println();
+        System.out.println("=== " + label + " ===");
+        System.out.printf("concurrency=%d requests=%d errors=%d wall=%.1fs throughput=%.2f req/s%n",
+                          concurrency, sorted.length, result.errors, result.wallMillis / 1000.0,
+                          sorted.length * 1000.0 / Math.max(1, result.wallMillis));
+        System.out.printf("latency ms: p50=%.0f p90=%.0f p95=%.0f p99=%.0f max=%.0f%n",
+                          percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 95),
+                          percentile(sorted, 99), sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1000.0);
+        System.out.printf("threads: peak=%d   heap: peak=%d MB   gc: %d collections, %d ms%n",
+                          result.peakThreads, result.sampler.peakHeapBytes / (1024 * 1024),
+                          result.sampler.gcCount(), result.sampler.gcMillis());
+        
+        AICircuitBreaker.CircuitBreakerStatus breaker = context.getBean(AICircuitBreaker.class).getStatus();
+        System.out.printf("circuit: state=%s failureRate=%.1f%% slowRate=%.1f%% rejected=%d fallbacks=%d maxQueue=%d%n",
+                          breaker.getState(), breaker.getFailureRate(), breaker.getSlowCallRate(),
+                          breaker.getRejectedCalls(), breaker.getFallbackResponses(), result.sampler.peakAiQueue);
+        
+        context.getBeanProvider(LatencyModellingChatModel.class).ifAvailable(stub -> {
+            LatencyModellingChatModel.StubStats stats = stub.getStats();
+            System.out.printf("model stub: calls=%d injectedFailures=%d injectedHangs=%d maxWaitingForSlot=%d%n",
+                              stats.getCalls(), stats.getInjectedFailures(), stats.getInjectedHangs(),
+                              stats.getMaxWaitingForSlot());
+        });
+    }
+    
+    private static double percentile(long[] sortedMicros, double percentile) {
+        if (sortedMicros.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sortedMicros.length) - 1;
+        return sortedMicros[Math.max(0, rank)] / 1000.0;
+    }
+    
+    private static String email(int index) {
+        return "loadtest-" + index + "@arthsethu.test";
+    }
+    
+    @FunctionalInterface
+    private interface Call {
+        boolean execute(int worker, int index) throws Exception;
+    }
+    
+    private record Login(HttpClient client, String sessionId) { }
+    
+    private record RunResult(long[] latenciesMicros, long errors, long wallMillis, int peakThreads,
+                             ResourceSampler sampler) { }
+    
+    /**
+     * Samples heap and AI call queue depth every 100 ms while a run is in progress
+     */
+    private class ResourceSampler {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        private final long gcCountAtStart = totalGcCount();
+        private final long gcMillisAtStart = totalGcMillis();
+        private volatile boolean running = true;
+        private volatile long peakHeapBytes;
+        private volatile int peakAiQueue;
+        private long gcCountAtEnd;
+        private long gcMillisAtEnd;
+        private Thread thread;
+        
+        void start() {
+            AICircuitBreaker breaker = context.getBean(AICircuitBreaker.class);
+            thread = new Thread(() -> {
+                while (running) {
+                    peakHeapBytes = Math.max(peakHeapBytes, memory.getHeapMemoryUsage().getUsed());
+                    peakAiQueue = Math.max(peakAiQueue, breaker.getQueueDepth());
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "loadtest-sampler");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        
+        void stop() throws InterruptedException {
+            running = false;
+            thread.join();
+            gcCountAtEnd = totalGcCount();
+            gcMillisAtEnd = totalGcMillis();
+        }
+        
+        long gcCount() {
+            return gcCountAtEnd - gcCountAtStart;
+        }
+        
+        long gcMillis() {
+            return gcMillisAtEnd - gcMillisAtStart;
+        }
+        
+        private long totalGcCount() {
+            return collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+        }
+        
+        private long totalGcMillis() {
+            return collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.arthsethu.repository;
+
+import com.arthsethu.model.DailyMetrics;
+import com.arthsethu.model.HealthScoreFormula;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.DailyMetricsBulkRepository.MetricsRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against a real PostgreSQL, since partitioning is a no-op anywhere else, and without a
+ * test transaction, like the maintenance job. Skipped where Docker is not available.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DailyMetricsPartitionRepository.class, DailyMetricsBulkRepository.class})
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DailyMetricsPartitionRepositoryTest {
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    }
+
+    @Autowired
+    private DailyMetricsPartitionRepository partitionRepository;
+
+    @Autowired
+    private DailyMetricsBulkRepository bulkRepository;
+
+    @Autowired
+    private DailyMetricsRepository dailyMetricsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        dailyMetricsRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testConversionUpsertsAndRetentionOnPartitionedTable() {
+        User user = userRepository.save(new User("partitions@example.com", "hash"));
+        dailyMetricsRepository.save(day(user, LocalDate.of(2024, 1, 15), "1000.00"));
+        dailyMetricsRepository.save(day(user, LocalDate.of(2024, 2, 10), "1100.00"));
+        dailyMetricsRepository.save(day(user, LocalDate.of(2024, 3, 5), "900.00"));
+        assertTrue(partitionRepository.isSupported());
+        assertFalse(partitionRepository.isPartitioned());
+
+        partitionRepository.convertToPartitioned(LocalDate.of(2024, 4, 1));
+
+        assertTrue(partitionRepository.isPartitioned());
+        assertEquals(List.of("daily_metrics_default", "daily_metrics_p2024_01", "daily_metrics_p2024_02",
+                             "daily_metrics_p2024_03", "daily_metrics_p2024_04"), partitions());
+        assertEquals(3, count("daily_metrics"));
+        assertEquals(1, count("daily_metrics_p2024_01"));
+        assertEquals(List.of("id", "metric_date"), jdbcTemplate.queryForList(
+            "SELECT a.attname::text FROM pg_index i JOIN pg_attribute a ON a.attrelid = i.indrelid " +
+            "AND a.attnum = ANY(i.indkey) WHERE i.indrelid = 'daily_metrics'::regclass AND i.indisprimary " +
+            "ORDER BY a.attname", String.class));
+        // Already partitioned: nothing to do
+        partitionRepository.convertToPartitioned(LocalDate.of(2024, 4, 1));
+        assertEquals(3, count("daily_metrics"));
+
+        // ON CONFLICT (user_id, metric_date) still updates the stored day in place...
+        Long februaryId = jdbcTemplate.queryForObject(
+            "SELECT id FROM daily_metrics WHERE metric_date = '2024-02-10'", Long.class);
+        assertEquals(februaryId, bulkRepository.upsert(user.getId(), row(LocalDate.of(2024, 2, 10), "1200.00")));
+        assertEquals(3, count("daily_metrics"));
+        assertEquals(0, new BigDecimal("1200.00").compareTo(jdbcTemplate.queryForObject(
+            "SELECT sales FROM daily_metrics WHERE id = ?", BigDecimal.class, februaryId)));
+
+        // ...and new days land in their month, or the default partition past the last one
+        bulkRepository.upsert(user.getId(), List.of(row(LocalDate.of(2024, 4, 2), "800.00"),
+                                                    row(LocalDate.of(2025, 1, 1), "700.00")));
+        assertEquals(1, count("daily_metrics_p2024_04"));
+        assertEquals(1, count("daily_metrics_default"));
+
+        // JPA inserts take IDs from the same sequence and satisfy the (id, metric_date) key
+        dailyMetricsRepository.save(day(user, LocalDate.of(2024, 3, 20), "950.00"));
+        assertEquals(2, count("daily_metrics_p2024_03"));
+        assertEquals(6, count("daily_metrics"));
+
+        // Retention drops the months that end on or before the cutoff, whole
+        assertEquals(2, partitionRepository.dropPartitionsBefore(LocalDate.of(2024, 3, 1)));
+        assertEquals(List.of("daily_metrics_default", "daily_metrics_p2024_03", "daily_metrics_p2024_04"),
+                     partitions());
+        assertEquals(4, count("daily_metrics"));
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM daily_metrics WHERE metric_date < '2024-03-01'", Integer.class));
+        assertEquals(0, partitionRepository.dropPartitionsBefore(LocalDate.of(2024, 3, 1)));
+
+        assertEquals(1, partitionRepository.deleteFromDefaultPartitionBefore(LocalDate.of(2025, 2, 1)));
+        assertEquals(3, count("daily_metrics"));
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList(
+            "SELECT c.relname::text FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'daily_metrics'::regclass ORDER BY c.relname", String.class);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private static DailyMetrics day(User user, LocalDate date, String sales) {
+        return new DailyMetrics(user, date, new BigDecimal(sales), new BigDecimal("700.00"), new BigDecimal("20.00"));
+    }
+
+    private static MetricsRow row(LocalDate date, String sales) {
+        BigDecimal salesAmount = new BigDecimal(sales);
+        BigDecimal expenses = new BigDecimal("700.00");
+        BigDecimal wastage = new BigDecimal("20.00");
+        return new MetricsRow(date, salesAmount, expenses, wastage,
+            HealthScoreFormula.CURRENT.score(salesAmount, expenses, wastage), HealthScoreFormula.CURRENT.getVersion());
+    }
+}
@@ -0,0 +1,102 @@
+package com.arthsethu.repository;
+
+import com.arthsethu.dto.UserManagementDTO;
+import com.arthsethu.model.BusinessProfile;
+import com.arthsethu.model.BusinessType;
+import com.arthsethu.model.SubscriptionTier;
+import com.arthsethu.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testSignupCountsAreAggregatedInTheDatabase() {
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        save("a@example.com", SubscriptionTier.AARAMBH, today.plusHours(1));
+        save("b@example.com", SubscriptionTier.AARAMBH, today.plusHours(2));
+        save("c@example.com", SubscriptionTier.SHIKHAR, today.plusHours(3));
+        save("d@example.com", SubscriptionTier.VISTAR, today.minusDays(1).plusHours(5));
+        save("e@example.com", SubscriptionTier.VISTAR, today.minusDays(40));
+
+        assertEquals(3, userRepository.countByCreatedAtAfter(today));
+        assertEquals(4, userRepository.countByCreatedAtAfter(today.minusDays(7)));
+
+        List<Object[]> rows = userRepository.countSignupsByDayAndTier(today.minusDays(7));
+        assertEquals(3, rows.size());
+        assertEquals(LocalDate.now().minusDays(1), rows.get(0)[0]);
+        assertEquals(SubscriptionTier.VISTAR, rows.get(0)[1]);
+        assertEquals(1L, rows.get(0)[2]);
+
+        long aarambhToday = rows.stream()
+            .filter(row -> LocalDate.now().equals(row[0]) && row[1] == SubscriptionTier.AARAMBH)
+            .mapToLong(row -> (Long) row[2])
+            .sum();
+        assertEquals(2, aarambhToday);
+    }
+
+    @Test
+    void testUserManagementPageProjectsProfileAndFiltersInTheQuery() {
+        LocalDateTime now = LocalDateTime.now();
+        User cafe = save("ravi@cafe.in", SubscriptionTier.VISTAR, now);
+        entityManager.persist(new BusinessProfile(cafe, BusinessType.CAFE, "Pune"));
+        User banned = save("ravi_b@shop.in", SubscriptionTier.AARAMBH, now);
+        banned.setPasswordHash("BANNED_hash");
+        save("ravix@shop.in", SubscriptionTier.SHIKHAR, now);
+        save("meera@shop.in", SubscriptionTier.AARAMBH, now);
+        entityManager.flush();
+        entityManager.clear();
+
+        EnumSet<SubscriptionTier> allTiers = EnumSet.allOf(SubscriptionTier.class);
+        List<UserManagementDTO> firstPage = userRepository.findUserManagementPage(
+            0L, allTiers, "ravi%", 0, PageRequest.of(0, 2));
+        assertEquals(2, firstPage.size());
+        assertEquals(cafe.getId(), firstPage.get(0).getUserId());
+        assertEquals("CAFE", firstPage.get(0).getBusinessType());
+        assertEquals("Pune", firstPage.get(0).getCity());
+        assertTrue(firstPage.get(1).isBanned());
+        assertNull(firstPage.get(1).getCity());
+
+        List<UserManagementDTO> nextPage = userRepository.findUserManagementPage(
+            firstPage.get(1).getUserId(), allTiers, "ravi%", 0, PageRequest.of(0, 2));
+        assertEquals(1, nextPage.size());
+        assertEquals("ravix@shop.in", nextPage.get(0).getEmail());
+
+        // '_' is escaped, so it only matches a literal underscore
+        List<UserManagementDTO> escaped = userRepository.findUserManagementPage(
+            0L, allTiers, "ravi!_%", 0, PageRequest.of(0, 10));
+        assertEquals(1, escaped.size());
+        assertEquals("ravi_b@shop.in", escaped.get(0).getEmail());
+
+        List<UserManagementDTO> notBanned = userRepository.findUserManagementPage(
+            0L, EnumSet.of(SubscriptionTier.AARAMBH), "%", 2, PageRequest.of(0, 10));
+        assertEquals(1, notBanned.size());
+        assertEquals("meera@shop.in", notBanned.get(0).getEmail());
+    }
+
+    private User save(String email, SubscriptionTier tier, LocalDateTime createdAt) {
+        User user = new User(email, "hash");
+        user.setTier(tier);
+        user.setCreatedAt(createdAt);
+        return userRepository.save(user);
+    }
+}
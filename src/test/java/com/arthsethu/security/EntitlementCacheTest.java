@@ -0,0 +1,88 @@
+package com.arthsethu.security;
+
+import com.arthsethu.model.Subscription;
+import com.arthsethu.model.SubscriptionStatus;
+import com.arthsethu.model.SubscriptionTier;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.SubscriptionRepository;
+import com.arthsethu.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EntitlementCacheTest {
+
+    private SubscriptionRepository subscriptionRepository;
+    private UserRepository userRepository;
+    private EntitlementCache cache;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        subscriptionRepository = mock(SubscriptionRepository.class);
+        userRepository = mock(UserRepository.class);
+        cache = new EntitlementCache(subscriptionRepository, userRepository, 60_000);
+
+        user = new User("shikhar@example.com", "hash");
+        user.setId(7L);
+        user.setTier(SubscriptionTier.SHIKHAR);
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void testActiveSubscriptionIsCachedUntilInvalidated() {
+        when(subscriptionRepository.findByUserIdAndStatus(7L, SubscriptionStatus.ACTIVE))
+            .thenReturn(List.of(subscriptionEnding(LocalDateTime.now().plusDays(10))));
+
+        for (int i = 0; i < 5; i++) {
+            EntitlementCache.Entitlement entitlement = cache.get(user);
+            assertEquals(SubscriptionTier.SHIKHAR, entitlement.getTier());
+            assertTrue(entitlement.allowsTier(SubscriptionTier.VISTAR));
+            assertTrue(entitlement.allowsFeature("ai_cfo"));
+        }
+        verify(subscriptionRepository, times(1)).findByUserIdAndStatus(7L, SubscriptionStatus.ACTIVE);
+
+        cache.invalidate(7L);
+        cache.get(user);
+        verify(subscriptionRepository, times(2)).findByUserIdAndStatus(7L, SubscriptionStatus.ACTIVE);
+    }
+
+    @Test
+    void testEntryExpiresAtSubscriptionEndDate() throws InterruptedException {
+        when(subscriptionRepository.findByUserIdAndStatus(7L, SubscriptionStatus.ACTIVE))
+            .thenReturn(List.of(subscriptionEnding(LocalDateTime.now().plusNanos(50_000_000))))
+            .thenReturn(List.of());
+
+        assertEquals(SubscriptionTier.SHIKHAR, cache.get(user).getTier());
+        Thread.sleep(80);
+
+        EntitlementCache.Entitlement lapsed = cache.get(user);
+        assertEquals(SubscriptionTier.AARAMBH, lapsed.getTier());
+        assertFalse(lapsed.allowsFeature("health_score"));
+        assertTrue(lapsed.allowsFeature("pdf_download"));
+    }
+
+    @Test
+    void testPaidTierWithoutActiveSubscriptionFallsBackToFreeFeatures() {
+        user.setTier(SubscriptionTier.VISTAR);
+        when(subscriptionRepository.findByUserIdAndStatus(7L, SubscriptionStatus.ACTIVE)).thenReturn(List.of());
+
+        EntitlementCache.Entitlement entitlement = cache.get(user);
+        assertEquals(SubscriptionTier.AARAMBH, entitlement.getTier());
+        assertFalse(entitlement.allowsTier(SubscriptionTier.VISTAR));
+        assertFalse(entitlement.allowsFeature("operational_dashboard"));
+    }
+
+    private Subscription subscriptionEnding(LocalDateTime endDate) {
+        Subscription subscription = new Subscription(user, SubscriptionTier.SHIKHAR);
+        subscription.setStatus(SubscriptionStatus.ACTIVE);
+        subscription.setEndDate(endDate);
+        return subscription;
+    }
+}
@@ -0,0 +1,84 @@
+package com.arthsethu.security;
+
+import com.arthsethu.model.SubscriptionTier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private RateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        // Shikhar: 6 requests per minute (one every 10s) with a burst of 3; Aarambh unlimited
+        limiter = new RateLimiter(Map.of(RateLimitClass.AI, RateLimiter.parseLimits("SHIKHAR=6", 3)), 2, clock::get);
+    }
+
+    @Test
+    void testBurstThenSteadyRate() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire(1L, SubscriptionTier.SHIKHAR, RateLimitClass.AI));
+        }
+        long wait = limiter.tryAcquire(1L, SubscriptionTier.SHIKHAR, RateLimitClass.AI);
+        assertEquals(TimeUnit.SECONDS.toNanos(10), wait);
+
+        RateLimitExceededException ex = assertThrows(RateLimitExceededException.class,
+            () -> limiter.acquire(1L, SubscriptionTier.SHIKHAR, RateLimitClass.AI));
+        assertEquals(10, ex.getRetryAfterSeconds());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(0, limiter.tryAcquire(1L, SubscriptionTier.SHIKHAR, RateLimitClass.AI));
+        assertTrue(limiter.tryAcquire(1L, SubscriptionTier.SHIKHAR, RateLimitClass.AI) > 0);
+
+        // Other users, other endpoint classes and unlisted tiers are unaffected
+        assertEquals(0, limiter.tryAcquire(2L, SubscriptionTier.SHIKHAR, RateLimitClass.AI));
+        assertEquals(0, limiter.tryAcquire(1L, SubscriptionTier.SHIKHAR, RateLimitClass.PDF));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, limiter.tryAcquire(3L, SubscriptionTier.AARAMBH, RateLimitClass.AI));
+        }
+    }
+
+    @Test
+    void testBatchIsChargedOneTokenPerItem() {
+        // A batch of three empties the bucket just as three single requests would
+        assertEquals(0, limiter.tryAcquire(1L, SubscriptionTier.SHIKHAR, RateLimitClass.AI, 3));
+        assertEquals(TimeUnit.SECONDS.toNanos(10), limiter.tryAcquire(1L, SubscriptionTier.SHIKHAR, RateLimitClass.AI));
+
+        // A batch larger than the burst is admitted from a full bucket, then repaid interval by interval
+        assertEquals(0, limiter.tryAcquire(2L, SubscriptionTier.SHIKHAR, RateLimitClass.AI, 10));
+        assertEquals(TimeUnit.SECONDS.toNanos(80), limiter.tryAcquire(2L, SubscriptionTier.SHIKHAR, RateLimitClass.AI));
+        RateLimitExceededException ex = assertThrows(RateLimitExceededException.class,
+            () -> limiter.acquire(2L, SubscriptionTier.SHIKHAR, RateLimitClass.AI, 2));
+        assertEquals(80, ex.getRetryAfterSeconds());
+    }
+
+    @Test
+    void testIdleBucketsAreEvicted() {
+        limiter.tryAcquire(1L, SubscriptionTier.SHIKHAR, RateLimitClass.AI);
+        limiter.tryAcquire(2L, SubscriptionTier.SHIKHAR, RateLimitClass.AI);
+        assertEquals(2, limiter.getBucketCount());
+
+        // Both buckets refill after one interval; a new user at capacity triggers the purge
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        limiter.tryAcquire(3L, SubscriptionTier.SHIKHAR, RateLimitClass.AI);
+        assertEquals(1, limiter.getBucketCount());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        limiter.purgeIdle();
+        assertEquals(0, limiter.getBucketCount());
+    }
+
+    @Test
+    void testRetryAfterRoundsUp() {
+        assertEquals(1, RateLimiter.retryAfterSeconds(1));
+        assertEquals(1, RateLimiter.retryAfterSeconds(TimeUnit.SECONDS.toNanos(1)));
+        assertEquals(2, RateLimiter.retryAfterSeconds(TimeUnit.SECONDS.toNanos(1) + 1));
+    }
+}
@@ -0,0 +1,71 @@
+package com.arthsethu.security;
+
+import com.arthsethu.model.SubscriptionTier;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserCacheTest {
+
+    private UserRepository userRepository;
+    private UserCache cache;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        cache = new UserCache(userRepository, 60_000, 2);
+    }
+
+    @Test
+    void testRepeatedLookupsHitTheDatabaseOnceUntilEvicted() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(1L, "one@example.com")));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("one@example.com", cache.findById(1L).orElseThrow().getEmail());
+        }
+        verify(userRepository, times(1)).findById(1L);
+
+        cache.evict(1L);
+        cache.findById(1L);
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testReturnedUsersAreIndependentCopies() {
+        cache.put(user(1L, "one@example.com"));
+
+        User first = cache.findById(1L).orElseThrow();
+        first.setTier(SubscriptionTier.SHIKHAR);
+
+        assertEquals(SubscriptionTier.AARAMBH, cache.findById(1L).orElseThrow().getTier());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryIsDroppedAtCapacity() {
+        cache.put(user(1L, "one@example.com"));
+        cache.put(user(2L, "two@example.com"));
+        cache.findById(1L);
+        cache.put(user(3L, "three@example.com"));
+
+        assertEquals(2, cache.size());
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user(2L, "two@example.com")));
+        cache.findById(1L);
+        cache.findById(2L);
+        verify(userRepository, never()).findById(1L);
+        verify(userRepository, times(1)).findById(2L);
+    }
+
+    private static User user(Long id, String email) {
+        User user = new User(email, "hash");
+        user.setId(id);
+        user.setTier(SubscriptionTier.AARAMBH);
+        return user;
+    }
+}
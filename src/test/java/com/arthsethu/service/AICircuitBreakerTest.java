@@ -0,0 +1,186 @@
+package com.arthsethu.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AICircuitBreakerTest {
+
+    private ChatModel chatModel;
+    private AICircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        chatModel = mock(ChatModel.class);
+        circuitBreaker = new AICircuitBreaker(chatModel, new MockChatModel(),
+            50, 80, 1000, 4, 4, 50, 1, 500, 2, 1, AICircuitBreaker.Fallback.CACHED);
+    }
+
+    @AfterEach
+    void tearDown() {
+        circuitBreaker.shutdown();
+    }
+
+    @Test
+    void testOpensAfterFailureRateThresholdAndServesFallback() {
+        when(chatModel.call(any(Prompt.class))).thenThrow(new RuntimeException("connection refused"));
+
+        for (int i = 0; i < 4; i++) {
+            String answer = circuitBreaker.call(new Prompt("q"), 1L, "How is my business performing?");
+            assertTrue(answer.contains("heavy load"));
+        }
+
+        assertEquals(AICircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        // Open circuit fails fast without touching the model
+        circuitBreaker.call(new Prompt("q"), 1L, "How is my business performing?");
+        verify(chatModel, times(4)).call(any(Prompt.class));
+        assertEquals("OPEN", circuitBreaker.getStatus().getState());
+        assertEquals(1, circuitBreaker.getStatus().getRejectedCalls());
+    }
+
+    @Test
+    void testCachedFallbackReturnsLastGoodAnswer() {
+        when(chatModel.call(any(Prompt.class)))
+            .thenReturn(response("Margins look healthy"))
+            .thenThrow(new RuntimeException("timeout"));
+
+        assertEquals("Margins look healthy", circuitBreaker.call(new Prompt("q"), 1L, "How are my margins?"));
+        assertEquals("Margins look healthy", circuitBreaker.call(new Prompt("q"), 1L, "  how are my   MARGINS? "));
+    }
+
+    @Test
+    void testCachedAnswersAreNeverServedToAnotherUser() {
+        when(chatModel.call(any(Prompt.class)))
+            .thenReturn(response("Your margin is 32% on sales of 48,000"))
+            .thenThrow(new RuntimeException("down"));
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.call(new Prompt("q"), 1L, "How are my margins?");
+        }
+        assertEquals(AICircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        assertEquals("Your margin is 32% on sales of 48,000",
+                     circuitBreaker.call(new Prompt("q"), 1L, "How are my margins?"));
+        String otherUser = circuitBreaker.call(new Prompt("q"), 2L, "How are my margins?");
+        assertFalse(otherUser.contains("48,000"));
+        assertTrue(otherUser.contains("heavy load"));
+        assertFalse(circuitBreaker.call(new Prompt("q"), null, "How are my margins?").contains("48,000"));
+    }
+
+    @Test
+    void testFallbackAnswersAreMarkedAsSuch() {
+        when(chatModel.call(any(Prompt.class)))
+            .thenReturn(response("Margins look healthy"))
+            .thenThrow(new RuntimeException("timeout"));
+
+        AICircuitBreaker.Answer fresh = circuitBreaker.answer(new Prompt("q"), 1L, "How are my margins?");
+        assertEquals("Margins look healthy", fresh.content());
+        assertFalse(fresh.fallback());
+
+        // The same text served from the cache is still a fallback, not a model answer
+        AICircuitBreaker.Answer cached = circuitBreaker.answer(new Prompt("q"), 1L, "How are my margins?");
+        assertEquals("Margins look healthy", cached.content());
+        assertTrue(cached.fallback());
+        assertTrue(circuitBreaker.answer(new Prompt("q"), 1L, "Anything else?").fallback());
+    }
+
+    @Test
+    void testHalfOpenProbeClosesCircuit() throws InterruptedException {
+        when(chatModel.call(any(Prompt.class))).thenThrow(new RuntimeException("down"));
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.call(new Prompt("q"), 1L, "hello");
+        }
+        assertEquals(AICircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        Thread.sleep(80);
+        assertEquals(AICircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        reset(chatModel);
+        when(chatModel.call(any(Prompt.class))).thenReturn(response("back online"));
+        assertEquals("back online", circuitBreaker.execute(new Prompt("probe")));
+        assertEquals(AICircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void testBulkCallsNeverTakeAnInteractiveSlot() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(chatModel.call(any(Prompt.class))).thenAnswer(invocation -> {
+            if (invocation.<Prompt>getArgument(0).getContents().equals("bulk")) {
+                release.await(2, TimeUnit.SECONDS);
+            }
+            return response("ok");
+        });
+
+        // Bulk work holding the only bulk slot and both of its queue places
+        List<CompletableFuture<String>> bulk = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            bulk.add(CompletableFuture.supplyAsync(() -> circuitBreaker.executeBulk(new Prompt("bulk"))));
+        }
+        Thread.sleep(100);
+
+        assertEquals("ok", circuitBreaker.execute(new Prompt("chat")));
+        assertEquals(0, circuitBreaker.getQueueDepth());
+        assertThrows(AICircuitBreaker.AIUnavailableException.class, () -> circuitBreaker.executeBulk(new Prompt("bulk")));
+
+        release.countDown();
+        for (CompletableFuture<String> call : bulk) {
+            assertEquals("ok", call.get(2, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testBulkCallsWaitForTheCircuitToClose() throws InterruptedException {
+        when(chatModel.call(any(Prompt.class))).thenThrow(new RuntimeException("down"));
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.call(new Prompt("q"), 1L, "hello");
+        }
+        assertThrows(AICircuitBreaker.AIUnavailableException.class, () -> circuitBreaker.executeBulk(new Prompt("bulk")));
+
+        // Half-open probes are kept for interactive calls
+        Thread.sleep(80);
+        assertEquals(AICircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertThrows(AICircuitBreaker.AIUnavailableException.class, () -> circuitBreaker.executeBulk(new Prompt("bulk")));
+        verify(chatModel, times(4)).call(any(Prompt.class));
+
+        reset(chatModel);
+        when(chatModel.call(any(Prompt.class))).thenReturn(response("back online"));
+        assertEquals("back online", circuitBreaker.execute(new Prompt("probe")));
+        assertEquals("back online", circuitBreaker.executeBulk(new Prompt("bulk")));
+    }
+
+    @Test
+    void testSlowCallsTimeOutAndCountAsFailures() {
+        when(chatModel.call(any(Prompt.class))).thenAnswer(invocation -> {
+            Thread.sleep(2000);
+            return response("too late");
+        });
+
+        long start = System.nanoTime();
+        assertThrows(AICircuitBreaker.AIUnavailableException.class,
+            () -> circuitBreaker.execute(new Prompt("slow")));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs < 1500, "Call should give up at the configured timeout");
+        assertEquals(1, circuitBreaker.getStatus().getBufferedCalls());
+        assertEquals(100.0, circuitBreaker.getStatus().getFailureRate());
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+}
@@ -0,0 +1,154 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.AIDigest;
+import com.arthsethu.model.BusinessProfile;
+import com.arthsethu.model.BusinessType;
+import com.arthsethu.model.SubscriptionTier;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.AIDigestRepository;
+import com.arthsethu.repository.BusinessProfileRepository;
+import com.arthsethu.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs against the database without a test transaction, so each digest really commits
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(AIDigestService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AIDigestServiceTest {
+
+    private static final LocalDate DIGEST_DATE = LocalDate.of(2024, 3, 15);
+
+    @Autowired
+    private AIDigestService digestService;
+
+    @Autowired
+    private AIDigestRepository aiDigestRepository;
+
+    @Autowired
+    private BusinessProfileRepository businessProfileRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockBean
+    private AICFOService aicfoService;
+
+    @MockBean
+    private AICircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        when(circuitBreaker.getState()).thenReturn(AICircuitBreaker.State.CLOSED);
+        when(circuitBreaker.getQueueDepth()).thenReturn(0);
+        when(aicfoService.generateDailyDigestAsync(any(BusinessProfile.class), anyList()))
+            .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                "digest for " + invocation.<BusinessProfile>getArgument(0).getUser().getEmail()));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        aiDigestRepository.deleteAll();
+        businessProfileRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testRunGeneratesADigestForEveryShikharUserWithAProfile() {
+        shikharUser("one@example.com", true);
+        shikharUser("two@example.com", true);
+        shikharUser("no-profile@example.com", false);
+        User free = userRepository.save(new User("free@example.com", "hash"));
+        businessProfileRepository.save(new BusinessProfile(free, BusinessType.CAFE, "Pune"));
+
+        AIDigestService.DigestRunResult result = digestService.generateDailyDigests(DIGEST_DATE);
+
+        assertEquals(2, result.getGenerated());
+        assertEquals(1, result.getSkipped());
+        assertEquals(0, result.getFailed());
+        assertEquals(Set.of("digest for one@example.com", "digest for two@example.com"), storedDigests());
+    }
+
+    @Test
+    void testRerunOnTheSameDateGeneratesNothing() {
+        shikharUser("one@example.com", true);
+        shikharUser("two@example.com", true);
+        assertEquals(2, digestService.generateDailyDigests(DIGEST_DATE).getGenerated());
+
+        AIDigestService.DigestRunResult rerun = digestService.generateDailyDigests(DIGEST_DATE);
+
+        assertEquals(0, rerun.getGenerated());
+        assertEquals(2, rerun.getSkipped());
+        assertEquals(0, rerun.getFailed());
+        assertEquals(2, aiDigestRepository.count());
+        verify(aicfoService, times(2)).generateDailyDigestAsync(any(BusinessProfile.class), anyList());
+    }
+
+    @Test
+    void testOneFailingProfileDoesNotStopTheOthers() {
+        shikharUser("one@example.com", true);
+        shikharUser("broken@example.com", true);
+        shikharUser("three@example.com", true);
+        when(aicfoService.generateDailyDigestAsync(any(BusinessProfile.class), anyList()))
+            .thenAnswer(invocation -> {
+                String email = invocation.<BusinessProfile>getArgument(0).getUser().getEmail();
+                return email.startsWith("broken")
+                    ? CompletableFuture.failedFuture(new RuntimeException("LLM timed out"))
+                    : CompletableFuture.completedFuture("digest for " + email);
+            });
+
+        AIDigestService.DigestRunResult result = digestService.generateDailyDigests(DIGEST_DATE);
+
+        assertEquals(2, result.getGenerated());
+        assertEquals(0, result.getSkipped());
+        assertEquals(1, result.getFailed());
+        assertEquals(Set.of("digest for one@example.com", "digest for three@example.com"), storedDigests());
+
+        // The failed user is picked up again by the next run on the same date
+        reset(aicfoService);
+        when(aicfoService.generateDailyDigestAsync(any(BusinessProfile.class), anyList()))
+            .thenReturn(CompletableFuture.completedFuture("digest for broken@example.com"));
+        AIDigestService.DigestRunResult rerun = digestService.generateDailyDigests(DIGEST_DATE);
+        assertEquals(1, rerun.getGenerated());
+        assertEquals(2, rerun.getSkipped());
+        assertEquals(3, aiDigestRepository.count());
+    }
+
+    private User shikharUser(String email, boolean withProfile) {
+        User user = new User(email, "hash");
+        user.setTier(SubscriptionTier.SHIKHAR);
+        user = userRepository.save(user);
+        if (withProfile) {
+            businessProfileRepository.save(new BusinessProfile(user, BusinessType.CAFE, "Pune"));
+        }
+        return user;
+    }
+
+    private Set<String> storedDigests() {
+        List<AIDigest> digests = aiDigestRepository.findAll();
+        digests.forEach(digest -> assertEquals(DIGEST_DATE, digest.getDigestDate()));
+        return digests.stream().map(AIDigest::getContent).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,88 @@
+package com.arthsethu.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AIMicroBatcherTest {
+
+    private AICircuitBreaker circuitBreaker;
+    private AIMicroBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker = mock(AICircuitBreaker.class);
+        when(circuitBreaker.executeBulk(any(Prompt.class)))
+            .thenAnswer(invocation -> "answer to " + invocation.<Prompt>getArgument(0).getContents());
+    }
+
+    @AfterEach
+    void tearDown() {
+        batcher.shutdown();
+    }
+
+    @Test
+    void testFullBatchIsSentWithoutWaitingForTheWindow() throws Exception {
+        batcher = new AIMicroBatcher(circuitBreaker, true, 3, 10_000, 10);
+
+        List<CompletableFuture<String>> results = batcher.submitAll(
+            List.of(new Prompt("a"), new Prompt("b"), new Prompt("c")));
+
+        // Well inside the 10s window: the batch went out as soon as it was full
+        assertEquals("answer to a", results.get(0).get(2, TimeUnit.SECONDS));
+        assertEquals("answer to b", results.get(1).get(2, TimeUnit.SECONDS));
+        assertEquals("answer to c", results.get(2).get(2, TimeUnit.SECONDS));
+        awaitBatches(1);
+        assertEquals(3, batcher.getStats().getLargestBatch());
+    }
+
+    @Test
+    void testPartialBatchIsSentWhenTheWindowCloses() throws Exception {
+        batcher = new AIMicroBatcher(circuitBreaker, true, 3, 100, 10);
+
+        long start = System.nanoTime();
+        assertEquals("answer to alone", batcher.submit(new Prompt("alone")).get(2, TimeUnit.SECONDS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs >= 90, "Waited " + elapsedMs + "ms for more prompts before sending");
+        awaitBatches(1);
+        assertEquals(1, batcher.getStats().getLargestBatch());
+    }
+
+    @Test
+    void testFailuresReachEveryWaitingFuture() throws Exception {
+        reset(circuitBreaker);
+        when(circuitBreaker.executeBulk(any(Prompt.class)))
+            .thenThrow(new AICircuitBreaker.AIUnavailableException("AI service circuit is open"));
+        batcher = new AIMicroBatcher(circuitBreaker, true, 3, 10_000, 10);
+
+        List<CompletableFuture<String>> results = batcher.submitAll(
+            List.of(new Prompt("a"), new Prompt("b"), new Prompt("c")));
+
+        for (CompletableFuture<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(2, TimeUnit.SECONDS));
+            assertInstanceOf(AICircuitBreaker.AIUnavailableException.class, e.getCause());
+        }
+        awaitBatches(1);
+        assertEquals(3, batcher.getStats().getFailures());
+    }
+
+    // Statistics are recorded once the whole batch is done, just after its futures complete
+    private void awaitBatches(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (batcher.getStats().getBatches() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, batcher.getStats().getBatches());
+    }
+}
@@ -0,0 +1,70 @@
+package com.arthsethu.service;
+
+import com.arthsethu.dto.AdminDashboardDTO;
+import com.arthsethu.dto.AdminStatsSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AdminStatsSnapshotServiceTest {
+
+    private AdminService adminService;
+    private AdminStatsSnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() {
+        adminService = mock(AdminService.class);
+        when(adminService.getUserStats()).thenReturn(new AdminDashboardDTO.UserStats(10, 6, 3, 1, 1, 4));
+        when(adminService.getRevenueStats()).thenReturn(new AdminDashboardDTO.RevenueStats(
+            BigDecimal.TEN, BigDecimal.ONE, BigDecimal.ZERO, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ZERO, 40.0));
+        when(adminService.getSystemHealth()).thenReturn(new AdminDashboardDTO.SystemHealth(
+            true, LocalDateTime.now(), true, LocalDateTime.now(), true, 0.1, 128));
+        when(adminService.getSystemAlerts(any())).thenReturn(List.of());
+        snapshotService = new AdminStatsSnapshotService(adminService, 60000, 600000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshotService.shutdown();
+    }
+
+    @Test
+    void testViewsShareOneSnapshot() {
+        AdminStatsSnapshot first = snapshotService.getSnapshot();
+        snapshotService.getUserStats();
+        snapshotService.getRevenueStats();
+        snapshotService.getSystemHealth();
+        AdminDashboardDTO dashboard = snapshotService.getDashboardData();
+
+        assertSame(first, snapshotService.getSnapshot());
+        assertEquals(10, dashboard.getUserStats().getTotalUsers());
+        assertFalse(dashboard.isStale());
+        verify(adminService, times(1)).getUserStats();
+        verify(adminService, times(1)).getSystemHealth();
+    }
+
+    @Test
+    void testScheduledRefreshSkipsWhenNeverRead() {
+        snapshotService.scheduledRefresh();
+        snapshotService.requestRefresh();
+
+        verify(adminService, never()).getUserStats();
+    }
+
+    @Test
+    void testRefreshPublishesNewSnapshot() {
+        AdminStatsSnapshot first = snapshotService.getSnapshot();
+        snapshotService.scheduledRefresh();
+
+        assertNotSame(first, snapshotService.getSnapshot());
+        verify(adminService, times(2)).getRevenueStats();
+    }
+}
@@ -0,0 +1,108 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.AnomalyBaseline;
+import com.arthsethu.model.AnomalyMetric;
+import com.arthsethu.model.MetricsAnomaly;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.AnomalyBaselineRepository;
+import com.arthsethu.repository.MetricsAnomalyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs without a test transaction, so the baseline is created and locked as in production
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(AnomalyDetectionService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AnomalyDetectionServiceTest {
+
+    @Autowired
+    private AnomalyDetectionService anomalyDetectionService;
+
+    @Autowired
+    private AnomalyBaselineRepository anomalyBaselineRepository;
+
+    @Autowired
+    private MetricsAnomalyRepository metricsAnomalyRepository;
+
+    private final LocalDate today = LocalDate.now();
+
+    @AfterEach
+    void cleanUp() {
+        metricsAnomalyRepository.deleteAll();
+        anomalyBaselineRepository.deleteAll();
+    }
+
+    @Test
+    void testAbnormalDayIsFlaggedAndResubmittingItClearsTheFlags() {
+        User user = user(42L);
+        LocalDate start = today.minusDays(20);
+        for (int day = 0; day < 20; day++) {
+            assertTrue(normalDay(user, start.plusDays(day), day).isEmpty());
+        }
+
+        List<MetricsAnomaly> anomalies = detect(user, today, "400", "1500", "60");
+
+        assertEquals(List.of(AnomalyMetric.SALES_DROP, AnomalyMetric.EXPENSE_SPIKE, AnomalyMetric.WASTAGE_SPIKE),
+            anomalies.stream().map(MetricsAnomaly::getMetric).toList());
+        MetricsAnomaly salesDrop = anomalies.get(0);
+        assertTrue(salesDrop.getScore().doubleValue() <= -3.0);
+        assertEquals(1000, salesDrop.getExpected().doubleValue(), 30);
+        assertTrue(salesDrop.getDescription().startsWith("Sales on " + today + " was ₹400, against a usual ₹"));
+        assertEquals(3, anomalyDetectionService.getRecentAnomalies(user, today).size());
+
+        // A corrected submit for the same day replaces its anomalies and its pending values
+        assertTrue(normalDay(user, today, 0).isEmpty());
+        assertTrue(anomalyDetectionService.getRecentAnomalies(user, today).isEmpty());
+        assertEquals(20, anomalyBaselineRepository.findAll().get(0).getCount(AnomalyMetric.SALES_DROP));
+    }
+
+    @Test
+    void testOutlierIsClippedBeforeItJoinsTheBaseline() {
+        User user = user(43L);
+        LocalDate start = today.minusDays(21);
+        for (int day = 0; day < 20; day++) {
+            normalDay(user, start.plusDays(day), day);
+        }
+        assertEquals(1, detect(user, start.plusDays(20), "1000", "10000", "20").size());
+
+        // The spike is folded in at most threshold scales above the mean, so the next day is still normal
+        assertTrue(normalDay(user, today, 0).isEmpty());
+        AnomalyBaseline baseline = anomalyBaselineRepository.findAll().get(0);
+        assertEquals(21, baseline.getCount(AnomalyMetric.EXPENSE_SPIKE));
+        assertTrue(baseline.getMean(AnomalyMetric.EXPENSE_SPIKE) < 850);
+        assertEquals(today, baseline.getPendingDate());
+    }
+
+    private List<MetricsAnomaly> normalDay(User user, LocalDate date, int day) {
+        // Sales 1000 ± 40, expenses 700 ± 25 and wastage around 2% of sales
+        int sales = 1000 + (day % 3 - 1) * 40;
+        int expenses = 700 + (day % 2 == 0 ? 25 : -25);
+        return detect(user, date, String.valueOf(sales), String.valueOf(expenses), String.valueOf(18 + day % 5));
+    }
+
+    private List<MetricsAnomaly> detect(User user, LocalDate date, String sales, String expenses, String wastage) {
+        return anomalyDetectionService.detect(user.getId(), date,
+            new BigDecimal(sales), new BigDecimal(expenses), new BigDecimal(wastage));
+    }
+
+    private static User user(Long id) {
+        User user = new User(id + "@example.com", "hash");
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,118 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.ChatMessage;
+import com.arthsethu.model.ChatSummary;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.ChatMessageRepository;
+import com.arthsethu.repository.ChatSummaryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChatHistoryServiceTest {
+
+    private ChatMessageRepository chatMessageRepository;
+    private ChatSummaryRepository chatSummaryRepository;
+    private ChatHistoryService chatHistoryService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        chatMessageRepository = mock(ChatMessageRepository.class);
+        chatSummaryRepository = mock(ChatSummaryRepository.class);
+        chatHistoryService = new ChatHistoryService(chatMessageRepository, chatSummaryRepository, 4, 2, 50, 200);
+        user = new User("owner@example.com", "hash");
+        user.setId(1L);
+    }
+
+    @Test
+    void testCompactsOldestTurnsAndKeepsRecentWindow() {
+        List<ChatMessage> transcript = transcript(8);
+        when(chatSummaryRepository.findByUser(user)).thenReturn(Optional.empty());
+        when(chatMessageRepository.countByUserAndIdGreaterThan(user, 0L)).thenReturn(8L);
+        when(chatMessageRepository.findByUserAndIdGreaterThanOrderByIdAsc(eq(user), eq(0L), any(Pageable.class)))
+            .thenReturn(transcript.subList(0, 4));
+
+        chatHistoryService.compactIfNeeded(user);
+
+        ArgumentCaptor<ChatSummary> saved = ArgumentCaptor.forClass(ChatSummary.class);
+        verify(chatSummaryRepository).save(saved.capture());
+        assertEquals(4L, saved.getValue().getLastCompactedMessageId());
+        assertEquals(4, saved.getValue().getCompactedMessages());
+        assertTrue(saved.getValue().getSummary().startsWith("- Asked: Question 1?"));
+        assertTrue(saved.getValue().getSummary().contains("Answered: Answer 2."));
+    }
+
+    @Test
+    void testNoCompactionBelowThreshold() {
+        when(chatSummaryRepository.findByUser(user)).thenReturn(Optional.empty());
+        when(chatMessageRepository.countByUserAndIdGreaterThan(user, 0L)).thenReturn(5L);
+
+        chatHistoryService.compactIfNeeded(user);
+
+        verify(chatSummaryRepository, never()).save(any());
+    }
+
+    @Test
+    void testSummaryStaysWithinBudget() {
+        ChatSummary summary = new ChatSummary(user);
+        for (int round = 0; round < 20; round++) {
+            long from = summary.getLastCompactedMessageId();
+            List<ChatMessage> chunk = transcript(from, 4);
+            when(chatSummaryRepository.findByUser(user)).thenReturn(Optional.of(summary));
+            when(chatMessageRepository.countByUserAndIdGreaterThan(user, from)).thenReturn(8L);
+            when(chatMessageRepository.findByUserAndIdGreaterThanOrderByIdAsc(eq(user), eq(from), any(Pageable.class)))
+                .thenReturn(chunk);
+
+            chatHistoryService.compactIfNeeded(user);
+        }
+
+        assertEquals(80, summary.getCompactedMessages());
+        assertTrue(summary.getSummary().length() <= 200);
+        assertTrue(summary.getSummary().startsWith("- Asked:"));
+    }
+
+    @Test
+    void testConversationContextSkipsCompactedMessages() {
+        ChatSummary summary = new ChatSummary(user);
+        summary.setSummary("- Asked: Question 1?");
+        summary.setLastCompactedMessageId(2L);
+        List<ChatMessage> newestFirst = new ArrayList<>(transcript(4));
+        java.util.Collections.reverse(newestFirst);
+        when(chatSummaryRepository.findByUser(user)).thenReturn(Optional.of(summary));
+        when(chatMessageRepository.findByUserOrderByIdDesc(eq(user), any(Pageable.class))).thenReturn(newestFirst);
+
+        String context = chatHistoryService.buildConversationContext(user);
+
+        assertTrue(context.startsWith("Summary of earlier conversation:\n- Asked: Question 1?"));
+        assertTrue(context.contains("User: Question 3?"));
+        assertFalse(context.contains("User: Question 1?"));
+    }
+
+    private List<ChatMessage> transcript(int size) {
+        return transcript(0, size);
+    }
+
+    private List<ChatMessage> transcript(long afterId, int size) {
+        List<ChatMessage> messages = new ArrayList<>();
+        for (long id = afterId + 1; id <= afterId + size; id++) {
+            boolean question = id % 2 == 1;
+            ChatMessage message = new ChatMessage(user,
+                question ? ChatMessage.Sender.USER : ChatMessage.Sender.AI,
+                question ? "Question " + id + "? Please explain in detail." : "Answer " + id + ". More detail follows.");
+            ReflectionTestUtils.setField(message, "id", id);
+            messages.add(message);
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,118 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.DailyMetrics;
+import com.arthsethu.model.DomainEventType;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.AnomalyBaselineRepository;
+import com.arthsethu.repository.DailyMetricsBulkRepository;
+import com.arthsethu.repository.DailyMetricsRepository;
+import com.arthsethu.repository.MetricsAnomalyRepository;
+import com.arthsethu.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs without a test transaction, so concurrent submits really race in the database
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({DailyMetricsService.class, DailyMetricsBulkRepository.class, AnomalyDetectionService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DailyMetricsServiceTest {
+
+    @Autowired
+    private DailyMetricsService dailyMetricsService;
+
+    @Autowired
+    private DailyMetricsRepository dailyMetricsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AnomalyBaselineRepository anomalyBaselineRepository;
+
+    @Autowired
+    private MetricsAnomalyRepository metricsAnomalyRepository;
+
+    @MockBean
+    private DomainEventPublisher eventPublisher;
+
+    @AfterEach
+    void cleanUp() {
+        metricsAnomalyRepository.deleteAll();
+        anomalyBaselineRepository.deleteAll();
+        dailyMetricsRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testResubmittingADayUpdatesTheSameRow() {
+        User user = userRepository.save(new User("daily@example.com", "hash"));
+        LocalDate today = LocalDate.now();
+
+        DailyMetrics first = dailyMetricsService.saveDailyMetrics(user, today,
+            new BigDecimal("1000"), new BigDecimal("800"), new BigDecimal("10"));
+        DailyMetrics second = dailyMetricsService.saveDailyMetrics(user, today,
+            new BigDecimal("1500.555"), new BigDecimal("900"), BigDecimal.ZERO);
+
+        assertNotNull(first.getId());
+        assertEquals(first.getId(), second.getId());
+        assertEquals(new BigDecimal("1500.56"), second.getSales());
+
+        DailyMetrics stored = dailyMetricsRepository.findByUserAndDate(user, today).orElseThrow();
+        assertEquals(1, dailyMetricsRepository.countByUser(user));
+        assertEquals(0, new BigDecimal("1500.56").compareTo(stored.getSales()));
+        assertEquals(second.getHealthScore(), stored.getHealthScore());
+        verify(eventPublisher, times(2)).publish(eq(DomainEventType.METRICS_RECORDED), eq(user.getId()), anyMap());
+    }
+
+    @Test
+    void testConcurrentSubmitsForTheSameDayAllSucceed() throws Exception {
+        User user = userRepository.save(new User("racer@example.com", "hash"));
+        LocalDate today = LocalDate.now();
+        int submitters = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(submitters);
+        try {
+            List<Future<DailyMetrics>> results = new ArrayList<>();
+            for (int i = 0; i < submitters; i++) {
+                BigDecimal sales = BigDecimal.valueOf(1000 + i);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return dailyMetricsService.saveDailyMetrics(user, today, sales, new BigDecimal("500"), BigDecimal.ZERO);
+                }));
+            }
+            start.countDown();
+            for (Future<DailyMetrics> result : results) {
+                assertNotNull(result.get().getId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, dailyMetricsRepository.countByUser(user));
+    }
+}
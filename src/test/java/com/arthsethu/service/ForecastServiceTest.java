@@ -0,0 +1,151 @@
+package com.arthsethu.service;
+
+import com.arthsethu.dto.ForecastDTO;
+import com.arthsethu.dto.ForecastDTO.ForecastPoint;
+import com.arthsethu.model.DailyMetrics;
+import com.arthsethu.model.DomainEventType;
+import com.arthsethu.model.ForecastSeries;
+import com.arthsethu.model.ForecastState;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.DailyMetricsRepository;
+import com.arthsethu.repository.ForecastStateRepository;
+import com.arthsethu.repository.UserRepository;
+import com.arthsethu.service.DomainEventListener.DomainEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs without a test transaction, so each event's state update really commits
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(ForecastService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ForecastServiceTest {
+
+    @Autowired
+    private ForecastService forecastService;
+
+    @SpyBean
+    private DailyMetricsRepository dailyMetricsRepository;
+
+    @Autowired
+    private ForecastStateRepository forecastStateRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final LocalDate today = LocalDate.now();
+
+    @AfterEach
+    void cleanUp() {
+        forecastStateRepository.deleteAll();
+        dailyMetricsRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testRecordedDaysUpdateStateIncrementallyAndForecastWeeklyPattern() {
+        User user = userRepository.save(new User("forecast@example.com", "hash"));
+        LocalDate start = today.minusDays(27);
+        for (int day = 0; day < 27; day++) {
+            forecastService.onEvents(List.of(record(user, start.plusDays(day))));
+        }
+        assertTrue(forecastService.getForecast(user, today).isPresent());
+
+        // The 28th day invalidates the cached forecast
+        forecastService.onEvents(List.of(record(user, today)));
+        ForecastDTO forecast = forecastService.getForecast(user, today).orElseThrow();
+
+        verify(dailyMetricsRepository, never()).findByUserIdAndDateBetweenOrderByDateDesc(anyLong(), any(), any());
+        assertEquals(28, forecast.getDaysObserved());
+        assertEquals(today.plusDays(1), forecast.getSales().get(0).getDate());
+        assertEquals(ForecastService.MAX_HORIZON_DAYS, forecast.getSales().size());
+
+        ForecastPoint weekend = pointOn(forecast.getSales(), DayOfWeek.SATURDAY);
+        ForecastPoint weekday = pointOn(forecast.getSales(), DayOfWeek.TUESDAY);
+        assertTrue(weekend.getValue().compareTo(weekday.getValue()) > 0);
+        assertTrue(weekend.getLower().compareTo(weekend.getValue()) <= 0);
+        assertTrue(weekend.getUpper().compareTo(weekend.getValue()) >= 0);
+        for (ForecastPoint score : forecast.getHealthScore()) {
+            assertTrue(score.getUpper().compareTo(BigDecimal.valueOf(100)) <= 0);
+        }
+        assertEquals(0, forecast.salesTotal(7).getValue().compareTo(
+            forecast.getSales().subList(0, 7).stream().map(ForecastPoint::getValue).reduce(BigDecimal.ZERO, BigDecimal::add)));
+    }
+
+    @Test
+    void testCorrectionsMatchReplayingTheSeries() {
+        User user = userRepository.save(new User("corrections@example.com", "hash"));
+        LocalDate start = today.minusDays(20);
+        for (int day = 0; day < 20; day++) {
+            forecastService.onEvents(List.of(record(user, start.plusDays(day))));
+        }
+
+        // Resubmitting the latest day replaces its update without reading history
+        forecastService.onEvents(List.of(record(user, start.plusDays(19), "9999", "100", "0")));
+        forecastService.onEvents(List.of(record(user, start.plusDays(19), "1500", "900", "10")));
+        verify(dailyMetricsRepository, never()).findByUserIdAndDateBetweenOrderByDateDesc(anyLong(), any(), any());
+        ForecastState incremental = state(user);
+
+        // Editing an older day replays the stored series
+        forecastService.onEvents(List.of(record(user, start.plusDays(5))));
+        verify(dailyMetricsRepository).findByUserIdAndDateBetweenOrderByDateDesc(anyLong(), any(), any());
+        ForecastState replayed = state(user);
+
+        assertEquals(20, replayed.getObservations());
+        assertEquals(start.plusDays(19), replayed.getLastDate());
+        assertEquals(incremental.getLevel(), replayed.getLevel(), 1e-6);
+        assertEquals(incremental.getTrend(), replayed.getTrend(), 1e-6);
+        assertArrayEquals(incremental.getSeasonals(), replayed.getSeasonals(), 1e-6);
+        assertEquals(incremental.getErrorVariance(), replayed.getErrorVariance(), 1e-6);
+    }
+
+    // Weekends sell twice as much as weekdays
+    private DomainEvent record(User user, LocalDate date) {
+        boolean weekend = date.getDayOfWeek().getValue() >= 6;
+        return record(user, date, weekend ? "2000" : "1000", weekend ? "1200" : "700", "20");
+    }
+
+    private DomainEvent record(User user, LocalDate date, String sales, String expenses, String wastage) {
+        DailyMetrics metrics = dailyMetricsRepository.findByUserIdAndDate(user.getId(), date)
+            .orElseGet(() -> new DailyMetrics(user, date, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
+        metrics.setSales(new BigDecimal(sales));
+        metrics.setExpenses(new BigDecimal(expenses));
+        metrics.setWastage(new BigDecimal(wastage));
+        metrics.setUser(user);
+        metrics = dailyMetricsRepository.save(metrics);
+        Map<String, Object> payload = Map.of("date", date.toString(), "sales", sales, "expenses", expenses,
+                                             "wastage", wastage, "healthScore", metrics.getHealthScore());
+        return new DomainEvent(1L, DomainEventType.METRICS_RECORDED, user.getId(), payload, LocalDateTime.now());
+    }
+
+    private ForecastState state(User user) {
+        return forecastStateRepository.findByUserId(user.getId()).stream()
+            .filter(state -> state.getSeries() == ForecastSeries.SALES)
+            .findFirst().orElseThrow();
+    }
+
+    private static ForecastPoint pointOn(List<ForecastPoint> points, DayOfWeek day) {
+        return points.stream().filter(point -> point.getDate().getDayOfWeek() == day).findFirst().orElseThrow();
+    }
+}
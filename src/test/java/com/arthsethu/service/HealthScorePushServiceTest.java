@@ -0,0 +1,115 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.DailyMetrics;
+import com.arthsethu.model.DomainEventType;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.DailyMetricsBulkRepository;
+import com.arthsethu.repository.DailyMetricsRepository;
+import com.arthsethu.security.UserCache;
+import com.arthsethu.service.DomainEventListener.DomainEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class HealthScorePushServiceTest {
+
+    private final LocalDate today = LocalDate.now();
+
+    private DailyMetricsRepository dailyMetricsRepository;
+    private SimpMessagingTemplate messagingTemplate;
+    private HealthScorePushService pushService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        dailyMetricsRepository = mock(DailyMetricsRepository.class);
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        UserCache userCache = mock(UserCache.class);
+        user = new User("live@example.com", "hash");
+        user.setId(7L);
+        when(userCache.findById(7L)).thenReturn(Optional.of(user));
+
+        DailyMetricsService dailyMetricsService = new DailyMetricsService(dailyMetricsRepository,
+            mock(DailyMetricsBulkRepository.class), mock(DomainEventPublisher.class), mock(AnomalyDetectionService.class));
+        pushService = new HealthScorePushService(dailyMetricsService, dailyMetricsRepository, userCache,
+            messagingTemplate, 200, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pushService.shutdown();
+    }
+
+    @Test
+    void testBurstOfWritesIsCoalescedIntoOnePush() {
+        when(dailyMetricsRepository.findLast30DaysMetrics(eq(user), any(LocalDate.class)))
+            .thenReturn(List.of(day(today.minusDays(1), "1000", "700", "20"), day(today.minusDays(2), "900", "800", "10")));
+
+        pushService.onEvents(List.of(recorded(today.minusDays(1), "1000", "700", "20")));
+        pushService.onEvents(List.of(recorded(today, "1200", "800", "0")));
+        pushService.onEvents(List.of(recorded(today, "1300", "800", "0")));
+
+        Map<String, Object> delta = awaitPush(1);
+        assertEquals(true, delta.get("replaceDays"));
+        assertEquals(3, delta.get("daysLogged"));
+        assertEquals(List.of(today.minusDays(2).toString(), today.minusDays(1).toString(), today.toString()),
+            days(delta).stream().map(point -> point.get("date")).toList());
+        assertEquals(0, new BigDecimal("1300").compareTo((BigDecimal) days(delta).get(2).get("sales")));
+        assertNotNull(delta.get("currentHealthScore"));
+        assertNotNull(delta.get("recommendation"));
+    }
+
+    @Test
+    void testLaterWriteIsPatchedInPlaceAndSendsOnlyThatDay() {
+        when(dailyMetricsRepository.findLast30DaysMetrics(eq(user), any(LocalDate.class)))
+            .thenReturn(List.of(day(today.minusDays(1), "1000", "700", "20")));
+        pushService.onEvents(List.of(recorded(today.minusDays(1), "1000", "700", "20")));
+        awaitPush(1);
+
+        pushService.onEvents(List.of(recorded(today, "500", "600", "50")));
+
+        Map<String, Object> delta = awaitPush(2);
+        assertEquals(false, delta.get("replaceDays"));
+        assertEquals(2, delta.get("daysLogged"));
+        assertEquals(List.of(today.toString()), days(delta).stream().map(point -> point.get("date")).toList());
+        // The window is patched from the event payload, not re-read
+        verify(dailyMetricsRepository, times(1)).findLast30DaysMetrics(eq(user), any(LocalDate.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> awaitPush(int pushes) {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate, timeout(2000).times(pushes))
+            .convertAndSendToUser(eq("live@example.com"), eq(HealthScorePushService.TOPIC), captor.capture());
+        return (Map<String, Object>) captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> days(Map<String, Object> delta) {
+        return (List<Map<String, Object>>) delta.get("days");
+    }
+
+    private DailyMetrics day(LocalDate date, String sales, String expenses, String wastage) {
+        return new DailyMetrics(user, date, new BigDecimal(sales), new BigDecimal(expenses), new BigDecimal(wastage));
+    }
+
+    private DomainEvent recorded(LocalDate date, String sales, String expenses, String wastage) {
+        Map<String, Object> payload = Map.of("date", date.toString(), "sales", sales, "expenses", expenses,
+                                             "wastage", wastage, "healthScore", day(date, sales, expenses, wastage).getHealthScore());
+        return new DomainEvent(1L, DomainEventType.METRICS_RECORDED, user.getId(), payload, LocalDateTime.now());
+    }
+}
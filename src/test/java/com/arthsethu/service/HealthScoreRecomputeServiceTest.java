@@ -0,0 +1,128 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.DailyMetrics;
+import com.arthsethu.model.HealthScoreFormula;
+import com.arthsethu.model.JobCheckpoint;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.DailyMetricsBulkRepository;
+import com.arthsethu.repository.DailyMetricsRepository;
+import com.arthsethu.repository.JobCheckpointRepository;
+import com.arthsethu.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs against the database without a test transaction, so each chunk really commits
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({HealthScoreRecomputeService.class, DailyMetricsBulkRepository.class})
+@TestPropertySource(properties = "arthsethu.health-score.recompute.chunk-size=2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HealthScoreRecomputeServiceTest {
+
+    @Autowired
+    private HealthScoreRecomputeService recomputeService;
+
+    @Autowired
+    private DailyMetricsRepository dailyMetricsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JobCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private MetricsRollupService metricsRollupService;
+
+    @MockBean
+    private PeerBenchmarkService peerBenchmarkService;
+
+    @AfterEach
+    void cleanUp() {
+        checkpointRepository.deleteAll();
+        dailyMetricsRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testStaleRowsAreRescoredInChunksAndStampedWithTheVersion() {
+        User user = userRepository.save(new User("rescore@example.com", "hash"));
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < 5; i++) {
+            dailyMetricsRepository.save(new DailyMetrics(user, today.minusDays(i), new BigDecimal("1000.00"),
+                BigDecimal.valueOf(700 + 20 * i), new BigDecimal("15.50")));
+        }
+        // Rows stored before versioning, two of them scored by some older formula
+        jdbcTemplate.update("UPDATE daily_metrics SET health_score_version = NULL");
+        jdbcTemplate.update("UPDATE daily_metrics SET health_score = 99 WHERE metric_date >= ?", today.minusDays(1));
+
+        assertTrue(recomputeService.recompute());
+
+        for (DailyMetrics day : dailyMetricsRepository.findAll()) {
+            assertEquals(HealthScoreFormula.CURRENT.score(day.getSales(), day.getExpenses(), day.getWastage()),
+                         day.getHealthScore());
+            assertEquals(HealthScoreFormula.CURRENT.getVersion(), day.getHealthScoreVersion());
+        }
+        JobCheckpoint checkpoint = checkpointRepository.findById(HealthScoreRecomputeService.JOB_NAME).orElseThrow();
+        assertFalse(checkpoint.isInProgress());
+        assertEquals("V" + HealthScoreFormula.CURRENT.getVersion(), checkpoint.getPhase());
+        assertEquals(2, checkpoint.getProcessed());
+        verify(metricsRollupService).restartBackfill();
+        verify(peerBenchmarkService).rebuild();
+
+        // Nothing to do until the formula changes again
+        jdbcTemplate.update("UPDATE daily_metrics SET health_score_version = NULL");
+        assertTrue(recomputeService.recompute());
+        assertEquals(5, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM daily_metrics WHERE health_score_version IS NULL", Integer.class));
+        verify(metricsRollupService, times(1)).restartBackfill();
+        verify(peerBenchmarkService, times(1)).rebuild();
+    }
+
+    @Test
+    void testFormulaMatchesTheDecimalArithmeticItReplaced() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // Mostly realistic days, with some tiny sales to reach the rounding edges
+            long salesPaise = random.nextInt(10) == 0 ? random.nextInt(1000) : random.nextInt(100_000_000);
+            BigDecimal sales = BigDecimal.valueOf(salesPaise, 2);
+            BigDecimal expenses = BigDecimal.valueOf(random.nextInt(150_000_000), 2);
+            BigDecimal wastage = BigDecimal.valueOf(random.nextInt(20_000_000), 2);
+            assertEquals(decimalScore(sales, expenses, wastage), HealthScoreFormula.V1.score(sales, expenses, wastage),
+                         sales + " / " + expenses + " / " + wastage);
+        }
+    }
+
+    private static int decimalScore(BigDecimal sales, BigDecimal expenses, BigDecimal wastage) {
+        if (sales.compareTo(BigDecimal.ZERO) <= 0) {
+            return 0;
+        }
+        BigDecimal margin = sales.subtract(expenses).divide(sales, 4, RoundingMode.HALF_UP);
+        BigDecimal wastagePercent = wastage.divide(sales, 4, RoundingMode.HALF_UP);
+        int marginScore = Math.min(70, margin.multiply(BigDecimal.valueOf(350)).intValue());
+        int wastagePenalty = Math.min(30, wastagePercent.multiply(BigDecimal.valueOf(300)).intValue());
+        return Math.max(0, Math.min(100, marginScore - wastagePenalty));
+    }
+}
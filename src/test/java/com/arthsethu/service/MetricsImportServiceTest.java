@@ -0,0 +1,138 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.DailyMetrics;
+import com.arthsethu.model.DomainEventType;
+import com.arthsethu.model.HealthScoreFormula;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.DailyMetricsBulkRepository;
+import com.arthsethu.repository.DailyMetricsRepository;
+import com.arthsethu.repository.UserRepository;
+import com.arthsethu.service.MetricsImportService.Format;
+import com.arthsethu.service.MetricsImportService.ImportResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({MetricsImportService.class, DailyMetricsBulkRepository.class, MetricsImportServiceTest.Config.class})
+@TestPropertySource(properties = "arthsethu.metrics.import.batch-size=2")
+class MetricsImportServiceTest {
+
+    @Autowired
+    private MetricsImportService importService;
+
+    @Autowired
+    private DailyMetricsRepository dailyMetricsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private DomainEventPublisher eventPublisher;
+
+    @MockBean
+    private SimpMessagingTemplate messagingTemplate;
+
+    @MockBean
+    private MetricsRollupService rollupService;
+
+    @Test
+    void testCsvRowsAreValidatedAndUpsertedOverExistingDays() throws Exception {
+        User user = userRepository.save(new User("importer@example.com", "hash"));
+        LocalDate day = LocalDate.now().minusDays(10);
+        DailyMetrics existing = dailyMetricsRepository.saveAndFlush(
+            new DailyMetrics(user, day, new BigDecimal("100"), new BigDecimal("90"), BigDecimal.ZERO));
+
+        String csv = "Wastage,Date,Sales,Expenses,Notes\n" +
+                     "10," + day + ",\"1,200.50\",800,overwrites the saved day\n" +
+                     "\n" +
+                     "5," + day.minusDays(1) + ",500,300,\n" +
+                     "5," + day.minusDays(2) + ",-1,300,\n" +
+                     "0," + LocalDate.now().plusDays(1) + ",100,50,\n" +
+                     "2," + day.minusDays(3) + ",400,350,\n";
+
+        ImportResult result = importService.importMetrics(user, stream(csv), Format.CSV);
+        entityManager.clear();
+
+        assertEquals(5, result.getRowsRead());
+        assertEquals(3, result.getImported());
+        assertEquals(2, result.getRejected());
+        assertEquals(2, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).startsWith("Line 5"));
+        assertEquals(day.minusDays(3), result.getFirstDate());
+        assertEquals(day, result.getLastDate());
+
+        DailyMetrics overwritten = dailyMetricsRepository.findByUserAndDate(user, day).orElseThrow();
+        assertEquals(existing.getId(), overwritten.getId());
+        assertEquals(0, new BigDecimal("1200.50").compareTo(overwritten.getSales()));
+        assertEquals(HealthScoreFormula.CURRENT.score(new BigDecimal("1200.50"), new BigDecimal("800"), BigDecimal.TEN),
+                     overwritten.getHealthScore());
+        assertEquals(3, dailyMetricsRepository.countByUser(user));
+
+        // One full batch of two rows and the remainder; the rejected rows never reach the database
+        verify(eventPublisher, times(2)).publish(eq(DomainEventType.METRICS_IMPORTED), eq(user.getId()), anyMap());
+    }
+
+    @Test
+    void testJsonArrayIsStreamedInBatches() throws Exception {
+        User user = userRepository.save(new User("json@example.com", "hash"));
+        LocalDate start = LocalDate.now().minusDays(30);
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 5; i++) {
+            json.append(i > 0 ? "," : "")
+                .append("{\"date\":\"").append(start.plusDays(i)).append("\",\"sales\":1000,\"expenses\":700.25,\"wastage\":20}");
+        }
+        json.append("]");
+
+        ImportResult result = importService.importMetrics(user, stream(json.toString()), Format.JSON);
+
+        assertEquals(5, result.getImported());
+        List<DailyMetrics> stored = dailyMetricsRepository.findByUser(user);
+        assertEquals(5, stored.size());
+        assertTrue(stored.stream().allMatch(m -> m.getId() != null
+            && new BigDecimal("700.25").compareTo(m.getExpenses()) == 0));
+        verify(eventPublisher, times(3)).publish(eq(DomainEventType.METRICS_IMPORTED), eq(user.getId()), anyMap());
+        verify(messagingTemplate, times(4)).convertAndSendToUser(eq("json@example.com"), eq("/topic/imports"), anyMap());
+
+        assertThrows(IllegalArgumentException.class,
+            () -> importService.importMetrics(user, stream("{\"date\":\"2024-01-01\"}"), Format.JSON));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+    }
+}
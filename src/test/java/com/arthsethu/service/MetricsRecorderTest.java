@@ -0,0 +1,77 @@
+package com.arthsethu.service;
+
+import com.arthsethu.dto.MetricSeriesDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class MetricsRecorderTest {
+
+    private MetricsRecorder recorder;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        recorder = new MetricsRecorder(mock(ObjectProvider.class), mock(ObjectProvider.class),
+            mock(ObjectProvider.class), mock(ObjectProvider.class), mock(ObjectProvider.class), 4, 1000);
+    }
+
+    @Test
+    void testRingBufferKeepsOnlyTheLatestSamples() {
+        AtomicLong value = new AtomicLong();
+        recorder.registerGauge("queue", "items", MetricsRecorder.Rollup.AVG, value::get);
+
+        for (int i = 1; i <= 6; i++) {
+            value.set(i);
+            recorder.sample();
+        }
+
+        MetricSeriesDTO series = recorder.getSeries("queue", Duration.ofHours(1), 10);
+        assertEquals(Arrays.asList(3.0, 4.0, 5.0, 6.0), series.getValues());
+        assertEquals(6.0, series.getLatest());
+    }
+
+    @Test
+    void testDownsamplingAppliesRollupPerBucket() {
+        AtomicLong value = new AtomicLong();
+        AtomicLong total = new AtomicLong();
+        recorder.registerGauge("threads", "threads", MetricsRecorder.Rollup.MAX, value::get);
+        recorder.registerCounter("gc.pause", "ms", total::get);
+
+        long[] samples = { 10, 30, 20, 40 };
+        for (long sample : samples) {
+            value.set(sample);
+            total.addAndGet(sample);
+            recorder.sample();
+        }
+
+        assertEquals(Arrays.asList(30.0, 40.0), recorder.getSeries("threads", Duration.ofHours(1), 2).getValues());
+        // Counter records deltas, and SUM keeps the total pause time when buckets are merged
+        assertEquals(Arrays.asList(40.0, 60.0), recorder.getSeries("gc.pause", Duration.ofHours(1), 2).getValues());
+    }
+
+    @Test
+    void testRatioWithoutActivityRecordsGap() {
+        AtomicLong hits = new AtomicLong();
+        AtomicLong lookups = new AtomicLong();
+        recorder.registerRatio("cache.hitRate", hits::get, lookups::get);
+
+        hits.set(3);
+        lookups.set(4);
+        recorder.sample();
+        recorder.sample();
+
+        MetricSeriesDTO series = recorder.getSeries("cache.hitRate", Duration.ofHours(1), 10);
+        assertEquals(75.0, series.getValues().get(0));
+        assertNull(series.getValues().get(1));
+        assertNull(series.getLatest());
+        assertNull(recorder.getSeries("missing", Duration.ofHours(1), 10));
+    }
+}
@@ -0,0 +1,134 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.DailyMetrics;
+import com.arthsethu.model.DomainEventType;
+import com.arthsethu.model.MetricsRollup;
+import com.arthsethu.model.RollupGranularity;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.DailyMetricsBulkRepository;
+import com.arthsethu.repository.DailyMetricsPartitionRepository;
+import com.arthsethu.repository.DailyMetricsRepository;
+import com.arthsethu.repository.JobCheckpointRepository;
+import com.arthsethu.repository.MetricsRollupBulkRepository;
+import com.arthsethu.repository.MetricsRollupRepository;
+import com.arthsethu.repository.UserRepository;
+import com.arthsethu.service.DomainEventListener.DomainEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs without a test transaction, so each backfill month and retention chunk really commits
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({MetricsRollupService.class, DailyMetricsBulkRepository.class, DailyMetricsPartitionRepository.class,
+         MetricsRollupBulkRepository.class})
+@TestPropertySource(properties = {"arthsethu.metrics.retention.raw-months=2",
+                                  "arthsethu.metrics.retention.delete-chunk-size=2"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MetricsRollupServiceTest {
+
+    @Autowired
+    private MetricsRollupService rollupService;
+
+    @Autowired
+    private DailyMetricsRepository dailyMetricsRepository;
+
+    @Autowired
+    private MetricsRollupRepository rollupRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JobCheckpointRepository checkpointRepository;
+
+    private final LocalDate today = LocalDate.now();
+    private final LocalDate lastMonth = today.withDayOfMonth(1).minusMonths(1);
+
+    @AfterEach
+    void cleanUp() {
+        checkpointRepository.deleteAll();
+        rollupRepository.deleteAll();
+        dailyMetricsRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testImportedDaysAreRolledUpByWeekAndMonth() {
+        User user = userRepository.save(new User("rollup@example.com", "hash"));
+        DailyMetrics first = record(user, lastMonth.plusDays(2), "1000", "700", "50");
+        DailyMetrics second = record(user, lastMonth.plusDays(3), "500.50", "450", "0");
+        DailyMetrics third = record(user, lastMonth.plusDays(20), "800", "900", "10");
+
+        rollupService.onEvents(List.of(
+            event(DomainEventType.METRICS_IMPORTED, user, Map.of("from", lastMonth.plusDays(2).toString(),
+                                                                 "to", lastMonth.plusDays(3).toString(), "rows", 2)),
+            event(DomainEventType.METRICS_RECORDED, user, Map.of("date", lastMonth.plusDays(20).toString()))));
+
+        MetricsRollup month = rollup(user, RollupGranularity.MONTH, lastMonth);
+        assertEquals(3, month.getDays());
+        assertEquals(0, new BigDecimal("2300.50").compareTo(month.getSalesTotal()));
+        assertEquals(0, new BigDecimal("2050").compareTo(month.getExpensesTotal()));
+        assertEquals(0, new BigDecimal("766.83").compareTo(month.getAverageSales()));
+        List<Integer> scores = List.of(first.getHealthScore(), second.getHealthScore(), third.getHealthScore());
+        assertEquals(scores.stream().min(Integer::compare).orElseThrow(), month.getHealthScoreMin());
+        assertEquals(scores.stream().max(Integer::compare).orElseThrow(), month.getHealthScoreMax());
+
+        LocalDate week = RollupGranularity.WEEK.startOf(lastMonth.plusDays(20));
+        assertEquals(1, rollup(user, RollupGranularity.WEEK, week).getDays());
+
+        List<MetricsRollup> history = rollupService.getHistory(user, RollupGranularity.MONTH, 3, today);
+        assertEquals(List.of(lastMonth), history.stream().map(MetricsRollup::getPeriodStart).toList());
+    }
+
+    @Test
+    void testBackfillRollsUpHistoryBeforeRetentionDeletesIt() {
+        User user = userRepository.save(new User("history@example.com", "hash"));
+        LocalDate oldMonth = today.withDayOfMonth(1).minusMonths(4);
+        for (int day = 0; day < 5; day++) {
+            record(user, oldMonth.plusDays(day), "100", "80", "0");
+        }
+        record(user, lastMonth.plusDays(1), "300", "200", "0");
+
+        assertTrue(rollupService.maintain(today));
+
+        assertEquals(5, rollup(user, RollupGranularity.MONTH, oldMonth).getDays());
+        assertEquals(1, rollup(user, RollupGranularity.MONTH, lastMonth).getDays());
+        assertEquals(1, dailyMetricsRepository.countByUser(user));
+        assertFalse(checkpointRepository.findById(MetricsRollupService.BACKFILL_JOB).orElseThrow().isInProgress());
+
+        // Periods before the cutoff keep their rollups; their raw rows are gone
+        rollupService.rollUp(user.getId(), oldMonth, oldMonth.plusDays(4));
+        assertEquals(5, rollup(user, RollupGranularity.MONTH, oldMonth).getDays());
+    }
+
+    private DailyMetrics record(User user, LocalDate date, String sales, String expenses, String wastage) {
+        return dailyMetricsRepository.save(new DailyMetrics(user, date, new BigDecimal(sales),
+                                                            new BigDecimal(expenses), new BigDecimal(wastage)));
+    }
+
+    private MetricsRollup rollup(User user, RollupGranularity granularity, LocalDate periodStart) {
+        return rollupRepository.findByUserIdAndGranularityAndPeriodStart(user.getId(), granularity, periodStart)
+            .orElseThrow();
+    }
+
+    private static DomainEvent event(DomainEventType type, User user, Map<String, Object> payload) {
+        return new DomainEvent(1L, type, user.getId(), payload, LocalDateTime.now());
+    }
+}
@@ -30,6 +30,9 @@ class OnboardingServiceTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private DomainEventPublisher eventPublisher;
+
     @InjectMocks
     private OnboardingService onboardingService;
 
@@ -0,0 +1,161 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.DomainEventType;
+import com.arthsethu.model.OutboxEvent;
+import com.arthsethu.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs without a test transaction, like the dispatcher thread does
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({OutboxDispatcher.class, DomainEventPublisher.class, OutboxDispatcherTest.Config.class})
+@TestPropertySource(properties = {"arthsethu.outbox.batch-size=2", "arthsethu.outbox.retry-backoff-ms=0"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxDispatcherTest {
+
+    @Autowired
+    private OutboxDispatcher dispatcher;
+
+    @Autowired
+    private DomainEventPublisher publisher;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private RecordingListener listener;
+
+    @Autowired
+    private CountingListener countingListener;
+
+    @AfterEach
+    void cleanUp() {
+        outboxEventRepository.deleteAll();
+        listener.delivered.clear();
+        countingListener.delivered.clear();
+    }
+
+    @Test
+    void testFailingEventIsRetriedWithoutHoldingBackItsBatch() {
+        OutboxEvent upgrade = outboxEventRepository.save(new OutboxEvent(DomainEventType.TIER_CHANGED, 1L, "{\"to\":\"SHIKHAR\"}"));
+        OutboxEvent poison = outboxEventRepository.save(new OutboxEvent(DomainEventType.TIER_CHANGED, 99L, "{}"));
+        OutboxEvent metrics = outboxEventRepository.save(new OutboxEvent(DomainEventType.METRICS_RECORDED, 2L, "{}"));
+        listener.failuresLeft = 2; // the batch, then the poison event on its own
+
+        assertEquals(2, dispatcher.dispatchPending());
+
+        assertNotNull(reload(upgrade).getDispatchedAt());
+        assertNotNull(reload(metrics).getDispatchedAt());
+        assertNull(reload(poison).getDispatchedAt());
+        assertEquals(1, reload(poison).getAttempts());
+        assertEquals("SHIKHAR", listener.delivered.get(0).payload().get("to"));
+
+        // Redelivered on the next pass once the listener recovers
+        assertEquals(1, dispatcher.dispatchPending());
+        assertNotNull(reload(poison).getDispatchedAt());
+        assertEquals(0, outboxEventRepository.countByDispatchedAtIsNull());
+        // METRICS_RECORDED is not one of the listener's types
+        assertTrue(listener.delivered.stream().noneMatch(e -> e.type() == DomainEventType.METRICS_RECORDED));
+    }
+
+    @Test
+    void testRetryOnlyGoesToTheListenerThatFailed() {
+        OutboxEvent poison = outboxEventRepository.save(new OutboxEvent(DomainEventType.TIER_CHANGED, 99L, "{}"));
+        listener.failuresLeft = 2; // the batch, then the event on its own
+
+        assertEquals(0, dispatcher.dispatchPending());
+        assertEquals(List.of(poison.getId()), countingListener.delivered);
+        assertEquals("CountingListener", reload(poison).getDeliveredTo());
+        assertTrue(reload(poison).getLastError().startsWith("RecordingListener: "));
+
+        assertEquals(1, dispatcher.dispatchPending());
+        assertNotNull(reload(poison).getDispatchedAt());
+        assertEquals(1, listener.delivered.size());
+        // The listener that succeeded first time round is not handed the event again
+        assertEquals(List.of(poison.getId()), countingListener.delivered);
+    }
+
+    @Test
+    void testEventsCanOnlyBePublishedInsideATransaction() {
+        assertThrows(IllegalTransactionStateException.class,
+            () -> publisher.publish(DomainEventType.USER_UNBANNED, 1L, Map.of()));
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    private OutboxEvent reload(OutboxEvent event) {
+        return outboxEventRepository.findById(event.getId()).orElseThrow();
+    }
+
+    static class RecordingListener implements DomainEventListener {
+        final List<DomainEvent> delivered = new ArrayList<>();
+        int failuresLeft;
+
+        @Override
+        public Set<DomainEventType> getEventTypes() {
+            return EnumSet.of(DomainEventType.TIER_CHANGED);
+        }
+
+        @Override
+        public void onEvents(List<DomainEvent> events) {
+            if (failuresLeft > 0 && events.stream().anyMatch(e -> e.userId() == 99L)) {
+                failuresLeft--;
+                throw new IllegalStateException("cannot handle user 99");
+            }
+            delivered.addAll(events);
+        }
+    }
+
+    static class CountingListener implements DomainEventListener {
+        final List<Long> delivered = new ArrayList<>();
+
+        @Override
+        public Set<DomainEventType> getEventTypes() {
+            return EnumSet.of(DomainEventType.TIER_CHANGED);
+        }
+
+        @Override
+        public void onEvents(List<DomainEvent> events) {
+            events.forEach(e -> delivered.add(e.id()));
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+
+        @Bean
+        CountingListener countingListener() {
+            return new CountingListener();
+        }
+    }
+}
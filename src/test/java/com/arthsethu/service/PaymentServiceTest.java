@@ -0,0 +1,109 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.Subscription;
+import com.arthsethu.model.SubscriptionStatus;
+import com.arthsethu.model.SubscriptionTier;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.SubscriptionRepository;
+import com.arthsethu.repository.UserRepository;
+import com.arthsethu.security.EntitlementCache;
+import com.arthsethu.service.PaymentGateway.PaymentCallback;
+import com.arthsethu.service.PaymentGateway.PaymentRequest;
+import com.arthsethu.service.PaymentGateway.PaymentResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PaymentServiceTest {
+
+    private SubscriptionRepository subscriptionRepository;
+    private PaymentGateway paymentGateway;
+    private SimpMessagingTemplate messagingTemplate;
+    private PaymentService paymentService;
+
+    private User user;
+    private Subscription subscription;
+
+    @BeforeEach
+    void setUp() {
+        subscriptionRepository = mock(SubscriptionRepository.class);
+        paymentGateway = mock(PaymentGateway.class);
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        paymentService = new PaymentService(subscriptionRepository, mock(UserRepository.class),
+            mock(RevenueCubeService.class), mock(EntitlementCache.class), mock(DomainEventPublisher.class), paymentGateway, messagingTemplate,
+            mock(PlatformTransactionManager.class), 600_000);
+
+        user = new User("vistar@example.com", "hash");
+        user.setId(3L);
+        subscription = new Subscription(user, SubscriptionTier.VISTAR);
+        subscription.setId(11L);
+
+        when(subscriptionRepository.findById(11L)).thenReturn(Optional.of(subscription));
+        when(subscriptionRepository.save(any(Subscription.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(subscriptionRepository.findByPaymentReferenceForUpdate(any()))
+            .thenAnswer(invocation -> invocation.getArgument(0).equals(subscription.getPaymentReference())
+                ? Optional.of(subscription) : Optional.empty());
+    }
+
+    @Test
+    void testPaymentSettlesThroughCallbackOnce() {
+        Subscription processing = paymentService.startPayment(user, 11L, "upi");
+        assertEquals(SubscriptionStatus.PROCESSING, processing.getStatus());
+        assertNotNull(processing.getPaymentReference());
+
+        PaymentCallback callback = captureCallback(1);
+        PaymentResult success = new PaymentResult(processing.getPaymentReference(), true, null);
+        callback.onResult(success);
+
+        assertEquals(SubscriptionStatus.ACTIVE, subscription.getStatus());
+        assertEquals(SubscriptionTier.VISTAR, user.getTier());
+        verify(messagingTemplate).convertAndSendToUser(eq("vistar@example.com"), eq("/topic/payments"), anyMap());
+
+        // A duplicate delivery (e.g. the webhook after the callback) changes nothing
+        assertTrue(paymentService.completePayment(success));
+        verify(messagingTemplate, times(1)).convertAndSendToUser(any(), any(), anyMap());
+        assertFalse(paymentService.completePayment(new PaymentResult("PAY_UNKNOWN", true, null)));
+    }
+
+    @Test
+    void testFailedPaymentCanBeRetried() {
+        String firstReference = paymentService.startPayment(user, 11L, "card").getPaymentReference();
+        captureCallback(1).onResult(new PaymentResult(firstReference, false, "Payment declined"));
+        assertEquals(SubscriptionStatus.FAILED, subscription.getStatus());
+
+        assertThrows(IllegalStateException.class, () -> {
+            subscription.setStatus(SubscriptionStatus.PROCESSING);
+            paymentService.startPayment(user, 11L, "card");
+        });
+        subscription.setStatus(SubscriptionStatus.FAILED);
+
+        String retryReference = paymentService.startPayment(user, 11L, "card").getPaymentReference();
+        assertNotEquals(firstReference, retryReference);
+        assertEquals(SubscriptionStatus.PROCESSING, subscription.getStatus());
+    }
+
+    @Test
+    void testOtherUsersSubscriptionCannotBePaid() {
+        User other = new User("other@example.com", "hash");
+        other.setId(4L);
+
+        assertThrows(IllegalArgumentException.class, () -> paymentService.startPayment(other, 11L, "upi"));
+        verifyNoInteractions(paymentGateway);
+    }
+
+    private PaymentCallback captureCallback(int times) {
+        ArgumentCaptor<PaymentCallback> callback = ArgumentCaptor.forClass(PaymentCallback.class);
+        verify(paymentGateway, times(times)).initiate(any(PaymentRequest.class), callback.capture());
+        return callback.getValue();
+    }
+}
@@ -0,0 +1,176 @@
+package com.arthsethu.service;
+
+import com.arthsethu.dto.BenchmarkDTO;
+import com.arthsethu.dto.BenchmarkDTO.BenchmarkRank;
+import com.arthsethu.model.BenchmarkMetric;
+import com.arthsethu.model.BusinessProfile;
+import com.arthsethu.model.BusinessType;
+import com.arthsethu.model.DailyMetrics;
+import com.arthsethu.model.DomainEventType;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.BusinessProfileRepository;
+import com.arthsethu.repository.DailyMetricsRepository;
+import com.arthsethu.repository.PeerBenchmarkContributionRepository;
+import com.arthsethu.repository.PeerBenchmarkSketchRepository;
+import com.arthsethu.repository.UserRepository;
+import com.arthsethu.service.DomainEventListener.DomainEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs without a test transaction, so sketch rows are created and locked as in production.
+ * The group cache is off so each lookup sees the events before it.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(PeerBenchmarkService.class)
+@TestPropertySource(properties = "arthsethu.benchmark.cache-ttl-ms=0")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PeerBenchmarkServiceTest {
+
+    @Autowired
+    private PeerBenchmarkService peerBenchmarkService;
+
+    @Autowired
+    private PeerBenchmarkSketchRepository sketchRepository;
+
+    @Autowired
+    private PeerBenchmarkContributionRepository contributionRepository;
+
+    @Autowired
+    private BusinessProfileRepository businessProfileRepository;
+
+    @Autowired
+    private DailyMetricsRepository dailyMetricsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final LocalDate today = LocalDate.now();
+
+    @AfterEach
+    void cleanUp() {
+        contributionRepository.deleteAll();
+        sketchRepository.deleteAll();
+        dailyMetricsRepository.deleteAll();
+        businessProfileRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testDaysRankAgainstTheirPeerGroupAndRevisionsReplaceTheLatestDay() {
+        User peer = user("peer@example.com", "Pune");
+        User other = user("other@example.com", "Mumbai");
+        User user = user("ranked@example.com", " pune ");
+        // Peer margins run from 0% to 39%, spanning two months of sketches
+        for (int i = 0; i < 40; i++) {
+            peerBenchmarkService.onEvents(List.of(
+                record(peer, today.minusDays(39 - i), "1000", String.valueOf(1000 - 10 * i), "10"),
+                record(other, today.minusDays(39 - i), "1000", "100", "10")));
+        }
+
+        DomainEvent latest = record(user, today, "1000", "700", "10");
+        peerBenchmarkService.onEvents(List.of(latest));
+        BenchmarkDTO benchmarks = benchmarks(user, today, "1000", "700", "10");
+
+        assertEquals(" pune ", benchmarks.getCity());
+        assertEquals(3, benchmarks.getRanks().size());
+        BenchmarkRank margin = rank(benchmarks, BenchmarkMetric.MARGIN);
+        assertEquals(41, margin.getPeerDays());
+        assertEquals(0.30, margin.getValue(), 1e-9);
+        assertEquals(0.20, margin.getPeerMedian(), 0.02);
+        assertEquals(76, margin.getBetterThanPercent(), 3);
+
+        // Resubmitting the day swaps its values; redelivery and older days change nothing
+        DomainEvent revised = record(user, today, "1000", "900", "10");
+        peerBenchmarkService.onEvents(List.of(revised, revised));
+        peerBenchmarkService.onEvents(List.of(record(user, today.minusDays(1), "1000", "0", "0")));
+        margin = rank(benchmarks(user, today, "1000", "900", "10"), BenchmarkMetric.MARGIN);
+        assertEquals(41, margin.getPeerDays());
+        assertEquals(27, margin.getBetterThanPercent(), 3);
+
+        // Lower wastage is better
+        BenchmarkRank wastage = rank(benchmarks(user, today, "1000", "900", "0"), BenchmarkMetric.WASTAGE);
+        assertTrue(wastage.getBetterThanPercent() > 95);
+    }
+
+    @Test
+    void testImportsAreCountedOnceAndRebuildGivesTheSameSketches() {
+        User peer = user("import@example.com", "Nagpur");
+        for (int i = 0; i < 35; i++) {
+            dailyMetricsRepository.save(new DailyMetrics(peer, today.minusDays(i), new BigDecimal("1000"),
+                BigDecimal.valueOf(600 + 10 * i), new BigDecimal("20")));
+        }
+        DomainEvent imported = new DomainEvent(1L, DomainEventType.METRICS_IMPORTED, peer.getId(),
+            Map.of("from", today.minusDays(34).toString(), "to", today.toString(), "rows", 35), LocalDateTime.now());
+        peerBenchmarkService.onEvents(List.of(imported, imported));
+
+        BenchmarkDTO incremental = benchmarks(peer, today, "1000", "700", "20");
+        assertEquals(35, rank(incremental, BenchmarkMetric.HEALTH_SCORE).getPeerDays());
+
+        assertEquals(35, peerBenchmarkService.rebuild());
+        BenchmarkDTO rebuilt = benchmarks(peer, today, "1000", "700", "20");
+        for (BenchmarkMetric metric : BenchmarkMetric.values()) {
+            assertEquals(rank(incremental, metric).getBetterThanPercent(), rank(rebuilt, metric).getBetterThanPercent());
+            assertEquals(rank(incremental, metric).getPeerDays(), rank(rebuilt, metric).getPeerDays());
+        }
+    }
+
+    @Test
+    void testSketchesMergeExactlyInAnyOrder() {
+        PercentileSketch first = new PercentileSketch(BenchmarkMetric.HEALTH_SCORE);
+        PercentileSketch second = new PercentileSketch(BenchmarkMetric.HEALTH_SCORE);
+        for (int score = 0; score <= 100; score++) {
+            (score % 2 == 0 ? first : second).add(score);
+        }
+        PercentileSketch firstThenSecond = PercentileSketch.decode(BenchmarkMetric.HEALTH_SCORE, first.encode());
+        firstThenSecond.merge(second);
+        PercentileSketch secondThenFirst = PercentileSketch.decode(BenchmarkMetric.HEALTH_SCORE, second.encode());
+        secondThenFirst.merge(first);
+
+        assertEquals(firstThenSecond.encode(), secondThenFirst.encode());
+        assertEquals(101, firstThenSecond.total());
+        assertEquals(50, firstThenSecond.quantile(0.5), 1e-9);
+        assertEquals(50, firstThenSecond.rank(50), 1e-9);
+
+        firstThenSecond.remove(100);
+        assertEquals(100, firstThenSecond.total());
+        assertFalse(firstThenSecond.encode().contains("100:"));
+    }
+
+    private User user(String email, String city) {
+        User user = userRepository.save(new User(email, "hash"));
+        businessProfileRepository.save(new BusinessProfile(user, BusinessType.CAFE, city));
+        return user;
+    }
+
+    private BenchmarkDTO benchmarks(User user, LocalDate date, String sales, String expenses, String wastage) {
+        DailyMetrics latest = new DailyMetrics(user, date, new BigDecimal(sales), new BigDecimal(expenses), new BigDecimal(wastage));
+        return peerBenchmarkService.getBenchmarks(user, latest, today).orElseThrow();
+    }
+
+    private static BenchmarkRank rank(BenchmarkDTO benchmarks, BenchmarkMetric metric) {
+        return benchmarks.getRanks().stream().filter(rank -> rank.getMetric().equals(metric.name())).findFirst().orElseThrow();
+    }
+
+    private static DomainEvent record(User user, LocalDate date, String sales, String expenses, String wastage) {
+        Map<String, Object> payload = Map.of("date", date.toString(), "sales", sales, "expenses", expenses,
+                                             "wastage", wastage, "healthScore", 0);
+        return new DomainEvent(1L, DomainEventType.METRICS_RECORDED, user.getId(), payload, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,110 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.Subscription;
+import com.arthsethu.model.SubscriptionStatus;
+import com.arthsethu.model.SubscriptionTier;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.SubscriptionRepository;
+import com.arthsethu.repository.UserRepository;
+import com.arthsethu.service.RevenueCubeService.Contribution;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(RevenueCubeService.class)
+class RevenueCubeServiceTest {
+
+    @Autowired
+    private RevenueCubeService revenueCubeService;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void testIncrementalCubeMatchesSubscriptionScans() {
+        LocalDateTime lastWeek = LocalDateTime.now().minusDays(7);
+        Subscription vistar = subscribe("v@example.com", SubscriptionTier.VISTAR, lastWeek);
+        Subscription shikhar = subscribe("s@example.com", SubscriptionTier.SHIKHAR, lastWeek);
+        subscribe("a@example.com", SubscriptionTier.AARAMBH, lastWeek);
+
+        // Payment activates the pending subscriptions and moves them to today's cell
+        activate(vistar);
+        activate(shikhar);
+
+        // Cancelling moves the amount out of the ACTIVE cells
+        Contribution before = Contribution.of(shikhar);
+        shikhar.cancel();
+        subscriptionRepository.save(shikhar);
+        revenueCubeService.move(before, Contribution.of(shikhar));
+
+        LocalDate today = LocalDate.now();
+        RevenueCubeService.RevenueSlice todaySlice = revenueCubeService.slice(today, today);
+        RevenueCubeService.RevenueSlice all = revenueCubeService.sliceAll();
+
+        assertAmountEquals(subscriptionRepository.getTotalRevenueByDateRange(
+            SubscriptionStatus.ACTIVE, today.atStartOfDay(), LocalDateTime.now()), todaySlice.getAmount(SubscriptionStatus.ACTIVE));
+        assertAmountEquals(subscriptionRepository.getMonthlyRecurringRevenue(SubscriptionStatus.ACTIVE, SubscriptionTier.AARAMBH),
+            all.getAmountExcluding(SubscriptionTier.AARAMBH, SubscriptionStatus.ACTIVE));
+        assertEquals(subscriptionRepository.countPaidSubscriptions(SubscriptionTier.AARAMBH, SubscriptionStatus.ACTIVE),
+            all.getCountExcluding(SubscriptionTier.AARAMBH, SubscriptionStatus.ACTIVE));
+        assertAmountEquals(BigDecimal.valueOf(SubscriptionTier.SHIKHAR.getMonthlyPrice()),
+            todaySlice.getAmount(SubscriptionTier.SHIKHAR, SubscriptionStatus.CANCELLED));
+        assertEquals(1, all.getCount(SubscriptionTier.AARAMBH, SubscriptionStatus.ACTIVE));
+
+        assertAmountEquals(BigDecimal.valueOf(SubscriptionTier.VISTAR.getMonthlyPrice()),
+            revenueCubeService.getDailySeries(SubscriptionStatus.ACTIVE, today.minusDays(1), today)
+                .get(today).get(SubscriptionTier.VISTAR));
+    }
+
+    @Test
+    void testRebuildReproducesIncrementalCube() {
+        Subscription vistar = subscribe("r@example.com", SubscriptionTier.VISTAR, LocalDateTime.now().minusDays(3));
+        activate(vistar);
+        subscribe("q@example.com", SubscriptionTier.AARAMBH, LocalDateTime.now().minusDays(2));
+
+        RevenueCubeService.RevenueSlice incremental = revenueCubeService.sliceAll();
+        revenueCubeService.rebuild();
+        RevenueCubeService.RevenueSlice rebuilt = revenueCubeService.sliceAll();
+
+        for (SubscriptionTier tier : SubscriptionTier.values()) {
+            for (SubscriptionStatus status : SubscriptionStatus.values()) {
+                assertAmountEquals(incremental.getAmount(tier, status), rebuilt.getAmount(tier, status));
+                assertEquals(incremental.getCount(tier, status), rebuilt.getCount(tier, status));
+            }
+        }
+    }
+
+    private Subscription subscribe(String email, SubscriptionTier tier, LocalDateTime startDate) {
+        User user = userRepository.save(new User(email, "hash"));
+        Subscription subscription = new Subscription(user, tier);
+        subscription.setStartDate(startDate);
+        subscription = subscriptionRepository.save(subscription);
+        revenueCubeService.move(null, Contribution.of(subscription));
+        return subscription;
+    }
+
+    private void activate(Subscription subscription) {
+        Contribution before = Contribution.of(subscription);
+        subscription.activate();
+        subscriptionRepository.save(subscription);
+        revenueCubeService.move(before, Contribution.of(subscription));
+    }
+
+    private static void assertAmountEquals(BigDecimal expected, BigDecimal actual) {
+        BigDecimal normalisedExpected = expected != null ? expected : BigDecimal.ZERO;
+        assertEquals(0, normalisedExpected.compareTo(actual), () -> "expected " + expected + " but was " + actual);
+    }
+}
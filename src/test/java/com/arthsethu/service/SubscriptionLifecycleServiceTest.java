@@ -0,0 +1,174 @@
+package com.arthsethu.service;
+
+import com.arthsethu.model.JobCheckpoint;
+import com.arthsethu.model.Subscription;
+import com.arthsethu.model.SubscriptionStatus;
+import com.arthsethu.model.SubscriptionTier;
+import com.arthsethu.model.User;
+import com.arthsethu.repository.JobCheckpointRepository;
+import com.arthsethu.repository.SubscriptionRepository;
+import com.arthsethu.repository.UserRepository;
+import com.arthsethu.security.EntitlementCache;
+import com.arthsethu.service.PaymentGateway.PaymentCallback;
+import com.arthsethu.service.PaymentGateway.PaymentRequest;
+import com.arthsethu.service.PaymentGateway.PaymentResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs against the database without a test transaction, so each chunk really commits
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({SubscriptionLifecycleService.class, PaymentService.class})
+@TestPropertySource(properties = "arthsethu.subscription.lifecycle.chunk-size=1")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SubscriptionLifecycleServiceTest {
+
+    @Autowired
+    private SubscriptionLifecycleService lifecycleService;
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JobCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private PaymentGateway paymentGateway;
+
+    @MockBean
+    private SimpMessagingTemplate messagingTemplate;
+
+    @MockBean
+    private RevenueCubeService revenueCubeService;
+
+    @MockBean
+    private EntitlementCache entitlementCache;
+
+    @MockBean
+    private DomainEventPublisher eventPublisher;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @AfterEach
+    void cleanUp() {
+        checkpointRepository.deleteAll();
+        subscriptionRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testRunExpiresEndedSubscriptionsAndRequestsEachRenewalOnce() {
+        Subscription ended = subscribe("ended@example.com", SubscriptionTier.VISTAR, now.minusDays(2), false);
+        Subscription renewing = subscribe("renew@example.com", SubscriptionTier.SHIKHAR, now.plusDays(1), true);
+        Subscription notDue = subscribe("later@example.com", SubscriptionTier.SHIKHAR, now.plusDays(20), true);
+
+        assertTrue(lifecycleService.runCycle(now));
+
+        assertEquals(SubscriptionStatus.EXPIRED, reload(ended).getStatus());
+        assertEquals(SubscriptionTier.AARAMBH, userRepository.findByEmail("ended@example.com").orElseThrow().getTier());
+        assertEquals(SubscriptionTier.SHIKHAR, userRepository.findByEmail("renew@example.com").orElseThrow().getTier());
+        assertEquals(now, reload(renewing).getRenewalRequestedAt());
+        assertNull(reload(notDue).getRenewalRequestedAt());
+        // The charge's reference is stored, so its callback or webhook can settle it
+        ArgumentCaptor<PaymentRequest> request = ArgumentCaptor.forClass(PaymentRequest.class);
+        ArgumentCaptor<PaymentCallback> callback = ArgumentCaptor.forClass(PaymentCallback.class);
+        verify(paymentGateway).initiate(request.capture(), callback.capture());
+        assertEquals(renewing.getId(), request.getValue().subscriptionId());
+        assertEquals(request.getValue().reference(), reload(renewing).getPaymentReference());
+
+        // The next hourly run finds the renewal in flight and leaves it alone
+        assertTrue(lifecycleService.runCycle(now.plusHours(1)));
+        verify(paymentGateway, times(1)).initiate(any(), any());
+        assertNotNull(checkpointRepository.findById(SubscriptionLifecycleService.JOB_NAME).orElseThrow().getCompletedAt());
+
+        callback.getValue().onResult(new PaymentResult(request.getValue().reference(), true, null));
+        assertEquals(renewing.getEndDate().plusDays(30), reload(renewing).getEndDate());
+        assertNull(reload(renewing).getRenewalRequestedAt());
+    }
+
+    @Test
+    void testInterruptedRunResumesAfterItsLastCommittedChunk() {
+        Subscription first = subscribe("first@example.com", SubscriptionTier.VISTAR, now.minusDays(3), false);
+        Subscription second = subscribe("second@example.com", SubscriptionTier.VISTAR, now.minusDays(3), false);
+
+        // A run that crashed after committing the chunk up to the first subscription
+        LocalDateTime crashedAsOf = now.minusHours(2);
+        JobCheckpoint checkpoint = new JobCheckpoint(SubscriptionLifecycleService.JOB_NAME);
+        checkpoint.start("EXPIRE", crashedAsOf);
+        checkpoint.advance(first.getId(), 1);
+        checkpointRepository.save(checkpoint);
+
+        assertTrue(lifecycleService.runCycle(now));
+
+        assertEquals(SubscriptionStatus.ACTIVE, reload(first).getStatus());
+        assertEquals(SubscriptionStatus.EXPIRED, reload(second).getStatus());
+        JobCheckpoint resumed = checkpointRepository.findById(SubscriptionLifecycleService.JOB_NAME).orElseThrow();
+        assertEquals(crashedAsOf, resumed.getAsOf());
+        assertEquals(2L, resumed.getProcessed());
+        assertNotNull(resumed.getCompletedAt());
+    }
+
+    @Test
+    void testRenewalStartedFromACommitCallbackStoresItsReference() {
+        Subscription renewing = subscribe("callback@example.com", SubscriptionTier.SHIKHAR, now.plusDays(1), true);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    paymentService.startRenewal(renewing.getId(), renewing.getEndDate(), renewing.getAmount());
+                }
+            }));
+
+        ArgumentCaptor<PaymentRequest> request = ArgumentCaptor.forClass(PaymentRequest.class);
+        verify(paymentGateway).initiate(request.capture(), any());
+        assertEquals(request.getValue().reference(), reload(renewing).getPaymentReference());
+    }
+
+    private Subscription subscribe(String email, SubscriptionTier tier, LocalDateTime endDate, boolean autoRenew) {
+        User user = new User(email, "hash");
+        user.setTier(tier);
+        user = userRepository.save(user);
+        Subscription subscription = new Subscription(user, tier);
+        subscription.setStatus(SubscriptionStatus.ACTIVE);
+        subscription.setEndDate(endDate);
+        subscription.setAutoRenew(autoRenew);
+        return subscriptionRepository.save(subscription);
+    }
+
+    private Subscription reload(Subscription subscription) {
+        return subscriptionRepository.findById(subscription.getId()).orElseThrow();
+    }
+}
@@ -0,0 +1,47 @@
+package com.arthsethu.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void testItemsFireOnTheTickTheyFallDue() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 10, 100);
+
+        assertTrue(wheel.schedule("soon", 2_500, 0));
+        assertTrue(wheel.schedule("later", 8_000, 0));
+        assertTrue(wheel.schedule("overdue", -5_000, 0));
+        assertFalse(wheel.schedule("beyond", 20_000, 0));
+
+        assertEquals(List.of("overdue"), wheel.advance(1_000));
+        assertEquals(List.of(), wheel.advance(2_000));
+        assertEquals(List.of(), wheel.advance(2_999));
+        assertEquals(List.of("soon"), wheel.advance(3_000));
+
+        // Rescheduling replaces the earlier entry
+        assertTrue(wheel.schedule("later", 9_000, 2_000));
+        assertEquals(List.of(), wheel.advance(8_999));
+        assertEquals(List.of("later"), wheel.advance(9_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testLongPauseFiresEverythingAndCapacityIsBounded() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1000, 10, 3);
+
+        assertTrue(wheel.schedule(1, 3_000, 0));
+        assertTrue(wheel.schedule(2, 6_000, 0));
+        assertTrue(wheel.schedule(3, 9_000, 0));
+        assertFalse(wheel.schedule(4, 9_000, 0));
+
+        // Advancing several revolutions at once still drains every slot
+        List<Integer> due = wheel.advance(60_000);
+        assertEquals(3, due.size());
+        assertTrue(due.containsAll(List.of(1, 2, 3)));
+        assertTrue(wheel.schedule(4, 61_000, 60_000));
+    }
+}